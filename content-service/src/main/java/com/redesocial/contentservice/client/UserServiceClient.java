@@ -0,0 +1,65 @@
+package com.redesocial.contentservice.client;
+
+import com.redesocial.contentservice.dto.UserSummary;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Thin client for the follower graph owned by user-service.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserServiceClient {
+    
+    private final RestTemplateBuilder restTemplateBuilder;
+    
+    @Value("${content.feed.user-service.url:http://localhost:8081}")
+    private String baseUrl = "http://localhost:8081";
+    
+    @Value("${content.feed.user-service.token:}")
+    private String serviceToken = "";
+    
+    @Value("${content.feed.user-service.timeout-ms:2000}")
+    private long timeoutMs = 2000;
+    
+    private RestTemplate restTemplate;
+    
+    @PostConstruct
+    void init() {
+        RestTemplateBuilder builder = restTemplateBuilder
+                .rootUri(baseUrl)
+                .setConnectTimeout(Duration.ofMillis(timeoutMs))
+                .setReadTimeout(Duration.ofMillis(timeoutMs));
+        if (serviceToken != null && !serviceToken.isEmpty()) {
+            builder = builder.defaultHeader("Authorization", "Bearer " + serviceToken);
+        }
+        restTemplate = builder.build();
+    }
+    
+    public UserSummary getUser(String userId) {
+        return restTemplate.getForObject("/api/users/{userId}", UserSummary.class, userId);
+    }
+    
+    public List<UserSummary> getFollowers(String userId, int page, int size) {
+        return fetchPage("/api/users/{userId}/followers?page={page}&size={size}", userId, page, size);
+    }
+    
+    public List<UserSummary> getFollowing(String userId, int page, int size) {
+        return fetchPage("/api/users/{userId}/following?page={page}&size={size}", userId, page, size);
+    }
+    
+    private List<UserSummary> fetchPage(String path, String userId, int page, int size) {
+        UserSummary[] users = restTemplate.getForObject(path, UserSummary[].class, userId, page, size);
+        return users != null ? Arrays.asList(users) : List.of();
+    }
+}
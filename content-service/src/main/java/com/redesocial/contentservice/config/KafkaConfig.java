@@ -1,6 +1,7 @@
 package com.redesocial.contentservice.config;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
@@ -10,10 +11,18 @@ public class KafkaConfig {
     
     public static final String CONTENT_EVENTS_TOPIC = "content.events";
     
+    /**
+     * Events are keyed by post, so partitions are the unit of consumer
+     * parallelism. Adding partitions to the existing topic moves posts to other
+     * partitions, which breaks per-post ordering for events in flight at the time.
+     */
+    @Value("${content.events.partitions:3}")
+    private int partitions = 3;
+    
     @Bean
     public NewTopic contentEventsTopic() {
         return TopicBuilder.name(CONTENT_EVENTS_TOPIC)
-                .partitions(3)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
@@ -0,0 +1,27 @@
+package com.redesocial.contentservice.controller;
+
+import com.redesocial.contentservice.dto.CursorPage;
+import com.redesocial.contentservice.dto.PostResponse;
+import com.redesocial.contentservice.service.FeedService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/feed")
+@RequiredArgsConstructor
+public class FeedController {
+    
+    private final FeedService feedService;
+    
+    @GetMapping
+    public ResponseEntity<CursorPage<PostResponse>> getFeed(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Received request to get feed of user: {} (cursor: {}, size: {})", userId, cursor, size);
+        return ResponseEntity.ok(feedService.getFeed(userId, cursor, size));
+    }
+}
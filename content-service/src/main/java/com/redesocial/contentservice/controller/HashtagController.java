@@ -0,0 +1,38 @@
+package com.redesocial.contentservice.controller;
+
+import com.redesocial.contentservice.dto.CursorPage;
+import com.redesocial.contentservice.dto.PostResponse;
+import com.redesocial.contentservice.dto.TrendingHashtagsResponse;
+import com.redesocial.contentservice.service.PostService;
+import com.redesocial.contentservice.service.TrendingHashtagService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/hashtags")
+@RequiredArgsConstructor
+public class HashtagController {
+    
+    private final TrendingHashtagService trendingHashtagService;
+    private final PostService postService;
+    
+    @GetMapping("/trending")
+    public ResponseEntity<TrendingHashtagsResponse> getTrending(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(defaultValue = "20") int limit) {
+        log.debug("Received request for trending hashtags (window: {}, limit: {})", window, limit);
+        return ResponseEntity.ok(trendingHashtagService.getTrending(window, limit));
+    }
+    
+    @GetMapping("/{tag}/posts")
+    public ResponseEntity<CursorPage<PostResponse>> getHashtagPosts(
+            @PathVariable String tag,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Received request to get posts tagged: {} (cursor: {}, size: {})", tag, cursor, size);
+        return ResponseEntity.ok(postService.getHashtagPosts(tag, cursor, size));
+    }
+}
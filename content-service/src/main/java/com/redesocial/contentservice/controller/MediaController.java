@@ -0,0 +1,50 @@
+package com.redesocial.contentservice.controller;
+
+import com.redesocial.contentservice.dto.CreateUploadRequest;
+import com.redesocial.contentservice.dto.MediaJobResponse;
+import com.redesocial.contentservice.dto.PresignedUploadResponse;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.service.MediaJobService;
+import com.redesocial.contentservice.service.MediaUploadService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/media")
+@RequiredArgsConstructor
+public class MediaController {
+    
+    private final MediaJobService mediaJobService;
+    private final MediaUploadService mediaUploadService;
+    
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<MediaJobResponse> getJob(@PathVariable String jobId) {
+        log.debug("Received request for media job status: {}", jobId);
+        return ResponseEntity.ok(mediaJobService.getJob(jobId));
+    }
+    
+    /**
+     * Step one of a direct upload: returns a signed URL the client PUTs the
+     * file to, bypassing this service.
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<PresignedUploadResponse> createUpload(@Valid @RequestBody CreateUploadRequest request) {
+        log.info("Received request to sign a {} upload for user: {}", request.getContentType(), request.getUserId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(mediaUploadService.createUpload(request));
+    }
+    
+    /**
+     * Step two: verifies the uploaded object and queues its processing.
+     */
+    @PostMapping("/uploads/{uploadId}/confirm")
+    public ResponseEntity<Post.MediaUrl> confirmUpload(@PathVariable String uploadId,
+                                                       @RequestParam("userId") String userId) {
+        log.info("Received request to confirm upload {} for user: {}", uploadId, userId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(mediaUploadService.confirmUpload(uploadId, userId));
+    }
+}
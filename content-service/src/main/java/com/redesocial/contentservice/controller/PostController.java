@@ -1,8 +1,11 @@
 package com.redesocial.contentservice.controller;
 
+import com.redesocial.contentservice.dto.BatchLikeRequest;
+import com.redesocial.contentservice.dto.BatchLikeResponse;
 import com.redesocial.contentservice.dto.CommentResponse;
 import com.redesocial.contentservice.dto.CreateCommentRequest;
 import com.redesocial.contentservice.dto.CreatePostRequest;
+import com.redesocial.contentservice.dto.CursorPage;
 import com.redesocial.contentservice.dto.PostResponse;
 import com.redesocial.contentservice.service.CommentService;
 import com.redesocial.contentservice.service.LikeService;
@@ -13,13 +16,13 @@ import com.redesocial.contentservice.service.ShareService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -28,6 +31,8 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class PostController {
     
+    private static final int MAX_BATCH_POSTS = 100;
+    
     private final PostService postService;
     private final MediaService mediaService;
     private final PostDeletionService postDeletionService;
@@ -42,6 +47,13 @@ public class PostController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    @GetMapping
+    public ResponseEntity<List<PostResponse>> getPosts(@RequestParam("ids") List<String> ids) {
+        log.info("Received request to get {} posts", ids.size());
+        checkBatchSize(ids);
+        return ResponseEntity.ok(postService.getPosts(ids));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<PostResponse> getPost(@PathVariable String id) {
         log.info("Received request to get post: {}", id);
@@ -55,8 +67,9 @@ public class PostController {
             @RequestParam("userId") String userId) {
         log.info("Received request to upload image for user: {}", userId);
         try {
+            // The original is stored; the thumbnail is still being generated
             Map<String, String> result = mediaService.uploadImageWithThumbnail(file, userId);
-            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
         } catch (IllegalArgumentException e) {
             log.error("Validation error uploading image: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -112,6 +125,24 @@ public class PostController {
         return ResponseEntity.ok(Map.of("message", "Post unliked successfully", "postId", id));
     }
     
+    @GetMapping("/likes/status")
+    public ResponseEntity<Map<String, Boolean>> getLikeStatus(
+            @RequestParam List<String> postIds,
+            @RequestHeader("X-User-Id") String userId) {
+        log.info("Received request for like status of {} posts by user: {}", postIds.size(), userId);
+        checkBatchSize(postIds);
+        return ResponseEntity.ok(likeService.getLikeStatus(userId, postIds));
+    }
+    
+    @PostMapping("/likes/batch")
+    public ResponseEntity<BatchLikeResponse> applyLikeBatch(
+            @Valid @RequestBody BatchLikeRequest request,
+            @RequestHeader("X-User-Id") String userId) {
+        log.info("Received batch of {} like actions from user: {}", request.getActions().size(), userId);
+        BatchLikeResponse response = likeService.applyLikeBatch(userId, request.getActions());
+        return ResponseEntity.ok(response);
+    }
+    
     @PostMapping("/{id}/comments")
     public ResponseEntity<CommentResponse> addComment(
             @PathVariable String id,
@@ -122,12 +153,12 @@ public class PostController {
     }
     
     @GetMapping("/{id}/comments")
-    public ResponseEntity<Page<CommentResponse>> getComments(
+    public ResponseEntity<CursorPage<CommentResponse>> getComments(
             @PathVariable String id,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size) {
-        log.info("Received request to get comments for post: {} (page: {}, size: {})", id, page, size);
-        Page<CommentResponse> comments = commentService.getComments(id, page, size);
+        log.info("Received request to get comments for post: {} (cursor: {}, size: {})", id, cursor, size);
+        CursorPage<CommentResponse> comments = commentService.getComments(id, cursor, size);
         return ResponseEntity.ok(comments);
     }
     
@@ -139,4 +170,10 @@ public class PostController {
         PostResponse response = shareService.sharePost(id, userId);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
+    
+    private static void checkBatchSize(List<String> postIds) {
+        if (postIds.size() > MAX_BATCH_POSTS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_POSTS + " post IDs are allowed");
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.redesocial.contentservice.controller;
 
 import com.redesocial.contentservice.dto.StoryResponse;
+import com.redesocial.contentservice.dto.StoryTrayResponse;
 import com.redesocial.contentservice.dto.StoryViewerResponse;
 import com.redesocial.contentservice.model.mongo.Post;
 import com.redesocial.contentservice.model.mongo.Story;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -25,6 +27,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class StoryController {
     
+    private static final int MAX_TRAY_USERS = 500;
+    
     private final StoryService storyService;
     private final MediaService mediaService;
     
@@ -42,25 +46,14 @@ public class StoryController {
                         .body(Map.of("error", "File content type is required"));
             }
             
-            Map<String, String> uploadResult;
             Post.MediaUrl mediaUrl;
             
             if (contentType.startsWith("image/")) {
-                // Upload image with thumbnail
-                uploadResult = mediaService.uploadImageWithThumbnail(file, userId);
-                mediaUrl = Post.MediaUrl.builder()
-                        .url(uploadResult.get("url"))
-                        .type(Post.MediaType.IMAGE)
-                        .thumbnailUrl(uploadResult.get("thumbnailUrl"))
-                        .build();
+                // Upload image; thumbnail and resized variants are rendered in the background
+                mediaUrl = mediaService.uploadImageMedia(file, userId);
             } else if (contentType.startsWith("video/")) {
-                // Upload video with resolutions
-                uploadResult = mediaService.uploadVideoWithResolutions(file, userId);
-                mediaUrl = Post.MediaUrl.builder()
-                        .url(uploadResult.get("url"))
-                        .type(Post.MediaType.VIDEO)
-                        .thumbnailUrl(uploadResult.get("thumbnailUrl"))
-                        .build();
+                // Upload video; renditions are written back to the story once transcoded
+                mediaUrl = mediaService.uploadVideoMedia(file, userId);
             } else {
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "Unsupported file type. Only images and videos are allowed"));
@@ -82,6 +75,25 @@ public class StoryController {
         }
     }
     
+    @GetMapping("/tray")
+    public ResponseEntity<List<StoryTrayResponse>> getStoryTray(@RequestParam("userIds") List<String> userIds) {
+        log.info("Received request to get story tray for {} users", userIds.size());
+        if (userIds.size() > MAX_TRAY_USERS) {
+            throw new IllegalArgumentException("At most " + MAX_TRAY_USERS + " user IDs are allowed");
+        }
+        
+        List<StoryTrayResponse> tray = new ArrayList<>();
+        for (Map.Entry<String, List<Story>> entry : storyService.getStoryTray(userIds).entrySet()) {
+            tray.add(StoryTrayResponse.builder()
+                    .userId(entry.getKey())
+                    .stories(entry.getValue().stream()
+                            .map(this::mapToStoryResponse)
+                            .collect(Collectors.toList()))
+                    .build());
+        }
+        return ResponseEntity.ok(tray);
+    }
+    
     @GetMapping("/{userId}")
     public ResponseEntity<List<StoryResponse>> getActiveStories(@PathVariable String userId) {
         log.info("Received request to get active stories for user: {}", userId);
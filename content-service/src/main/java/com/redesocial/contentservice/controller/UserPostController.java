@@ -0,0 +1,27 @@
+package com.redesocial.contentservice.controller;
+
+import com.redesocial.contentservice.dto.CursorPage;
+import com.redesocial.contentservice.dto.PostResponse;
+import com.redesocial.contentservice.service.PostService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+public class UserPostController {
+    
+    private final PostService postService;
+    
+    @GetMapping("/{userId}/posts")
+    public ResponseEntity<CursorPage<PostResponse>> getUserPosts(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        log.info("Received request to get posts of user: {} (cursor: {}, size: {})", userId, cursor, size);
+        return ResponseEntity.ok(postService.getUserPosts(userId, cursor, size));
+    }
+}
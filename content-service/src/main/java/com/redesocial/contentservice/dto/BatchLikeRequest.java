@@ -0,0 +1,42 @@
+package com.redesocial.contentservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchLikeRequest {
+    
+    @NotEmpty(message = "Actions are required")
+    @Size(max = 100, message = "A batch may contain at most 100 actions")
+    private List<@Valid LikeAction> actions;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LikeAction {
+        
+        @NotBlank(message = "Post ID is required")
+        private String postId;
+        
+        @NotNull(message = "Action is required")
+        private ActionType action;
+    }
+    
+    public enum ActionType {
+        LIKE,
+        UNLIKE
+    }
+}
@@ -0,0 +1,35 @@
+package com.redesocial.contentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchLikeResponse {
+    
+    private List<LikeResult> results;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LikeResult {
+        private String postId;
+        private BatchLikeRequest.ActionType action;
+        private Status status;
+    }
+    
+    public enum Status {
+        LIKED,
+        ALREADY_LIKED,
+        UNLIKED,
+        NOT_LIKED,
+        POST_NOT_FOUND
+    }
+}
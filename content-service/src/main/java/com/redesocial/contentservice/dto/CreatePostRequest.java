@@ -1,5 +1,6 @@
 package com.redesocial.contentservice.dto;
 
+import com.redesocial.contentservice.model.mongo.Post;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -7,6 +8,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -18,4 +22,9 @@ public class CreatePostRequest {
     private String content;
     
     private String userId;
+    
+    // As returned by the media upload endpoints
+    @Size(max = 10, message = "A post can have at most 10 media items")
+    @Builder.Default
+    private List<Post.MediaUrl> mediaUrls = new ArrayList<>();
 }
@@ -0,0 +1,32 @@
+package com.redesocial.contentservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateUploadRequest {
+    
+    @NotBlank(message = "User ID cannot be blank")
+    private String userId;
+    
+    @NotBlank(message = "Content type cannot be blank")
+    private String contentType;
+    
+    @NotNull(message = "Size is required")
+    @Positive(message = "Size must be positive")
+    private Long sizeBytes;
+    
+    // S3 rejects the PUT unless the body hashes to this, so the digest can be trusted
+    @NotBlank(message = "SHA-256 cannot be blank")
+    @Pattern(regexp = "[0-9a-fA-F]{64}", message = "SHA-256 must be 64 hex characters")
+    private String sha256;
+}
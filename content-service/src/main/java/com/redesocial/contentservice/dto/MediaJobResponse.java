@@ -0,0 +1,32 @@
+package com.redesocial.contentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaJobResponse {
+    
+    private String jobId;
+    private String type;
+    private Status status;
+    private int progress;
+    private Map<String, String> result;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    public enum Status {
+        QUEUED,
+        PROCESSING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,22 @@
+package com.redesocial.contentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadResponse {
+    
+    private String uploadId;
+    private String method;
+    private String uploadUrl;
+    private Map<String, String> headers; // must be sent with the PUT exactly as given
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,21 @@
+package com.redesocial.contentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One author's entry in a story tray: their active stories, oldest first.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoryTrayResponse {
+    
+    private String userId;
+    private List<StoryResponse> stories;
+}
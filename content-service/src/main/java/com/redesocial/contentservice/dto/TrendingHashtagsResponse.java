@@ -0,0 +1,20 @@
+package com.redesocial.contentservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingHashtagsResponse {
+    
+    private String window;
+    private List<TrendingHashtag> hashtags;
+    private LocalDateTime computedAt;
+}
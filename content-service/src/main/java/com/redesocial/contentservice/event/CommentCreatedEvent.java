@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class CommentCreatedEvent {
+public class CommentCreatedEvent implements ContentEvent {
     
     private String commentId;
     private String postId;
@@ -19,4 +19,9 @@ public class CommentCreatedEvent {
     private String postAuthorId;
     private String content;
     private LocalDateTime createdAt;
+    
+    @Override
+    public String partitionKey() {
+        return postId;
+    }
 }
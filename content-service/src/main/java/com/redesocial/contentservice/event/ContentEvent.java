@@ -0,0 +1,14 @@
+package com.redesocial.contentservice.event;
+
+/**
+ * An event about one post. Events are keyed by that post on the content events
+ * topic, so all events of a post land on the same partition and are consumed
+ * in the order they were recorded.
+ */
+public interface ContentEvent {
+    
+    /**
+     * Returns the id of the post this event belongs to.
+     */
+    String partitionKey();
+}
@@ -11,10 +11,15 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class LikeCreatedEvent {
+public class LikeCreatedEvent implements ContentEvent {
     
     private String postId;
     private String userId;
     private String postAuthorId;
     private LocalDateTime createdAt;
+    
+    @Override
+    public String partitionKey() {
+        return postId;
+    }
 }
@@ -12,12 +12,18 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class PostCreatedEvent {
+public class PostCreatedEvent implements ContentEvent {
     
     private String postId;
     private String userId;
     private String content;
     private List<String> hashtags;
+    private List<String> mentions;
     private String type;
     private LocalDateTime createdAt;
+    
+    @Override
+    public String partitionKey() {
+        return postId;
+    }
 }
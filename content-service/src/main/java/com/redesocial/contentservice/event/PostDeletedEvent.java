@@ -11,9 +11,14 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class PostDeletedEvent {
+public class PostDeletedEvent implements ContentEvent {
     
     private String postId;
     private String userId;
     private LocalDateTime deletedAt;
+    
+    @Override
+    public String partitionKey() {
+        return postId;
+    }
 }
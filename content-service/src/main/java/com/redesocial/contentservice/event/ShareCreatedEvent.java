@@ -11,11 +11,17 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class ShareCreatedEvent {
+public class ShareCreatedEvent implements ContentEvent {
     
     private String originalPostId;
     private String sharedPostId;
     private String userId;
     private String originalAuthorId;
     private LocalDateTime createdAt;
+    
+    // Ordered with the rest of the original post's engagement
+    @Override
+    public String partitionKey() {
+        return originalPostId;
+    }
 }
@@ -0,0 +1,296 @@
+package com.redesocial.contentservice.event.codec;
+
+import com.redesocial.contentservice.event.codec.EventSchemaRegistry.EventSchema;
+import com.redesocial.contentservice.event.codec.EventSchemaRegistry.FieldSchema;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of the content events, described by
+ * {@link EventSchemaRegistry}.
+ *
+ * A record is a magic byte, the format version, the schema id and the writer's
+ * schema version, followed by the non-null fields as (tag, value) pairs in the
+ * style of protobuf: strings are length-prefixed UTF-8, timestamps are
+ * zigzag varints of microseconds since the epoch, and string lists are a
+ * length-prefixed block of a count and the strings, so an empty list stays
+ * distinguishable from null. Field names never go on the wire. Readers skip
+ * tags they do not know, which is what makes adding fields safe.
+ *
+ * The writer's schema version is informational only, for whoever inspects a
+ * record: tags make a record of any version readable, so decoding ignores it.
+ *
+ * Timestamps are truncated to microseconds, the precision PostgreSQL stores.
+ * Instances are thread-safe.
+ */
+public final class ContentEventCodec {
+
+    static final byte MAGIC = (byte) 0xCE;
+    static final byte FORMAT_VERSION = 1;
+
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final EventSchemaRegistry registry;
+
+    public ContentEventCodec(EventSchemaRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * The codec over the schemas on the classpath, shared by the Kafka
+     * serializers that Kafka instantiates itself.
+     */
+    public static ContentEventCodec getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public boolean supports(Class<?> eventClass) {
+        return registry.forClass(eventClass) != null;
+    }
+
+    /**
+     * Returns true if the bytes start like a record written by this codec. JSON
+     * never starts with the magic byte.
+     */
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length >= 2 && data[0] == MAGIC;
+    }
+
+    public byte[] encode(Object event) {
+        EventSchema schema = registry.forClass(event.getClass());
+        if (schema == null) {
+            throw new IllegalArgumentException("No event schema for " + event.getClass().getName());
+        }
+
+        Output out = new Output(128);
+        out.writeByte(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeVarint(schema.getId());
+        out.writeVarint(schema.getVersion());
+        Output block = null;
+        for (FieldSchema field : schema.getFields()) {
+            Object value = field.get(event);
+            if (value == null) {
+                continue;
+            }
+            switch (field.getType()) {
+                case STRING:
+                    out.writeVarint(key(field.getTag(), WIRE_LENGTH_DELIMITED));
+                    out.writeBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+                    break;
+                case TIMESTAMP:
+                    out.writeVarint(key(field.getTag(), WIRE_VARINT));
+                    out.writeVarint(zigzag(ChronoUnit.MICROS.between(EPOCH, (LocalDateTime) value)));
+                    break;
+                case STRING_LIST:
+                    List<?> list = (List<?>) value;
+                    block = block == null ? new Output(64) : block.reset();
+                    block.writeVarint(list.size());
+                    for (Object element : list) {
+                        block.writeBytes(((String) element).getBytes(StandardCharsets.UTF_8));
+                    }
+                    out.writeVarint(key(field.getTag(), WIRE_LENGTH_DELIMITED));
+                    out.writeVarint(block.size);
+                    out.write(block.buffer, 0, block.size);
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported field type " + field.getType());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public Object decode(byte[] data) {
+        if (!isEncoded(data)) {
+            throw new IllegalArgumentException("Not a binary content event");
+        }
+        Input in = new Input(data, 1, data.length);
+        int format = in.readByte();
+        if (format != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported content event format " + format);
+        }
+        int schemaId = (int) in.readVarint();
+        in.readVarint(); // the writer's schema version, informational only
+        EventSchema schema = registry.forId(schemaId);
+        if (schema == null) {
+            throw new IllegalArgumentException("Unknown content event schema " + schemaId);
+        }
+
+        Object event = schema.newInstance();
+        while (in.hasRemaining()) {
+            long key = in.readVarint();
+            int tag = (int) (key >>> 3);
+            int wireType = (int) (key & 0x7);
+            FieldSchema field = schema.fieldByTag(tag);
+            if (field == null || wireType != wireTypeOf(field)) {
+                in.skip(wireType);
+                continue;
+            }
+            switch (field.getType()) {
+                case STRING:
+                    field.set(event, in.readString());
+                    break;
+                case TIMESTAMP:
+                    field.set(event, EPOCH.plus(unzigzag(in.readVarint()), ChronoUnit.MICROS));
+                    break;
+                case STRING_LIST:
+                    Input block = in.slice((int) in.readVarint());
+                    int count = (int) block.readVarint();
+                    List<String> list = new ArrayList<>(Math.min(count, 256));
+                    for (int i = 0; i < count; i++) {
+                        list.add(block.readString());
+                    }
+                    field.set(event, list);
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported field type " + field.getType());
+            }
+        }
+        return event;
+    }
+
+    private static int wireTypeOf(FieldSchema field) {
+        return field.getType() == EventSchemaRegistry.FieldType.TIMESTAMP ? WIRE_VARINT : WIRE_LENGTH_DELIMITED;
+    }
+
+    private static long key(int tag, int wireType) {
+        return ((long) tag << 3) | wireType;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        private Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private Output reset() {
+            size = 0;
+            return this;
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        private void write(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private final int limit;
+        private int position;
+
+        private Input(byte[] data, int position, int limit) {
+            this.data = data;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        private boolean hasRemaining() {
+            return position < limit;
+        }
+
+        private int readByte() {
+            if (position >= limit) {
+                throw new IllegalArgumentException("Truncated content event");
+            }
+            return data[position++];
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in content event");
+        }
+
+        private String readString() {
+            int length = (int) readVarint();
+            checkRemaining(length);
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private Input slice(int length) {
+            checkRemaining(length);
+            Input slice = new Input(data, position, position + length);
+            position += length;
+            return slice;
+        }
+
+        private void skip(int wireType) {
+            if (wireType == WIRE_VARINT) {
+                readVarint();
+            } else if (wireType == WIRE_LENGTH_DELIMITED) {
+                int length = (int) readVarint();
+                checkRemaining(length);
+                position += length;
+            } else {
+                throw new IllegalArgumentException("Unknown wire type " + wireType + " in content event");
+            }
+        }
+
+        private void checkRemaining(int length) {
+            if (length < 0 || length > limit - position) {
+                throw new IllegalArgumentException("Truncated content event");
+            }
+        }
+    }
+
+    private static final class DefaultHolder {
+        private static final ContentEventCodec INSTANCE = new ContentEventCodec(EventSchemaRegistry.load());
+    }
+}
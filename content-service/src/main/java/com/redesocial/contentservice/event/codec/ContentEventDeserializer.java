@@ -0,0 +1,49 @@
+package com.redesocial.contentservice.event.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Kafka value deserializer for content events. Reads records written by
+ * {@link ContentEventCodec}, recognised by their magic byte, and hands
+ * everything else to Spring's {@link JsonDeserializer}, so a topic holding both
+ * formats during a rollout stays readable.
+ */
+public class ContentEventDeserializer implements Deserializer<Object> {
+    
+    private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+    
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+    
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+    
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!ContentEventCodec.isEncoded(data)) {
+            return headers != null ? json.deserialize(topic, headers, data) : json.deserialize(topic, data);
+        }
+        try {
+            return ContentEventCodec.getDefault().decode(data);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to decode content event", e);
+        }
+    }
+    
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,64 @@
+package com.redesocial.contentservice.event.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Kafka value serializer for content events. With {@code content.events.format}
+ * set to {@code binary}, events that have a schema are written with
+ * {@link ContentEventCodec} and tagged with a content-type header; anything else
+ * goes through Spring's {@link JsonSerializer} as before. JSON stays the default
+ * until every consumer of the topic reads the binary format.
+ */
+public class ContentEventSerializer implements Serializer<Object> {
+    
+    public static final String FORMAT_CONFIG = "content.events.format";
+    public static final String CONTENT_TYPE_HEADER = "content-type";
+    public static final String BINARY_CONTENT_TYPE = "application/vnd.redesocial.content-event.v1+binary";
+    
+    private static final byte[] BINARY_CONTENT_TYPE_BYTES = BINARY_CONTENT_TYPE.getBytes(StandardCharsets.UTF_8);
+    
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+    private ContentEventCodec codec;
+    
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        Object format = configs.get(FORMAT_CONFIG);
+        codec = format != null && "binary".equalsIgnoreCase(format.toString()) ? ContentEventCodec.getDefault() : null;
+    }
+    
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+    
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (codec == null || !codec.supports(data.getClass())) {
+            return json.serialize(topic, headers, data);
+        }
+        try {
+            byte[] encoded = codec.encode(data);
+            if (headers != null) {
+                headers.add(CONTENT_TYPE_HEADER, BINARY_CONTENT_TYPE_BYTES);
+            }
+            return encoded;
+        } catch (RuntimeException e) {
+            throw new SerializationException("Failed to encode " + data.getClass().getSimpleName(), e);
+        }
+    }
+    
+    @Override
+    public void close() {
+        json.close();
+    }
+}
@@ -0,0 +1,299 @@
+package com.redesocial.contentservice.event.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The schemas of the content events, read from {@code event-schemas.json} on the
+ * classpath. The file stands in for a schema registry: every event class has a
+ * schema id that goes on the wire, and every field a numeric tag.
+ *
+ * Versioning policy, which keeps old and new producers and consumers compatible
+ * in both directions:
+ * <ul>
+ *   <li>Schema ids and field tags are never reused or renumbered.</li>
+ *   <li>A field's type never changes; a new type means a new field.</li>
+ *   <li>New fields take a new tag and bump the schema version. Readers skip
+ *       tags they do not know and leave missing fields null.</li>
+ *   <li>A removed field stays in the file marked {@code "removed": true}, so
+ *       its tag stays taken for good. The event class no longer has it, and
+ *       readers skip it like any unknown tag.</li>
+ * </ul>
+ * Loading fails if an event class has a field the schema does not describe, or
+ * the other way round, so a field cannot be added to an event without a tag.
+ */
+public final class EventSchemaRegistry {
+
+    public static final String DEFAULT_LOCATION = "event-schemas.json";
+
+    private final Map<Integer, EventSchema> byId;
+    private final Map<Class<?>, EventSchema> byClass;
+
+    private EventSchemaRegistry(List<EventSchema> schemas) {
+        Map<Integer, EventSchema> ids = new HashMap<>();
+        Map<Class<?>, EventSchema> classes = new HashMap<>();
+        for (EventSchema schema : schemas) {
+            if (ids.put(schema.getId(), schema) != null) {
+                throw new IllegalStateException("Duplicate event schema id " + schema.getId());
+            }
+            if (classes.put(schema.getEventClass(), schema) != null) {
+                throw new IllegalStateException("Duplicate event schema for " + schema.getEventClass().getName());
+            }
+        }
+        this.byId = ids;
+        this.byClass = classes;
+    }
+
+    public static EventSchemaRegistry load() {
+        return load(DEFAULT_LOCATION);
+    }
+
+    public static EventSchemaRegistry load(String location) {
+        ClassLoader classLoader = EventSchemaRegistry.class.getClassLoader();
+        try (InputStream in = classLoader.getResourceAsStream(location)) {
+            if (in == null) {
+                throw new IllegalStateException("Event schema file not found: " + location);
+            }
+            return parse(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read event schemas from " + location, e);
+        }
+    }
+
+    static EventSchemaRegistry parse(InputStream in) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(in);
+        List<EventSchema> schemas = new ArrayList<>();
+        for (JsonNode node : root.path("schemas")) {
+            schemas.add(EventSchema.from(node));
+        }
+        return new EventSchemaRegistry(schemas);
+    }
+
+    public EventSchema forId(int id) {
+        return byId.get(id);
+    }
+
+    public EventSchema forClass(Class<?> eventClass) {
+        return byClass.get(eventClass);
+    }
+
+    public Collection<EventSchema> schemas() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+
+    public enum FieldType {
+        STRING("string"),
+        TIMESTAMP("timestamp"),
+        STRING_LIST("string[]");
+
+        private final String name;
+
+        FieldType(String name) {
+            this.name = name;
+        }
+
+        static FieldType of(String name) {
+            for (FieldType type : values()) {
+                if (type.name.equals(name)) {
+                    return type;
+                }
+            }
+            throw new IllegalStateException("Unknown event field type: " + name);
+        }
+
+        boolean matches(Field field) {
+            switch (this) {
+                case STRING:
+                    return field.getType() == String.class;
+                case TIMESTAMP:
+                    return field.getType() == LocalDateTime.class;
+                case STRING_LIST:
+                    Type generic = field.getGenericType();
+                    return field.getType() == List.class && generic instanceof ParameterizedType
+                            && ((ParameterizedType) generic).getActualTypeArguments()[0] == String.class;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    public static final class EventSchema {
+        private final int id;
+        private final String name;
+        private final int version;
+        private final Class<?> eventClass;
+        private final Constructor<?> constructor;
+        private final List<FieldSchema> fields;
+        private final FieldSchema[] fieldsByTag;
+
+        private EventSchema(int id, String name, int version, Class<?> eventClass, List<FieldSchema> fields) {
+            this.id = id;
+            this.name = name;
+            this.version = version;
+            this.eventClass = eventClass;
+            this.fields = Collections.unmodifiableList(fields);
+            try {
+                this.constructor = eventClass.getDeclaredConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(eventClass.getName() + " needs a no-argument constructor", e);
+            }
+            int maxTag = 0;
+            for (FieldSchema field : fields) {
+                maxTag = Math.max(maxTag, field.getTag());
+            }
+            this.fieldsByTag = new FieldSchema[maxTag + 1];
+            for (FieldSchema field : fields) {
+                fieldsByTag[field.getTag()] = field;
+            }
+        }
+
+        private static EventSchema from(JsonNode node) {
+            int id = node.path("id").asInt();
+            String className = node.path("class").asText();
+            if (id <= 0) {
+                throw new IllegalStateException("Event schema for " + className + " needs a positive id");
+            }
+            Class<?> eventClass;
+            try {
+                eventClass = Class.forName(className, false, EventSchemaRegistry.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Event schema " + id + " names an unknown class " + className, e);
+            }
+
+            List<FieldSchema> fields = new ArrayList<>();
+            Set<Integer> tags = new HashSet<>();
+            Set<Integer> removedTags = new HashSet<>();
+            Set<String> names = new HashSet<>();
+            for (JsonNode fieldNode : node.path("fields")) {
+                int tag = fieldNode.path("tag").asInt();
+                String name = fieldNode.path("name").asText();
+                boolean removed = fieldNode.path("removed").asBoolean(false);
+                if (removedTags.contains(tag) || (removed && tags.contains(tag))) {
+                    throw new IllegalStateException("Event schema " + id + " reuses tag " + tag + " of a removed field");
+                }
+                if (tag <= 0 || !tags.add(tag)) {
+                    throw new IllegalStateException("Event schema " + id + " has an invalid or duplicate tag " + tag);
+                }
+                if (removed) {
+                    removedTags.add(tag);
+                    continue;
+                }
+                names.add(name);
+                fields.add(new FieldSchema(tag, name, FieldType.of(fieldNode.path("type").asText()),
+                        fieldOf(eventClass, name)));
+            }
+            for (Field field : eventClass.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic() && !names.contains(field.getName())) {
+                    throw new IllegalStateException("Event schema " + id + " does not describe "
+                            + eventClass.getSimpleName() + "." + field.getName());
+                }
+            }
+            return new EventSchema(id, node.path("name").asText(), node.path("version").asInt(1), eventClass, fields);
+        }
+
+        private static Field fieldOf(Class<?> eventClass, String name) {
+            try {
+                Field field = eventClass.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException(eventClass.getSimpleName() + " has no field " + name, e);
+            }
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public Class<?> getEventClass() {
+            return eventClass;
+        }
+
+        public List<FieldSchema> getFields() {
+            return fields;
+        }
+
+        FieldSchema fieldByTag(int tag) {
+            return tag > 0 && tag < fieldsByTag.length ? fieldsByTag[tag] : null;
+        }
+
+        Object newInstance() {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to instantiate " + eventClass.getName(), e);
+            }
+        }
+    }
+
+    public static final class FieldSchema {
+        private final int tag;
+        private final String name;
+        private final FieldType type;
+        private final Field field;
+
+        private FieldSchema(int tag, String name, FieldType type, Field field) {
+            if (!type.matches(field)) {
+                throw new IllegalStateException(field.getDeclaringClass().getSimpleName() + "." + name
+                        + " cannot be encoded as " + type.name);
+            }
+            this.tag = tag;
+            this.name = name;
+            this.type = type;
+            this.field = field;
+        }
+
+        public int getTag() {
+            return tag;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public FieldType getType() {
+            return type;
+        }
+
+        Object get(Object event) {
+            try {
+                return field.get(event);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Failed to read " + name, e);
+            }
+        }
+
+        void set(Object event, Object value) {
+            try {
+                field.set(event, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Failed to write " + name, e);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.redesocial.contentservice.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -65,6 +66,50 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
     
+    @ExceptionHandler(MediaJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleMediaJobNotFoundException(MediaJobNotFoundException ex) {
+        log.error("Media job not found: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .code("MEDIA_JOB_NOT_FOUND")
+                .message(ex.getMessage())
+                .requestId(UUID.randomUUID().toString())
+                .timestamp(LocalDateTime.now())
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+    }
+    
+    @ExceptionHandler(MediaUploadNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleMediaUploadNotFoundException(MediaUploadNotFoundException ex) {
+        log.error("Media upload not found: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .code("MEDIA_UPLOAD_NOT_FOUND")
+                .message(ex.getMessage())
+                .requestId(UUID.randomUUID().toString())
+                .timestamp(LocalDateTime.now())
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+    }
+    
+    @ExceptionHandler(MediaQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleMediaQueueFullException(MediaQueueFullException ex) {
+        log.warn("Rejected media upload: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .code("MEDIA_QUEUE_FULL")
+                .message(ex.getMessage())
+                .requestId(UUID.randomUUID().toString())
+                .timestamp(LocalDateTime.now())
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(errorResponse);
+    }
+    
     @ExceptionHandler(UnauthorizedAccessException.class)
     public ResponseEntity<ErrorResponse> handleUnauthorizedAccessException(UnauthorizedAccessException ex) {
         log.error("Unauthorized access: {}", ex.getMessage());
@@ -79,6 +124,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
     }
     
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
+        log.error("Invalid request: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .code("INVALID_REQUEST")
+                .message(ex.getMessage())
+                .requestId(UUID.randomUUID().toString())
+                .timestamp(LocalDateTime.now())
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+    
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException ex) {
         log.error("Runtime exception occurred", ex);
@@ -0,0 +1,8 @@
+package com.redesocial.contentservice.exception;
+
+public class MediaJobNotFoundException extends RuntimeException {
+    
+    public MediaJobNotFoundException(String jobId) {
+        super("Media job not found: " + jobId);
+    }
+}
@@ -0,0 +1,8 @@
+package com.redesocial.contentservice.exception;
+
+public class MediaQueueFullException extends RuntimeException {
+    
+    public MediaQueueFullException() {
+        super("Media processing queue is full, try again later");
+    }
+}
@@ -0,0 +1,8 @@
+package com.redesocial.contentservice.exception;
+
+public class MediaUploadNotFoundException extends RuntimeException {
+    
+    public MediaUploadNotFoundException(String uploadId) {
+        super("Media upload not found or expired: " + uploadId);
+    }
+}
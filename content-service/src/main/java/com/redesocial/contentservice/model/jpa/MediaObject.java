@@ -0,0 +1,47 @@
+package com.redesocial.contentservice.model.jpa;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored media original, keyed by the SHA-256 of its bytes. processedAt is
+ * set once its thumbnail and variants have been rendered; lastUsedAt whenever
+ * a duplicate upload reuses it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "media_objects")
+public class MediaObject {
+    
+    @Id
+    @Column(length = 64, columnDefinition = "CHAR(64)")
+    private String digest;
+    
+    @Column(name = "object_key", nullable = false, length = 512)
+    private String objectKey;
+    
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+    
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+    
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+    
+    @Column(name = "last_used_at")
+    private LocalDateTime lastUsedAt;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,33 @@
+package com.redesocial.contentservice.model.jpa;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pending change to the engagement counters of a single post_metadata row.
+ * Deltas are accumulated in memory and applied with atomic
+ * {@code count = count + ?} updates instead of read-modify-write saves.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostCounterDelta {
+    
+    private String postId;
+    private int likes;
+    private int comments;
+    private int shares;
+    
+    public void add(int likes, int comments, int shares) {
+        this.likes += likes;
+        this.comments += comments;
+        this.shares += shares;
+    }
+    
+    public boolean isZero() {
+        return likes == 0 && comments == 0 && shares == 0;
+    }
+}
@@ -15,10 +15,11 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+// The partial (user_id, created_at, id) WHERE is_deleted = FALSE index is managed by Flyway (V3),
+// as is the partial (deleted_at, id) WHERE is_deleted = TRUE index used by the purge worker (V8)
 @Table(name = "post_metadata", indexes = {
     @Index(name = "idx_post_metadata_user_id", columnList = "user_id"),
-    @Index(name = "idx_post_metadata_created_at", columnList = "created_at"),
-    @Index(name = "idx_post_metadata_is_deleted", columnList = "is_deleted")
+    @Index(name = "idx_post_metadata_created_at", columnList = "created_at")
 })
 public class PostMetadata {
     
@@ -48,6 +49,9 @@ public class PostMetadata {
     @Column(name = "is_deleted", nullable = false)
     private Boolean isDeleted = false;
     
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+    
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,65 @@
+package com.redesocial.contentservice.model.jpa;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A queued video transcode. attempts doubles as a fencing token: a worker only
+ * records the outcome of the attempt it claimed, so a job re-claimed after a
+ * lease expiry is never finished twice. renditions holds the JSON list of
+ * produced variants once the job has completed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "transcode_jobs")
+public class TranscodeJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "source_key", nullable = false, unique = true, length = 512)
+    private String sourceKey;
+    
+    @Column(length = 64, nullable = false, columnDefinition = "CHAR(64)")
+    private String digest;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+    
+    @Column(nullable = false)
+    private int attempts;
+    
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+    
+    @Column(columnDefinition = "TEXT")
+    private String renditions;
+    
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    public enum Status {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
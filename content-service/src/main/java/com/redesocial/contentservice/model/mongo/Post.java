@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -16,6 +18,10 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "posts")
+@CompoundIndexes({
+        @CompoundIndex(name = "hashtags_created_id_idx", def = "{'hashtags': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "media_url_idx", def = "{'mediaUrls.url': 1}")
+})
 public class Post {
     
     @Id
@@ -35,6 +41,9 @@ public class Post {
     
     private LocalDateTime updatedAt;
     
+    // Mirrors post_metadata.is_deleted so Mongo-side listings can skip deleted posts
+    private boolean deleted;
+    
     @Data
     @Builder
     @NoArgsConstructor
@@ -46,6 +55,23 @@ public class Post {
         private Integer width;
         private Integer height;
         private Integer duration; // for videos in seconds
+        private List<MediaVariant> variants; // resized renditions, smallest first
+        private String jobId; // media job producing the thumbnail and variants (images only)
+    }
+    
+    /**
+     * A resized rendition of an image or video. Stored under a key derived from
+     * the original's SHA-256, so its URL never changes and can be cached forever.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MediaVariant {
+        private String url;
+        private Integer width; // upper bound; narrower originals are never upscaled
+        private Integer height; // set for video renditions
+        private String format;
     }
     
     public enum MediaType {
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -15,12 +17,16 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "stories")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_expires_idx", def = "{'userId': 1, 'expiresAt': 1}"),
+        @CompoundIndex(name = "expires_id_idx", def = "{'expiresAt': 1, '_id': 1}"),
+        @CompoundIndex(name = "media_url_idx", def = "{'mediaUrl.url': 1}")
+})
 public class Story {
     
     @Id
     private String id;
     
-    @Indexed
     private String userId;
     
     private Post.MediaUrl mediaUrl;
@@ -28,6 +34,7 @@ public class Story {
     @Builder.Default
     private Integer viewsCount = 0;
     
+    // Backstop only: StoryCleanupService deletes expired stories and their media
     @Indexed(expireAfterSeconds = 86400) // 24 hours in seconds
     private LocalDateTime expiresAt;
     
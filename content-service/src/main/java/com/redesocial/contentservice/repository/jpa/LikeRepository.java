@@ -2,12 +2,18 @@ package com.redesocial.contentservice.repository.jpa;
 
 import com.redesocial.contentservice.model.jpa.Like;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface LikeRepository extends JpaRepository<Like, Long> {
+public interface LikeRepository extends JpaRepository<Like, Long>, LikeRepositoryCustom {
     
     Optional<Like> findByPostIdAndUserId(String postId, String userId);
     
@@ -16,4 +22,20 @@ public interface LikeRepository extends JpaRepository<Like, Long> {
     long countByPostId(String postId);
     
     void deleteByPostIdAndUserId(String postId, String userId);
+    
+    @Query("SELECT l.postId FROM Like l WHERE l.userId = :userId AND l.postId IN :postIds")
+    List<String> findLikedPostIds(@Param("userId") String userId, @Param("postIds") Collection<String> postIds);
+    
+    @Query("SELECT l.userId FROM Like l WHERE l.postId = :postId")
+    List<String> findUserIdsByPostId(@Param("postId") String postId);
+    
+    /**
+     * Deletes up to {@code limit} likes of a post in its own short transaction,
+     * so purging a post with millions of likes never holds a long lock on the table.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM likes WHERE id IN "
+            + "(SELECT id FROM likes WHERE post_id = :postId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByPostId(@Param("postId") String postId, @Param("limit") int limit);
 }
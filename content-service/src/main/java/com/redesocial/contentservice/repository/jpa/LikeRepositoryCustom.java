@@ -0,0 +1,22 @@
+package com.redesocial.contentservice.repository.jpa;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LikeRepositoryCustom {
+    
+    /**
+     * Inserts likes of one user on many posts with a single multi-row
+     * {@code INSERT ... ON CONFLICT DO NOTHING}.
+     *
+     * @return the post ids that were actually inserted (already liked posts are skipped)
+     */
+    List<String> insertLikesIgnoringExisting(String userId, Collection<String> postIds);
+    
+    /**
+     * Deletes likes of one user on many posts with a single {@code DELETE ... RETURNING}.
+     *
+     * @return the post ids whose like was actually removed
+     */
+    List<String> deleteLikesReturningPostIds(String userId, Collection<String> postIds);
+}
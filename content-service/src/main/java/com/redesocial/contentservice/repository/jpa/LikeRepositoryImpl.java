@@ -0,0 +1,52 @@
+package com.redesocial.contentservice.repository.jpa;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class LikeRepositoryImpl implements LikeRepositoryCustom {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public List<String> insertLikesIgnoringExisting(String userId, Collection<String> postIds) {
+        if (postIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        StringBuilder sql = new StringBuilder("INSERT INTO likes (post_id, user_id) VALUES ");
+        List<Object> args = new ArrayList<>(postIds.size() * 2);
+        for (String postId : postIds) {
+            if (!args.isEmpty()) {
+                sql.append(", ");
+            }
+            sql.append("(?, ?)");
+            args.add(postId);
+            args.add(userId);
+        }
+        sql.append(" ON CONFLICT (post_id, user_id) DO NOTHING RETURNING post_id");
+        
+        return jdbcTemplate.queryForList(sql.toString(), String.class, args.toArray());
+    }
+    
+    @Override
+    public List<String> deleteLikesReturningPostIds(String userId, Collection<String> postIds) {
+        if (postIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        String placeholders = String.join(", ", Collections.nCopies(postIds.size(), "?"));
+        String sql = "DELETE FROM likes WHERE user_id = ? AND post_id IN (" + placeholders + ") RETURNING post_id";
+        
+        List<Object> args = new ArrayList<>(postIds.size() + 1);
+        args.add(userId);
+        args.addAll(postIds);
+        
+        return jdbcTemplate.queryForList(sql, String.class, args.toArray());
+    }
+}
@@ -0,0 +1,48 @@
+package com.redesocial.contentservice.repository.jpa;
+
+import com.redesocial.contentservice.model.jpa.MediaObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MediaObjectRepository extends JpaRepository<MediaObject, String> {
+    
+    /**
+     * Records a new original unless another upload of the same bytes got there
+     * first. Returns 1 if this row was inserted, 0 if the digest was taken.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO media_objects (digest, object_key, content_type, size_bytes, created_at) "
+            + "VALUES (:digest, :objectKey, :contentType, :sizeBytes, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (digest) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("digest") String digest,
+                       @Param("objectKey") String objectKey,
+                       @Param("contentType") String contentType,
+                       @Param("sizeBytes") long sizeBytes);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaObject m SET m.processedAt = :processedAt WHERE m.digest = :digest")
+    int markProcessed(@Param("digest") String digest, @Param("processedAt") LocalDateTime processedAt);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE MediaObject m SET m.lastUsedAt = :usedAt WHERE m.digest = :digest")
+    int touch(@Param("digest") String digest, @Param("usedAt") LocalDateTime usedAt);
+    
+    List<MediaObject> findByObjectKeyIn(Collection<String> objectKeys);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MediaObject m WHERE m.objectKey IN :objectKeys")
+    int deleteByObjectKeyIn(@Param("objectKeys") Collection<String> objectKeys);
+}
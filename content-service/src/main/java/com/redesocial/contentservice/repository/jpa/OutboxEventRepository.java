@@ -0,0 +1,56 @@
+package com.redesocial.contentservice.repository.jpa;
+
+import com.redesocial.contentservice.model.jpa.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    /**
+     * Locks the next batch of unpublished events. Rows already locked by another
+     * relay instance are skipped, so replicas never publish the same batch twice.
+     * Dead-lettered rows, and rows still backing off after a failed send, are
+     * left out.
+     */
+    @Query(value = "SELECT * FROM outbox_events WHERE published_at IS NULL AND dead_lettered_at IS NULL "
+            + "AND (next_attempt_at IS NULL OR next_attempt_at <= CURRENT_TIMESTAMP) "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextUnpublished(@Param("limit") int limit);
+    
+    /**
+     * Returns, for each of the keys, the id of its oldest unpublished event
+     * older than {@code beforeId} that is not among {@code lockedIds}, as
+     * {key, id} pairs. Such an event is held by another relay instance or is
+     * backing off after a failed send, and the key's newer events must wait for
+     * it. Dead-lettered events no longer hold anything back.
+     */
+    @Query("SELECT e.eventKey, MIN(e.id) FROM OutboxEvent e WHERE e.publishedAt IS NULL AND e.deadLetteredAt IS NULL "
+            + "AND e.eventKey IN :keys AND e.id < :beforeId AND e.id NOT IN :lockedIds GROUP BY e.eventKey")
+    List<Object[]> findOldestUnpublishedOutside(@Param("keys") Collection<String> keys,
+                                                @Param("beforeId") long beforeId,
+                                                @Param("lockedIds") Collection<Long> lockedIds);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+    
+    long countByPublishedAtIsNullAndDeadLetteredAtIsNull();
+    
+    long countByDeadLetteredAtIsNotNull();
+    
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.publishedAt IS NULL AND e.deadLetteredAt IS NULL")
+    LocalDateTime findOldestUnpublishedCreatedAt();
+    
+    @Modifying
+    @Query(value = "DELETE FROM outbox_events WHERE id IN ("
+            + "SELECT id FROM outbox_events WHERE published_at < :before LIMIT :limit)", nativeQuery = true)
+    int deletePublishedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
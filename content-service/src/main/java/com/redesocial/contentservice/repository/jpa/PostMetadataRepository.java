@@ -2,15 +2,87 @@ package com.redesocial.contentservice.repository.jpa;
 
 import com.redesocial.contentservice.model.jpa.PostMetadata;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PostMetadataRepository extends JpaRepository<PostMetadata, String> {
-    
-    List<PostMetadata> findByUserIdAndIsDeletedFalseOrderByCreatedAtDesc(String userId);
+public interface PostMetadataRepository extends JpaRepository<PostMetadata, String>, PostMetadataRepositoryCustom {
     
     Optional<PostMetadata> findByIdAndIsDeletedFalse(String id);
+    
+    List<PostMetadata> findByIdInAndIsDeletedFalse(Collection<String> ids);
+    
+    /**
+     * First page of an author's live posts, newest first. Served by the partial
+     * idx_post_metadata_user_created_live index.
+     */
+    @Query(value = "SELECT * FROM post_metadata WHERE user_id = :userId AND is_deleted = FALSE "
+            + "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<PostMetadata> findAuthorTimeline(@Param("userId") String userId, @Param("limit") int limit);
+    
+    /**
+     * Next page of an author's live posts, strictly after the (createdAt, id) position.
+     */
+    @Query(value = "SELECT * FROM post_metadata WHERE user_id = :userId AND is_deleted = FALSE "
+            + "AND (created_at, id) < (:createdAt, :id) "
+            + "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<PostMetadata> findAuthorTimelineAfter(@Param("userId") String userId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") String id,
+                                               @Param("limit") int limit);
+    
+    /**
+     * Newest live posts across several authors, used to pull posts of
+     * high-follower authors into a home feed at read time.
+     */
+    @Query(value = "SELECT * FROM post_metadata WHERE user_id IN (:userIds) AND is_deleted = FALSE "
+            + "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<PostMetadata> findLatestByAuthors(@Param("userIds") Collection<String> userIds, @Param("limit") int limit);
+    
+    @Query(value = "SELECT * FROM post_metadata WHERE user_id IN (:userIds) AND is_deleted = FALSE "
+            + "AND (created_at, id) < (:createdAt, :id) "
+            + "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<PostMetadata> findLatestByAuthorsAfter(@Param("userIds") Collection<String> userIds,
+                                                @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") String id,
+                                                @Param("limit") int limit);
+    
+    /**
+     * Oldest posts soft-deleted before the cutoff, served by the partial
+     * idx_post_metadata_deleted_at index.
+     */
+    @Query(value = "SELECT * FROM post_metadata WHERE is_deleted = TRUE AND deleted_at < :cutoff "
+            + "ORDER BY deleted_at, id LIMIT :limit", nativeQuery = true)
+    List<PostMetadata> findPurgeable(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+    
+    /**
+     * Next posts soft-deleted before the cutoff, strictly after the (deletedAt, id) position.
+     */
+    @Query(value = "SELECT * FROM post_metadata WHERE is_deleted = TRUE AND deleted_at < :cutoff "
+            + "AND (deleted_at, id) > (:deletedAt, :id) "
+            + "ORDER BY deleted_at, id LIMIT :limit", nativeQuery = true)
+    List<PostMetadata> findPurgeableAfter(@Param("cutoff") LocalDateTime cutoff,
+                                          @Param("deletedAt") LocalDateTime deletedAt,
+                                          @Param("id") String id,
+                                          @Param("limit") int limit);
+    
+    @Query(value = "SELECT COUNT(*) FROM post_metadata WHERE is_deleted = TRUE AND deleted_at < :cutoff",
+            nativeQuery = true)
+    long countPurgeable(@Param("cutoff") LocalDateTime cutoff);
+    
+    /**
+     * Hard-deletes a post's metadata row, but only if it is still soft-deleted.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM post_metadata WHERE id = :id AND is_deleted = TRUE", nativeQuery = true)
+    int deleteSoftDeleted(@Param("id") String id);
 }
@@ -0,0 +1,14 @@
+package com.redesocial.contentservice.repository.jpa;
+
+import com.redesocial.contentservice.model.jpa.PostCounterDelta;
+
+import java.util.List;
+
+public interface PostMetadataRepositoryCustom {
+    
+    /**
+     * Applies counter deltas in a single JDBC batch using atomic
+     * {@code count = count + ?} updates. Counters never drop below zero.
+     */
+    void applyCounterDeltas(List<PostCounterDelta> deltas);
+}
@@ -0,0 +1,42 @@
+package com.redesocial.contentservice.repository.jpa;
+
+import com.redesocial.contentservice.model.jpa.PostCounterDelta;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class PostMetadataRepositoryImpl implements PostMetadataRepositoryCustom {
+    
+    private static final String APPLY_COUNTER_DELTAS_SQL =
+            "UPDATE post_metadata SET "
+                    + "likes_count = GREATEST(likes_count + ?, 0), "
+                    + "comments_count = GREATEST(comments_count + ?, 0), "
+                    + "shares_count = GREATEST(shares_count + ?, 0) "
+                    + "WHERE id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    @Transactional
+    public void applyCounterDeltas(List<PostCounterDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        // Lock rows in a stable order so concurrent flushes from other replicas cannot deadlock
+        List<PostCounterDelta> ordered = new ArrayList<>(deltas);
+        ordered.sort(Comparator.comparing(PostCounterDelta::getPostId));
+        
+        jdbcTemplate.batchUpdate(APPLY_COUNTER_DELTAS_SQL, ordered, ordered.size(), (ps, delta) -> {
+            ps.setInt(1, delta.getLikes());
+            ps.setInt(2, delta.getComments());
+            ps.setInt(3, delta.getShares());
+            ps.setString(4, delta.getPostId());
+        });
+    }
+}
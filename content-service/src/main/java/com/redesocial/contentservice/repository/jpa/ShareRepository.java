@@ -2,7 +2,11 @@ package com.redesocial.contentservice.repository.jpa;
 
 import com.redesocial.contentservice.model.jpa.Share;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -14,4 +18,22 @@ public interface ShareRepository extends JpaRepository<Share, Long> {
     List<Share> findByUserId(String userId);
     
     long countByOriginalPostId(String originalPostId);
+    
+    /**
+     * Deletes up to {@code limit} shares of a post in its own short transaction.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM shares WHERE id IN "
+            + "(SELECT id FROM shares WHERE original_post_id = :postId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByOriginalPostId(@Param("postId") String postId, @Param("limit") int limit);
+    
+    /**
+     * Deletes up to {@code limit} share records whose shared copy is the given post.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM shares WHERE id IN "
+            + "(SELECT id FROM shares WHERE shared_post_id = :postId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkBySharedPostId(@Param("postId") String postId, @Param("limit") int limit);
 }
@@ -0,0 +1,77 @@
+package com.redesocial.contentservice.repository.jpa;
+
+import com.redesocial.contentservice.model.jpa.TranscodeJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TranscodeJobRepository extends JpaRepository<TranscodeJob, Long> {
+    
+    /**
+     * Queues a transcode of the given original unless one already exists.
+     * Returns 1 if this row was inserted, 0 if the original was already queued.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO transcode_jobs (source_key, digest, status, attempts, created_at, updated_at) "
+            + "VALUES (:sourceKey, :digest, 'PENDING', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) "
+            + "ON CONFLICT (source_key) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("sourceKey") String sourceKey, @Param("digest") String digest);
+    
+    Optional<TranscodeJob> findBySourceKey(String sourceKey);
+    
+    List<TranscodeJob> findBySourceKeyInAndStatus(Collection<String> sourceKeys, TranscodeJob.Status status);
+    
+    /**
+     * Locks the next jobs that are due: pending ones past their retry backoff and
+     * running ones whose worker let the lease expire. Rows locked by another
+     * poller are skipped.
+     */
+    @Query(value = "SELECT * FROM transcode_jobs WHERE status IN ('PENDING', 'RUNNING') "
+            + "AND (lease_until IS NULL OR lease_until < :now) "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<TranscodeJob> lockRunnable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    /**
+     * Records the outcome of one attempt. Matches nothing if the job has been
+     * claimed again since, so a stale worker cannot overwrite a newer attempt,
+     * or if the attempt already recorded its outcome.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TranscodeJob j SET j.status = :status, j.renditions = :renditions, j.leaseUntil = :leaseUntil, "
+            + "j.lastError = :lastError, j.updatedAt = :updatedAt WHERE j.id = :id AND j.attempts = :attempts "
+            + "AND j.status = com.redesocial.contentservice.model.jpa.TranscodeJob.Status.RUNNING")
+    int finish(@Param("id") Long id,
+               @Param("attempts") int attempts,
+               @Param("status") TranscodeJob.Status status,
+               @Param("renditions") String renditions,
+               @Param("leaseUntil") LocalDateTime leaseUntil,
+               @Param("lastError") String lastError,
+               @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Extends the lease of a running attempt. Matches nothing once the job has
+     * been claimed again, which tells the worker its attempt is stale.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TranscodeJob j SET j.leaseUntil = :leaseUntil, j.updatedAt = :updatedAt "
+            + "WHERE j.id = :id AND j.attempts = :attempts AND j.status = :status")
+    int renewLease(@Param("id") Long id,
+                   @Param("attempts") int attempts,
+                   @Param("status") TranscodeJob.Status status,
+                   @Param("leaseUntil") LocalDateTime leaseUntil,
+                   @Param("updatedAt") LocalDateTime updatedAt);
+    
+    long countByStatus(TranscodeJob.Status status);
+}
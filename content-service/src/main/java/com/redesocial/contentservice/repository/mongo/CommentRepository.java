@@ -1,15 +1,26 @@
 package com.redesocial.contentservice.repository.mongo;
 
 import com.redesocial.contentservice.model.mongo.Comment;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface CommentRepository extends MongoRepository<Comment, String> {
     
-    Page<Comment> findByPostIdOrderByCreatedAtDesc(String postId, Pageable pageable);
+    List<Comment> findByPostIdOrderByCreatedAtDescIdDesc(String postId, Pageable pageable);
+    
+    /**
+     * Comments strictly after the (createdAt, id) position in newest-first order.
+     * Served by the {postId, createdAt, _id} compound index without a skip.
+     */
+    @Query(value = "{ 'postId': ?0, '$or': [ { 'createdAt': { '$lt': ?1 } }, { 'createdAt': ?1, '_id': { '$lt': ?2 } } ] }",
+            sort = "{ 'createdAt': -1, '_id': -1 }")
+    List<Comment> findByPostIdAfter(String postId, LocalDateTime createdAt, String id, Pageable pageable);
     
     long countByPostId(String postId);
 }
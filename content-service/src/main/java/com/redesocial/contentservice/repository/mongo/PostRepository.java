@@ -1,9 +1,13 @@
 package com.redesocial.contentservice.repository.mongo;
 
 import com.redesocial.contentservice.model.mongo.Post;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -12,4 +16,26 @@ public interface PostRepository extends MongoRepository<Post, String> {
     List<Post> findByUserId(String userId);
     
     List<Post> findByUserIdOrderByCreatedAtDesc(String userId);
+    
+    /**
+     * Newest live posts carrying a hashtag, served by the multikey
+     * {hashtags, createdAt, _id} index. Documents written before the deleted
+     * flag existed have no such field, hence $ne rather than false.
+     */
+    @Query(value = "{ 'hashtags': ?0, 'deleted': { '$ne': true } }",
+            sort = "{ 'createdAt': -1, '_id': -1 }")
+    List<Post> findLiveByHashtag(String hashtag, Pageable pageable);
+    
+    /**
+     * Live posts carrying a hashtag strictly after the (createdAt, id) position
+     * in newest-first order.
+     */
+    @Query(value = "{ 'hashtags': ?0, 'deleted': { '$ne': true }, "
+            + "'$or': [ { 'createdAt': { '$lt': ?1 } }, { 'createdAt': ?1, '_id': { '$lt': ?2 } } ] }",
+            sort = "{ 'createdAt': -1, '_id': -1 }")
+    List<Post> findLiveByHashtagAfter(String hashtag, LocalDateTime createdAt, String id, Pageable pageable);
+    
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$set': { 'deleted': true } }")
+    long markDeleted(String postId);
 }
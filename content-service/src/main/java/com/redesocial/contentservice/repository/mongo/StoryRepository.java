@@ -6,6 +6,7 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,6 +15,12 @@ public interface StoryRepository extends MongoRepository<Story, String> {
     @Query("{ 'userId': ?0, 'expiresAt': { $gt: ?1 } }")
     List<Story> findActiveStoriesByUserId(String userId, LocalDateTime now);
     
+    @Query("{ 'userId': { $in: ?0 }, 'expiresAt': { $gt: ?1 } }")
+    List<Story> findActiveStoriesByUserIdIn(Collection<String> userIds, LocalDateTime now);
+    
     @Query("{ 'expiresAt': { $gt: ?0 } }")
     List<Story> findAllActiveStories(LocalDateTime now);
+    
+    @Query(value = "{ '_id': ?0, 'expiresAt': { $gt: ?1 } }", exists = true)
+    boolean existsActiveStory(String id, LocalDateTime now);
 }
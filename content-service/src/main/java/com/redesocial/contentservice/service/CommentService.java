@@ -2,33 +2,38 @@ package com.redesocial.contentservice.service;
 
 import com.redesocial.contentservice.dto.CommentResponse;
 import com.redesocial.contentservice.dto.CreateCommentRequest;
+import com.redesocial.contentservice.dto.CursorPage;
 import com.redesocial.contentservice.event.CommentCreatedEvent;
 import com.redesocial.contentservice.exception.PostNotFoundException;
-import com.redesocial.contentservice.model.jpa.PostMetadata;
 import com.redesocial.contentservice.model.mongo.Comment;
 import com.redesocial.contentservice.model.mongo.Post;
 import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
 import com.redesocial.contentservice.repository.mongo.CommentRepository;
 import com.redesocial.contentservice.repository.mongo.PostRepository;
+import com.redesocial.contentservice.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CommentService {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final PostMetadataRepository postMetadataRepository;
     private final EventPublisher eventPublisher;
+    private final EngagementCounterBuffer counterBuffer;
     
     @Transactional
     public CommentResponse addComment(String postId, CreateCommentRequest request) {
@@ -38,7 +43,7 @@ public class CommentService {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new PostNotFoundException("Post not found: " + postId));
         
-        PostMetadata metadata = postMetadataRepository.findByIdAndIsDeletedFalse(postId)
+        postMetadataRepository.findByIdAndIsDeletedFalse(postId)
                 .orElseThrow(() -> new PostNotFoundException("Post not found or deleted: " + postId));
         
         // Create comment
@@ -54,10 +59,8 @@ public class CommentService {
         comment = commentRepository.save(comment);
         log.info("Comment created with ID: {}", comment.getId());
         
-        // Increment comments count
-        metadata.setCommentsCount(metadata.getCommentsCount() + 1);
-        postMetadataRepository.save(metadata);
-        log.info("Incremented comments count for post: {} to {}", postId, metadata.getCommentsCount());
+        // Increment comments count (applied write-behind)
+        counterBuffer.incrementComments(postId);
         
         // Publish event
         CommentCreatedEvent event = CommentCreatedEvent.builder()
@@ -74,18 +77,42 @@ public class CommentService {
         return mapToResponse(comment);
     }
     
-    public Page<CommentResponse> getComments(String postId, int page, int size) {
-        log.info("Fetching comments for post: {} (page: {}, size: {})", postId, page, size);
+    /**
+     * Returns comments newest first, starting after {@code cursor} (or from the
+     * newest comment when it is null). One extra row is fetched to tell whether
+     * another page exists, so no count query is needed.
+     */
+    public CursorPage<CommentResponse> getComments(String postId, String cursor, int size) {
+        log.info("Fetching comments for post: {} (cursor: {}, size: {})", postId, cursor, size);
         
         // Verify post exists
         postRepository.findById(postId)
                 .orElseThrow(() -> new PostNotFoundException("Post not found: " + postId));
         
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Comment> comments = commentRepository.findByPostIdOrderByCreatedAtDesc(postId, pageable);
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<Comment> comments;
+        if (cursor == null || cursor.isEmpty()) {
+            comments = commentRepository.findByPostIdOrderByCreatedAtDescIdDesc(postId, pageable);
+        } else {
+            PageCursor position = PageCursor.decode(cursor);
+            comments = commentRepository.findByPostIdAfter(postId, position.getCreatedAt(), position.getId(), pageable);
+        }
+        
+        boolean hasMore = comments.size() > limit;
+        String nextCursor = null;
+        if (hasMore) {
+            comments = comments.subList(0, limit);
+            Comment last = comments.get(comments.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
         
-        log.info("Found {} comments for post: {}", comments.getTotalElements(), postId);
-        return comments.map(this::mapToResponse);
+        log.info("Found {} comments for post: {} (hasMore: {})", comments.size(), postId, hasMore);
+        return CursorPage.<CommentResponse>builder()
+                .content(comments.stream().map(this::mapToResponse).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
     }
     
     private CommentResponse mapToResponse(Comment comment) {
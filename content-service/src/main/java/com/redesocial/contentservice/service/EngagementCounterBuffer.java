@@ -0,0 +1,197 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.model.jpa.PostCounterDelta;
+import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind buffer for post engagement counters.
+ *
+ * Likes, comments and shares record a delta here instead of loading and saving
+ * the whole post_metadata row. Deltas are kept in lock-striped maps so writers on
+ * different posts never contend, and are flushed periodically with batched atomic
+ * {@code count = count + ?} updates. The flush interval bounds how stale the
+ * persisted counters can be; remaining deltas are drained on shutdown.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EngagementCounterBuffer {
+
+    private static final int STRIPES = 64;
+
+    private final PostMetadataRepository postMetadataRepository;
+    private final MeterRegistry meterRegistry;
+    private final PostCache postCache;
+
+    @Value("${content.counters.flush-batch-size:500}")
+    private int flushBatchSize = 500;
+
+    private final Stripe[] stripes = createStripes();
+    private final AtomicInteger pendingPosts = new AtomicInteger();
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("content.counters.pending.posts", pendingPosts);
+    }
+
+    public void incrementLikes(String postId) {
+        add(postId, 1, 0, 0);
+    }
+
+    public void decrementLikes(String postId) {
+        add(postId, -1, 0, 0);
+    }
+
+    public void incrementComments(String postId) {
+        add(postId, 0, 1, 0);
+    }
+
+    public void incrementShares(String postId) {
+        add(postId, 0, 0, 1);
+    }
+
+    /**
+     * Records a counter delta. Inside a transaction the delta is only buffered
+     * after commit, so rolled back likes or comments never reach the counters.
+     * Cached copies of the post are patched at the same time.
+     */
+    public void add(String postId, int likes, int comments, int shares) {
+        if (likes == 0 && comments == 0 && shares == 0) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(postId, likes, comments, shares);
+                }
+            });
+        } else {
+            record(postId, likes, comments, shares);
+        }
+    }
+
+    /**
+     * Returns the delta not yet written to post_metadata for a post.
+     */
+    public PostCounterDelta pendingDelta(String postId) {
+        Stripe stripe = stripeFor(postId);
+        synchronized (stripe) {
+            PostCounterDelta delta = stripe.deltas.get(postId);
+            return delta != null
+                    ? new PostCounterDelta(postId, delta.getLikes(), delta.getComments(), delta.getShares())
+                    : new PostCounterDelta(postId, 0, 0, 0);
+        }
+    }
+
+    public int getPendingPosts() {
+        return pendingPosts.get();
+    }
+
+    @Scheduled(fixedDelayString = "${content.counters.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<PostCounterDelta> drained = drain();
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int applied = 0;
+        try {
+            while (applied < drained.size()) {
+                int end = Math.min(applied + flushBatchSize, drained.size());
+                postMetadataRepository.applyCounterDeltas(drained.subList(applied, end));
+                applied = end;
+            }
+            log.debug("Flushed counter deltas for {} posts", drained.size());
+        } catch (RuntimeException e) {
+            // Put unapplied deltas back so the next flush retries them
+            List<PostCounterDelta> remaining = drained.subList(applied, drained.size());
+            remaining.forEach(d -> merge(d.getPostId(), d.getLikes(), d.getComments(), d.getShares()));
+            meterRegistry.counter("content.counters.flush.failures").increment();
+            log.error("Failed to flush counter deltas, {} posts re-queued", remaining.size(), e);
+        } finally {
+            sample.stop(meterRegistry.timer("content.counters.flush"));
+            meterRegistry.counter("content.counters.flushed.posts").increment(applied);
+        }
+    }
+
+    @PreDestroy
+    public void drainOnShutdown() {
+        log.info("Draining {} pending counter deltas before shutdown", pendingPosts.get());
+        flush();
+    }
+
+    private void record(String postId, int likes, int comments, int shares) {
+        merge(postId, likes, comments, shares);
+        postCache.applyCounterDelta(postId, likes, comments, shares);
+    }
+
+    private void merge(String postId, int likes, int comments, int shares) {
+        Stripe stripe = stripeFor(postId);
+        synchronized (stripe) {
+            PostCounterDelta delta = stripe.deltas.get(postId);
+            if (delta == null) {
+                delta = new PostCounterDelta(postId, 0, 0, 0);
+                stripe.deltas.put(postId, delta);
+                pendingPosts.incrementAndGet();
+            }
+            delta.add(likes, comments, shares);
+            if (delta.isZero()) {
+                stripe.deltas.remove(postId);
+                pendingPosts.decrementAndGet();
+            }
+        }
+    }
+
+    private List<PostCounterDelta> drain() {
+        List<PostCounterDelta> drained = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            Map<String, PostCounterDelta> deltas;
+            synchronized (stripe) {
+                if (stripe.deltas.isEmpty()) {
+                    continue;
+                }
+                deltas = stripe.deltas;
+                stripe.deltas = new HashMap<>();
+                pendingPosts.addAndGet(-deltas.size());
+            }
+            drained.addAll(deltas.values());
+        }
+        return drained;
+    }
+
+    private Stripe stripeFor(String postId) {
+        return stripes[(postId.hashCode() & Integer.MAX_VALUE) % STRIPES];
+    }
+
+    private static Stripe[] createStripes() {
+        Stripe[] stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        return stripes;
+    }
+
+    private static final class Stripe {
+        private Map<String, PostCounterDelta> deltas = new HashMap<>();
+    }
+}
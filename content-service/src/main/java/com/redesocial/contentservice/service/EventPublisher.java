@@ -1,25 +1,46 @@
 package com.redesocial.contentservice.service;
 
-import com.redesocial.contentservice.config.KafkaConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redesocial.contentservice.event.ContentEvent;
+import com.redesocial.contentservice.model.jpa.OutboxEvent;
+import com.redesocial.contentservice.repository.jpa.OutboxEventRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Records content events in the transactional outbox. The event row commits or
+ * rolls back together with the state change that produced it, and
+ * {@link OutboxRelay} forwards it to Kafka in the background. Events about a
+ * post ({@link ContentEvent}) are keyed by that post.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class EventPublisher {
     
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
     
+    @Transactional
     public void publishEvent(String eventType, Object event) {
+        String payload;
         try {
-            kafkaTemplate.send(KafkaConfig.CONTENT_EVENTS_TOPIC, eventType, event);
-            log.info("Published event: {} to topic: {}", eventType, KafkaConfig.CONTENT_EVENTS_TOPIC);
-        } catch (Exception e) {
-            log.error("Failed to publish event: {}", eventType, e);
-            throw new RuntimeException("Failed to publish event", e);
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize event: {}", eventType, e);
+            throw new IllegalStateException("Failed to serialize event " + eventType, e);
         }
+        
+        OutboxEvent outboxEvent = OutboxEvent.builder()
+                .eventType(eventType)
+                .eventKey(event instanceof ContentEvent ? ((ContentEvent) event).partitionKey() : null)
+                .eventClass(event.getClass().getName())
+                .payload(payload)
+                .build();
+        outboxEventRepository.save(outboxEvent);
+        log.debug("Queued event {} in outbox", eventType);
     }
 }
@@ -0,0 +1,174 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.client.UserServiceClient;
+import com.redesocial.contentservice.dto.UserSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Push side of the home feed.
+ *
+ * When a post is created its id is added to a capped Redis sorted set per
+ * follower, scored by creation time, so reading a feed page is a single range
+ * query. Followers are paged from user-service and each page is written in one
+ * pipelined round trip. Authors with more followers than the threshold are not
+ * fanned out; {@link FeedService} pulls their posts at read time instead.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedFanoutService {
+
+    static final String TIMELINE_KEY_PREFIX = "content:timeline:";
+
+    private final UserServiceClient userServiceClient;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${content.feed.max-length:800}")
+    private int maxLength = 800;
+
+    @Value("${content.feed.ttl-days:7}")
+    private int ttlDays = 7;
+
+    @Value("${content.feed.follower-page-size:500}")
+    private int followerPageSize = 500;
+
+    @Value("${content.feed.celebrity-threshold:10000}")
+    private int celebrityThreshold = 10000;
+
+    private final ThreadPoolExecutor fanoutExecutor = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(10000));
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gaugeCollectionSize("content.feed.fanout.queued", List.of(), fanoutExecutor.getQueue());
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        fanoutExecutor.shutdown();
+        fanoutExecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    static String timelineKey(String userId) {
+        return TIMELINE_KEY_PREFIX + userId;
+    }
+
+    static double score(LocalDateTime createdAt) {
+        return createdAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Schedules the fan-out of a new post once the surrounding transaction has
+     * committed. Runs in the background so post creation never waits on it.
+     */
+    public void fanOut(String postId, String authorId, LocalDateTime createdAt) {
+        Runnable task = () -> {
+            try {
+                fanoutExecutor.execute(() -> fanOutNow(postId, authorId, createdAt));
+            } catch (RejectedExecutionException e) {
+                // The post stays reachable through the author's timeline
+                meterRegistry.counter("content.feed.fanout.rejected").increment();
+                log.warn("Fan-out queue full, dropping fan-out of post {}", postId);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    void fanOutNow(String postId, String authorId, LocalDateTime createdAt) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            double score = score(createdAt);
+            // Authors always see their own posts
+            pushToTimelines(List.of(authorId), postId, score);
+
+            UserSummary author = userServiceClient.getUser(authorId);
+            if (author != null && author.getFollowersCount() != null
+                    && author.getFollowersCount() > celebrityThreshold) {
+                meterRegistry.counter("content.feed.fanout.skipped").increment();
+                log.debug("Skipping fan-out of post {}: author {} has {} followers",
+                        postId, authorId, author.getFollowersCount());
+                return;
+            }
+
+            int delivered = 0;
+            int page = 0;
+            List<UserSummary> followers;
+            do {
+                followers = userServiceClient.getFollowers(authorId, page++, followerPageSize);
+                List<String> followerIds = new ArrayList<>(followers.size());
+                for (UserSummary follower : followers) {
+                    followerIds.add(follower.getId());
+                }
+                pushToTimelines(followerIds, postId, score);
+                delivered += followerIds.size();
+            } while (followers.size() == followerPageSize && delivered <= celebrityThreshold);
+
+            meterRegistry.counter("content.feed.fanout.deliveries").increment(delivered);
+            log.debug("Fanned out post {} to {} followers", postId, delivered);
+        } catch (Exception e) {
+            meterRegistry.counter("content.feed.fanout.failures").increment();
+            log.error("Failed to fan out post {} of author {}", postId, authorId, e);
+        } finally {
+            sample.stop(meterRegistry.timer("content.feed.fanout"));
+        }
+    }
+
+    /**
+     * Adds the post to each timeline, trims it to the newest {@code maxLength}
+     * entries and refreshes its TTL, all in one pipeline.
+     */
+    private void pushToTimelines(List<String> userIds, String postId, double score) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Duration ttl = Duration.ofDays(ttlDays);
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (String userId : userIds) {
+                    String key = timelineKey(userId);
+                    ops.opsForZSet().add(key, postId, score);
+                    ops.opsForZSet().removeRange(key, 0, -(maxLength + 1));
+                    ops.expire(key, ttl);
+                }
+                return null;
+            }
+        });
+    }
+}
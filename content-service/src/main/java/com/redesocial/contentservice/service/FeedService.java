@@ -0,0 +1,220 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.client.UserServiceClient;
+import com.redesocial.contentservice.dto.CursorPage;
+import com.redesocial.contentservice.dto.PostResponse;
+import com.redesocial.contentservice.dto.UserSummary;
+import com.redesocial.contentservice.model.jpa.PostMetadata;
+import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
+import com.redesocial.contentservice.util.PageCursor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Read side of the home feed.
+ *
+ * A page is the merge of the reader's materialized timeline (one sorted-set
+ * range read) and the newest posts of the high-follower authors they follow,
+ * which are never fanned out and are pulled from post_metadata instead. Both
+ * sources are read with the same (createdAt, id) keyset, so the cost of a page
+ * depends on the page size, not on the length of the timeline.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FeedService {
+
+    static final String CELEBRITIES_KEY_PREFIX = "content:feed:celebrities:";
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_FOLLOWING_PAGES = 20;
+    private static final String NO_CELEBRITIES = "";
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserServiceClient userServiceClient;
+    private final PostMetadataRepository postMetadataRepository;
+    private final PostService postService;
+
+    @Value("${content.feed.celebrity-threshold:10000}")
+    private int celebrityThreshold = 10000;
+
+    @Value("${content.feed.following-page-size:500}")
+    private int followingPageSize = 500;
+
+    @Value("${content.feed.celebrity-cache-ttl-seconds:600}")
+    private long celebrityCacheTtlSeconds = 600;
+
+    public CursorPage<PostResponse> getFeed(String userId, String cursor, int size) {
+        log.info("Fetching feed for user: {} (cursor: {}, size: {})", userId, cursor, size);
+
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        PageCursor position = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+
+        List<FeedEntry> entries = readTimeline(userId, position, limit + 1);
+        Set<String> celebrities = followedCelebrities(userId);
+        if (!celebrities.isEmpty()) {
+            entries.addAll(pullFromAuthors(celebrities, position, limit + 1));
+        }
+
+        // Newest first, id as tie-breaker; a post can come from both sources
+        entries.sort(Comparator.comparingLong(FeedEntry::getScore).thenComparing(FeedEntry::getPostId).reversed());
+        List<FeedEntry> page = new ArrayList<>(limit + 1);
+        Set<String> seen = new HashSet<>();
+        for (FeedEntry entry : entries) {
+            if (seen.add(entry.getPostId())) {
+                page.add(entry);
+                if (page.size() > limit) {
+                    break;
+                }
+            }
+        }
+
+        boolean hasMore = page.size() > limit;
+        String nextCursor = null;
+        if (hasMore) {
+            page = page.subList(0, limit);
+            FeedEntry last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(toDateTime(last.getScore()), last.getPostId()).encode();
+        }
+
+        List<String> postIds = new ArrayList<>(page.size());
+        for (FeedEntry entry : page) {
+            postIds.add(entry.getPostId());
+        }
+        // Deleted posts are dropped during hydration, so a page can be shorter than requested
+        return CursorPage.<PostResponse>builder()
+                .content(postService.getPosts(postIds))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Reads up to {@code count} timeline entries strictly after the cursor.
+     * Entries sharing the cursor's score are filtered by id, so the loop only
+     * runs more than once when many posts share the same millisecond.
+     */
+    private List<FeedEntry> readTimeline(String userId, PageCursor position, int count) {
+        String key = FeedFanoutService.timelineKey(userId);
+        double max = position == null ? Double.POSITIVE_INFINITY : FeedFanoutService.score(position.getCreatedAt());
+
+        List<FeedEntry> entries = new ArrayList<>(count);
+        long offset = 0;
+        while (entries.size() < count) {
+            Set<ZSetOperations.TypedTuple<String>> batch = redisTemplate.opsForZSet()
+                    .reverseRangeByScoreWithScores(key, Double.NEGATIVE_INFINITY, max, offset, count);
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            for (ZSetOperations.TypedTuple<String> tuple : batch) {
+                long score = tuple.getScore().longValue();
+                if (position != null && score == (long) max && tuple.getValue().compareTo(position.getId()) >= 0) {
+                    continue;
+                }
+                entries.add(new FeedEntry(tuple.getValue(), score));
+                if (entries.size() == count) {
+                    break;
+                }
+            }
+            if (batch.size() < count) {
+                break;
+            }
+            offset += batch.size();
+        }
+        return entries;
+    }
+
+    private List<FeedEntry> pullFromAuthors(Set<String> authorIds, PageCursor position, int count) {
+        List<PostMetadata> posts = position == null
+                ? postMetadataRepository.findLatestByAuthors(authorIds, count)
+                : postMetadataRepository.findLatestByAuthorsAfter(authorIds, position.getCreatedAt(), position.getId(), count);
+
+        List<FeedEntry> entries = new ArrayList<>(posts.size());
+        for (PostMetadata post : posts) {
+            entries.add(new FeedEntry(post.getId(), (long) FeedFanoutService.score(post.getCreatedAt())));
+        }
+        return entries;
+    }
+
+    /**
+     * Followed authors above the fan-out threshold, cached in Redis so the
+     * following list is only paged from user-service once per TTL.
+     */
+    private Set<String> followedCelebrities(String userId) {
+        String key = CELEBRITIES_KEY_PREFIX + userId;
+        try {
+            Set<String> cached = redisTemplate.opsForSet().members(key);
+            if (cached != null && !cached.isEmpty()) {
+                cached.remove(NO_CELEBRITIES);
+                return cached;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read followed celebrities of user {}", userId, e);
+        }
+
+        Set<String> celebrities = new HashSet<>();
+        try {
+            List<UserSummary> following;
+            int page = 0;
+            do {
+                following = userServiceClient.getFollowing(userId, page++, followingPageSize);
+                for (UserSummary user : following) {
+                    if (user.getFollowersCount() != null && user.getFollowersCount() > celebrityThreshold) {
+                        celebrities.add(user.getId());
+                    }
+                }
+            } while (following.size() == followingPageSize && page < MAX_FOLLOWING_PAGES);
+        } catch (Exception e) {
+            // Serve the pushed timeline alone rather than failing the feed
+            log.warn("Failed to load following list of user {}", userId, e);
+            return celebrities;
+        }
+
+        try {
+            // Cache an empty result too, so readers without celebrities skip user-service
+            redisTemplate.opsForSet().add(key, celebrities.isEmpty()
+                    ? new String[]{NO_CELEBRITIES}
+                    : celebrities.toArray(new String[0]));
+            redisTemplate.expire(key, Duration.ofSeconds(celebrityCacheTtlSeconds));
+        } catch (Exception e) {
+            log.warn("Failed to cache followed celebrities of user {}", userId, e);
+        }
+        return celebrities;
+    }
+
+    private static LocalDateTime toDateTime(long score) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(score), ZoneOffset.UTC);
+    }
+
+    private static final class FeedEntry {
+        private final String postId;
+        private final long score;
+
+        private FeedEntry(String postId, long score) {
+            this.postId = postId;
+            this.score = score;
+        }
+
+        private String getPostId() {
+            return postId;
+        }
+
+        private long getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.redesocial.contentservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transcodes by running the ffmpeg and ffprobe binaries as child processes.
+ * Each job is capped at a fixed thread count, which is what lets
+ * {@link TranscodeService} size its pool from the available cores.
+ */
+@Slf4j
+@Component
+public class FfmpegTranscoder implements Transcoder {
+    
+    private static final int MAX_ERROR_LENGTH = 500;
+    
+    @Value("${content.media.transcode.ffmpeg-path:ffmpeg}")
+    private String ffmpegPath = "ffmpeg";
+    
+    @Value("${content.media.transcode.ffprobe-path:ffprobe}")
+    private String ffprobePath = "ffprobe";
+    
+    @Value("${content.media.transcode.threads-per-job:2}")
+    private int threadsPerJob = 2;
+    
+    @Value("${content.media.transcode.preset:veryfast}")
+    private String preset = "veryfast";
+    
+    @Value("${content.media.transcode.crf:23}")
+    private int crf = 23;
+    
+    @Value("${content.media.transcode.timeout-minutes:20}")
+    private long timeoutMinutes = 20;
+    
+    @Override
+    public VideoInfo probe(Path source) throws IOException {
+        List<String> command = List.of(ffprobePath, "-v", "error", "-select_streams", "v:0",
+                "-show_entries", "stream=width,height:stream_tags=rotate:format=duration",
+                "-of", "default=noprint_wrappers=1", source.toString());
+        return parseProbe(run(command));
+    }
+    
+    @Override
+    public void transcode(Path source, Path target, int shortSide) throws IOException {
+        run(transcodeCommand(source, target, shortSide));
+    }
+    
+    List<String> transcodeCommand(Path source, Path target, int shortSide) {
+        // Scale the shorter side so portrait and landscape videos land on the same rung;
+        // -2 keeps the other side even, as yuv420p requires
+        String scale = String.format("scale='if(gt(iw,ih),-2,%1$d)':'if(gt(iw,ih),%1$d,-2)'", shortSide);
+        
+        List<String> command = new ArrayList<>();
+        command.add(ffmpegPath);
+        command.add("-nostdin");
+        command.add("-v");
+        command.add("error");
+        command.add("-y");
+        command.add("-i");
+        command.add(source.toString());
+        command.add("-map");
+        command.add("0:v:0");
+        command.add("-map");
+        command.add("0:a:0?");
+        command.add("-vf");
+        command.add(scale);
+        command.add("-c:v");
+        command.add("libx264");
+        command.add("-preset");
+        command.add(preset);
+        command.add("-crf");
+        command.add(String.valueOf(crf));
+        command.add("-pix_fmt");
+        command.add("yuv420p");
+        command.add("-threads");
+        command.add(String.valueOf(threadsPerJob));
+        command.add("-c:a");
+        command.add("aac");
+        command.add("-b:a");
+        command.add("128k");
+        // Moves the index to the front so playback starts before the download ends
+        command.add("-movflags");
+        command.add("+faststart");
+        command.add(target.toString());
+        return command;
+    }
+    
+    /**
+     * Parses ffprobe's {@code key=value} output. Videos recorded in portrait
+     * carry a 90 or 270 degree rotate tag and are reported with their sides
+     * swapped, as they will be displayed.
+     */
+    static VideoInfo parseProbe(String output) throws IOException {
+        Integer width = null;
+        Integer height = null;
+        Double duration = null;
+        int rotation = 0;
+        for (String line : output.split("\\R")) {
+            int separator = line.indexOf('=');
+            if (separator < 0) {
+                continue;
+            }
+            String key = line.substring(0, separator).trim();
+            String value = line.substring(separator + 1).trim();
+            try {
+                switch (key) {
+                    case "width":
+                        width = Integer.valueOf(value);
+                        break;
+                    case "height":
+                        height = Integer.valueOf(value);
+                        break;
+                    case "duration":
+                        duration = Double.valueOf(value);
+                        break;
+                    case "TAG:rotate":
+                        rotation = Math.abs(Integer.parseInt(value)) % 360;
+                        break;
+                    default:
+                        break;
+                }
+            } catch (NumberFormatException e) {
+                // ffprobe prints N/A for values it cannot determine
+            }
+        }
+        
+        if (width == null || height == null || width <= 0 || height <= 0) {
+            throw new IOException("No video stream found");
+        }
+        boolean quarterTurn = rotation == 90 || rotation == 270;
+        return VideoInfo.builder()
+                .width(quarterTurn ? height : width)
+                .height(quarterTurn ? width : height)
+                .durationSeconds(duration)
+                .build();
+    }
+    
+    private String run(List<String> command) throws IOException {
+        String binary = command.get(0);
+        // Output goes to a file so a chatty process can never block on a full pipe
+        Path output = Files.createTempFile("transcode-", ".log");
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(output.toFile())
+                    .start();
+            try {
+                if (!process.waitFor(timeoutMinutes, TimeUnit.MINUTES)) {
+                    process.destroyForcibly();
+                    throw new IOException(binary + " timed out after " + timeoutMinutes + " minutes");
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(binary + " was interrupted");
+            }
+            
+            String text = Files.readString(output);
+            if (process.exitValue() != 0) {
+                String tail = text.length() > MAX_ERROR_LENGTH ? text.substring(text.length() - MAX_ERROR_LENGTH) : text;
+                throw new IOException(binary + " exited with code " + process.exitValue() + ": " + tail.trim());
+            }
+            log.debug("{} finished: {}", binary, command);
+            return text;
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+}
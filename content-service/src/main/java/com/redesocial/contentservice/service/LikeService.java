@@ -1,5 +1,7 @@
 package com.redesocial.contentservice.service;
 
+import com.redesocial.contentservice.dto.BatchLikeRequest;
+import com.redesocial.contentservice.dto.BatchLikeResponse;
 import com.redesocial.contentservice.event.LikeCreatedEvent;
 import com.redesocial.contentservice.exception.PostNotFoundException;
 import com.redesocial.contentservice.model.jpa.Like;
@@ -12,6 +14,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -21,6 +31,8 @@ public class LikeService {
     private final LikeRepository likeRepository;
     private final PostMetadataRepository postMetadataRepository;
     private final EventPublisher eventPublisher;
+    private final EngagementCounterBuffer counterBuffer;
+    private final LikeStatusCache likeStatusCache;
     
     @Transactional
     public void likePost(String postId, String userId) {
@@ -43,9 +55,9 @@ public class LikeService {
                 .build();
         likeRepository.save(like);
         
-        // Increment likes count
-        postMetadata.setLikesCount(postMetadata.getLikesCount() + 1);
-        postMetadataRepository.save(postMetadata);
+        // Increment likes count (applied write-behind)
+        counterBuffer.incrementLikes(postId);
+        likeStatusCache.recordLike(postId, userId);
         
         // Publish event
         LikeCreatedEvent event = LikeCreatedEvent.builder()
@@ -56,8 +68,7 @@ public class LikeService {
                 .build();
         eventPublisher.publishEvent("like.created", event);
         
-        log.info("User {} successfully liked post {}, new count: {}", 
-                userId, postId, postMetadata.getLikesCount());
+        log.info("User {} successfully liked post {}", userId, postId);
     }
     
     @Transactional
@@ -65,7 +76,7 @@ public class LikeService {
         log.info("User {} attempting to unlike post {}", userId, postId);
         
         // Verify post exists
-        PostMetadata postMetadata = postMetadataRepository.findById(postId)
+        postMetadataRepository.findById(postId)
                 .orElseThrow(() -> new PostNotFoundException("Post not found: " + postId));
         
         // Check if like exists
@@ -77,12 +88,117 @@ public class LikeService {
         // Delete like
         likeRepository.deleteByPostIdAndUserId(postId, userId);
         
-        // Decrement likes count (ensure it doesn't go below 0)
-        int currentCount = postMetadata.getLikesCount();
-        postMetadata.setLikesCount(Math.max(0, currentCount - 1));
-        postMetadataRepository.save(postMetadata);
+        // Decrement likes count (the flush never lets it go below 0)
+        counterBuffer.decrementLikes(postId);
+        likeStatusCache.recordUnlike(postId, userId);
+        
+        log.info("User {} successfully unliked post {}", userId, postId);
+    }
+    
+    /**
+     * Applies a queue of like/unlike actions from one user in a single round trip.
+     * Only the last action per post counts, likes are inserted with one multi-row
+     * upsert, unlikes are removed with one DELETE ... RETURNING, and each post gets
+     * a single folded counter delta.
+     */
+    @Transactional
+    public BatchLikeResponse applyLikeBatch(String userId, List<BatchLikeRequest.LikeAction> actions) {
+        log.info("User {} applying batch of {} like actions", userId, actions.size());
+        
+        // Collapse replayed actions to the last one per post, ordered by when that last action came
+        Map<String, BatchLikeRequest.ActionType> finalActions = new LinkedHashMap<>();
+        for (BatchLikeRequest.LikeAction action : actions) {
+            finalActions.remove(action.getPostId());
+            finalActions.put(action.getPostId(), action.getAction());
+        }
+        
+        Map<String, PostMetadata> posts = postMetadataRepository.findAllById(finalActions.keySet()).stream()
+                .collect(Collectors.toMap(PostMetadata::getId, Function.identity()));
+        
+        List<String> toLike = new ArrayList<>();
+        List<String> toUnlike = new ArrayList<>();
+        finalActions.forEach((postId, action) -> {
+            if (!posts.containsKey(postId)) {
+                return;
+            }
+            if (action == BatchLikeRequest.ActionType.LIKE) {
+                toLike.add(postId);
+            } else {
+                toUnlike.add(postId);
+            }
+        });
+        
+        Set<String> liked = new HashSet<>(likeRepository.insertLikesIgnoringExisting(userId, toLike));
+        Set<String> unliked = new HashSet<>(likeRepository.deleteLikesReturningPostIds(userId, toUnlike));
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (String postId : liked) {
+            counterBuffer.incrementLikes(postId);
+            likeStatusCache.recordLike(postId, userId);
+            eventPublisher.publishEvent("like.created", LikeCreatedEvent.builder()
+                    .postId(postId)
+                    .userId(userId)
+                    .postAuthorId(posts.get(postId).getUserId())
+                    .createdAt(now)
+                    .build());
+        }
+        for (String postId : unliked) {
+            counterBuffer.decrementLikes(postId);
+            likeStatusCache.recordUnlike(postId, userId);
+        }
+        
+        List<BatchLikeResponse.LikeResult> results = new ArrayList<>(finalActions.size());
+        finalActions.forEach((postId, action) -> results.add(BatchLikeResponse.LikeResult.builder()
+                .postId(postId)
+                .action(action)
+                .status(resolveStatus(postId, action, posts, liked, unliked))
+                .build()));
+        
+        log.info("User {} batch applied: {} liked, {} unliked", userId, liked.size(), unliked.size());
+        return BatchLikeResponse.builder().results(results).build();
+    }
+    
+    /**
+     * Tells whether a user liked each of the given posts. Posts whose Bloom filter
+     * rules the user out are answered from memory; the rest share one exact query.
+     * A like recorded on another replica can be missed until the filter expires,
+     * as {@link LikeStatusCache} explains, so the answer is meant for display.
+     */
+    public Map<String, Boolean> getLikeStatus(String userId, List<String> postIds) {
+        Map<String, Boolean> status = new LinkedHashMap<>();
+        List<String> needsLookup = new ArrayList<>();
+        
+        for (String postId : postIds) {
+            if (status.containsKey(postId)) {
+                continue;
+            }
+            if (Boolean.FALSE.equals(likeStatusCache.mightHaveLiked(postId, userId))) {
+                status.put(postId, false);
+            } else {
+                status.put(postId, null);
+                needsLookup.add(postId);
+            }
+        }
         
-        log.info("User {} successfully unliked post {}, new count: {}", 
-                userId, postId, postMetadata.getLikesCount());
+        if (!needsLookup.isEmpty()) {
+            Set<String> liked = new HashSet<>(likeRepository.findLikedPostIds(userId, needsLookup));
+            needsLookup.forEach(postId -> status.put(postId, liked.contains(postId)));
+        }
+        
+        log.debug("Resolved like status of {} posts for user {} ({} exact lookups)",
+                status.size(), userId, needsLookup.size());
+        return status;
+    }
+    
+    private BatchLikeResponse.Status resolveStatus(String postId, BatchLikeRequest.ActionType action,
+                                                   Map<String, PostMetadata> posts,
+                                                   Set<String> liked, Set<String> unliked) {
+        if (!posts.containsKey(postId)) {
+            return BatchLikeResponse.Status.POST_NOT_FOUND;
+        }
+        if (action == BatchLikeRequest.ActionType.LIKE) {
+            return liked.contains(postId) ? BatchLikeResponse.Status.LIKED : BatchLikeResponse.Status.ALREADY_LIKED;
+        }
+        return unliked.contains(postId) ? BatchLikeResponse.Status.UNLIKED : BatchLikeResponse.Status.NOT_LIKED;
     }
 }
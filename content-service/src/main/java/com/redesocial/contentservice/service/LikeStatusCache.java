@@ -0,0 +1,261 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.config.RedisConfig;
+import com.redesocial.contentservice.repository.jpa.LikeRepository;
+import com.redesocial.contentservice.util.BloomFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-post cache of who liked a post, kept as Bloom filters.
+ *
+ * A filter answers "definitely not liked" without touching the database; a
+ * "maybe" (or a post with no filter yet) falls back to an exact lookup. Filters
+ * are built in the background from the likes table, so the request path is never
+ * slower than a single exact query. New likes are added locally and broadcast to
+ * the other replicas over Redis pub/sub; a replica ignores its own broadcasts,
+ * so each like is inserted once. Unlikes cannot be removed from a Bloom
+ * filter, so they are only counted and a filter is rebuilt once too many of its
+ * entries are stale.
+ *
+ * Negatives are not guaranteed to be exact. Pub/sub is fire-and-forget: a
+ * broadcast that fails, or that a replica misses while it is resubscribing,
+ * leaves that replica's filter without the like, and it answers "not liked"
+ * until the filter expires and is reloaded, at most
+ * {@code content.likes.status-cache.ttl-seconds} later. The replica that
+ * recorded the like is always up to date. Use the answers for display, never
+ * for decisions that must see every like.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LikeStatusCache {
+    
+    private final LikeRepository likeRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${content.likes.status-cache.max-posts:20000}")
+    private int maxPosts = 20000;
+    
+    @Value("${content.likes.status-cache.ttl-seconds:600}")
+    private long ttlSeconds = 600;
+    
+    @Value("${content.likes.status-cache.max-likers-per-filter:200000}")
+    private long maxLikersPerFilter = 200000;
+    
+    @Value("${content.likes.status-cache.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+    
+    private final Map<String, PostLikers> filters = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PostLikers> eldest) {
+            return size() > maxPosts;
+        }
+    };
+    
+    private final String instanceId = UUID.randomUUID().toString();
+    
+    private final ThreadPoolExecutor loader = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1000), new ThreadPoolExecutor.DiscardPolicy());
+    
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this::onRemoteLike, new ChannelTopic(RedisConfig.LIKES_CHANNEL));
+        meterRegistry.gaugeMapSize("content.likes.status.cached.posts", List.of(), filters);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        loader.shutdownNow();
+    }
+    
+    /**
+     * Returns {@code false} if the filter does not hold the like, {@code true} if
+     * the user may have liked the post, or {@code null} if the post is not cached
+     * yet. See the class comment for how stale a {@code false} can be.
+     * A miss schedules the filter to be loaded in the background.
+     */
+    public Boolean mightHaveLiked(String postId, String userId) {
+        PostLikers likers;
+        synchronized (filters) {
+            likers = filters.get(postId);
+            if (likers != null && likers.isExpired(ttlSeconds)) {
+                filters.remove(postId);
+                likers = null;
+            }
+            if (likers == null) {
+                likers = new PostLikers();
+                filters.put(postId, likers);
+                scheduleLoad(postId, likers);
+                return null;
+            }
+        }
+        
+        synchronized (likers) {
+            if (likers.filter == null) {
+                return null;
+            }
+            boolean maybe = likers.filter.mightContain(userId);
+            meterRegistry.counter("content.likes.status.filter", "result", maybe ? "maybe" : "negative").increment();
+            return maybe;
+        }
+    }
+    
+    /**
+     * Adds a like to the local filter and broadcasts it to other replicas once
+     * the surrounding transaction has committed.
+     */
+    public void recordLike(String postId, String userId) {
+        runAfterCommit(() -> {
+            addLocally(postId, userId);
+            try {
+                redisTemplate.convertAndSend(RedisConfig.LIKES_CHANNEL, instanceId + "|" + postId + ":" + userId);
+            } catch (Exception e) {
+                // Other replicas miss this like until their filter expires; never fail a like because of the cache
+                log.warn("Failed to broadcast like for post {}", postId, e);
+            }
+        });
+    }
+    
+    public void recordUnlike(String postId, String userId) {
+        runAfterCommit(() -> {
+            synchronized (filters) {
+                PostLikers likers = filters.get(postId);
+                if (likers == null) {
+                    return;
+                }
+                synchronized (likers) {
+                    likers.removals++;
+                    if (likers.filter == null || likers.removals <= likers.filter.getCapacity() / 4) {
+                        return;
+                    }
+                }
+                filters.remove(postId);
+            }
+        });
+    }
+    
+    void onRemoteLike(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 2);
+        if (parts.length < 2 || instanceId.equals(parts[0])) {
+            // recordLike already added our own likes
+            return;
+        }
+        int separator = parts[1].indexOf(':');
+        if (separator > 0) {
+            addLocally(parts[1].substring(0, separator), parts[1].substring(separator + 1));
+        }
+    }
+    
+    private void addLocally(String postId, String userId) {
+        PostLikers likers;
+        synchronized (filters) {
+            likers = filters.get(postId);
+        }
+        if (likers == null) {
+            // Not cached here; a later load reads the committed like from the database
+            return;
+        }
+        
+        boolean saturated;
+        synchronized (likers) {
+            if (likers.loading) {
+                likers.pendingAdds.add(userId);
+                return;
+            }
+            if (likers.filter == null) {
+                return;
+            }
+            likers.filter.put(userId);
+            saturated = likers.filter.isSaturated();
+        }
+        if (saturated) {
+            synchronized (filters) {
+                filters.remove(postId, likers);
+            }
+        }
+    }
+    
+    private void scheduleLoad(String postId, PostLikers likers) {
+        loader.execute(() -> load(postId, likers));
+    }
+    
+    void load(String postId, PostLikers likers) {
+        try {
+            long count = likeRepository.countByPostId(postId);
+            if (count > maxLikersPerFilter) {
+                // Too many likers to keep in memory; this post always uses the exact lookup
+                synchronized (likers) {
+                    likers.loading = false;
+                    likers.pendingAdds.clear();
+                }
+                return;
+            }
+            
+            List<String> userIds = likeRepository.findUserIdsByPostId(postId);
+            BloomFilter filter = new BloomFilter((int) Math.max(256, count * 2), falsePositiveRate);
+            userIds.forEach(filter::put);
+            
+            synchronized (likers) {
+                // Likes committed while the snapshot was read were buffered here
+                likers.pendingAdds.forEach(filter::put);
+                likers.pendingAdds.clear();
+                likers.filter = filter;
+                likers.loading = false;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to load like filter for post {}", postId, e);
+            synchronized (filters) {
+                filters.remove(postId, likers);
+            }
+        }
+    }
+    
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    static final class PostLikers {
+        private final long createdAt = System.currentTimeMillis();
+        private final List<String> pendingAdds = new ArrayList<>();
+        private BloomFilter filter;
+        private boolean loading = true;
+        private int removals;
+        
+        boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - createdAt > TimeUnit.SECONDS.toMillis(ttlSeconds);
+        }
+    }
+}
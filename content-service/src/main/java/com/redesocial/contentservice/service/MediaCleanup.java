@@ -0,0 +1,232 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.model.jpa.MediaObject;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.repository.jpa.MediaObjectRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deletes stored media that no post or story uses any more.
+ *
+ * Media is content-addressed and may be shared: shared posts copy their
+ * original's media, and a duplicate upload reuses the stored original. An
+ * original is kept while a post or story other than the ones being removed
+ * references it, or while a duplicate upload reused it within the grace
+ * period, as the post or story it was uploaded for may not be saved yet.
+ * Thumbnails and variants are keyed by digest, so another copy of the same
+ * bytes shares them; they are kept while anything else references them.
+ * Objects that fail to delete are left for the orphaned media sweep.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaCleanup {
+
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+
+    private final S3Client s3Client;
+    private final MongoTemplate mongoTemplate;
+    private final MediaObjectRepository mediaObjectRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${content.media.gc.grace-hours:24}")
+    private long graceHours = 24;
+
+    /**
+     * Deletes the media of posts and stories that are being removed, keeping
+     * whatever is still used elsewhere. Counts shared, deleted and failed
+     * objects under {@code metricPrefix}. Returns the number of keys deleted.
+     */
+    public int deleteMedia(Collection<Post.MediaUrl> media, Collection<String> postIds, Collection<String> storyIds,
+                           String metricPrefix) {
+        Set<String> originals = new LinkedHashSet<>();
+        for (Post.MediaUrl item : media) {
+            if (item != null && item.getUrl() != null) {
+                originals.add(item.getUrl());
+            }
+        }
+        if (originals.isEmpty()) {
+            return 0;
+        }
+        Set<String> shared = sharedOriginals(originals, postIds, storyIds);
+        Map<String, String> keyByUrl = new HashMap<>();
+        for (String url : originals) {
+            String key = keyOf(url);
+            if (key != null && !shared.contains(url)) {
+                keyByUrl.put(url, key);
+            }
+        }
+        Set<String> reused = recentlyReused(keyByUrl.values());
+        keyByUrl.forEach((url, key) -> {
+            if (reused.contains(key)) {
+                shared.add(url);
+            }
+        });
+        meterRegistry.counter(metricPrefix + ".media.shared").increment(shared.size());
+
+        Set<String> originalKeys = new LinkedHashSet<>();
+        Set<String> derivatives = new LinkedHashSet<>();
+        for (Post.MediaUrl item : media) {
+            if (item == null || item.getUrl() == null || shared.contains(item.getUrl())) {
+                continue;
+            }
+            addKey(originalKeys, item.getUrl());
+            if (item.getThumbnailUrl() != null) {
+                derivatives.add(item.getThumbnailUrl());
+            }
+            if (item.getVariants() != null) {
+                for (Post.MediaVariant variant : item.getVariants()) {
+                    if (variant.getUrl() != null) {
+                        derivatives.add(variant.getUrl());
+                    }
+                }
+            }
+        }
+        derivatives.removeAll(sharedDerivatives(derivatives, postIds, storyIds));
+        List<String> keys = new ArrayList<>(originalKeys);
+        for (String url : derivatives) {
+            String key = keyOf(url);
+            if (key != null && !originalKeys.contains(key)) {
+                keys.add(key);
+            }
+        }
+
+        forget(originalKeys);
+        int failed = deleteObjects(keys);
+        meterRegistry.counter(metricPrefix + ".objects").increment(keys.size() - failed);
+        meterRegistry.counter(metricPrefix + ".objects.failed").increment(failed);
+        return keys.size() - failed;
+    }
+
+    /**
+     * Returns the originals whose last_used_at falls within the grace period.
+     */
+    public Set<String> recentlyReused(Collection<String> keys) {
+        Set<String> reused = new HashSet<>();
+        if (keys.isEmpty()) {
+            return reused;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(graceHours);
+        for (MediaObject media : mediaObjectRepository.findByObjectKeyIn(keys)) {
+            if (media.getLastUsedAt() != null && media.getLastUsedAt().isAfter(cutoff)) {
+                reused.add(media.getObjectKey());
+            }
+        }
+        return reused;
+    }
+
+    /**
+     * Drops originals from the digest index. Called before they are deleted, so
+     * a new upload of the same bytes stores a fresh copy.
+     */
+    public void forget(Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            mediaObjectRepository.deleteByObjectKeyIn(keys);
+        }
+    }
+
+    /**
+     * Deletes the objects with DeleteObjects calls of up to 1000 keys. Returns
+     * the number that could not be deleted.
+     */
+    public int deleteObjects(List<String> keys) {
+        int failed = 0;
+        for (int start = 0; start < keys.size(); start += MAX_KEYS_PER_DELETE) {
+            List<String> chunk = keys.subList(start, Math.min(start + MAX_KEYS_PER_DELETE, keys.size()));
+            List<ObjectIdentifier> objects = new ArrayList<>(chunk.size());
+            for (String key : chunk) {
+                objects.add(ObjectIdentifier.builder().key(key).build());
+            }
+
+            try {
+                DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                        .bucket(bucketName)
+                        .delete(Delete.builder().objects(objects).quiet(true).build())
+                        .build());
+                failed += response.errors().size();
+                for (S3Error error : response.errors()) {
+                    log.warn("Failed to delete media {}: {}", error.key(), error.message());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete {} media objects", chunk.size(), e);
+                failed += chunk.size();
+            }
+        }
+        return failed;
+    }
+
+    public String keyOf(String url) {
+        String prefix = String.format("https://%s.s3.amazonaws.com/", bucketName);
+        return url != null && url.startsWith(prefix) ? url.substring(prefix.length()) : null;
+    }
+
+    /**
+     * Returns the originals that a post or story other than the given ones uses.
+     */
+    private Set<String> sharedOriginals(Set<String> originals, Collection<String> postIds,
+                                        Collection<String> storyIds) {
+        Set<String> shared = new HashSet<>();
+        shared.addAll(mongoTemplate.findDistinct(Query.query(Criteria.where("mediaUrls.url").in(originals)
+                .and("_id").nin(postIds)), "mediaUrls.url", Post.class, String.class));
+        shared.addAll(mongoTemplate.findDistinct(Query.query(Criteria.where("mediaUrl.url").in(originals)
+                .and("_id").nin(storyIds)), "mediaUrl.url", Story.class, String.class));
+        shared.retainAll(originals);
+        return shared;
+    }
+
+    /**
+     * Returns the thumbnails and variants that a post or story other than the
+     * given ones uses.
+     */
+    private Set<String> sharedDerivatives(Set<String> urls, Collection<String> postIds,
+                                          Collection<String> storyIds) {
+        Set<String> shared = new HashSet<>();
+        if (urls.isEmpty()) {
+            return shared;
+        }
+        for (String field : List.of("mediaUrls.thumbnailUrl", "mediaUrls.variants.url")) {
+            shared.addAll(mongoTemplate.findDistinct(Query.query(Criteria.where(field).in(urls)
+                    .and("_id").nin(postIds)), field, Post.class, String.class));
+        }
+        for (String field : List.of("mediaUrl.thumbnailUrl", "mediaUrl.variants.url")) {
+            shared.addAll(mongoTemplate.findDistinct(Query.query(Criteria.where(field).in(urls)
+                    .and("_id").nin(storyIds)), field, Story.class, String.class));
+        }
+        shared.retainAll(urls);
+        return shared;
+    }
+
+    private void addKey(Set<String> keys, String url) {
+        String key = keyOf(url);
+        if (key != null) {
+            keys.add(key);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.dto.MediaJobResponse;
+import com.redesocial.contentservice.exception.MediaJobNotFoundException;
+import com.redesocial.contentservice.exception.MediaQueueFullException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs media processing (thumbnails, metadata extraction) on a bounded worker
+ * pool so upload requests return as soon as the original is stored.
+ *
+ * Capacity is reserved before the caller does any work: a request that finds
+ * every worker busy and the queue full is rejected up front instead of
+ * uploading a file that would never be processed. Job status lives in a Redis
+ * hash with a TTL so any replica can answer status requests.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaJobService {
+
+    static final String JOB_KEY_PREFIX = "content:media:job:";
+    private static final String RESULT_PREFIX = "result:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${content.media.jobs.workers:2}")
+    private int workers = 2;
+
+    @Value("${content.media.jobs.queue-capacity:200}")
+    private int queueCapacity = 200;
+
+    @Value("${content.media.jobs.ttl-hours:24}")
+    private int ttlHours = 24;
+
+    private ThreadPoolExecutor executor;
+    private Semaphore capacity;
+
+    /**
+     * Work done by a job. Returns the fields to publish as the job's result.
+     */
+    public interface MediaTask {
+        Map<String, String> process(Progress progress) throws Exception;
+    }
+
+    public interface Progress {
+        void update(int percent);
+    }
+
+    /**
+     * A slot in the pool, held from before the original is uploaded until the
+     * job finishes. Callers release it themselves only if they never submit.
+     */
+    public final class Reservation {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                capacity.release();
+            }
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "media-job-" + threads.incrementAndGet()));
+        capacity = new Semaphore(workers + queueCapacity);
+
+        meterRegistry.gaugeCollectionSize("content.media.jobs.queued", List.of(), executor.getQueue());
+        meterRegistry.gauge("content.media.jobs.active", List.of(), executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Reserves room for one job, or throws {@link MediaQueueFullException} when
+     * the pool is saturated.
+     */
+    public Reservation reserve() {
+        if (!capacity.tryAcquire()) {
+            meterRegistry.counter("content.media.jobs.rejected").increment();
+            throw new MediaQueueFullException();
+        }
+        return new Reservation();
+    }
+
+    /**
+     * Queues a job against a reservation and returns its initial status. The
+     * reservation is released when the job finishes.
+     */
+    public MediaJobResponse submit(Reservation reservation, String type, String userId, MediaTask task) {
+        String jobId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("type", type);
+        fields.put("userId", userId);
+        fields.put("status", MediaJobResponse.Status.QUEUED.name());
+        fields.put("progress", "0");
+        fields.put("createdAt", now.toString());
+        fields.put("updatedAt", now.toString());
+        write(jobId, fields);
+
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                meterRegistry.timer("content.media.jobs.wait", "type", type)
+                        .record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    run(jobId, type, task);
+                } finally {
+                    reservation.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Only happens while shutting down; the reservation guarantees queue room otherwise
+            reservation.release();
+            fail(jobId, "Media processing is shutting down");
+            meterRegistry.counter("content.media.jobs.rejected").increment();
+            throw new MediaQueueFullException();
+        }
+
+        log.debug("Queued {} job {} for user {}", type, jobId, userId);
+        return MediaJobResponse.builder()
+                .jobId(jobId)
+                .type(type)
+                .status(MediaJobResponse.Status.QUEUED)
+                .progress(0)
+                .result(Map.of())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    public MediaJobResponse getJob(String jobId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(jobKey(jobId));
+        if (fields == null || fields.isEmpty()) {
+            throw new MediaJobNotFoundException(jobId);
+        }
+
+        Map<String, String> result = new HashMap<>();
+        for (Map.Entry<Object, Object> field : fields.entrySet()) {
+            String name = (String) field.getKey();
+            if (name.startsWith(RESULT_PREFIX)) {
+                result.put(name.substring(RESULT_PREFIX.length()), (String) field.getValue());
+            }
+        }
+
+        return MediaJobResponse.builder()
+                .jobId(jobId)
+                .type((String) fields.get("type"))
+                .status(MediaJobResponse.Status.valueOf((String) fields.get("status")))
+                .progress(Integer.parseInt((String) fields.get("progress")))
+                .result(result)
+                .error((String) fields.get("error"))
+                .createdAt(parseTime(fields.get("createdAt")))
+                .updatedAt(parseTime(fields.get("updatedAt")))
+                .build();
+    }
+
+    /**
+     * Blocks until every reserved job has finished, or the timeout elapses.
+     */
+    boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        int total = workers + queueCapacity;
+        if (!capacity.tryAcquire(total, timeoutMs, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        capacity.release(total);
+        return true;
+    }
+
+    static String jobKey(String jobId) {
+        return JOB_KEY_PREFIX + jobId;
+    }
+
+    private void run(String jobId, String type, MediaTask task) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "completed";
+        updateProgress(jobId, MediaJobResponse.Status.PROCESSING, 0);
+        try {
+            Map<String, String> result = task.process(percent ->
+                    updateProgress(jobId, MediaJobResponse.Status.PROCESSING, Math.min(percent, 99)));
+
+            Map<String, String> fields = new HashMap<>();
+            for (Map.Entry<String, String> entry : result.entrySet()) {
+                fields.put(RESULT_PREFIX + entry.getKey(), entry.getValue());
+            }
+            fields.put("status", MediaJobResponse.Status.COMPLETED.name());
+            fields.put("progress", "100");
+            fields.put("updatedAt", LocalDateTime.now().toString());
+            write(jobId, fields);
+        } catch (Exception e) {
+            outcome = "failed";
+            log.error("Media job {} ({}) failed", jobId, type, e);
+            fail(jobId, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        } finally {
+            sample.stop(meterRegistry.timer("content.media.jobs.processing", "type", type, "outcome", outcome));
+        }
+    }
+
+    private void updateProgress(String jobId, MediaJobResponse.Status status, int percent) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("status", status.name());
+        fields.put("progress", String.valueOf(percent));
+        fields.put("updatedAt", LocalDateTime.now().toString());
+        write(jobId, fields);
+    }
+
+    private void fail(String jobId, String error) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("status", MediaJobResponse.Status.FAILED.name());
+        fields.put("error", error);
+        fields.put("updatedAt", LocalDateTime.now().toString());
+        write(jobId, fields);
+    }
+
+    private void write(String jobId, Map<String, String> fields) {
+        String key = jobKey(jobId);
+        try {
+            redisTemplate.opsForHash().putAll(key, fields);
+            redisTemplate.expire(key, Duration.ofHours(ttlHours));
+        } catch (RuntimeException e) {
+            // Processing goes on; only the status report is lost
+            meterRegistry.counter("content.media.jobs.status.failures").increment();
+            log.warn("Failed to record status of media job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private static LocalDateTime parseTime(Object value) {
+        return value != null ? LocalDateTime.parse((String) value) : null;
+    }
+}
@@ -1,19 +1,47 @@
 package com.redesocial.contentservice.service;
 
+import com.redesocial.contentservice.dto.MediaJobResponse;
+import com.redesocial.contentservice.model.jpa.MediaObject;
+import com.redesocial.contentservice.model.jpa.TranscodeJob;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.repository.jpa.MediaObjectRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.util.exif.ExifUtils;
+import net.coobird.thumbnailator.util.exif.Orientation;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 @Slf4j
 @Service
@@ -21,6 +49,11 @@ import java.util.*;
 public class MediaService {
     
     private final S3Client s3Client;
+    private final S3MultipartUploader s3MultipartUploader;
+    private final MediaJobService mediaJobService;
+    private final TranscodeService transcodeService;
+    private final MediaObjectRepository mediaObjectRepository;
+    private final MeterRegistry meterRegistry;
     
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
@@ -37,6 +70,15 @@ public class MediaService {
     @Value("${content.media.image.thumbnail-height}")
     private int thumbnailHeight;
     
+    @Value("${content.media.image.variants.widths:320,640,1080,1600}")
+    private String variantWidths = "320,640,1080,1600";
+    
+    @Value("${content.media.image.variants.formats:jpeg,webp}")
+    private String variantFormats = "jpeg,webp";
+    
+    @Value("${content.media.image.variants.quality:0.82}")
+    private double variantQuality = 0.82;
+    
     @Value("${content.media.image.allowed-formats}")
     private String allowedImageFormats;
     
@@ -46,63 +88,434 @@ public class MediaService {
     private static final Set<String> VALID_IMAGE_TYPES = Set.of("image/jpeg", "image/png", "image/webp");
     private static final Set<String> VALID_VIDEO_TYPES = Set.of("video/mp4", "video/webm");
     
-    public Map<String, String> uploadImageWithThumbnail(MultipartFile file, String userId) throws IOException {
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    
+    // Holds the header of nearly every JPEG, PNG and GIF, EXIF block included
+    private static final int HEADER_BYTES = 128 * 1024;
+    
+    /**
+     * Stores the original image and queues thumbnail and variant rendering on
+     * the media job pool. Every URL is returned straight away: the renditions
+     * are keyed by the original's hash and the configured ladder, and become
+     * readable once the job with the returned id has completed.
+     */
+    public Post.MediaUrl uploadImageMedia(MultipartFile file, String userId) throws IOException {
         validateImageFile(file);
         
-        String imageUrl = uploadFile(file, userId, "images");
-        String thumbnailUrl = generateAndUploadThumbnail(file, userId);
-        
-        Map<String, String> result = new HashMap<>();
-        result.put("imageUrl", imageUrl);
-        result.put("thumbnailUrl", thumbnailUrl);
+        // Fail fast before uploading anything the pool could not process
+        MediaJobService.Reservation reservation = mediaJobService.reserve();
+        Path spooled = null;
+        boolean submitted = false;
+        try {
+            // The worker reads the image after the request ends, so keep a copy of
+            // it, hashing the bytes as they are spooled
+            spooled = Files.createTempFile("media-", ".upload");
+            MessageDigest digest = sha256();
+            try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(input, spooled, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = toHex(digest.digest());
+            
+            StoredOriginal original = storeOriginal(new FileSystemResource(spooled), hash, file.getContentType(),
+                    file.getSize(), "images", userId);
+            
+            Map<String, String> header = new HashMap<>();
+            readDimensions(spooled, header);
+            Integer width = header.containsKey("width") ? Integer.valueOf(header.get("width")) : null;
+            Integer height = header.containsKey("height") ? Integer.valueOf(header.get("height")) : null;
+            
+            Path source = spooled;
+            Post.MediaUrl media = queueImageRenditions(original, width, height, userId, reservation, () -> source);
+            submitted = media.getJobId() != null;
+            return media;
+        } finally {
+            if (!submitted) {
+                reservation.release();
+                if (spooled != null) {
+                    Files.deleteIfExists(spooled);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Indexes an image a client uploaded straight to S3 and queues its
+     * renditions. The ladder is planned on the size read from the first bytes
+     * of the object; only when the header lies further in is the whole image
+     * fetched, and the worker then renders from that copy.
+     */
+    public Post.MediaUrl registerUploadedImage(String key, String digest, String contentType, long size,
+                                               String userId) {
+        MediaJobService.Reservation reservation = mediaJobService.reserve();
+        Path spooled = null;
+        boolean submitted = false;
+        try {
+            StoredOriginal original = indexOriginal(key, digest, contentType, size, "images", userId);
+            
+            Map<String, String> header = readStoredDimensions(original.key);
+            if (!header.containsKey("width")) {
+                spooled = download(original.key);
+                readDimensions(spooled, header);
+            }
+            Integer width = header.containsKey("width") ? Integer.valueOf(header.get("width")) : null;
+            Integer height = header.containsKey("height") ? Integer.valueOf(header.get("height")) : null;
+            
+            Path source = spooled;
+            Post.MediaUrl media = queueImageRenditions(original, width, height, userId, reservation,
+                    () -> source != null ? source : download(original.key));
+            submitted = media.getJobId() != null;
+            return media;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read uploaded image " + key, e);
+        } finally {
+            if (!submitted) {
+                reservation.release();
+                deleteSpooled(spooled);
+            }
+        }
+    }
+    
+    /**
+     * Indexes a video a client uploaded straight to S3 and queues its transcode.
+     */
+    public Post.MediaUrl registerUploadedVideo(String key, String digest, String contentType, long size,
+                                               String userId) {
+        StoredOriginal original = indexOriginal(key, digest, contentType, size, "videos", userId);
+        TranscodeJob job = transcodeService.enqueue(original.key, original.digest);
         
-        log.info("Uploaded image and thumbnail for user {}: image={}, thumbnail={}", userId, imageUrl, thumbnailUrl);
-        return result;
+        log.info("Registered direct video upload for user {} and queued transcode job {}: {}",
+                userId, job.getId(), url(original.key));
+        return Post.MediaUrl.builder()
+                .url(url(original.key))
+                .type(Post.MediaType.VIDEO)
+                .variants(transcodeService.renditionsOf(job))
+                .build();
     }
     
-    public Map<String, String> uploadVideoWithResolutions(MultipartFile file, String userId) throws IOException {
-        validateVideoFile(file);
+    /**
+     * Checks a declared upload against the same limits as multipart uploads
+     * and returns the kind of media it is.
+     */
+    public Post.MediaType validateUpload(String contentType, long size) {
+        String type = contentType != null ? contentType.toLowerCase() : "";
+        if (VALID_IMAGE_TYPES.contains(type)) {
+            validateImage(contentType, size);
+            return Post.MediaType.IMAGE;
+        }
+        if (VALID_VIDEO_TYPES.contains(type)) {
+            validateVideo(contentType, size);
+            return Post.MediaType.VIDEO;
+        }
+        throw new IllegalArgumentException("INVALID_FILE_FORMAT: File must be JPEG, PNG, WebP, MP4 or WebM");
+    }
+    
+    /**
+     * Key of a newly stored original. Direct uploads are written under the
+     * same layout as the ones that pass through this service. The key carries
+     * no user id, since a deduplicated original is handed to every user who
+     * uploads the same bytes.
+     */
+    public static String originalKey(String folder, String id) {
+        return String.format("media/%s/%s", folder, id);
+    }
+    
+    /**
+     * Plans the thumbnail and variants of an indexed image and queues their
+     * rendering against the reservation, unless they already exist. The
+     * returned media has a job id only if a job was submitted.
+     */
+    private Post.MediaUrl queueImageRenditions(StoredOriginal original, Integer width, Integer height, String userId,
+                                               MediaJobService.Reservation reservation, Callable<Path> source) {
+        String hash = original.digest;
+        String thumbnailKey = String.format("media/thumbnails/%s_%dx%d.jpg", hash, thumbnailWidth, thumbnailHeight);
+        List<Post.MediaVariant> variants = planVariants(hash, width, height);
+        Map<Post.MediaVariant, String> variantKeys = new HashMap<>();
+        for (Post.MediaVariant variant : variants) {
+            variantKeys.put(variant, variantKey(hash, variant.getWidth(), variant.getFormat()));
+        }
+        
+        Post.MediaUrl.MediaUrlBuilder media = Post.MediaUrl.builder()
+                .url(url(original.key))
+                .type(Post.MediaType.IMAGE)
+                .thumbnailUrl(url(thumbnailKey))
+                .width(width)
+                .height(height)
+                .variants(variants);
+        if (original.processed) {
+            // Same bytes were uploaded before and their renditions already exist
+            log.info("Reused stored image and renditions for user {}: image={}", userId, url(original.key));
+            return media.build();
+        }
         
-        // Upload original video
-        String originalUrl = uploadFile(file, userId, "videos");
+        MediaJobResponse job = mediaJobService.submit(reservation, "thumbnail", userId, progress -> {
+            Map<String, String> result = processImage(source.call(), thumbnailKey, variantKeys, progress);
+            markProcessed(hash);
+            return result;
+        });
         
-        // For now, we'll simulate video processing by uploading the original
-        // In production, this would use FFmpeg or a video processing service
+        log.info("Stored image for user {} and queued job {} for thumbnail and {} variants: image={}",
+                userId, job.getJobId(), variants.size(), url(original.key));
+        return media.jobId(job.getJobId()).build();
+    }
+    
+    private Path download(String key) throws IOException {
+        Path spooled = Files.createTempFile("media-", ".upload");
+        try (InputStream input = s3Client.getObject(GetObjectRequest.builder().bucket(bucketName).key(key).build())) {
+            Files.copy(input, spooled, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spooled);
+            throw e;
+        }
+        return spooled;
+    }
+    
+    // Ranged read of the object's first bytes; empty when its header does not fit in them
+    private Map<String, String> readStoredDimensions(String key) {
+        byte[] head = s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range("bytes=0-" + (HEADER_BYTES - 1))
+                .build()).asByteArray();
         Map<String, String> result = new HashMap<>();
-        result.put("originalUrl", originalUrl);
-        result.put("480p", originalUrl); // Simulated - would be processed version
-        result.put("720p", originalUrl); // Simulated - would be processed version
-        result.put("1080p", originalUrl); // Simulated - would be processed version
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(head))) {
+            readDimensions(input, result);
+        } catch (IOException | RuntimeException e) {
+            // Truncated before the size was reached
+            result.clear();
+        }
+        return result;
+    }
+    
+    private static void deleteSpooled(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled file {}: {}", path, e.getMessage());
+        }
+    }
+    
+    /**
+     * {@link #uploadImageMedia} flattened into URLs: the image, its thumbnail,
+     * one entry per variant ({@code 640w}, {@code 640w_webp}) and the job id.
+     */
+    public Map<String, String> uploadImageWithThumbnail(MultipartFile file, String userId) throws IOException {
+        Post.MediaUrl media = uploadImageMedia(file, userId);
         
-        log.info("Uploaded video for user {}: {}", userId, originalUrl);
-        log.info("Video processing simulated - in production would generate 480p, 720p, 1080p versions");
+        Map<String, String> result = new HashMap<>();
+        result.put("imageUrl", media.getUrl());
+        result.put("thumbnailUrl", media.getThumbnailUrl());
+        for (Post.MediaVariant variant : media.getVariants()) {
+            String name = variant.getWidth() + "w";
+            result.put("jpeg".equals(variant.getFormat()) ? name : name + "_" + variant.getFormat(), variant.getUrl());
+        }
+        if (media.getJobId() != null) {
+            result.put("jobId", media.getJobId());
+            result.put("status", MediaJobResponse.Status.QUEUED.name());
+        } else {
+            result.put("status", MediaJobResponse.Status.COMPLETED.name());
+        }
         return result;
     }
     
-    private String generateAndUploadThumbnail(MultipartFile file, String userId) throws IOException {
-        ByteArrayOutputStream thumbnailOutputStream = new ByteArrayOutputStream();
+    /**
+     * Stores the original video and queues it for transcoding. The renditions
+     * are empty until the transcode completes and are then written back to
+     * whatever embeds this URL; they are set straight away if these bytes were
+     * transcoded before.
+     */
+    public Post.MediaUrl uploadVideoMedia(MultipartFile file, String userId) throws IOException {
+        StoredOriginal original = storeVideo(file, userId);
+        TranscodeJob job = transcodeService.enqueue(original.key, original.digest);
         
-        Thumbnails.of(file.getInputStream())
-                .size(thumbnailWidth, thumbnailHeight)
-                .outputFormat("jpg")
-                .toOutputStream(thumbnailOutputStream);
+        log.info("Uploaded video for user {} and queued transcode job {}: {}", userId, job.getId(), url(original.key));
+        return Post.MediaUrl.builder()
+                .url(url(original.key))
+                .type(Post.MediaType.VIDEO)
+                .variants(transcodeService.renditionsOf(job))
+                .build();
+    }
+    
+    /**
+     * Stores the original video, queues its transcode and returns the URL of
+     * every rung of the ladder ({@code 480p}, {@code 720p}, ...). The rungs are
+     * keyed by the original's hash, so their URLs are known up front; they
+     * become readable once the job reaches {@code COMPLETED}.
+     */
+    public Map<String, String> uploadVideoWithResolutions(MultipartFile file, String userId) throws IOException {
+        StoredOriginal original = storeVideo(file, userId);
+        TranscodeJob job = transcodeService.enqueue(original.key, original.digest);
         
-        byte[] thumbnailBytes = thumbnailOutputStream.toByteArray();
-        String fileName = UUID.randomUUID().toString() + "_thumb.jpg";
-        String key = String.format("media/thumbnails/%s/%s", userId, fileName);
+        Map<String, String> result = new HashMap<>(transcodeService.plannedRenditionUrls(original.digest));
+        result.put("originalUrl", url(original.key));
+        result.put("transcodeJobId", String.valueOf(job.getId()));
+        result.put("status", job.getStatus().name());
         
+        log.info("Uploaded video for user {} and queued transcode job {}: {}", userId, job.getId(), url(original.key));
+        return result;
+    }
+    
+    private StoredOriginal storeVideo(MultipartFile file, String userId) throws IOException {
+        validateVideoFile(file);
+        String digest = digestOf(file);
+        return storeOriginal(file, digest, file.getContentType(), file.getSize(), "videos", userId);
+    }
+    
+    /**
+     * Media job body: decodes the image once, then renders the thumbnail and
+     * every variant from that decode, largest first, each one downscaled from
+     * the previous. Deletes the spooled copy when done.
+     */
+    Map<String, String> processImage(Path source, String thumbnailKey, Map<Post.MediaVariant, String> variantKeys,
+                                     MediaJobService.Progress progress) throws IOException {
+        try {
+            Map<String, String> result = new HashMap<>();
+            readDimensions(source, result);
+            // Applies the EXIF orientation, so widths below are as displayed
+            BufferedImage image = Thumbnails.of(source.toFile()).scale(1.0).asBufferedImage();
+            progress.update(20);
+            
+            ByteArrayOutputStream thumbnailOutputStream = new ByteArrayOutputStream();
+            Thumbnails.of(image)
+                    .size(thumbnailWidth, thumbnailHeight)
+                    .outputFormat("jpg")
+                    .toOutputStream(thumbnailOutputStream);
+            store(thumbnailKey, "image/jpeg", thumbnailOutputStream.toByteArray());
+            result.put("thumbnailUrl", url(thumbnailKey));
+            progress.update(30);
+            
+            TreeMap<Integer, List<Post.MediaVariant>> byWidth = new TreeMap<>(Comparator.reverseOrder());
+            for (Post.MediaVariant variant : variantKeys.keySet()) {
+                byWidth.computeIfAbsent(variant.getWidth(), width -> new ArrayList<>()).add(variant);
+            }
+            
+            BufferedImage previous = image;
+            int done = 0;
+            for (Map.Entry<Integer, List<Post.MediaVariant>> step : byWidth.entrySet()) {
+                BufferedImage scaled = previous.getWidth() > step.getKey()
+                        ? Thumbnails.of(previous).width(step.getKey()).asBufferedImage()
+                        : previous;
+                for (Post.MediaVariant variant : step.getValue()) {
+                    ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    Thumbnails.of(scaled)
+                            .scale(1.0)
+                            .outputFormat(variant.getFormat())
+                            .outputQuality(variantQuality)
+                            .toOutputStream(output);
+                    String key = variantKeys.get(variant);
+                    store(key, "image/" + variant.getFormat(), output.toByteArray());
+                    result.put("variant:" + variant.getWidth() + "w_" + variant.getFormat(),
+                            scaled.getWidth() + "x" + scaled.getHeight());
+                }
+                previous = scaled;
+                progress.update(30 + 70 * ++done / byWidth.size());
+            }
+            
+            log.info("Generated thumbnail and {} variants: {}", variantKeys.size(), url(thumbnailKey));
+            return result;
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+    
+    /**
+     * The ladder steps worth rendering for an image of the given displayed
+     * size: steps wider than the image are skipped, as is any format without an
+     * ImageIO writer on this JVM. Sorted smallest first.
+     */
+    List<Post.MediaVariant> planVariants(String hash, Integer width, Integer height) {
+        // Variants are scaled to the step's width, so only the width decides which are smaller
+        int maxWidth = width != null ? width : Integer.MAX_VALUE;
+        
+        List<Post.MediaVariant> variants = new ArrayList<>();
+        for (String step : variantWidths.split(",")) {
+            int stepWidth = Integer.parseInt(step.trim());
+            if (stepWidth > maxWidth) {
+                continue;
+            }
+            for (String format : variantFormats.split(",")) {
+                String name = format.trim().toLowerCase();
+                if (!ImageIO.getImageWritersByFormatName(name).hasNext()) {
+                    continue;
+                }
+                variants.add(Post.MediaVariant.builder()
+                        .url(url(variantKey(hash, stepWidth, name)))
+                        .width(stepWidth)
+                        .format(name)
+                        .build());
+            }
+        }
+        variants.sort(Comparator.comparing(Post.MediaVariant::getWidth));
+        return variants;
+    }
+    
+    private static String variantKey(String hash, int width, String format) {
+        return String.format("media/variants/%s/%dw.%s", hash, width, "jpeg".equals(format) ? "jpg" : format);
+    }
+    
+    private void store(String key, String contentType, byte[] bytes) {
         PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                 .bucket(bucketName)
                 .key(key)
-                .contentType("image/jpeg")
+                .contentType(contentType)
+                .cacheControl(IMMUTABLE)
                 .build();
-        
-        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(thumbnailBytes));
-        
-        String url = String.format("https://%s.s3.amazonaws.com/%s", bucketName, key);
-        log.info("Generated and uploaded thumbnail: {}", url);
-        
-        return url;
+        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(bytes));
+    }
+    
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    // Reads the header only, reporting the size as displayed once the EXIF orientation is applied;
+    // formats without an ImageIO reader (WebP) are skipped
+    private static void readDimensions(Path source, Map<String, String> result) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            readDimensions(input, result);
+        }
+    }
+    
+    private static void readDimensions(ImageInputStream input, Map<String, String> result) throws IOException {
+        Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : Collections.emptyIterator();
+        if (!readers.hasNext()) {
+            return;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, false);
+            boolean quarterTurn = isQuarterTurn(reader);
+            result.put("width", String.valueOf(quarterTurn ? reader.getHeight(0) : reader.getWidth(0)));
+            result.put("height", String.valueOf(quarterTurn ? reader.getWidth(0) : reader.getHeight(0)));
+            result.put("format", reader.getFormatName().toLowerCase());
+        } finally {
+            reader.dispose();
+        }
+    }
+    
+    // Orientations 5 to 8 turn the image by 90 degrees, swapping its sides
+    private static boolean isQuarterTurn(ImageReader reader) {
+        try {
+            Orientation orientation = ExifUtils.getExifOrientation(reader, 0);
+            return orientation == Orientation.LEFT_TOP || orientation == Orientation.RIGHT_TOP
+                    || orientation == Orientation.RIGHT_BOTTOM || orientation == Orientation.LEFT_BOTTOM;
+        } catch (Exception e) {
+            // Unreadable EXIF data is ignored by the decoder too
+            return false;
+        }
     }
     
     public String uploadImage(MultipartFile file, String userId) throws IOException {
@@ -120,12 +533,15 @@ public class MediaService {
             throw new IllegalArgumentException("INVALID_FILE: File is empty");
         }
         
+        validateImage(file.getContentType(), file.getSize());
+    }
+    
+    private void validateImage(String contentType, long size) {
         long maxSizeBytes = maxImageSizeMb * 1024L * 1024L;
-        if (file.getSize() > maxSizeBytes) {
+        if (size > maxSizeBytes) {
             throw new IllegalArgumentException("FILE_TOO_LARGE: Image exceeds " + maxImageSizeMb + "MB");
         }
         
-        String contentType = file.getContentType();
         if (contentType == null || !VALID_IMAGE_TYPES.contains(contentType.toLowerCase())) {
             throw new IllegalArgumentException("INVALID_FILE_FORMAT: File must be JPEG, PNG, or WebP");
         }
@@ -136,32 +552,149 @@ public class MediaService {
             throw new IllegalArgumentException("INVALID_FILE: File is empty");
         }
         
+        validateVideo(file.getContentType(), file.getSize());
+    }
+    
+    private void validateVideo(String contentType, long size) {
         long maxSizeBytes = maxVideoSizeMb * 1024L * 1024L;
-        if (file.getSize() > maxSizeBytes) {
+        if (size > maxSizeBytes) {
             throw new IllegalArgumentException("FILE_TOO_LARGE: Video exceeds " + maxVideoSizeMb + "MB");
         }
         
-        String contentType = file.getContentType();
         if (contentType == null || !VALID_VIDEO_TYPES.contains(contentType.toLowerCase())) {
             throw new IllegalArgumentException("INVALID_FILE_FORMAT: File must be MP4 or WebM");
         }
     }
     
     private String uploadFile(MultipartFile file, String userId, String folder) throws IOException {
-        String fileName = UUID.randomUUID().toString();
-        String key = String.format("media/%s/%s/%s", folder, userId, fileName);
-        
-        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .contentType(file.getContentType())
-                .build();
-        
-        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+        StoredOriginal original = storeOriginal(file, digestOf(file), file.getContentType(),
+                file.getSize(), folder, userId);
+        return url(original.key);
+    }
+    
+    // Hashing pass over the container's spooled copy, so duplicates never reach S3
+    private static String digestOf(MultipartFile file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return toHex(digest.digest());
+    }
+    
+    /**
+     * Returns the stored object holding these bytes, uploading them first
+     * unless the digest index already has them. Lookups that fail fall back
+     * to a plain upload; the index is an optimization, never a requirement.
+     */
+    private StoredOriginal storeOriginal(InputStreamSource source, String digest, String contentType, long size,
+                                         String folder, String userId) throws IOException {
+        MediaObject existing = findIndexed(digest);
+        if (existing != null && reusableBy(existing.getObjectKey(), userId)) {
+            meterRegistry.counter("content.media.dedup.hits", "folder", folder).increment();
+            meterRegistry.counter("content.media.dedup.bytes.saved").increment(size);
+            log.info("Skipped upload of duplicate {} ({} bytes), reusing {}", digest, size, existing.getObjectKey());
+            touch(digest);
+            return new StoredOriginal(existing.getObjectKey(), digest, existing.getProcessedAt() != null);
+        }
         
-        String url = String.format("https://%s.s3.amazonaws.com/%s", bucketName, key);
-        log.info("Uploaded file to S3: {}", url);
+        String key = originalKey(folder, UUID.randomUUID().toString());
+        // Streamed in bounded parts; never load the whole file onto the heap
+        try (InputStream input = source.getInputStream()) {
+            s3MultipartUploader.upload(bucketName, key, contentType, input);
+        }
+        log.info("Uploaded file to S3: {}", url(key));
+        return indexOriginal(key, digest, contentType, size, folder, userId);
+    }
+    
+    /**
+     * Records an object already in S3 as the original for its digest. If another
+     * bytes-identical upload was indexed first, this object is deleted and
+     * that one is returned instead, unless its key names another user.
+     */
+    private StoredOriginal indexOriginal(String key, String digest, String contentType, long size, String folder,
+                                         String userId) {
+        try {
+            if (mediaObjectRepository.insertIfAbsent(digest, key, contentType, size) == 0) {
+                MediaObject winner = mediaObjectRepository.findById(digest).orElse(null);
+                if (winner != null && !winner.getObjectKey().equals(key)
+                        && !reusableBy(winner.getObjectKey(), userId)) {
+                    // Keep this copy unindexed; the renditions are keyed by digest and still shared
+                    meterRegistry.counter("content.media.dedup.misses", "folder", folder).increment();
+                    return new StoredOriginal(key, digest, winner.getProcessedAt() != null);
+                }
+                if (winner != null && !winner.getObjectKey().equals(key)) {
+                    deleteQuietly(key);
+                    touch(digest);
+                    meterRegistry.counter("content.media.dedup.hits", "folder", folder).increment();
+                    meterRegistry.counter("content.media.dedup.bytes.saved").increment(size);
+                    return new StoredOriginal(winner.getObjectKey(), digest, winner.getProcessedAt() != null);
+                }
+                if (winner != null) {
+                    return new StoredOriginal(key, digest, winner.getProcessedAt() != null);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to index media object {}: {}", digest, e.getMessage());
+        }
+        meterRegistry.counter("content.media.dedup.misses", "folder", folder).increment();
+        return new StoredOriginal(key, digest, false);
+    }
+    
+    // Originals stored before keys became owner-less sit under media/{folder}/{userId}/ and are
+    // only handed back to that user, so no one learns another user's id from a duplicate upload
+    private static boolean reusableBy(String key, String userId) {
+        String[] parts = key.split("/");
+        return parts.length == 3 || (parts.length == 4 && parts[2].equals(userId));
+    }
+    
+    private MediaObject findIndexed(String digest) {
+        try {
+            return mediaObjectRepository.findById(digest).orElse(null);
+        } catch (DataAccessException e) {
+            log.warn("Media digest lookup failed, uploading without deduplication: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    // Reused originals may not be referenced by a post yet; this keeps the orphan sweep off them
+    private void touch(String digest) {
+        try {
+            mediaObjectRepository.touch(digest, LocalDateTime.now());
+        } catch (DataAccessException e) {
+            log.warn("Failed to touch media object {}: {}", digest, e.getMessage());
+        }
+    }
+    
+    private void markProcessed(String digest) {
+        try {
+            mediaObjectRepository.markProcessed(digest, LocalDateTime.now());
+        } catch (DataAccessException e) {
+            // The next duplicate just renders the (identical) renditions again
+            log.warn("Failed to mark media object {} as processed: {}", digest, e.getMessage());
+        }
+    }
+    
+    private void deleteQuietly(String key) {
+        try {
+            s3Client.deleteObject(request -> request.bucket(bucketName).key(key));
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete redundant media object {}: {}", key, e.getMessage());
+        }
+    }
+    
+    private String url(String key) {
+        return String.format("https://%s.s3.amazonaws.com/%s", bucketName, key);
+    }
+    
+    private static final class StoredOriginal {
+        private final String key;
+        private final String digest;
+        private final boolean processed;
         
-        return url;
+        private StoredOriginal(String key, String digest, boolean processed) {
+            this.key = key;
+            this.digest = digest;
+            this.processed = processed;
+        }
     }
 }
@@ -0,0 +1,206 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.dto.CreateUploadRequest;
+import com.redesocial.contentservice.dto.PresignedUploadResponse;
+import com.redesocial.contentservice.exception.MediaUploadNotFoundException;
+import com.redesocial.contentservice.exception.UnauthorizedAccessException;
+import com.redesocial.contentservice.model.mongo.Post;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ChecksumMode;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Two-step uploads that never move media bytes through this service.
+ *
+ * {@link #createUpload} validates the declared type and size and signs a PUT
+ * of exactly those bytes: the content length and SHA-256 checksum are signed
+ * headers, so S3 itself rejects any other body. {@link #confirmUpload} checks
+ * the stored object with a HEAD request and hands it to MediaService, which
+ * indexes it and queues thumbnails, variants or transcoding. Pending uploads
+ * are kept in Redis until they are confirmed or the confirm window closes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaUploadService {
+
+    static final String UPLOAD_KEY_PREFIX = "content:media:upload:";
+
+    private final S3Client s3Client;
+    private final S3Presigner s3Presigner;
+    private final MediaService mediaService;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${content.media.direct-upload.url-expiry-minutes:15}")
+    private int urlExpiryMinutes = 15;
+
+    @Value("${content.media.direct-upload.confirm-window-minutes:60}")
+    private int confirmWindowMinutes = 60;
+
+    public PresignedUploadResponse createUpload(CreateUploadRequest request) {
+        Post.MediaType type = mediaService.validateUpload(request.getContentType(), request.getSizeBytes());
+        String uploadId = UUID.randomUUID().toString();
+        String key = MediaService.originalKey(folderOf(type), uploadId);
+        String digest = request.getSha256().toLowerCase();
+
+        PutObjectRequest put = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(request.getContentType())
+                .contentLength(request.getSizeBytes())
+                .checksumSHA256(base64(digest))
+                .build();
+        PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(Duration.ofMinutes(urlExpiryMinutes))
+                .putObjectRequest(put)
+                .build());
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("userId", request.getUserId());
+        fields.put("key", key);
+        fields.put("type", type.name());
+        fields.put("contentType", request.getContentType());
+        fields.put("size", String.valueOf(request.getSizeBytes()));
+        fields.put("sha256", digest);
+        redisTemplate.opsForHash().putAll(uploadKey(uploadId), fields);
+        redisTemplate.expire(uploadKey(uploadId), Duration.ofMinutes(confirmWindowMinutes));
+
+        // The client's HTTP library sets Host itself
+        Map<String, String> headers = new HashMap<>();
+        for (Map.Entry<String, List<String>> header : presigned.signedHeaders().entrySet()) {
+            if (!"host".equalsIgnoreCase(header.getKey())) {
+                headers.put(header.getKey(), String.join(",", header.getValue()));
+            }
+        }
+
+        meterRegistry.counter("content.media.direct.created", "type", type.name().toLowerCase()).increment();
+        log.info("Signed direct {} upload {} for user {} ({} bytes)", type, uploadId, request.getUserId(),
+                request.getSizeBytes());
+        return PresignedUploadResponse.builder()
+                .uploadId(uploadId)
+                .method("PUT")
+                .uploadUrl(presigned.url().toString())
+                .headers(headers)
+                .expiresAt(LocalDateTime.ofInstant(presigned.expiration(), ZoneId.systemDefault()))
+                .build();
+    }
+
+    /**
+     * Verifies that the object matches what was signed and queues its
+     * derivatives. An object that does not match is deleted. Confirming before
+     * the PUT has finished fails without consuming the upload, so clients can
+     * retry.
+     */
+    public Post.MediaUrl confirmUpload(String uploadId, String userId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(uploadKey(uploadId));
+        if (fields == null || fields.isEmpty()) {
+            throw new MediaUploadNotFoundException(uploadId);
+        }
+        if (!fields.get("userId").equals(userId)) {
+            throw new UnauthorizedAccessException("User " + userId + " cannot confirm upload " + uploadId);
+        }
+
+        String key = (String) fields.get("key");
+        String contentType = (String) fields.get("contentType");
+        String digest = (String) fields.get("sha256");
+        long size = Long.parseLong((String) fields.get("size"));
+        Post.MediaType type = Post.MediaType.valueOf((String) fields.get("type"));
+
+        HeadObjectResponse head;
+        try {
+            head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .checksumMode(ChecksumMode.ENABLED)
+                    .build());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new IllegalArgumentException("UPLOAD_INCOMPLETE: Nothing has been uploaded for " + uploadId);
+            }
+            throw e;
+        }
+
+        String mismatch = mismatch(head, contentType, size, digest);
+        if (mismatch != null) {
+            reject(uploadId, key, mismatch);
+            throw new IllegalArgumentException("UPLOAD_MISMATCH: " + mismatch);
+        }
+
+        Post.MediaUrl media = type == Post.MediaType.IMAGE
+                ? mediaService.registerUploadedImage(key, digest, contentType, size, userId)
+                : mediaService.registerUploadedVideo(key, digest, contentType, size, userId);
+        redisTemplate.delete(uploadKey(uploadId));
+
+        meterRegistry.counter("content.media.direct.confirmed", "type", type.name().toLowerCase()).increment();
+        meterRegistry.counter("content.media.direct.bytes").increment(size);
+        log.info("Confirmed direct upload {} for user {}: {}", uploadId, userId, media.getUrl());
+        return media;
+    }
+
+    // The checksum is required: renditions and deduplication are keyed by it
+    private static String mismatch(HeadObjectResponse head, String contentType, long size, String digest) {
+        if (head.contentLength() == null || head.contentLength() != size) {
+            return "expected " + size + " bytes but found " + head.contentLength();
+        }
+        if (head.contentType() == null || !head.contentType().equalsIgnoreCase(contentType)) {
+            return "expected " + contentType + " but found " + head.contentType();
+        }
+        if (!base64(digest).equals(head.checksumSHA256())) {
+            return "SHA-256 checksum does not match";
+        }
+        return null;
+    }
+
+    private void reject(String uploadId, String key, String reason) {
+        log.warn("Rejected direct upload {}: {}", uploadId, reason);
+        meterRegistry.counter("content.media.direct.rejected").increment();
+        try {
+            s3Client.deleteObject(request -> request.bucket(bucketName).key(key));
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete rejected upload {}: {}", key, e.getMessage());
+        }
+        redisTemplate.delete(uploadKey(uploadId));
+    }
+
+    static String uploadKey(String uploadId) {
+        return UPLOAD_KEY_PREFIX + uploadId;
+    }
+
+    private static String folderOf(Post.MediaType type) {
+        return type == Post.MediaType.IMAGE ? "images" : "videos";
+    }
+
+    // S3 expects checksums as base64 of the raw digest
+    private static String base64(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,342 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.model.jpa.MediaObject;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.repository.jpa.MediaObjectRepository;
+import com.redesocial.contentservice.util.BloomFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Deletes S3 media that no post or story references.
+ *
+ * Each run streams the posts and stories collections once, projected to their
+ * media, into a Bloom filter of referenced keys. It then pages through
+ * ListObjectsV2 under each configured prefix. A false positive only keeps an
+ * object, so the filter never causes a wrong delete. An object is deleted only
+ * if it is unreferenced and older than the grace period. Originals that a
+ * duplicate upload reused within the grace period are also kept, since the post
+ * that will reference them may not exist yet. Thumbnails, variants and
+ * renditions are keyed by their original's digest; they are kept while that
+ * digest is still indexed. Originals are therefore swept before their
+ * derivatives.
+ *
+ * Deletes go out through {@link MediaCleanup} in DeleteObjects calls of up to
+ * 1000 keys, paced to a configurable rate. The listing position is checkpointed in Redis, so a run
+ * that hits its scan budget or dies resumes where it stopped. A Redis lease
+ * keeps the sweep on one replica.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrphanMediaCollector {
+
+    static final String CHECKPOINT_KEY = "content:media:gc:checkpoint";
+    static final String LEASE_KEY = "content:media:gc:lease";
+
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+
+    private final S3Client s3Client;
+    private final MongoTemplate mongoTemplate;
+    private final MediaObjectRepository mediaObjectRepository;
+    private final MediaCleanup mediaCleanup;
+    private final RedisLease redisLease;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${content.media.gc.prefixes:media/images/,media/videos/,media/thumbnails/,media/variants/,media/renditions/}")
+    private List<String> prefixes = List.of("media/images/", "media/videos/", "media/thumbnails/",
+            "media/variants/", "media/renditions/");
+
+    @Value("${content.media.gc.grace-hours:24}")
+    private long graceHours = 24;
+
+    @Value("${content.media.gc.max-deletes-per-second:500}")
+    private int maxDeletesPerSecond = 500;
+
+    @Value("${content.media.gc.max-objects-per-run:1000000}")
+    private long maxObjectsPerRun = 1000000;
+
+    @Value("${content.media.gc.false-positive-rate:0.001}")
+    private double falsePositiveRate = 0.001;
+
+    @Value("${content.media.gc.lease-minutes:120}")
+    private long leaseMinutes = 120;
+
+    @Value("${content.media.gc.dry-run:false}")
+    private boolean dryRun;
+
+    private final AtomicLong referencedKeys = new AtomicLong();
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("content.media.gc.referenced.keys", referencedKeys);
+    }
+
+    /**
+     * Runs one sweep, resuming from the last checkpoint. Returns the number of
+     * objects deleted (or that would have been, in a dry run).
+     */
+    @Scheduled(cron = "${content.media.gc.cron:0 30 3 * * *}")
+    public long collect() {
+        if (!redisLease.acquire(LEASE_KEY, Duration.ofMinutes(leaseMinutes))) {
+            log.debug("Orphaned media sweep is running on another replica");
+            return 0;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Sweep sweep = new Sweep(Instant.now().minus(Duration.ofHours(graceHours)));
+        try {
+            BloomFilter referenced = referencedKeys();
+            Map<Object, Object> checkpoint = redisTemplate.opsForHash().entries(CHECKPOINT_KEY);
+            String resumePrefix = checkpoint != null ? (String) checkpoint.get("prefix") : null;
+            String startAfter = checkpoint != null ? (String) checkpoint.get("startAfter") : null;
+
+            int first = resumePrefix != null ? prefixes.indexOf(resumePrefix) : 0;
+            if (first < 0) {
+                // The prefixes were reconfigured since the checkpoint was taken
+                first = 0;
+                startAfter = null;
+            }
+            for (int i = first; i < prefixes.size(); i++) {
+                String prefix = prefixes.get(i);
+                boolean finished = sweepPrefix(prefix, i == first ? startAfter : null, referenced, sweep);
+                if (!finished) {
+                    log.info("Orphaned media sweep paused in {} after scanning {} objects", prefix, sweep.scanned);
+                    return sweep.deleted;
+                }
+            }
+            redisTemplate.delete(CHECKPOINT_KEY);
+            log.info("Orphaned media sweep finished: scanned {}, deleted {}{}", sweep.scanned, sweep.deleted,
+                    dryRun ? " (dry run)" : "");
+        } catch (Exception e) {
+            meterRegistry.counter("content.media.gc.failures").increment();
+            log.error("Orphaned media sweep failed after scanning {} objects", sweep.scanned, e);
+        } finally {
+            sample.stop(meterRegistry.timer("content.media.gc.run"));
+            redisLease.release(LEASE_KEY);
+        }
+        return sweep.deleted;
+    }
+
+    /**
+     * Sweeps one prefix from {@code startAfter}. Returns false if the run's scan
+     * budget ran out first.
+     */
+    private boolean sweepPrefix(String prefix, String startAfter, BloomFilter referenced, Sweep sweep) {
+        String continuationToken = null;
+        do {
+            ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                    .bucket(bucketName)
+                    .prefix(prefix)
+                    .maxKeys(MAX_KEYS_PER_DELETE);
+            if (continuationToken != null) {
+                request.continuationToken(continuationToken);
+            } else if (startAfter != null) {
+                request.startAfter(startAfter);
+            }
+            ListObjectsV2Response page = s3Client.listObjectsV2(request.build());
+
+            List<S3Object> candidates = new ArrayList<>();
+            for (S3Object object : page.contents()) {
+                if (object.lastModified().isBefore(sweep.cutoff) && !referenced.mightContain(object.key())) {
+                    candidates.add(object);
+                }
+            }
+            sweep.scanned += page.contents().size();
+            meterRegistry.counter("content.media.gc.scanned").increment(page.contents().size());
+
+            deleteOrphans(stillUnused(candidates), sweep);
+            if (!page.contents().isEmpty()) {
+                writeCheckpoint(prefix, page.contents().get(page.contents().size() - 1).key());
+            }
+            continuationToken = Boolean.TRUE.equals(page.isTruncated()) ? page.nextContinuationToken() : null;
+            if (continuationToken != null && sweep.scanned >= maxObjectsPerRun) {
+                return false;
+            }
+        } while (continuationToken != null);
+        return true;
+    }
+
+    /**
+     * Drops candidates that the digest index says are still in use: originals
+     * reused within the grace period, and derivatives of indexed digests.
+     */
+    private List<String> stillUnused(List<S3Object> candidates) {
+        List<String> originals = new ArrayList<>();
+        Map<String, List<String>> derivedByDigest = new HashMap<>();
+        for (S3Object candidate : candidates) {
+            String digest = digestOf(candidate.key());
+            if (digest != null) {
+                derivedByDigest.computeIfAbsent(digest, d -> new ArrayList<>()).add(candidate.key());
+            } else {
+                originals.add(candidate.key());
+            }
+        }
+
+        List<String> orphans = new ArrayList<>();
+        if (!originals.isEmpty()) {
+            originals.removeAll(mediaCleanup.recentlyReused(originals));
+            if (!dryRun) {
+                mediaCleanup.forget(originals);
+            }
+            orphans.addAll(originals);
+        }
+        if (!derivedByDigest.isEmpty()) {
+            for (MediaObject media : mediaObjectRepository.findAllById(derivedByDigest.keySet())) {
+                derivedByDigest.remove(media.getDigest());
+            }
+            derivedByDigest.values().forEach(orphans::addAll);
+        }
+        return orphans;
+    }
+
+    private void deleteOrphans(List<String> keys, Sweep sweep) {
+        for (int start = 0; start < keys.size(); start += MAX_KEYS_PER_DELETE) {
+            List<String> chunk = keys.subList(start, Math.min(start + MAX_KEYS_PER_DELETE, keys.size()));
+            meterRegistry.counter("content.media.gc.orphans").increment(chunk.size());
+            if (dryRun) {
+                chunk.forEach(key -> log.info("Would delete orphaned media {}", key));
+                sweep.deleted += chunk.size();
+                continue;
+            }
+
+            long started = System.nanoTime();
+            int failed = mediaCleanup.deleteObjects(chunk);
+            meterRegistry.counter("content.media.gc.deleted").increment(chunk.size() - failed);
+            meterRegistry.counter("content.media.gc.failed").increment(failed);
+            sweep.deleted += chunk.size() - failed;
+            pace(started, chunk.size());
+        }
+    }
+
+    // Keeps deletes under the configured rate so the sweep never competes with uploads for S3 capacity
+    private void pace(long startedNanos, int deleted) {
+        if (maxDeletesPerSecond <= 0) {
+            return;
+        }
+        long minimumNanos = TimeUnit.SECONDS.toNanos(deleted) / maxDeletesPerSecond;
+        long remaining = minimumNanos - (System.nanoTime() - startedNanos);
+        if (remaining > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while pacing orphaned media deletes", e);
+            }
+        }
+    }
+
+    private BloomFilter referencedKeys() {
+        long documents = mongoTemplate.estimatedCount(Post.class) + mongoTemplate.estimatedCount(Story.class);
+        // A few media keys per document; a saturated filter only keeps more objects
+        BloomFilter filter = new BloomFilter((int) Math.min(Integer.MAX_VALUE / 2, Math.max(1024, documents * 8)),
+                falsePositiveRate);
+        Consumer<String> add = url -> {
+            String key = mediaCleanup.keyOf(url);
+            if (key != null) {
+                filter.put(key);
+            }
+        };
+
+        Query posts = new Query();
+        posts.fields().include("mediaUrls");
+        posts.cursorBatchSize(1000);
+        try (Stream<Post> stream = mongoTemplate.stream(posts, Post.class)) {
+            stream.forEach(post -> {
+                if (post.getMediaUrls() != null) {
+                    post.getMediaUrls().forEach(media -> addMedia(media, add));
+                }
+            });
+        }
+
+        Query stories = new Query();
+        stories.fields().include("mediaUrl");
+        stories.cursorBatchSize(1000);
+        try (Stream<Story> stream = mongoTemplate.stream(stories, Story.class)) {
+            stream.forEach(story -> addMedia(story.getMediaUrl(), add));
+        }
+
+        if (filter.isSaturated()) {
+            log.warn("Referenced media filter is saturated ({} keys); fewer orphans will be found",
+                    filter.getInsertions());
+        }
+        referencedKeys.set(filter.getInsertions());
+        return filter;
+    }
+
+    private static void addMedia(Post.MediaUrl media, Consumer<String> add) {
+        if (media == null) {
+            return;
+        }
+        add.accept(media.getUrl());
+        add.accept(media.getThumbnailUrl());
+        if (media.getVariants() != null) {
+            media.getVariants().forEach(variant -> add.accept(variant.getUrl()));
+        }
+    }
+
+    /**
+     * Returns the original's digest for a derived object key (thumbnails,
+     * variants and renditions start with it), or null for an original.
+     */
+    static String digestOf(String key) {
+        int folderEnd = key.indexOf('/', "media/".length());
+        if (folderEnd < 0 || key.length() < folderEnd + 65) {
+            return null;
+        }
+        String candidate = key.substring(folderEnd + 1, folderEnd + 65);
+        for (int i = 0; i < candidate.length(); i++) {
+            if (Character.digit(candidate.charAt(i), 16) < 0) {
+                return null;
+            }
+        }
+        char next = key.length() > folderEnd + 65 ? key.charAt(folderEnd + 65) : '/';
+        return next == '/' || next == '_' ? candidate.toLowerCase() : null;
+    }
+
+    private void writeCheckpoint(String prefix, String lastKey) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("prefix", prefix);
+        fields.put("startAfter", lastKey);
+        redisTemplate.opsForHash().putAll(CHECKPOINT_KEY, fields);
+    }
+
+    private static final class Sweep {
+        private final Instant cutoff;
+        private long scanned;
+        private long deleted;
+
+        private Sweep(Instant cutoff) {
+            this.cutoff = cutoff;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.redesocial.contentservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redesocial.contentservice.config.KafkaConfig;
+import com.redesocial.contentservice.event.ContentEvent;
+import com.redesocial.contentservice.model.jpa.OutboxEvent;
+import com.redesocial.contentservice.repository.jpa.OutboxEventRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Forwards outbox rows to the content events topic.
+ *
+ * Each poll locks a batch of unpublished rows with SKIP LOCKED, so several
+ * replicas can relay concurrently without sending the same rows. A batch is sent
+ * in rounds: each round sends the oldest remaining event of every post at once,
+ * which lets the producer pipeline them, and awaits their acknowledgements
+ * before the next round. Only acknowledged rows are marked published; the rest stay in
+ * the outbox. A row whose send fails is retried after an exponential backoff,
+ * and after {@code content.outbox.max-attempts} failures it is parked as
+ * dead-lettered, with its last error, for someone to look at; from then on it
+ * no longer holds back its post's later events.
+ *
+ * Records are keyed by the event's post, so a post's events share a partition.
+ * A batch holds back a post's events while an older one is locked by another
+ * replica or backing off after a failure. Within a batch a post's next event is
+ * only sent once the previous one is acknowledged, and once one fails its later
+ * events are not sent at all, so nothing of a post can overtake a failed event.
+ * Every post's events reach the broker in the order they were recorded, except
+ * past a dead-lettered event. A send that times out may still be delivered
+ * later, so consumers must tolerate duplicates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxRelay {
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${content.outbox.batch-size:200}")
+    private int batchSize = 200;
+    
+    @Value("${content.outbox.max-batches-per-poll:10}")
+    private int maxBatchesPerPoll = 10;
+    
+    @Value("${content.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs = 10000;
+    
+    @Value("${content.outbox.retention-hours:24}")
+    private int retentionHours = 24;
+    
+    @Value("${content.outbox.max-attempts:10}")
+    private int maxAttempts = 10;
+    
+    @Value("${content.outbox.retry-backoff-ms:1000}")
+    private long retryBackoffMs = 1000;
+    
+    @Value("${content.outbox.max-retry-backoff-ms:300000}")
+    private long maxRetryBackoffMs = 300000;
+    
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong oldestPendingAgeMs = new AtomicLong();
+    private final AtomicLong deadLetteredEvents = new AtomicLong();
+    
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("content.outbox.pending", pendingEvents);
+        meterRegistry.gauge("content.outbox.lag.ms", oldestPendingAgeMs);
+        meterRegistry.gauge("content.outbox.dead.lettered", deadLetteredEvents);
+    }
+    
+    @Scheduled(fixedDelayString = "${content.outbox.poll-interval-ms:200}")
+    public void relay() {
+        try {
+            for (int i = 0; i < maxBatchesPerPoll; i++) {
+                Integer relayed = transactionTemplate.execute(status -> relayBatch());
+                if (relayed == null || relayed < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Outbox relay poll failed", e);
+        } finally {
+            updateLagMetrics();
+        }
+    }
+    
+    /**
+     * Publishes one locked batch and returns how many rows were locked.
+     */
+    int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.lockNextUnpublished(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<Deque<OutboxEvent>> lanes = lanesOf(withoutEventsBehindOtherRelays(batch));
+        List<Long> publishedIds = new ArrayList<>(batch.size());
+        List<OutboxEvent> failed = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<OutboxEvent> round = new ArrayList<>(lanes.size());
+        List<CompletableFuture<?>> sends = new ArrayList<>(lanes.size());
+        relay:
+        while (!lanes.isEmpty() && System.nanoTime() < deadline) {
+            round.clear();
+            sends.clear();
+            for (Deque<OutboxEvent> lane : lanes) {
+                OutboxEvent event = lane.poll();
+                round.add(event);
+                sends.add(send(event));
+            }
+            for (int i = 0; i < round.size(); i++) {
+                OutboxEvent event = round.get(i);
+                try {
+                    long remaining = Math.max(0, deadline - System.nanoTime());
+                    sends.get(i).get(remaining, TimeUnit.NANOSECONDS);
+                    publishedIds.add(event.getId());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break relay;
+                } catch (Exception e) {
+                    failed.add(event);
+                    lanes.get(i).clear();
+                    recordFailure(event, e);
+                }
+            }
+            lanes.removeIf(Deque::isEmpty);
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        if (!publishedIds.isEmpty()) {
+            outboxEventRepository.markPublished(publishedIds, now);
+        }
+        if (!failed.isEmpty()) {
+            outboxEventRepository.saveAll(failed);
+        }
+        
+        sample.stop(meterRegistry.timer("content.outbox.relay.batch"));
+        meterRegistry.counter("content.outbox.published").increment(publishedIds.size());
+        meterRegistry.counter("content.outbox.publish.failures").increment(failed.size());
+        meterRegistry.counter("content.outbox.held.back").increment(batch.size() - publishedIds.size() - failed.size());
+        log.debug("Relayed {}/{} outbox events", publishedIds.size(), batch.size());
+        return batch.size();
+    }
+    
+    /**
+     * Counts a failed send against the row: it is retried after a backoff that
+     * doubles with every attempt, or parked as dead-lettered once it has used up
+     * its attempts.
+     */
+    private void recordFailure(OutboxEvent event, Exception error) {
+        Throwable cause = error instanceof ExecutionException && error.getCause() != null ? error.getCause() : error;
+        int attempts = (event.getAttempts() == null ? 0 : event.getAttempts()) + 1;
+        LocalDateTime now = LocalDateTime.now();
+        event.setAttempts(attempts);
+        event.setLastError(abbreviate(cause.getClass().getSimpleName() + ": " + cause.getMessage()));
+        if (attempts >= maxAttempts) {
+            event.setDeadLetteredAt(now);
+            meterRegistry.counter("content.outbox.dead.lettered.events").increment();
+            log.error("Dead-lettered outbox event {} ({}) after {} failed attempts",
+                    event.getId(), event.getEventType(), attempts, cause);
+            return;
+        }
+        long backoffMs = Math.min(maxRetryBackoffMs, retryBackoffMs << Math.min(attempts - 1, 20));
+        event.setNextAttemptAt(now.plus(Duration.ofMillis(backoffMs)));
+        log.warn("Failed to relay outbox event {} ({}), attempt {}/{}, retrying in {}ms",
+                event.getId(), event.getEventType(), attempts, maxAttempts, backoffMs, cause);
+    }
+    
+    private static String abbreviate(String error) {
+        return error.length() <= 500 ? error : error.substring(0, 500);
+    }
+    
+    /**
+     * Splits the batch into one queue per key, in id order. Rows without a key
+     * have no order to keep and each get their own.
+     */
+    private static List<Deque<OutboxEvent>> lanesOf(List<OutboxEvent> events) {
+        Map<String, Deque<OutboxEvent>> byKey = new LinkedHashMap<>();
+        List<Deque<OutboxEvent>> lanes = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            Deque<OutboxEvent> lane = event.getEventKey() == null ? null : byKey.get(event.getEventKey());
+            if (lane == null) {
+                lane = new ArrayDeque<>();
+                lanes.add(lane);
+                if (event.getEventKey() != null) {
+                    byKey.put(event.getEventKey(), lane);
+                }
+            }
+            lane.add(event);
+        }
+        return lanes;
+    }
+    
+    /**
+     * Drops the events of a key that come after an older unpublished event of
+     * the same key locked by another relay instance.
+     */
+    private List<OutboxEvent> withoutEventsBehindOtherRelays(List<OutboxEvent> batch) {
+        Set<String> keys = new HashSet<>();
+        List<Long> lockedIds = new ArrayList<>(batch.size());
+        long maxId = 0;
+        for (OutboxEvent event : batch) {
+            if (event.getEventKey() != null) {
+                keys.add(event.getEventKey());
+            }
+            lockedIds.add(event.getId());
+            maxId = Math.max(maxId, event.getId());
+        }
+        if (keys.isEmpty()) {
+            return batch;
+        }
+        
+        Map<String, Long> blockedAfter = new HashMap<>();
+        for (Object[] row : outboxEventRepository.findOldestUnpublishedOutside(keys, maxId, lockedIds)) {
+            blockedAfter.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        if (blockedAfter.isEmpty()) {
+            return batch;
+        }
+        
+        List<OutboxEvent> sendable = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            Long blocker = event.getEventKey() != null ? blockedAfter.get(event.getEventKey()) : null;
+            if (blocker == null || event.getId() < blocker) {
+                sendable.add(event);
+            }
+        }
+        return sendable;
+    }
+    
+    /**
+     * Removes published rows past the retention window in bounded chunks.
+     */
+    @Scheduled(cron = "0 */15 * * * *")
+    public void purgePublished() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        int deleted;
+        int total = 0;
+        do {
+            deleted = transactionTemplate.execute(status -> outboxEventRepository.deletePublishedBefore(before, 1000));
+            total += deleted;
+        } while (deleted > 0);
+        
+        if (total > 0) {
+            log.info("Purged {} published outbox events older than {}", total, before);
+        }
+    }
+    
+    private CompletableFuture<?> send(OutboxEvent event) {
+        try {
+            Object payload = objectMapper.readValue(event.getPayload(), Class.forName(event.getEventClass()));
+            return kafkaTemplate.send(KafkaConfig.CONTENT_EVENTS_TOPIC, keyOf(event, payload), payload);
+        } catch (Exception e) {
+            CompletableFuture<?> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+    
+    /**
+     * Rows written before events carried a key fall back to the post in the
+     * payload, or to the event type for events that are not about a post.
+     */
+    private static String keyOf(OutboxEvent event, Object payload) {
+        if (event.getEventKey() != null) {
+            return event.getEventKey();
+        }
+        if (payload instanceof ContentEvent && ((ContentEvent) payload).partitionKey() != null) {
+            return ((ContentEvent) payload).partitionKey();
+        }
+        return event.getEventType();
+    }
+    
+    private void updateLagMetrics() {
+        try {
+            pendingEvents.set(outboxEventRepository.countByPublishedAtIsNullAndDeadLetteredAtIsNull());
+            deadLetteredEvents.set(outboxEventRepository.countByDeadLetteredAtIsNotNull());
+            LocalDateTime oldest = outboxEventRepository.findOldestUnpublishedCreatedAt();
+            oldestPendingAgeMs.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+        } catch (Exception e) {
+            log.debug("Failed to refresh outbox lag metrics", e);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.redesocial.contentservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redesocial.contentservice.config.RedisConfig;
+import com.redesocial.contentservice.dto.PostResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-tier read cache for {@link PostResponse}.
+ *
+ * L1 is a bounded in-process LRU with a short TTL; L2 is a Redis hash shared by
+ * all replicas, holding the post body as JSON next to its counters so counter
+ * changes can be patched atomically with HINCRBY. Deletions and counter deltas
+ * are applied to L2 directly and broadcast over Redis pub/sub so every replica
+ * updates its own L1. Redis failures never fail a read; the caller just loads
+ * from the databases.
+ *
+ * Every patch and eviction also bumps a per-post version in Redis, whether or
+ * not the post is cached. A fill reads the version before it loads the post and
+ * {@link #put} only stores if it is unchanged, so a count that a flush moved on
+ * while the post was being loaded is never cached.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostCache {
+
+    static final String KEY_PREFIX = "content:post:";
+    static final String VERSION_PREFIX = "content:post:version:";
+
+    private static final String BODY_FIELD = "body";
+    private static final String LIKES_FIELD = "likes";
+    private static final String COMMENTS_FIELD = "comments";
+    private static final String SHARES_FIELD = "shares";
+
+    // Only patch entries that exist, so a delta never creates a body-less hash without TTL
+    private static final RedisScript<Long> PATCH_COUNTERS = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) "
+                    + "redis.call('EXPIRE', KEYS[2], ARGV[4]) "
+                    + "if redis.call('EXISTS', KEYS[1]) == 1 then "
+                    + "redis.call('HINCRBY', KEYS[1], 'likes', ARGV[1]) "
+                    + "redis.call('HINCRBY', KEYS[1], 'comments', ARGV[2]) "
+                    + "redis.call('HINCRBY', KEYS[1], 'shares', ARGV[3]) "
+                    + "return 1 end return 0", Long.class);
+
+    // Writes the entry and its TTL together, so a failure in between never leaves a hash that never expires
+    private static final RedisScript<Long> STORE = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[6] then return 0 end "
+                    + "redis.call('HSET', KEYS[1], 'body', ARGV[1], 'likes', ARGV[2], 'comments', ARGV[3], 'shares', ARGV[4]) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[5]) "
+                    + "return 1", Long.class);
+
+    private static final RedisScript<Long> EVICT = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1]) "
+                    + "redis.call('INCR', KEYS[2]) "
+                    + "redis.call('EXPIRE', KEYS[2], ARGV[1]) "
+                    + "return 1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${content.post.cache.l1-max-size:10000}")
+    private int l1MaxSize = 10000;
+
+    @Value("${content.post.cache.l1-ttl-seconds:30}")
+    private long l1TtlSeconds = 30;
+
+    @Value("${content.post.cache.l2-ttl-seconds:300}")
+    private long l2TtlSeconds = 300;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<String, CachedPost> local = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPost> eldest) {
+            return size() > l1MaxSize;
+        }
+    };
+
+    private Counter l1Hits;
+    private Counter l1Misses;
+    private Counter l2Hits;
+    private Counter l2Misses;
+
+    @PostConstruct
+    void init() {
+        listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(RedisConfig.POSTS_CHANNEL));
+
+        l1Hits = meterRegistry.counter("content.post.cache.requests", "tier", "l1", "result", "hit");
+        l1Misses = meterRegistry.counter("content.post.cache.requests", "tier", "l1", "result", "miss");
+        l2Hits = meterRegistry.counter("content.post.cache.requests", "tier", "l2", "result", "hit");
+        l2Misses = meterRegistry.counter("content.post.cache.requests", "tier", "l2", "result", "miss");
+        meterRegistry.gauge("content.post.cache.hit.ratio", Tags.of("tier", "l1"),
+                this, cache -> ratio(cache.l1Hits, cache.l1Misses));
+        meterRegistry.gauge("content.post.cache.hit.ratio", Tags.of("tier", "l2"),
+                this, cache -> ratio(cache.l2Hits, cache.l2Misses));
+        meterRegistry.gaugeMapSize("content.post.cache.l1.size", Tags.empty(), local);
+    }
+
+    /**
+     * Returns a copy of the cached post, or {@code null} if neither tier has it.
+     */
+    public PostResponse get(String postId) {
+        synchronized (local) {
+            CachedPost cached = local.get(postId);
+            if (cached != null && !cached.isExpired(l1TtlSeconds)) {
+                l1Hits.increment();
+                return copy(cached.post);
+            }
+            if (cached != null) {
+                local.remove(postId);
+            }
+        }
+        l1Misses.increment();
+
+        PostResponse post = readRemote(postId);
+        if (post == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        putLocal(postId, post);
+        return copy(post);
+    }
+
+    /**
+     * Returns the post's version, to be read before loading the post and passed
+     * to {@link #put}. Returns {@code null} if Redis is unavailable.
+     */
+    public String version(String postId) {
+        try {
+            String version = redisTemplate.opsForValue().get(VERSION_PREFIX + postId);
+            return version != null ? version : "0";
+        } catch (Exception e) {
+            log.warn("Failed to read cache version of post {}", postId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a freshly loaded post in both tiers, unless a patch or eviction
+     * has bumped its version since {@code version} was read. Without a version
+     * the post only goes to L1, whose short TTL bounds a stale count.
+     */
+    public void put(PostResponse post, String version) {
+        // L1 first, so a patch landing before the script below still reaches it
+        putLocal(post.getId(), copy(post));
+        if (version == null) {
+            return;
+        }
+        try {
+            Long stored = redisTemplate.execute(STORE,
+                    List.of(KEY_PREFIX + post.getId(), VERSION_PREFIX + post.getId()),
+                    objectMapper.writeValueAsString(post),
+                    String.valueOf(valueOf(post.getLikesCount())),
+                    String.valueOf(valueOf(post.getCommentsCount())),
+                    String.valueOf(valueOf(post.getSharesCount())),
+                    String.valueOf(l2TtlSeconds),
+                    version);
+            if (stored == null || stored == 0) {
+                removeLocal(post.getId());
+                meterRegistry.counter("content.post.cache.fills.stale").increment();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to write post {} to Redis cache", post.getId(), e);
+        }
+    }
+
+    /**
+     * Drops a post from every replica once the surrounding transaction commits.
+     */
+    public void evict(String postId) {
+        runAfterCommit(() -> {
+            removeLocal(postId);
+            try {
+                redisTemplate.execute(EVICT, List.of(KEY_PREFIX + postId, VERSION_PREFIX + postId),
+                        String.valueOf(l2TtlSeconds));
+            } catch (Exception e) {
+                log.warn("Failed to evict post {} from Redis cache", postId, e);
+            }
+            broadcast("evict|" + postId);
+        });
+    }
+
+    /**
+     * Applies a counter delta to cached copies of a post. Called once the delta
+     * has been committed, so no transaction handling is needed here.
+     */
+    public void applyCounterDelta(String postId, int likes, int comments, int shares) {
+        try {
+            redisTemplate.execute(PATCH_COUNTERS, List.of(KEY_PREFIX + postId, VERSION_PREFIX + postId),
+                    String.valueOf(likes), String.valueOf(comments), String.valueOf(shares),
+                    String.valueOf(l2TtlSeconds));
+        } catch (Exception e) {
+            // Fall back to dropping the shared copy so no replica serves a stale count for long
+            log.warn("Failed to patch counters of post {} in Redis cache", postId, e);
+            try {
+                redisTemplate.delete(KEY_PREFIX + postId);
+            } catch (Exception ignored) {
+                // Redis is down; the L2 TTL bounds staleness
+            }
+        }
+        // After Redis, so a concurrent fill either sees this patch in L1 or has its store refused
+        patchLocal(postId, likes, comments, shares);
+        broadcast("patch|" + postId + "|" + likes + "|" + comments + "|" + shares);
+    }
+
+    void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|");
+        if (parts.length < 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        try {
+            if ("evict".equals(parts[1])) {
+                removeLocal(parts[2]);
+            } else if ("patch".equals(parts[1]) && parts.length == 6) {
+                patchLocal(parts[2], Integer.parseInt(parts[3]), Integer.parseInt(parts[4]), Integer.parseInt(parts[5]));
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed post cache message");
+        }
+    }
+
+    private PostResponse readRemote(String postId) {
+        try {
+            Map<Object, Object> fields = redisTemplate.opsForHash().entries(KEY_PREFIX + postId);
+            Object body = fields.get(BODY_FIELD);
+            if (body == null) {
+                return null;
+            }
+            PostResponse post = objectMapper.readValue((String) body, PostResponse.class);
+            post.setLikesCount(parseCount(fields.get(LIKES_FIELD)));
+            post.setCommentsCount(parseCount(fields.get(COMMENTS_FIELD)));
+            post.setSharesCount(parseCount(fields.get(SHARES_FIELD)));
+            return post;
+        } catch (Exception e) {
+            log.warn("Failed to read post {} from Redis cache", postId, e);
+            return null;
+        }
+    }
+
+    private void putLocal(String postId, PostResponse post) {
+        synchronized (local) {
+            local.put(postId, new CachedPost(post));
+        }
+    }
+
+    private void removeLocal(String postId) {
+        synchronized (local) {
+            local.remove(postId);
+        }
+    }
+
+    private void patchLocal(String postId, int likes, int comments, int shares) {
+        synchronized (local) {
+            CachedPost cached = local.get(postId);
+            if (cached != null) {
+                PostResponse post = cached.post;
+                post.setLikesCount(Math.max(0, valueOf(post.getLikesCount()) + likes));
+                post.setCommentsCount(Math.max(0, valueOf(post.getCommentsCount()) + comments));
+                post.setSharesCount(Math.max(0, valueOf(post.getSharesCount()) + shares));
+            }
+        }
+    }
+
+    private void broadcast(String message) {
+        try {
+            redisTemplate.convertAndSend(RedisConfig.POSTS_CHANNEL, instanceId + "|" + message);
+        } catch (Exception e) {
+            // Other replicas fall back to their L1 TTL
+            log.warn("Failed to broadcast post cache update", e);
+        }
+    }
+
+    private static PostResponse copy(PostResponse post) {
+        return PostResponse.builder()
+                .id(post.getId())
+                .userId(post.getUserId())
+                .content(post.getContent())
+                .mediaUrls(post.getMediaUrls())
+                .hashtags(post.getHashtags())
+                .likesCount(post.getLikesCount())
+                .commentsCount(post.getCommentsCount())
+                .sharesCount(post.getSharesCount())
+                .createdAt(post.getCreatedAt())
+                .updatedAt(post.getUpdatedAt())
+                .build();
+    }
+
+    private static int valueOf(Integer count) {
+        return count != null ? count : 0;
+    }
+
+    private static Integer parseCount(Object value) {
+        return value != null ? Math.max(0, Integer.parseInt((String) value)) : 0;
+    }
+
+    private static double ratio(Counter hits, Counter misses) {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class CachedPost {
+        private final PostResponse post;
+        private final long cachedAt = System.currentTimeMillis();
+
+        private CachedPost(PostResponse post) {
+            this.post = post;
+        }
+
+        private boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - cachedAt > TimeUnit.SECONDS.toMillis(ttlSeconds);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.redesocial.contentservice.exception.PostNotFoundException;
 import com.redesocial.contentservice.exception.UnauthorizedAccessException;
 import com.redesocial.contentservice.model.jpa.PostMetadata;
 import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
+import com.redesocial.contentservice.repository.mongo.PostRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -18,7 +19,9 @@ import java.time.LocalDateTime;
 public class PostDeletionService {
     
     private final PostMetadataRepository postMetadataRepository;
+    private final PostRepository postRepository;
     private final EventPublisher eventPublisher;
+    private final PostCache postCache;
     
     @Transactional
     public void deletePost(String postId, String userId) {
@@ -33,7 +36,12 @@ public class PostDeletionService {
         
         // Soft delete
         metadata.setIsDeleted(true);
+        metadata.setDeletedAt(LocalDateTime.now());
         postMetadataRepository.save(metadata);
+        // Flag the document too so hashtag listings can filter in Mongo;
+        // a failure here rolls back the metadata update
+        postRepository.markDeleted(postId);
+        postCache.evict(postId);
         
         // Publish event
         PostDeletedEvent event = PostDeletedEvent.builder()
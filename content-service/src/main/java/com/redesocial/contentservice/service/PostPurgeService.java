@@ -0,0 +1,193 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.model.jpa.PostMetadata;
+import com.redesocial.contentservice.model.mongo.Comment;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.repository.jpa.LikeRepository;
+import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
+import com.redesocial.contentservice.repository.jpa.ShareRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Hard-deletes posts that have been soft-deleted for longer than the retention
+ * window.
+ *
+ * Dependents go first, each in chunks that commit on their own: comments,
+ * likes, shares, then the post's media and its Mongo document. The metadata
+ * row is deleted last, so it doubles as the work queue and a crash only
+ * repeats idempotent deletes on the next run. Media that is still used
+ * elsewhere is kept, see {@link MediaCleanup}.
+ *
+ * Posts are read oldest deletion first in (deletedAt, id) order; a post that
+ * fails is skipped and retried on the next run. A Redis lease keeps the worker
+ * on one replica. The backlog, rows deleted per table and the last run's
+ * throughput are exported as metrics.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostPurgeService {
+
+    static final String LEASE_KEY = "content:post:purge:lease";
+
+    private final PostMetadataRepository postMetadataRepository;
+    private final LikeRepository likeRepository;
+    private final ShareRepository shareRepository;
+    private final MongoTemplate mongoTemplate;
+    private final MediaCleanup mediaCleanup;
+    private final RedisLease redisLease;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${content.post.purge.retention-days:30}")
+    private long retentionDays = 30;
+
+    @Value("${content.post.purge.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${content.post.purge.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${content.post.purge.max-posts-per-run:5000}")
+    private int maxPostsPerRun = 5000;
+
+    @Value("${content.post.purge.lease-seconds:1800}")
+    private long leaseSeconds = 1800;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong rowsPerSecond = new AtomicLong();
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("content.post.purge.backlog", backlog);
+        meterRegistry.gauge("content.post.purge.rows.per.second", rowsPerSecond);
+    }
+
+    /**
+     * Purges posts past the retention window until none are left or the run's
+     * budget is spent. Returns the number of posts purged.
+     */
+    @Scheduled(fixedDelayString = "${content.post.purge.interval-ms:300000}")
+    public int purgeDeletedPosts() {
+        if (!redisLease.acquire(LEASE_KEY, Duration.ofSeconds(leaseSeconds))) {
+            log.debug("Post purge is running on another replica");
+            return 0;
+        }
+
+        int purged = 0;
+        long rows = 0;
+        long started = System.nanoTime();
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+            backlog.set(postMetadataRepository.countPurgeable(cutoff));
+            PostMetadata last = null;
+            int attempted = 0;
+            while (attempted < maxPostsPerRun) {
+                int limit = Math.min(batchSize, maxPostsPerRun - attempted);
+                List<PostMetadata> batch = last == null
+                        ? postMetadataRepository.findPurgeable(cutoff, limit)
+                        : postMetadataRepository.findPurgeableAfter(cutoff, last.getDeletedAt(), last.getId(), limit);
+                for (PostMetadata post : batch) {
+                    try {
+                        rows += purge(post.getId());
+                        purged++;
+                        backlog.decrementAndGet();
+                    } catch (Exception e) {
+                        meterRegistry.counter("content.post.purge.failures").increment();
+                        log.warn("Failed to purge post {}, retrying on the next run", post.getId(), e);
+                    }
+                }
+                attempted += batch.size();
+                if (batch.size() < limit) {
+                    break;
+                }
+                last = batch.get(batch.size() - 1);
+            }
+        } catch (Exception e) {
+            meterRegistry.counter("content.post.purge.failures").increment();
+            log.error("Error during post purge", e);
+        } finally {
+            redisLease.release(LEASE_KEY);
+        }
+
+        if (purged > 0) {
+            long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            rowsPerSecond.set(rows * 1000 / elapsedMillis);
+            log.info("Purged {} deleted posts ({} rows, {} rows/s), {} left", purged, rows, rowsPerSecond.get(),
+                    backlog.get());
+        }
+        return purged;
+    }
+
+    /**
+     * Deletes one post and everything that hangs off it. Returns the number of
+     * rows and documents deleted.
+     */
+    private long purge(String postId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long rows = deleteInChunks("comments", limit -> deleteComments(postId, limit));
+        rows += deleteInChunks("likes", limit -> likeRepository.deleteChunkByPostId(postId, limit));
+        rows += deleteInChunks("shares", limit -> shareRepository.deleteChunkByOriginalPostId(postId, limit));
+        rows += deleteInChunks("shares", limit -> shareRepository.deleteChunkBySharedPostId(postId, limit));
+
+        Query postQuery = Query.query(Criteria.where("_id").is(postId));
+        postQuery.fields().include("mediaUrls");
+        Post post = mongoTemplate.findOne(postQuery, Post.class);
+        if (post != null) {
+            if (post.getMediaUrls() != null) {
+                mediaCleanup.deleteMedia(post.getMediaUrls(), List.of(postId), List.of(), "content.post.purge");
+            }
+            long documents = mongoTemplate.remove(Query.query(Criteria.where("_id").is(postId)), Post.class)
+                    .getDeletedCount();
+            meterRegistry.counter("content.post.purge.rows", "table", "posts").increment(documents);
+            rows += documents;
+        }
+
+        int metadata = postMetadataRepository.deleteSoftDeleted(postId);
+        meterRegistry.counter("content.post.purge.rows", "table", "post_metadata").increment(metadata);
+        meterRegistry.counter("content.post.purge.posts").increment();
+        sample.stop(meterRegistry.timer("content.post.purge.post"));
+        return rows + metadata;
+    }
+
+    private long deleteInChunks(String table, IntUnaryOperator deleteChunk) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = deleteChunk.applyAsInt(chunkSize);
+            total += deleted;
+        } while (deleted >= chunkSize);
+        meterRegistry.counter("content.post.purge.rows", "table", table).increment(total);
+        return total;
+    }
+
+    private int deleteComments(String postId, int limit) {
+        Query query = Query.query(Criteria.where("postId").is(postId)).limit(limit);
+        query.fields().include("_id");
+        List<String> ids = mongoTemplate.find(query, Comment.class).stream()
+                .map(Comment::getId)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), Comment.class);
+        return ids.size();
+    }
+}
@@ -1,20 +1,29 @@
 package com.redesocial.contentservice.service;
 
 import com.redesocial.contentservice.dto.CreatePostRequest;
+import com.redesocial.contentservice.dto.CursorPage;
 import com.redesocial.contentservice.dto.PostResponse;
 import com.redesocial.contentservice.event.PostCreatedEvent;
+import com.redesocial.contentservice.model.jpa.PostCounterDelta;
 import com.redesocial.contentservice.model.jpa.PostMetadata;
 import com.redesocial.contentservice.model.mongo.Post;
 import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
 import com.redesocial.contentservice.repository.mongo.PostRepository;
 import com.redesocial.contentservice.util.HashtagExtractor;
+import com.redesocial.contentservice.util.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -22,9 +31,16 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class PostService {
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final PostRepository postRepository;
     private final PostMetadataRepository postMetadataRepository;
     private final EventPublisher eventPublisher;
+    private final PostCache postCache;
+    private final FeedFanoutService feedFanoutService;
+    private final TrendingHashtagService trendingHashtagService;
+    private final TranscodeService transcodeService;
+    private final EngagementCounterBuffer counterBuffer;
     
     @Transactional
     public PostResponse createPost(CreatePostRequest request) {
@@ -34,15 +50,22 @@ public class PostService {
         String postId = UUID.randomUUID().toString();
         LocalDateTime now = LocalDateTime.now();
         
-        // Extract hashtags
-        List<String> hashtags = HashtagExtractor.extractHashtags(request.getContent());
-        log.debug("Extracted {} hashtags from post", hashtags.size());
+        // Extract hashtags and mentions
+        HashtagExtractor.Tokens tokens = HashtagExtractor.extract(request.getContent());
+        List<String> hashtags = tokens.getHashtags();
+        log.debug("Extracted {} hashtags and {} mentions from post", hashtags.size(), tokens.getMentions().size());
+        
+        List<Post.MediaUrl> mediaUrls = request.getMediaUrls() != null
+                ? new ArrayList<>(request.getMediaUrls())
+                : new ArrayList<>();
+        PostMetadata.PostType type = typeOf(mediaUrls);
         
         // Create MongoDB document
         Post post = Post.builder()
                 .id(postId)
                 .userId(request.getUserId())
                 .content(request.getContent())
+                .mediaUrls(mediaUrls)
                 .hashtags(hashtags)
                 .createdAt(now)
                 .updatedAt(now)
@@ -51,11 +74,16 @@ public class PostService {
         postRepository.save(post);
         log.debug("Saved post to MongoDB: {}", postId);
         
+        // Transcodes that finished before the save above were not written back to it
+        if (transcodeService.attachRenditions(post.getMediaUrls())) {
+            postRepository.save(post);
+        }
+        
         // Create PostgreSQL metadata
         PostMetadata metadata = PostMetadata.builder()
                 .id(postId)
                 .userId(request.getUserId())
-                .type(PostMetadata.PostType.TEXT)
+                .type(type)
                 .likesCount(0)
                 .commentsCount(0)
                 .sharesCount(0)
@@ -71,13 +99,18 @@ public class PostService {
                 .userId(request.getUserId())
                 .content(request.getContent())
                 .hashtags(hashtags)
-                .type("TEXT")
+                .mentions(tokens.getMentions())
+                .type(type.name())
                 .createdAt(now)
                 .build();
         
         eventPublisher.publishEvent("post.created", event);
         log.info("Published post.created event for post: {}", postId);
         
+        // Push into follower timelines and count for trending once committed
+        feedFanoutService.fanOut(postId, request.getUserId(), now);
+        trendingHashtagService.record(hashtags);
+        
         // Build response
         return PostResponse.builder()
                 .id(postId)
@@ -96,12 +129,174 @@ public class PostService {
     public PostResponse getPost(String postId) {
         log.info("Fetching post: {}", postId);
         
+        PostResponse cached = postCache.get(postId);
+        if (cached != null) {
+            return cached;
+        }
+        
+        // Read first: a counter flush or eviction after this point makes the cache refuse the fill
+        String cacheVersion = postCache.version(postId);
+        
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found: " + postId));
         
         PostMetadata metadata = postMetadataRepository.findByIdAndIsDeletedFalse(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found or deleted: " + postId));
         
+        PostResponse response = toResponse(post, metadata);
+        // Counters reach post_metadata write-behind; add what is still buffered so the cache starts current
+        PostCounterDelta pending = counterBuffer.pendingDelta(postId);
+        response.setLikesCount(plus(response.getLikesCount(), pending.getLikes()));
+        response.setCommentsCount(plus(response.getCommentsCount(), pending.getComments()));
+        response.setSharesCount(plus(response.getSharesCount(), pending.getShares()));
+        postCache.put(response, cacheVersion);
+        return response;
+    }
+    
+    /**
+     * Hydrates several posts with one Mongo and one PostgreSQL query.
+     * Results keep the requested order; duplicate, missing and deleted posts are skipped.
+     */
+    public List<PostResponse> getPosts(List<String> postIds) {
+        log.info("Fetching {} posts", postIds.size());
+        
+        LinkedHashSet<String> uniqueIds = new LinkedHashSet<>(postIds);
+        if (uniqueIds.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<String, PostMetadata> metadataById = new HashMap<>();
+        for (PostMetadata metadata : postMetadataRepository.findByIdInAndIsDeletedFalse(uniqueIds)) {
+            metadataById.put(metadata.getId(), metadata);
+        }
+        
+        List<PostMetadata> ordered = new ArrayList<>(metadataById.size());
+        for (String postId : uniqueIds) {
+            PostMetadata metadata = metadataById.get(postId);
+            if (metadata != null) {
+                ordered.add(metadata);
+            }
+        }
+        return hydrate(ordered);
+    }
+    
+    /**
+     * Returns an author's live posts newest first, starting after {@code cursor}
+     * (or from the newest post when it is null).
+     */
+    public CursorPage<PostResponse> getUserPosts(String userId, String cursor, int size) {
+        log.info("Fetching posts of user: {} (cursor: {}, size: {})", userId, cursor, size);
+        
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<PostMetadata> page;
+        if (cursor == null || cursor.isEmpty()) {
+            page = postMetadataRepository.findAuthorTimeline(userId, limit + 1);
+        } else {
+            PageCursor position = PageCursor.decode(cursor);
+            page = postMetadataRepository.findAuthorTimelineAfter(userId, position.getCreatedAt(), position.getId(), limit + 1);
+        }
+        
+        boolean hasMore = page.size() > limit;
+        String nextCursor = null;
+        if (hasMore) {
+            page = page.subList(0, limit);
+            PostMetadata last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        
+        return CursorPage.<PostResponse>builder()
+                .content(hydrate(page))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+    
+    /**
+     * Returns live posts carrying a hashtag newest first, starting after
+     * {@code cursor}. Pages are read from Mongo's hashtag index, which already
+     * skips deleted posts; counters come from one batched metadata query.
+     */
+    public CursorPage<PostResponse> getHashtagPosts(String hashtag, String cursor, int size) {
+        log.info("Fetching posts tagged: {} (cursor: {}, size: {})", hashtag, cursor, size);
+        
+        String tag = HashtagExtractor.normalizeHashtag(hashtag);
+        if (tag == null) {
+            throw new IllegalArgumentException("Invalid hashtag: " + hashtag);
+        }
+        
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<Post> posts;
+        if (cursor == null || cursor.isEmpty()) {
+            posts = postRepository.findLiveByHashtag(tag, pageable);
+        } else {
+            PageCursor position = PageCursor.decode(cursor);
+            posts = postRepository.findLiveByHashtagAfter(tag, position.getCreatedAt(), position.getId(), pageable);
+        }
+        
+        boolean hasMore = posts.size() > limit;
+        String nextCursor = null;
+        if (hasMore) {
+            posts = posts.subList(0, limit);
+            Post last = posts.get(posts.size() - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        
+        List<String> ids = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            ids.add(post.getId());
+        }
+        Map<String, PostMetadata> metadataById = new HashMap<>();
+        if (!ids.isEmpty()) {
+            // Also drops posts deleted before the Mongo flag was maintained
+            for (PostMetadata metadata : postMetadataRepository.findByIdInAndIsDeletedFalse(ids)) {
+                metadataById.put(metadata.getId(), metadata);
+            }
+        }
+        
+        List<PostResponse> responses = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            PostMetadata metadata = metadataById.get(post.getId());
+            if (metadata != null) {
+                responses.add(toResponse(post, metadata));
+            }
+        }
+        return CursorPage.<PostResponse>builder()
+                .content(responses)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+    
+    /**
+     * Joins live metadata rows with their Mongo documents using a single $in query,
+     * keeping the order of {@code metadataList}.
+     */
+    private List<PostResponse> hydrate(List<PostMetadata> metadataList) {
+        if (metadataList.isEmpty()) {
+            return List.of();
+        }
+        
+        List<String> ids = new ArrayList<>(metadataList.size());
+        for (PostMetadata metadata : metadataList) {
+            ids.add(metadata.getId());
+        }
+        Map<String, Post> postsById = new HashMap<>();
+        for (Post post : postRepository.findAllById(ids)) {
+            postsById.put(post.getId(), post);
+        }
+        
+        List<PostResponse> responses = new ArrayList<>(metadataList.size());
+        for (PostMetadata metadata : metadataList) {
+            Post post = postsById.get(metadata.getId());
+            if (post != null) {
+                responses.add(toResponse(post, metadata));
+            }
+        }
+        return responses;
+    }
+    
+    private PostResponse toResponse(Post post, PostMetadata metadata) {
         return PostResponse.builder()
                 .id(post.getId())
                 .userId(post.getUserId())
@@ -115,4 +310,20 @@ public class PostService {
                 .updatedAt(post.getUpdatedAt())
                 .build();
     }
+    
+    private static int plus(Integer count, int delta) {
+        return Math.max(0, (count != null ? count : 0) + delta);
+    }
+    
+    private static PostMetadata.PostType typeOf(List<Post.MediaUrl> mediaUrls) {
+        boolean images = mediaUrls.stream().anyMatch(media -> media.getType() == Post.MediaType.IMAGE);
+        boolean videos = mediaUrls.stream().anyMatch(media -> media.getType() == Post.MediaType.VIDEO);
+        if (images && videos) {
+            return PostMetadata.PostType.MIXED;
+        }
+        if (images) {
+            return PostMetadata.PostType.IMAGE;
+        }
+        return videos ? PostMetadata.PostType.VIDEO : PostMetadata.PostType.TEXT;
+    }
 }
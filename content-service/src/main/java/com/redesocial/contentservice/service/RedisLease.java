@@ -0,0 +1,53 @@
+package com.redesocial.contentservice.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Redis leases that keep a scheduled job on one replica at a time. The lease
+ * holds this replica's id, so only the holder releases it; a holder that dies
+ * keeps it until it expires.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisLease {
+
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * Takes the lease for {@code ttl}. Returns false if another replica holds
+     * it or Redis cannot be reached, in which case the run is skipped.
+     */
+    public boolean acquire(String key, Duration ttl) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, instanceId, ttl));
+        } catch (Exception e) {
+            log.warn("Failed to acquire lease {}, skipping this run", key, e);
+            return false;
+        }
+    }
+
+    public void release(String key) {
+        try {
+            redisTemplate.execute(RELEASE, List.of(key), instanceId);
+        } catch (Exception e) {
+            // The lease expires on its own
+            log.warn("Failed to release lease {}", key, e);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.redesocial.contentservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams uploads to S3 through a fixed pool of part-sized buffers.
+ *
+ * An upload holds one buffer at a time: it is filled from the input stream and
+ * sent as one part of a multipart upload, then refilled for the next part, so
+ * the heap used per upload is one part no matter how large the file is. Inputs
+ * that fit in a single buffer are sent with a plain PUT. The pool is capped;
+ * when every buffer is in use, uploads wait for one instead of allocating more.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class S3MultipartUploader {
+
+    // S3 rejects non-final parts smaller than 5 MiB
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${content.media.upload.part-size-mb:5}")
+    private int partSizeMb = 5;
+
+    @Value("${content.media.upload.max-buffers:8}")
+    private int maxBuffers = 8;
+
+    @Value("${content.media.upload.buffer-wait-ms:30000}")
+    private long bufferWaitMs = 30000;
+
+    private final BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(1024);
+    private final AtomicInteger allocatedBuffers = new AtomicInteger();
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("content.media.upload.buffers.allocated", allocatedBuffers);
+        meterRegistry.gaugeCollectionSize("content.media.upload.buffers.free", List.of(), freeBuffers);
+    }
+
+    /**
+     * Uploads everything readable from {@code input} to {@code bucket/key} and
+     * returns the number of bytes written. The caller owns and closes the stream.
+     */
+    public long upload(String bucket, String key, String contentType, InputStream input) throws IOException {
+        byte[] buffer = acquireBuffer();
+        try {
+            int length = fill(input, buffer);
+            if (length < buffer.length) {
+                // Fits in one part: a plain PUT saves the multipart round trips
+                PutObjectRequest request = PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(contentType)
+                        .build();
+                s3Client.putObject(request, body(buffer, length));
+                meterRegistry.counter("content.media.upload.bytes", "mode", "single").increment(length);
+                return length;
+            }
+            return uploadParts(bucket, key, contentType, input, buffer, length);
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    public int getAllocatedBuffers() {
+        return allocatedBuffers.get();
+    }
+
+    int getPartSize() {
+        return Math.max(MIN_PART_SIZE, partSizeMb * 1024 * 1024);
+    }
+
+    private long uploadParts(String bucket, String key, String contentType, InputStream input,
+                             byte[] buffer, int firstLength) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+
+        List<CompletedPart> parts = new ArrayList<>();
+        long total = 0;
+        try {
+            int length = firstLength;
+            while (length > 0) {
+                int partNumber = parts.size() + 1;
+                String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) length)
+                        .build(), body(buffer, length)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+                total += length;
+                length = fill(input, buffer);
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            abort(bucket, key, uploadId);
+            throw e;
+        }
+
+        meterRegistry.counter("content.media.upload.bytes", "mode", "multipart").increment(total);
+        log.debug("Uploaded {} bytes to {} in {} parts", total, key, parts.size());
+        return total;
+    }
+
+    private void abort(String bucket, String key, String uploadId) {
+        meterRegistry.counter("content.media.upload.aborted").increment();
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (Exception e) {
+            // The bucket's lifecycle rule for incomplete uploads cleans it up eventually
+            log.warn("Failed to abort multipart upload {} of {}", uploadId, key, e);
+        }
+    }
+
+    private byte[] acquireBuffer() throws IOException {
+        byte[] buffer = freeBuffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        while (true) {
+            int allocated = allocatedBuffers.get();
+            if (allocated >= maxBuffers) {
+                break;
+            }
+            if (allocatedBuffers.compareAndSet(allocated, allocated + 1)) {
+                return new byte[getPartSize()];
+            }
+        }
+
+        try {
+            buffer = freeBuffers.poll(bufferWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an upload buffer", e);
+        }
+        if (buffer == null) {
+            meterRegistry.counter("content.media.upload.buffer.timeouts").increment();
+            throw new IOException("Timed out waiting for an upload buffer");
+        }
+        return buffer;
+    }
+
+    private void releaseBuffer(byte[] buffer) {
+        if (!freeBuffers.offer(buffer)) {
+            allocatedBuffers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Reads until the buffer is full or the stream ends; returns the bytes read.
+     */
+    private static int fill(InputStream input, byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            int read = input.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    // A fresh stream per attempt lets the SDK retry a part without copying the buffer
+    private static RequestBody body(byte[] buffer, int length) {
+        return RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer, 0, length), length,
+                "application/octet-stream");
+    }
+}
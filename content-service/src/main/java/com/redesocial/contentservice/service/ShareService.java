@@ -26,6 +26,7 @@ public class ShareService {
     private final PostMetadataRepository postMetadataRepository;
     private final ShareRepository shareRepository;
     private final EventPublisher eventPublisher;
+    private final EngagementCounterBuffer counterBuffer;
     
     @Transactional
     public PostResponse sharePost(String originalPostId, String userId) {
@@ -80,11 +81,8 @@ public class ShareService {
         shareRepository.save(share);
         log.debug("Saved share record linking original {} to shared {}", originalPostId, sharedPostId);
         
-        // Increment shares count on original post
-        originalMetadata.setSharesCount(originalMetadata.getSharesCount() + 1);
-        postMetadataRepository.save(originalMetadata);
-        log.info("Incremented shares count for original post {}, new count: {}", 
-                originalPostId, originalMetadata.getSharesCount());
+        // Increment shares count on original post (applied write-behind)
+        counterBuffer.incrementShares(originalPostId);
         
         // Publish share.created event to Kafka
         ShareCreatedEvent event = ShareCreatedEvent.builder()
@@ -1,48 +1,175 @@
 package com.redesocial.contentservice.service;
 
-import com.redesocial.contentservice.repository.mongo.StoryRepository;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.model.mongo.StoryView;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Deletes expired stories, their views and their media.
+ *
+ * Expired stories are read in bounded batches in {expiresAt, _id} order. For
+ * each batch the media is deleted from S3 first, keeping whatever posts or
+ * other stories still use (see {@link MediaCleanup}), then the views and the
+ * stories themselves. A crash therefore only repeats idempotent deletes.
+ *
+ * The position of the last reaped story is checkpointed in Redis, so a run
+ * resumes where the previous one stopped and a story that cannot be deleted
+ * never blocks the ones behind it. The checkpoint is cleared once the reaper
+ * has caught up, so leftovers are retried. A Redis lease keeps replicas from
+ * reaping the same batch twice. The TTL index on expiresAt is only a backstop.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class StoryCleanupService {
-    
-    private final StoryRepository storyRepository;
-    
+
+    static final String CHECKPOINT_KEY = "content:story:reaper:checkpoint";
+    static final String LEASE_KEY = "content:story:reaper:lease";
+
+    private final MongoTemplate mongoTemplate;
+    private final MediaCleanup mediaCleanup;
+    private final RedisLease redisLease;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${content.story.reaper.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${content.story.reaper.max-batches-per-run:100}")
+    private int maxBatchesPerRun = 100;
+
+    @Value("${content.story.reaper.lease-seconds:600}")
+    private long leaseSeconds = 600;
+
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("content.story.reaper.lag.seconds", lagSeconds);
+    }
+
     /**
-     * Scheduled job to clean up expired stories.
-     * Runs every hour to remove stories that have passed their expiration time.
-     * Note: MongoDB TTL index also handles automatic deletion, but this provides
-     * an additional cleanup mechanism and logging.
+     * Reaps expired stories until none are left or the run's batch budget is
+     * spent. Returns the number of stories deleted.
      */
-    @Scheduled(cron = "0 0 * * * *") // Run at the start of every hour
-    @Transactional
-    public void cleanupExpiredStories() {
-        log.info("Starting scheduled cleanup of expired stories");
-        
+    @Scheduled(fixedDelayString = "${content.story.reaper.interval-ms:60000}")
+    public int cleanupExpiredStories() {
+        if (!redisLease.acquire(LEASE_KEY, Duration.ofSeconds(leaseSeconds))) {
+            log.debug("Story reaper is running on another replica");
+            return 0;
+        }
+
+        int reaped = 0;
         try {
             LocalDateTime now = LocalDateTime.now();
-            
-            // Find all expired stories
-            long countBefore = storyRepository.count();
-            
-            // MongoDB TTL index handles automatic deletion, but we can also
-            // explicitly delete expired stories for immediate cleanup
-            // Note: The TTL index on expiresAt field will handle this automatically,
-            // so this is mainly for logging and monitoring purposes
-            
-            log.info("Story cleanup completed. Total stories in database: {}", countBefore);
-            log.info("MongoDB TTL index will automatically remove expired stories");
-            
+            Checkpoint checkpoint = readCheckpoint();
+            for (int batches = 0; batches < maxBatchesPerRun; batches++) {
+                List<Story> batch = nextBatch(checkpoint, now);
+                if (!batch.isEmpty()) {
+                    reap(batch);
+                    reaped += batch.size();
+                    Story last = batch.get(batch.size() - 1);
+                    checkpoint = new Checkpoint(last.getExpiresAt(), last.getId());
+                    writeCheckpoint(checkpoint);
+                    lagSeconds.set(Math.max(0, Duration.between(last.getExpiresAt(), now).getSeconds()));
+                }
+                if (batch.size() < batchSize) {
+                    // Caught up: the next run rescans from the oldest leftover story
+                    redisTemplate.delete(CHECKPOINT_KEY);
+                    lagSeconds.set(0);
+                    break;
+                }
+            }
+            if (reaped > 0) {
+                log.info("Reaped {} expired stories", reaped);
+            }
         } catch (Exception e) {
+            meterRegistry.counter("content.story.reaper.failures").increment();
             log.error("Error during story cleanup", e);
+        } finally {
+            redisLease.release(LEASE_KEY);
+        }
+        return reaped;
+    }
+
+    private List<Story> nextBatch(Checkpoint checkpoint, LocalDateTime now) {
+        Criteria criteria = Criteria.where("expiresAt").lte(now);
+        if (checkpoint != null) {
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where("expiresAt").gt(checkpoint.expiresAt),
+                    Criteria.where("expiresAt").is(checkpoint.expiresAt).and("_id").gt(checkpoint.storyId)));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Order.asc("expiresAt"), Sort.Order.asc("_id")))
+                .limit(batchSize);
+        query.fields().include("expiresAt", "mediaUrl");
+        return mongoTemplate.find(query, Story.class);
+    }
+
+    private void reap(List<Story> batch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<String> storyIds = new ArrayList<>(batch.size());
+        List<Post.MediaUrl> media = new ArrayList<>(batch.size());
+        for (Story story : batch) {
+            storyIds.add(story.getId());
+            media.add(story.getMediaUrl());
+        }
+        int objects = mediaCleanup.deleteMedia(media, List.of(), storyIds, "content.story.reaper");
+
+        long views = mongoTemplate.remove(Query.query(Criteria.where("storyId").in(storyIds)), StoryView.class)
+                .getDeletedCount();
+        long stories = mongoTemplate.remove(Query.query(Criteria.where("_id").in(storyIds)), Story.class)
+                .getDeletedCount();
+
+        meterRegistry.counter("content.story.reaper.stories").increment(stories);
+        meterRegistry.counter("content.story.reaper.views").increment(views);
+        sample.stop(meterRegistry.timer("content.story.reaper.batch"));
+        log.debug("Reaped {} stories, {} views and {} media objects", stories, views, objects);
+    }
+
+    private Checkpoint readCheckpoint() {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(CHECKPOINT_KEY);
+        if (fields == null || fields.get("expiresAt") == null || fields.get("storyId") == null) {
+            return null;
+        }
+        return new Checkpoint(LocalDateTime.parse((String) fields.get("expiresAt")), (String) fields.get("storyId"));
+    }
+
+    private void writeCheckpoint(Checkpoint checkpoint) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("expiresAt", checkpoint.expiresAt.toString());
+        fields.put("storyId", checkpoint.storyId);
+        redisTemplate.opsForHash().putAll(CHECKPOINT_KEY, fields);
+    }
+
+    private static final class Checkpoint {
+        private final LocalDateTime expiresAt;
+        private final String storyId;
+
+        private Checkpoint(LocalDateTime expiresAt, String storyId) {
+            this.expiresAt = expiresAt;
+            this.storyId = storyId;
         }
     }
 }
@@ -12,7 +12,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -22,6 +29,8 @@ public class StoryService {
     
     private final StoryRepository storyRepository;
     private final StoryViewRepository storyViewRepository;
+    private final StoryTrayCache storyTrayCache;
+    private final StoryViewBuffer storyViewBuffer;
     
     private static final int STORY_EXPIRATION_HOURS = 24;
     
@@ -42,6 +51,7 @@ public class StoryService {
                 .build();
         
         storyRepository.save(story);
+        storyTrayCache.evict(userId);
         log.info("Created story: {} with expiration: {}", story.getId(), expiresAt);
         
         return story;
@@ -53,34 +63,65 @@ public class StoryService {
         return storyRepository.findActiveStoriesByUserId(userId, now);
     }
     
-    @Transactional
-    public void recordStoryView(String storyId, String viewerId) {
-        log.info("Recording view for story: {} by viewer: {}", storyId, viewerId);
-        
-        // Check if already viewed
-        if (storyViewRepository.findByStoryIdAndViewerId(storyId, viewerId).isPresent()) {
-            log.debug("Story already viewed by this user");
-            return;
+    /**
+     * Returns the active stories of each given author, oldest first, in the
+     * order the authors were requested. Authors without active stories are
+     * left out. Cache misses are loaded with a single query.
+     */
+    public Map<String, List<Story>> getStoryTray(Collection<String> userIds) {
+        LinkedHashSet<String> uniqueIds = new LinkedHashSet<>(userIds);
+        log.info("Fetching story tray for {} users", uniqueIds.size());
+        if (uniqueIds.isEmpty()) {
+            return Map.of();
         }
         
-        // Record view
-        StoryView view = StoryView.builder()
-                .id(UUID.randomUUID().toString())
-                .storyId(storyId)
-                .viewerId(viewerId)
-                .viewedAt(LocalDateTime.now())
-                .build();
-        
-        storyViewRepository.save(view);
-        
-        // Update story views count
-        Story story = storyRepository.findById(storyId)
-                .orElseThrow(() -> new StoryNotFoundException(storyId));
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, List<Story>> storiesByUser = new HashMap<>(storyTrayCache.getAll(uniqueIds, now));
         
-        story.setViewsCount(story.getViewsCount() + 1);
-        storyRepository.save(story);
+        List<String> missing = new ArrayList<>();
+        for (String userId : uniqueIds) {
+            if (!storiesByUser.containsKey(userId)) {
+                missing.add(userId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, List<Story>> loaded = new HashMap<>();
+            for (String userId : missing) {
+                loaded.put(userId, new ArrayList<>());
+            }
+            for (Story story : storyRepository.findActiveStoriesByUserIdIn(missing, now)) {
+                loaded.get(story.getUserId()).add(story);
+            }
+            for (Map.Entry<String, List<Story>> entry : loaded.entrySet()) {
+                entry.getValue().sort(Comparator.comparing(Story::getCreatedAt,
+                        Comparator.nullsFirst(Comparator.naturalOrder())));
+                // Authors without stories are cached too; they are most of any tray
+                storyTrayCache.put(entry.getKey(), entry.getValue());
+            }
+            storiesByUser.putAll(loaded);
+        }
         
-        log.info("Recorded view for story: {}", storyId);
+        Map<String, List<Story>> tray = new LinkedHashMap<>();
+        for (String userId : uniqueIds) {
+            List<Story> stories = storiesByUser.get(userId);
+            if (!stories.isEmpty()) {
+                tray.put(userId, stories);
+            }
+        }
+        return tray;
+    }
+    
+    /**
+     * Records a view of an active story. Views are buffered and written in
+     * batches, with repeated views by the same viewer counted once; only the
+     * existence check reads the database.
+     */
+    public void recordStoryView(String storyId, String viewerId) {
+        log.debug("Recording view for story: {} by viewer: {}", storyId, viewerId);
+        if (!storyRepository.existsActiveStory(storyId, LocalDateTime.now())) {
+            throw new StoryNotFoundException(storyId);
+        }
+        storyViewBuffer.record(storyId, viewerId);
     }
     
     public List<StoryView> getStoryViewers(String storyId) {
@@ -92,6 +133,7 @@ public class StoryService {
     @Transactional
     public void deleteStory(String storyId) {
         log.info("Deleting story: {}", storyId);
+        storyRepository.findById(storyId).ifPresent(story -> storyTrayCache.evict(story.getUserId()));
         storyRepository.deleteById(storyId);
     }
 }
@@ -0,0 +1,116 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.model.mongo.Story;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process cache of each author's active stories, used to build story trays.
+ *
+ * Entries are keyed by author and include authors with no active stories, which
+ * are the majority of any tray. The TTL is short because entries are only
+ * evicted on the replica that created or deleted the story; other replicas
+ * catch up when their copy expires. Stories that expire while cached are
+ * filtered out on read.
+ */
+@Service
+@RequiredArgsConstructor
+public class StoryTrayCache {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${content.story.tray.cache-max-users:50000}")
+    private int maxUsers = 50000;
+
+    @Value("${content.story.tray.cache-ttl-seconds:15}")
+    private long ttlSeconds = 15;
+
+    private final Map<String, CachedStories> local = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedStories> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() {
+        hits = meterRegistry.counter("content.story.tray.cache.requests", "result", "hit");
+        misses = meterRegistry.counter("content.story.tray.cache.requests", "result", "miss");
+        meterRegistry.gaugeMapSize("content.story.tray.cache.size", Tags.empty(), local);
+    }
+
+    /**
+     * Returns the cached active stories of each author that has a fresh entry.
+     * Authors missing from the result must be loaded and {@link #put}.
+     */
+    public Map<String, List<Story>> getAll(Collection<String> userIds, LocalDateTime now) {
+        Map<String, List<Story>> found = new HashMap<>();
+        synchronized (local) {
+            for (String userId : userIds) {
+                CachedStories cached = local.get(userId);
+                if (cached != null && cached.isExpired(ttlSeconds)) {
+                    local.remove(userId);
+                    cached = null;
+                }
+                if (cached != null) {
+                    found.put(userId, active(cached.stories, now));
+                }
+            }
+        }
+        hits.increment(found.size());
+        misses.increment(userIds.size() - found.size());
+        return found;
+    }
+
+    public void put(String userId, List<Story> stories) {
+        synchronized (local) {
+            local.put(userId, new CachedStories(List.copyOf(stories)));
+        }
+    }
+
+    public void evict(String userId) {
+        synchronized (local) {
+            local.remove(userId);
+        }
+    }
+
+    private static List<Story> active(List<Story> stories, LocalDateTime now) {
+        List<Story> active = new ArrayList<>(stories.size());
+        for (Story story : stories) {
+            if (story.getExpiresAt().isAfter(now)) {
+                active.add(story);
+            }
+        }
+        return active;
+    }
+
+    private static final class CachedStories {
+        private final List<Story> stories;
+        private final long cachedAt = System.currentTimeMillis();
+
+        private CachedStories(List<Story> stories) {
+            this.stories = stories;
+        }
+
+        private boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - cachedAt > TimeUnit.SECONDS.toMillis(ttlSeconds);
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.redesocial.contentservice.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.model.mongo.StoryView;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind buffer for story views.
+ *
+ * Views are deduplicated per story in lock-striped maps and flushed
+ * periodically. A flush writes all buffered views with one unordered bulk
+ * upsert against the unique {storyId, viewerId} index, then bumps
+ * {@code viewsCount} by the number of views that were actually inserted, so
+ * repeated views and views racing on other replicas are never counted twice.
+ *
+ * A story that collects at least {@code hot-threshold} distinct viewers in one
+ * flush is treated as hot for the rest of its life: its viewers are only added
+ * to a Redis HyperLogLog, and {@code viewsCount} grows by the change in the
+ * sketch's estimate. The hot flag lives in Redis, so all replicas switch a
+ * story over together, and the replica that flags it first seeds the sketch
+ * with the viewers already stored, so a returning viewer is not counted again.
+ * Hot counts are then approximate: they carry the sketch's error of about 1%,
+ * and a view flushed by another replica just as the story turns hot can still
+ * be counted twice. Hot stories stop writing one document per viewer, so their
+ * viewer list only holds the viewers seen before they became hot.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StoryViewBuffer {
+
+    static final String VIEWERS_KEY_PREFIX = "content:story:viewers:";
+    static final String HOT_KEY_PREFIX = "content:story:hot:";
+
+    private static final int STRIPES = 64;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int MAX_SKETCH_ARGS = 1000;
+
+    // Atomic, so deltas computed by different replicas add up to the sketch's estimate
+    private static final RedisScript<Long> ADD_VIEWERS = new DefaultRedisScript<>(
+            "local before = redis.call('PFCOUNT', KEYS[1]) "
+                    + "redis.call('PFADD', KEYS[1], unpack(ARGV, 2)) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+                    + "return redis.call('PFCOUNT', KEYS[1]) - before", Long.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${content.story.views.flush-batch-size:1000}")
+    private int flushBatchSize = 1000;
+
+    @Value("${content.story.views.hot-threshold:200}")
+    private int hotThreshold = 200;
+
+    @Value("${content.story.expiration-hours:24}")
+    private long expirationHours = 24;
+
+    private final Stripe[] stripes = createStripes();
+    private final AtomicInteger pendingViews = new AtomicInteger();
+    private final Map<String, Long> hotStories = new ConcurrentHashMap<>();
+    private final Map<String, Integer> pendingIncrements = new HashMap<>();
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("content.story.views.pending", pendingViews);
+        meterRegistry.gaugeMapSize("content.story.views.hot.stories", List.of(), hotStories);
+    }
+
+    /**
+     * Buffers a view. Repeated views of the same story by the same viewer
+     * within one flush interval are dropped here.
+     */
+    public void record(String storyId, String viewerId) {
+        Stripe stripe = stripeFor(storyId);
+        synchronized (stripe) {
+            if (stripe.views.computeIfAbsent(storyId, id -> new LinkedHashSet<>()).add(viewerId)) {
+                pendingViews.incrementAndGet();
+            }
+        }
+    }
+
+    public boolean isHot(String storyId) {
+        Long until = hotStories.get(storyId);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    public int getPendingViews() {
+        return pendingViews.get();
+    }
+
+    @Scheduled(fixedDelayString = "${content.story.views.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        hotStories.values().removeIf(until -> until <= System.currentTimeMillis());
+        Map<String, Set<String>> drained = drain();
+        if (drained.isEmpty() && pendingIncrements.isEmpty()) {
+            return;
+        }
+        refreshHotStories(drained.keySet());
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<String, Integer> increments = new HashMap<>(pendingIncrements);
+        pendingIncrements.clear();
+        try {
+            List<PendingView> exact = new ArrayList<>();
+            for (Map.Entry<String, Set<String>> entry : drained.entrySet()) {
+                String storyId = entry.getKey();
+                if (!isHot(storyId) && entry.getValue().size() >= hotThreshold) {
+                    markHot(storyId);
+                }
+                List<String> viewers = new ArrayList<>(entry.getValue());
+                if (isHot(storyId)) {
+                    viewers = addToSketch(storyId, viewers, increments);
+                }
+                for (String viewerId : viewers) {
+                    exact.add(new PendingView(storyId, viewerId));
+                }
+            }
+            upsertViews(exact, increments);
+            applyIncrements(increments);
+        } finally {
+            sample.stop(meterRegistry.timer("content.story.views.flush"));
+        }
+    }
+
+    @PreDestroy
+    public void drainOnShutdown() {
+        log.info("Draining {} pending story views before shutdown", pendingViews.get());
+        flush();
+    }
+
+    /**
+     * Picks up the stories other replicas have flagged hot since the last flush.
+     * Without Redis each replica goes on with the stories it flagged itself.
+     */
+    private void refreshHotStories(Set<String> storyIds) {
+        List<String> candidates = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (String storyId : storyIds) {
+            if (!isHot(storyId)) {
+                candidates.add(storyId);
+                keys.add(HOT_KEY_PREFIX + storyId);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        List<String> flags;
+        try {
+            flags = redisTemplate.opsForValue().multiGet(keys);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read hot story flags: {}", e.getMessage());
+            return;
+        }
+        if (flags == null) {
+            return;
+        }
+        for (int i = 0; i < candidates.size(); i++) {
+            String until = flags.get(i);
+            if (until != null) {
+                hotStories.put(candidates.get(i), Long.parseLong(until));
+            }
+        }
+    }
+
+    /**
+     * Flags a story hot for every replica. The replica that flags it first
+     * seeds the sketch with the viewers stored so far, uncounted, so their
+     * next views do not add to {@code viewsCount} a second time.
+     */
+    private void markHot(String storyId) {
+        long until = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(expirationHours);
+        hotStories.put(storyId, until);
+        log.info("Story {} is hot, counting its viewers approximately", storyId);
+        try {
+            Boolean first = redisTemplate.opsForValue().setIfAbsent(HOT_KEY_PREFIX + storyId,
+                    String.valueOf(until), expirationHours, TimeUnit.HOURS);
+            if (Boolean.TRUE.equals(first)) {
+                seedSketch(storyId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to share the hot flag of story {}", storyId, e);
+        }
+    }
+
+    private void seedSketch(String storyId) {
+        String key = VIEWERS_KEY_PREFIX + storyId;
+        Query query = Query.query(Criteria.where("storyId").is(storyId));
+        query.fields().include("viewerId");
+        List<String> chunk = new ArrayList<>();
+        try (Stream<StoryView> views = mongoTemplate.stream(query, StoryView.class)) {
+            Iterator<StoryView> iterator = views.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next().getViewerId());
+                if (chunk.size() == MAX_SKETCH_ARGS || !iterator.hasNext()) {
+                    redisTemplate.opsForHyperLogLog().add(key, chunk.toArray(new String[0]));
+                    chunk.clear();
+                }
+            }
+        }
+        redisTemplate.expire(key, expirationHours, TimeUnit.HOURS);
+    }
+
+    /**
+     * Adds the viewers to the story's sketch, counting those it had not seen,
+     * and returns the ones left out by a failure, to be written exactly.
+     */
+    private List<String> addToSketch(String storyId, List<String> viewers, Map<String, Integer> increments) {
+        String ttl = String.valueOf(TimeUnit.HOURS.toSeconds(expirationHours));
+        long added = 0;
+        int start = 0;
+        try {
+            for (; start < viewers.size(); start += MAX_SKETCH_ARGS) {
+                List<String> chunk = viewers.subList(start, Math.min(start + MAX_SKETCH_ARGS, viewers.size()));
+                Object[] args = new Object[chunk.size() + 1];
+                args[0] = ttl;
+                for (int i = 0; i < chunk.size(); i++) {
+                    args[i + 1] = chunk.get(i);
+                }
+                Long delta = redisTemplate.execute(ADD_VIEWERS, List.of(VIEWERS_KEY_PREFIX + storyId), args);
+                added += delta != null ? delta : 0;
+            }
+        } catch (RuntimeException e) {
+            // Earlier chunks are in the sketch and counted by it, so only the rest goes the exact way. The
+            // failed chunk may still have reached Redis, and its viewers are then counted by both
+            log.warn("Failed to add viewers of hot story {} to its sketch", storyId, e);
+        }
+        increments.merge(storyId, (int) added, Integer::sum);
+        meterRegistry.counter("content.story.views.flushed", "mode", "approximate").increment(start);
+        return viewers.subList(start, viewers.size());
+    }
+
+    private void upsertViews(List<PendingView> views, Map<String, Integer> increments) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int start = 0; start < views.size(); start += flushBatchSize) {
+            List<PendingView> chunk = views.subList(start, Math.min(start + flushBatchSize, views.size()));
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StoryView.class);
+            for (PendingView view : chunk) {
+                bulk.upsert(Query.query(Criteria.where("storyId").is(view.storyId).and("viewerId").is(view.viewerId)),
+                        new Update()
+                                .setOnInsert("_id", UUID.randomUUID().toString())
+                                .setOnInsert("viewedAt", now));
+            }
+
+            BulkWriteResult result;
+            try {
+                result = bulk.execute();
+            } catch (BulkOperationException e) {
+                // Duplicate keys are views another replica inserted first; it counts them
+                result = e.getResult();
+                for (BulkWriteError error : e.getErrors()) {
+                    if (error.getCode() != DUPLICATE_KEY) {
+                        PendingView view = chunk.get(error.getIndex());
+                        record(view.storyId, view.viewerId);
+                    }
+                }
+            } catch (RuntimeException e) {
+                chunk.forEach(view -> record(view.storyId, view.viewerId));
+                meterRegistry.counter("content.story.views.flush.failures").increment();
+                log.error("Failed to write {} story views, re-queued", chunk.size(), e);
+                continue;
+            }
+
+            for (BulkWriteUpsert upsert : result.getUpserts()) {
+                increments.merge(chunk.get(upsert.getIndex()).storyId, 1, Integer::sum);
+            }
+            meterRegistry.counter("content.story.views.flushed", "mode", "exact").increment(chunk.size());
+        }
+    }
+
+    private void applyIncrements(Map<String, Integer> increments) {
+        List<Map.Entry<String, Integer>> nonZero = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : increments.entrySet()) {
+            if (entry.getValue() != 0) {
+                nonZero.add(entry);
+            }
+        }
+
+        for (int start = 0; start < nonZero.size(); start += flushBatchSize) {
+            List<Map.Entry<String, Integer>> chunk = nonZero.subList(start, Math.min(start + flushBatchSize, nonZero.size()));
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Story.class);
+            for (Map.Entry<String, Integer> entry : chunk) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(entry.getKey())),
+                        new Update().inc("viewsCount", entry.getValue()));
+            }
+            try {
+                bulk.execute();
+            } catch (BulkOperationException e) {
+                for (BulkWriteError error : e.getErrors()) {
+                    Map.Entry<String, Integer> failed = chunk.get(error.getIndex());
+                    pendingIncrements.merge(failed.getKey(), failed.getValue(), Integer::sum);
+                }
+                meterRegistry.counter("content.story.views.flush.failures").increment();
+            } catch (RuntimeException e) {
+                // Retried on the next flush, so inserted views are never left uncounted
+                chunk.forEach(entry -> pendingIncrements.merge(entry.getKey(), entry.getValue(), Integer::sum));
+                meterRegistry.counter("content.story.views.flush.failures").increment();
+                log.error("Failed to update view counts of {} stories, re-queued", chunk.size(), e);
+            }
+        }
+    }
+
+    private Map<String, Set<String>> drain() {
+        Map<String, Set<String>> drained = new LinkedHashMap<>();
+        for (Stripe stripe : stripes) {
+            Map<String, Set<String>> views;
+            synchronized (stripe) {
+                if (stripe.views.isEmpty()) {
+                    continue;
+                }
+                views = stripe.views;
+                stripe.views = new HashMap<>();
+            }
+            for (Set<String> viewers : views.values()) {
+                pendingViews.addAndGet(-viewers.size());
+            }
+            drained.putAll(views);
+        }
+        return drained;
+    }
+
+    private Stripe stripeFor(String storyId) {
+        return stripes[(storyId.hashCode() & Integer.MAX_VALUE) % STRIPES];
+    }
+
+    private static Stripe[] createStripes() {
+        Stripe[] stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        return stripes;
+    }
+
+    private static final class Stripe {
+        private Map<String, Set<String>> views = new HashMap<>();
+    }
+
+    private static final class PendingView {
+        private final String storyId;
+        private final String viewerId;
+
+        private PendingView(String storyId, String viewerId) {
+            this.storyId = storyId;
+            this.viewerId = viewerId;
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package com.redesocial.contentservice.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redesocial.contentservice.model.jpa.TranscodeJob;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.repository.jpa.TranscodeJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Transcodes uploaded videos into an H.264 rendition ladder.
+ *
+ * Jobs live in PostgreSQL so they survive restarts. Every replica polls the
+ * queue but only claims as many jobs as it has free workers, and the worker
+ * count follows the cores available: each job runs with a fixed thread budget,
+ * so concurrency defaults to cores / threads-per-job. A claimed job is leased,
+ * and the lease is renewed before each rung so it only has to outlast one
+ * transcode; if the worker dies the lease runs out and another poller retries it.
+ *
+ * Once a job completes its renditions are written back to every post and
+ * story that embeds the original, and the affected posts are evicted from
+ * the post cache.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TranscodeService {
+
+    static final String RENDITION_PREFIX = "media/renditions/";
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final TypeReference<List<Post.MediaVariant>> VARIANT_LIST = new TypeReference<>() { };
+
+    private final TranscodeJobRepository transcodeJobRepository;
+    private final Transcoder transcoder;
+    private final S3Client s3Client;
+    private final S3MultipartUploader s3MultipartUploader;
+    private final MongoTemplate mongoTemplate;
+    private final PostCache postCache;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${aws.s3.bucket-name}")
+    private String bucketName;
+
+    @Value("${content.media.video.resolutions:480p,720p,1080p}")
+    private String resolutions = "480p,720p,1080p";
+
+    @Value("${content.media.transcode.threads-per-job:2}")
+    private int threadsPerJob = 2;
+
+    @Value("${content.media.transcode.max-concurrency:0}")
+    private int maxConcurrency = 0;
+
+    @Value("${content.media.transcode.lease-minutes:30}")
+    private int leaseMinutes = 30;
+
+    @Value("${content.media.transcode.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${content.media.transcode.retry-backoff-seconds:60}")
+    private int retryBackoffSeconds = 60;
+
+    private ThreadPoolExecutor executor;
+    private int concurrency;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong pendingJobs = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        // Transcoding is CPU-bound: more concurrent jobs than cores only adds context switches
+        concurrency = maxConcurrency > 0
+                ? maxConcurrency
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / Math.max(1, threadsPerJob));
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> new Thread(runnable, "video-transcode-" + threads.incrementAndGet()));
+
+        meterRegistry.gauge("content.media.transcode.active", running);
+        meterRegistry.gauge("content.media.transcode.pending", pendingJobs);
+        meterRegistry.gauge("content.media.transcode.concurrency", List.of(), this, service -> service.concurrency);
+        log.info("Video transcoding runs up to {} concurrent jobs", concurrency);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        // Interrupting a worker kills its ffmpeg process; the job is retried elsewhere
+        executor.shutdownNow();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues a transcode of the stored original, or returns the existing job
+     * if this original was queued before.
+     */
+    public TranscodeJob enqueue(String sourceKey, String digest) {
+        if (transcodeJobRepository.insertIfAbsent(sourceKey, digest) == 1) {
+            meterRegistry.counter("content.media.transcode.enqueued").increment();
+        }
+        return transcodeJobRepository.findBySourceKey(sourceKey)
+                .orElseThrow(() -> new IllegalStateException("Transcode job vanished for " + sourceKey));
+    }
+
+    /**
+     * The URL of every rung of the configured ladder, keyed by label. They are
+     * derived from the original's digest alone, so they are known before the
+     * job runs; rungs taller than the source hold the largest real rendition.
+     */
+    public Map<String, String> plannedRenditionUrls(String digest) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> rung : ladder().entrySet()) {
+            urls.put(rung.getKey(), url(renditionKey(digest, rung.getKey())));
+        }
+        return urls;
+    }
+
+    /**
+     * The renditions a completed job produced, smallest first; empty until then.
+     */
+    public List<Post.MediaVariant> renditionsOf(TranscodeJob job) {
+        if (job == null || job.getStatus() != TranscodeJob.Status.COMPLETED || job.getRenditions() == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(job.getRenditions(), VARIANT_LIST);
+        } catch (IOException e) {
+            log.warn("Unreadable renditions on transcode job {}: {}", job.getId(), e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Fills in renditions for videos whose transcode finished before the
+     * embedding document was saved, which the write-back would have missed.
+     * Callers save first and call this after. Returns whether anything changed.
+     */
+    public boolean attachRenditions(List<Post.MediaUrl> media) {
+        Map<String, Post.MediaUrl> bySourceKey = new HashMap<>();
+        for (Post.MediaUrl item : media) {
+            String key = keyOf(item.getUrl());
+            if (item.getType() == Post.MediaType.VIDEO && key != null
+                    && (item.getVariants() == null || item.getVariants().isEmpty())) {
+                bySourceKey.put(key, item);
+            }
+        }
+        if (bySourceKey.isEmpty()) {
+            return false;
+        }
+
+        boolean changed = false;
+        for (TranscodeJob job : transcodeJobRepository.findBySourceKeyInAndStatus(bySourceKey.keySet(),
+                TranscodeJob.Status.COMPLETED)) {
+            List<Post.MediaVariant> variants = renditionsOf(job);
+            if (!variants.isEmpty()) {
+                bySourceKey.get(job.getSourceKey()).setVariants(variants);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Claims as many due jobs as there are idle workers and hands them over.
+     */
+    @Scheduled(fixedDelayString = "${content.media.transcode.poll-interval-ms:2000}")
+    public void poll() {
+        try {
+            int free = concurrency - running.get();
+            if (free <= 0) {
+                return;
+            }
+            List<TranscodeJob> claimed = transactionTemplate.execute(status -> claim(free));
+            if (claimed == null) {
+                return;
+            }
+            for (TranscodeJob job : claimed) {
+                running.incrementAndGet();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            process(job);
+                        } finally {
+                            running.decrementAndGet();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; the lease runs out and another replica takes the job
+                    running.decrementAndGet();
+                }
+            }
+        } catch (Exception e) {
+            log.error("Transcode poll failed", e);
+        } finally {
+            refreshPending();
+        }
+    }
+
+    /**
+     * Locks up to {@code limit} due jobs and leases them to this replica. Jobs
+     * whose last permitted attempt lost its lease are failed instead.
+     */
+    List<TranscodeJob> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<TranscodeJob> claimed = new ArrayList<>();
+        for (TranscodeJob job : transcodeJobRepository.lockRunnable(now, limit)) {
+            job.setUpdatedAt(now);
+            if (job.getAttempts() >= maxAttempts) {
+                job.setStatus(TranscodeJob.Status.FAILED);
+                job.setLeaseUntil(null);
+                job.setLastError("Lease expired on attempt " + job.getAttempts());
+                meterRegistry.counter("content.media.transcode.failed").increment();
+                log.error("Giving up on transcode job {} for {}: worker lost on last attempt",
+                        job.getId(), job.getSourceKey());
+                continue;
+            }
+            job.setStatus(TranscodeJob.Status.RUNNING);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setLeaseUntil(now.plusMinutes(leaseMinutes));
+            claimed.add(job);
+        }
+        // Managed entities: the changes are flushed when the claim transaction commits
+        return claimed;
+    }
+
+    /**
+     * Runs one claimed attempt: fetch the original, probe it, render the
+     * ladder, record the outcome and write the renditions back.
+     */
+    void process(TranscodeJob job) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "completed";
+        Path workDir = null;
+        try {
+            workDir = Files.createTempDirectory("transcode-");
+            Path source = workDir.resolve("source");
+            s3Client.getObject(GetObjectRequest.builder().bucket(bucketName).key(job.getSourceKey()).build(), source);
+
+            Transcoder.VideoInfo info = transcoder.probe(source);
+            List<Post.MediaVariant> variants = render(job, source, info, workDir);
+
+            int recorded = transcodeJobRepository.finish(job.getId(), job.getAttempts(),
+                    TranscodeJob.Status.COMPLETED, objectMapper.writeValueAsString(variants), null, null,
+                    LocalDateTime.now());
+            if (recorded == 0) {
+                // Re-claimed after our lease ran out; the newer attempt writes back
+                outcome = "superseded";
+                return;
+            }
+            log.info("Transcoded {} into {} renditions", job.getSourceKey(), variants.size());
+            try {
+                writeBack(url(job.getSourceKey()), variants, info);
+            } catch (RuntimeException e) {
+                // The job stays completed: attachRenditions fills in what the write-back missed
+                meterRegistry.counter("content.media.transcode.writeback.failed").increment();
+                log.warn("Failed to write renditions of {} back to its posts and stories", job.getSourceKey(), e);
+            }
+        } catch (LeaseLostException e) {
+            // Another worker owns the job now; its attempt records the outcome
+            outcome = "superseded";
+            log.warn("Abandoning transcode job {} for {}: lease lost on attempt {}",
+                    job.getId(), job.getSourceKey(), job.getAttempts());
+        } catch (Exception e) {
+            outcome = fail(job, e);
+        } finally {
+            deleteQuietly(workDir);
+            sample.stop(meterRegistry.timer("content.media.transcode.duration", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Renders each rung no taller than the source, smallest first. Taller rungs
+     * are never upscaled: their planned keys get a server-side copy of the
+     * largest rendition instead, and are left out of the returned list.
+     * The lease is renewed before every rung, so a ladder of slow rungs is not
+     * picked up by a second worker halfway through.
+     */
+    private List<Post.MediaVariant> render(TranscodeJob job, Path source, Transcoder.VideoInfo info, Path workDir)
+            throws IOException {
+        String digest = job.getDigest();
+        int sourceShortSide = Math.min(info.getWidth(), info.getHeight());
+        List<Post.MediaVariant> variants = new ArrayList<>();
+        String largestKey = null;
+        for (Map.Entry<String, Integer> rung : ladder().entrySet()) {
+            String key = renditionKey(digest, rung.getKey());
+            if (largestKey != null && rung.getValue() > sourceShortSide) {
+                String copySource = largestKey;
+                s3Client.copyObject(request -> request
+                        .sourceBucket(bucketName).sourceKey(copySource)
+                        .destinationBucket(bucketName).destinationKey(key));
+                continue;
+            }
+
+            renewLease(job);
+            // Sources below the smallest rung still get one rendition, at their own size
+            int shortSide = even(Math.min(rung.getValue(), sourceShortSide));
+            Path target = workDir.resolve(rung.getKey() + ".mp4");
+            Timer.Sample sample = Timer.start(meterRegistry);
+            transcoder.transcode(source, target, shortSide);
+            sample.stop(meterRegistry.timer("content.media.transcode.rendition", "rendition", rung.getKey()));
+
+            try (InputStream input = Files.newInputStream(target)) {
+                s3MultipartUploader.upload(bucketName, key, "video/mp4", input);
+            }
+            Files.deleteIfExists(target);
+
+            boolean landscape = info.getWidth() > info.getHeight();
+            // Same rounding as ffmpeg's -2: the nearest even size keeping the aspect ratio
+            int longSide = 2 * (int) Math.round(Math.max(info.getWidth(), info.getHeight())
+                    * (double) shortSide / (2.0 * sourceShortSide));
+            variants.add(Post.MediaVariant.builder()
+                    .url(url(key))
+                    .width(landscape ? longSide : shortSide)
+                    .height(landscape ? shortSide : longSide)
+                    .format("mp4")
+                    .build());
+            largestKey = key;
+        }
+        return variants;
+    }
+
+    /**
+     * Pushes the lease out by another {@code lease-minutes}, which must exceed
+     * the transcoder timeout plus the upload of one rendition.
+     */
+    private void renewLease(TranscodeJob job) throws LeaseLostException {
+        LocalDateTime now = LocalDateTime.now();
+        int renewed = transcodeJobRepository.renewLease(job.getId(), job.getAttempts(),
+                TranscodeJob.Status.RUNNING, now.plusMinutes(leaseMinutes), now);
+        if (renewed == 0) {
+            throw new LeaseLostException();
+        }
+    }
+
+    /**
+     * Sets the renditions on every post (shares included, as they copy the
+     * media list) and story embedding the original, then evicts those posts.
+     */
+    private void writeBack(String sourceUrl, List<Post.MediaVariant> variants, Transcoder.VideoInfo info) {
+        Query posts = Query.query(Criteria.where("mediaUrls.url").is(sourceUrl));
+        posts.fields().include("_id");
+        List<Post> affected = mongoTemplate.find(posts, Post.class);
+        if (!affected.isEmpty()) {
+            Update update = new Update()
+                    .set("mediaUrls.$[media].variants", variants)
+                    .set("mediaUrls.$[media].width", info.getWidth())
+                    .set("mediaUrls.$[media].height", info.getHeight())
+                    .filterArray(Criteria.where("media.url").is(sourceUrl));
+            if (info.getDurationSeconds() != null) {
+                update.set("mediaUrls.$[media].duration", (int) Math.round(info.getDurationSeconds()));
+            }
+            mongoTemplate.updateMulti(Query.query(Criteria.where("mediaUrls.url").is(sourceUrl)), update, Post.class);
+            for (Post post : affected) {
+                postCache.evict(post.getId());
+            }
+        }
+
+        Update story = new Update()
+                .set("mediaUrl.variants", variants)
+                .set("mediaUrl.width", info.getWidth())
+                .set("mediaUrl.height", info.getHeight());
+        mongoTemplate.updateMulti(Query.query(Criteria.where("mediaUrl.url").is(sourceUrl)), story, Story.class);
+    }
+
+    /**
+     * Returns the job to the queue after a backoff, or fails it for good once
+     * it has used all its attempts. Returns the outcome for the duration timer.
+     */
+    private String fail(TranscodeJob job, Exception e) {
+        boolean retry = job.getAttempts() < maxAttempts;
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            transcodeJobRepository.finish(job.getId(), job.getAttempts(),
+                    retry ? TranscodeJob.Status.PENDING : TranscodeJob.Status.FAILED, null,
+                    retry ? now.plusSeconds((long) retryBackoffSeconds * job.getAttempts()) : null, error, now);
+        } catch (RuntimeException recordFailure) {
+            // The lease still expires, so the job is retried either way
+            log.warn("Failed to record outcome of transcode job {}: {}", job.getId(), recordFailure.getMessage());
+        }
+
+        if (retry) {
+            meterRegistry.counter("content.media.transcode.retried").increment();
+            log.warn("Transcode job {} for {} failed on attempt {}, will retry: {}",
+                    job.getId(), job.getSourceKey(), job.getAttempts(), error);
+            return "retried";
+        }
+        meterRegistry.counter("content.media.transcode.failed").increment();
+        log.error("Transcode job {} for {} failed after {} attempts", job.getId(), job.getSourceKey(),
+                job.getAttempts(), e);
+        return "failed";
+    }
+
+    /**
+     * Configured rungs by label, ordered by height: {@code 480p} maps to 480.
+     */
+    private Map<String, Integer> ladder() {
+        List<String> labels = new ArrayList<>();
+        for (String label : resolutions.split(",")) {
+            labels.add(label.trim());
+        }
+        labels.sort(Comparator.comparingInt(TranscodeService::heightOf));
+        Map<String, Integer> ladder = new LinkedHashMap<>();
+        for (String label : labels) {
+            ladder.put(label, heightOf(label));
+        }
+        return ladder;
+    }
+
+    private static int heightOf(String label) {
+        return Integer.parseInt(label.endsWith("p") ? label.substring(0, label.length() - 1) : label);
+    }
+
+    private static int even(int pixels) {
+        return Math.max(2, pixels - pixels % 2);
+    }
+
+    static String renditionKey(String digest, String label) {
+        return RENDITION_PREFIX + digest + "/" + label + ".mp4";
+    }
+
+    private String url(String key) {
+        return String.format("https://%s.s3.amazonaws.com/%s", bucketName, key);
+    }
+
+    private String keyOf(String url) {
+        String prefix = url("");
+        return url != null && url.startsWith(prefix) ? url.substring(prefix.length()) : null;
+    }
+
+    private void refreshPending() {
+        try {
+            pendingJobs.set(transcodeJobRepository.countByStatus(TranscodeJob.Status.PENDING));
+        } catch (Exception e) {
+            log.debug("Failed to refresh transcode queue depth", e);
+        }
+    }
+
+    private static void deleteQuietly(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to clean up transcode directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * The job was claimed again after this attempt's lease ran out.
+     */
+    private static final class LeaseLostException extends IOException {
+        private LeaseLostException() {
+            super("Transcode lease lost");
+        }
+    }
+}
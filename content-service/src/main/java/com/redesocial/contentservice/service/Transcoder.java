@@ -0,0 +1,38 @@
+package com.redesocial.contentservice.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Converts video files on local disk. {@link FfmpegTranscoder} shells out to
+ * FFmpeg; tests use an in-process fake.
+ */
+public interface Transcoder {
+    
+    /**
+     * Reads the dimensions and duration of a video as it will be displayed,
+     * with any rotation metadata already applied.
+     */
+    VideoInfo probe(Path source) throws IOException;
+    
+    /**
+     * Writes an H.264/AAC MP4 of the source whose shorter side is
+     * {@code shortSide} pixels, keeping the aspect ratio.
+     */
+    void transcode(Path source, Path target, int shortSide) throws IOException;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    class VideoInfo {
+        private int width;
+        private int height;
+        private Double durationSeconds;
+    }
+}
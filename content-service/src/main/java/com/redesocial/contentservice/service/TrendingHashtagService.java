@@ -0,0 +1,458 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.dto.TrendingHashtag;
+import com.redesocial.contentservice.dto.TrendingHashtagsResponse;
+import com.redesocial.contentservice.util.CountMinSketch;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trending hashtags over the last hour, six hours and day.
+ *
+ * Hashtag usage is counted in fixed time buckets, each holding a count-min
+ * sketch for frequencies and a small heavy-hitter table naming the tags worth
+ * ranking. A window is the merge of its buckets: the candidates of every bucket
+ * are scored by summing their per-bucket estimates. Rankings are recomputed on
+ * a schedule and swapped in whole, so a read is a map lookup.
+ *
+ * Each replica only counts its own posts. Its buckets are snapshotted to a
+ * Redis hash on every refresh and the other replicas' snapshots are pulled and
+ * merged in; closed buckets never change, so each one is only fetched once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendingHashtagService {
+
+    static final String SNAPSHOT_KEY_PREFIX = "content:hashtags:trending:";
+    static final String INSTANCES_KEY = "content:hashtags:trending:instances";
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${content.hashtags.trending.bucket-seconds:300}")
+    private long bucketSeconds = 300;
+
+    @Value("${content.hashtags.trending.top-k:50}")
+    private int topK = 50;
+
+    @Value("${content.hashtags.trending.sketch-width:2048}")
+    private int sketchWidth = 2048;
+
+    @Value("${content.hashtags.trending.sketch-depth:4}")
+    private int sketchDepth = 4;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // Guarded by itself; only the current bucket is still written to
+    private final Map<Long, Bucket> localBuckets = new HashMap<>();
+    private final Set<Long> expiredLocalBuckets = new HashSet<>();
+
+    // Only touched by the refresh, which never runs concurrently with itself
+    private final Map<String, Map<Long, Bucket>> remoteBuckets = new HashMap<>();
+
+    private volatile Map<Window, TrendingHashtagsResponse> rankings = Collections.emptyMap();
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gaugeMapSize("content.hashtags.trending.remote.replicas", List.of(), remoteBuckets);
+    }
+
+    /**
+     * Counts the hashtags of a new post once the surrounding transaction commits.
+     */
+    public void record(List<String> hashtags) {
+        if (hashtags == null || hashtags.isEmpty()) {
+            return;
+        }
+        runAfterCommit(() -> recordNow(hashtags, System.currentTimeMillis()));
+    }
+
+    void recordNow(List<String> hashtags, long nowMillis) {
+        long index = bucketIndex(nowMillis);
+        Bucket bucket;
+        synchronized (localBuckets) {
+            bucket = localBuckets.computeIfAbsent(index, this::newBucket);
+        }
+        for (String hashtag : hashtags) {
+            bucket.add(hashtag);
+        }
+        meterRegistry.counter("content.hashtags.trending.recorded").increment(hashtags.size());
+    }
+
+    /**
+     * Returns the latest ranking for a window ("1h", "6h" or "24h").
+     */
+    public TrendingHashtagsResponse getTrending(String window, int limit) {
+        Window resolved = Window.fromLabel(window);
+        int size = Math.max(1, Math.min(limit, topK));
+
+        TrendingHashtagsResponse ranking = rankings.get(resolved);
+        if (ranking == null) {
+            return TrendingHashtagsResponse.builder()
+                    .window(resolved.getLabel())
+                    .hashtags(List.of())
+                    .build();
+        }
+        List<TrendingHashtag> hashtags = ranking.getHashtags();
+        return TrendingHashtagsResponse.builder()
+                .window(ranking.getWindow())
+                .hashtags(hashtags.size() > size ? hashtags.subList(0, size) : hashtags)
+                .computedAt(ranking.getComputedAt())
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${content.hashtags.trending.refresh-interval-ms:15000}")
+    public void refresh() {
+        refresh(System.currentTimeMillis());
+    }
+
+    void refresh(long nowMillis) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long current = bucketIndex(nowMillis);
+        long oldest = current - Window.DAY.buckets(bucketSeconds) + 1;
+
+        List<Bucket> local = trimLocal(oldest);
+        publishSnapshot(local, nowMillis);
+        List<Bucket> buckets = new ArrayList<>(local);
+        buckets.addAll(pullSnapshots(current, oldest, nowMillis));
+        rankings = rank(buckets, current);
+
+        sample.stop(meterRegistry.timer("content.hashtags.trending.refresh"));
+    }
+
+    private List<Bucket> trimLocal(long oldest) {
+        synchronized (localBuckets) {
+            Iterator<Long> indexes = localBuckets.keySet().iterator();
+            while (indexes.hasNext()) {
+                Long index = indexes.next();
+                if (index < oldest) {
+                    indexes.remove();
+                    expiredLocalBuckets.add(index);
+                }
+            }
+            return new ArrayList<>(localBuckets.values());
+        }
+    }
+
+    /**
+     * Writes every local bucket that changed since the last snapshot and
+     * advertises this replica in the instance registry.
+     */
+    private void publishSnapshot(List<Bucket> local, long nowMillis) {
+        Map<String, String> fields = new HashMap<>();
+        List<Bucket> written = new ArrayList<>();
+        for (Bucket bucket : local) {
+            byte[] bytes = bucket.snapshotIfChanged();
+            if (bytes != null) {
+                fields.put(Long.toString(bucket.index), Base64.getEncoder().encodeToString(bytes));
+                written.add(bucket);
+            }
+        }
+        List<Long> expired;
+        synchronized (localBuckets) {
+            expired = new ArrayList<>(expiredLocalBuckets);
+            expiredLocalBuckets.clear();
+        }
+
+        long dayMillis = TimeUnit.SECONDS.toMillis(Window.DAY.buckets(bucketSeconds) * bucketSeconds);
+        String key = SNAPSHOT_KEY_PREFIX + instanceId;
+        try {
+            if (!fields.isEmpty()) {
+                redisTemplate.opsForHash().putAll(key, fields);
+            }
+            if (!expired.isEmpty()) {
+                redisTemplate.opsForHash().delete(key, expired.stream().map(String::valueOf).toArray());
+            }
+            // A replica that stopped still contributes its buckets until they age out
+            redisTemplate.expire(key, Duration.ofMillis(dayMillis + TimeUnit.SECONDS.toMillis(bucketSeconds)));
+            redisTemplate.opsForZSet().add(INSTANCES_KEY, instanceId, nowMillis);
+            redisTemplate.opsForZSet().removeRangeByScore(INSTANCES_KEY, Double.NEGATIVE_INFINITY, nowMillis - dayMillis);
+        } catch (Exception e) {
+            // Retry everything on the next refresh
+            written.forEach(Bucket::markUnpublished);
+            synchronized (localBuckets) {
+                expiredLocalBuckets.addAll(expired);
+            }
+            meterRegistry.counter("content.hashtags.trending.snapshot.failures").increment();
+            log.warn("Failed to publish trending hashtag snapshot", e);
+        }
+    }
+
+    /**
+     * Refreshes the cached buckets of the other replicas. Buckets that closed
+     * more than one bucket ago are final and are not fetched again.
+     */
+    private List<Bucket> pullSnapshots(long current, long oldest, long nowMillis) {
+        List<Bucket> buckets = new ArrayList<>();
+        try {
+            long dayMillis = TimeUnit.SECONDS.toMillis(Window.DAY.buckets(bucketSeconds) * bucketSeconds);
+            Set<String> instances = redisTemplate.opsForZSet()
+                    .rangeByScore(INSTANCES_KEY, nowMillis - dayMillis, Double.POSITIVE_INFINITY);
+            Set<String> others = instances != null ? new HashSet<>(instances) : new HashSet<>();
+            others.remove(instanceId);
+            remoteBuckets.keySet().retainAll(others);
+
+            for (String instance : others) {
+                Map<Long, Bucket> cached = remoteBuckets.computeIfAbsent(instance, ignored -> new HashMap<>());
+                cached.keySet().removeIf(index -> index < oldest);
+
+                String key = SNAPSHOT_KEY_PREFIX + instance;
+                List<Object> wanted = new ArrayList<>();
+                for (Object field : redisTemplate.opsForHash().keys(key)) {
+                    long index = Long.parseLong((String) field);
+                    if (index >= oldest && index <= current && (index >= current - 1 || !cached.containsKey(index))) {
+                        wanted.add(field);
+                    }
+                }
+                if (!wanted.isEmpty()) {
+                    List<Object> values = redisTemplate.opsForHash().multiGet(key, wanted);
+                    for (int i = 0; i < wanted.size(); i++) {
+                        Object value = values.get(i);
+                        if (value != null) {
+                            long index = Long.parseLong((String) wanted.get(i));
+                            cached.put(index, Bucket.fromBytes(index, Base64.getDecoder().decode((String) value), topK * 2));
+                        }
+                    }
+                }
+                buckets.addAll(cached.values());
+            }
+        } catch (Exception e) {
+            // Rank with what is cached; the next refresh catches up
+            meterRegistry.counter("content.hashtags.trending.pull.failures").increment();
+            log.warn("Failed to pull trending hashtag snapshots", e);
+            for (Map<Long, Bucket> cached : remoteBuckets.values()) {
+                buckets.addAll(cached.values());
+            }
+        }
+        return buckets;
+    }
+
+    private Map<Window, TrendingHashtagsResponse> rank(List<Bucket> buckets, long current) {
+        Set<String> candidates = new HashSet<>();
+        for (Bucket bucket : buckets) {
+            bucket.collectCandidates(candidates);
+        }
+
+        Window[] windows = Window.values();
+        Map<Window, List<TrendingHashtag>> scored = new EnumMap<>(Window.class);
+        for (Window window : windows) {
+            scored.put(window, new ArrayList<>(candidates.size()));
+        }
+
+        long[] counts = new long[windows.length];
+        for (String candidate : candidates) {
+            for (int w = 0; w < windows.length; w++) {
+                counts[w] = 0;
+            }
+            for (Bucket bucket : buckets) {
+                long estimate = bucket.estimate(candidate);
+                if (estimate == 0) {
+                    continue;
+                }
+                long age = current - bucket.index;
+                for (int w = 0; w < windows.length; w++) {
+                    if (age < windows[w].buckets(bucketSeconds)) {
+                        counts[w] += estimate;
+                    }
+                }
+            }
+            for (int w = 0; w < windows.length; w++) {
+                if (counts[w] > 0) {
+                    scored.get(windows[w]).add(new TrendingHashtag(candidate, counts[w]));
+                }
+            }
+        }
+
+        LocalDateTime computedAt = LocalDateTime.now();
+        Map<Window, TrendingHashtagsResponse> ranked = new EnumMap<>(Window.class);
+        for (Window window : windows) {
+            List<TrendingHashtag> hashtags = scored.get(window);
+            hashtags.sort((a, b) -> a.getCount().equals(b.getCount())
+                    ? a.getHashtag().compareTo(b.getHashtag())
+                    : Long.compare(b.getCount(), a.getCount()));
+            ranked.put(window, TrendingHashtagsResponse.builder()
+                    .window(window.getLabel())
+                    .hashtags(Collections.unmodifiableList(
+                            new ArrayList<>(hashtags.subList(0, Math.min(topK, hashtags.size())))))
+                    .computedAt(computedAt)
+                    .build());
+        }
+        return ranked;
+    }
+
+    private long bucketIndex(long epochMillis) {
+        return epochMillis / TimeUnit.SECONDS.toMillis(bucketSeconds);
+    }
+
+    private Bucket newBucket(long index) {
+        // Track more candidates than are served so a tag climbing late in the window is not missed
+        return new Bucket(index, new CountMinSketch(sketchWidth, sketchDepth), topK * 2);
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public enum Window {
+        HOUR("1h", Duration.ofHours(1)),
+        SIX_HOURS("6h", Duration.ofHours(6)),
+        DAY("24h", Duration.ofHours(24));
+
+        private final String label;
+        private final Duration length;
+
+        Window(String label, Duration length) {
+            this.label = label;
+            this.length = length;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        long buckets(long bucketSeconds) {
+            return (length.getSeconds() + bucketSeconds - 1) / bucketSeconds;
+        }
+
+        static Window fromLabel(String label) {
+            for (Window window : values()) {
+                if (window.label.equalsIgnoreCase(label)) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported trending window: " + label + " (expected 1h, 6h or 24h)");
+        }
+    }
+
+    /**
+     * One time bucket: a frequency sketch plus the heavy hitters seen in it.
+     * The heavy-hitter table keeps the {@code capacity} tags with the highest
+     * estimates, replacing the weakest one when a stronger tag arrives.
+     */
+    static final class Bucket {
+        private final long index;
+        private final CountMinSketch sketch;
+        private final int capacity;
+        private final Map<String, Long> heavyHitters = new HashMap<>();
+        private long version;
+        private long snapshotVersion;
+
+        private Bucket(long index, CountMinSketch sketch, int capacity) {
+            this.index = index;
+            this.sketch = sketch;
+            this.capacity = capacity;
+        }
+
+        synchronized void add(String hashtag) {
+            sketch.add(hashtag, 1);
+            long estimate = sketch.estimate(hashtag);
+            version++;
+            if (heavyHitters.containsKey(hashtag) || heavyHitters.size() < capacity) {
+                heavyHitters.put(hashtag, estimate);
+                return;
+            }
+            String weakest = null;
+            long weakestCount = Long.MAX_VALUE;
+            for (Map.Entry<String, Long> entry : heavyHitters.entrySet()) {
+                if (entry.getValue() < weakestCount) {
+                    weakest = entry.getKey();
+                    weakestCount = entry.getValue();
+                }
+            }
+            if (estimate > weakestCount) {
+                heavyHitters.remove(weakest);
+                heavyHitters.put(hashtag, estimate);
+            }
+        }
+
+        synchronized long estimate(String hashtag) {
+            return sketch.estimate(hashtag);
+        }
+
+        synchronized void collectCandidates(Set<String> candidates) {
+            candidates.addAll(heavyHitters.keySet());
+        }
+
+        /**
+         * Serializes the bucket if it changed since the previous call.
+         */
+        synchronized byte[] snapshotIfChanged() {
+            if (version == snapshotVersion) {
+                return null;
+            }
+            snapshotVersion = version;
+
+            byte[] sketchBytes = sketch.toBytes();
+            List<byte[]> tags = new ArrayList<>(heavyHitters.size());
+            List<Long> counts = new ArrayList<>(heavyHitters.size());
+            int size = 4 + sketchBytes.length + 4;
+            for (Map.Entry<String, Long> entry : heavyHitters.entrySet()) {
+                byte[] tag = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                tags.add(tag);
+                counts.add(entry.getValue());
+                size += 4 + tag.length + 8;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.putInt(sketchBytes.length).put(sketchBytes).putInt(tags.size());
+            for (int i = 0; i < tags.size(); i++) {
+                buffer.putInt(tags.get(i).length).put(tags.get(i)).putLong(counts.get(i));
+            }
+            return buffer.array();
+        }
+
+        synchronized void markUnpublished() {
+            snapshotVersion = -1;
+        }
+
+        static Bucket fromBytes(long index, byte[] bytes, int capacity) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            byte[] sketchBytes = new byte[buffer.getInt()];
+            buffer.get(sketchBytes);
+            Bucket bucket = new Bucket(index, CountMinSketch.fromBytes(sketchBytes), capacity);
+            int tags = buffer.getInt();
+            for (int i = 0; i < tags; i++) {
+                byte[] tag = new byte[buffer.getInt()];
+                buffer.get(tag);
+                bucket.heavyHitters.put(new String(tag, StandardCharsets.UTF_8), buffer.getLong());
+            }
+            return bucket;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.redesocial.contentservice.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal Bloom filter over strings. Answers "definitely absent" or "maybe present"
+ * using a fixed bit array sized for an expected number of insertions.
+ * Not thread-safe; callers synchronize access.
+ */
+public class BloomFilter {
+    
+    private final long[] bits;
+    private final int numBits;
+    private final int numHashes;
+    private final int capacity;
+    private int insertions;
+    
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        this.capacity = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+        this.bits = new long[(numBits + 63) / 64];
+    }
+    
+    public void put(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            int combined = h1 + i * h2;
+            int index = (combined & Integer.MAX_VALUE) % numBits;
+            bits[index >>> 6] |= 1L << index;
+        }
+        insertions++;
+    }
+    
+    public boolean mightContain(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            int combined = h1 + i * h2;
+            int index = (combined & Integer.MAX_VALUE) % numBits;
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public int getInsertions() {
+        return insertions;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * True once more values were inserted than the filter was sized for,
+     * after which the false positive rate degrades quickly.
+     */
+    public boolean isSaturated() {
+        return insertions > capacity;
+    }
+    
+    // FNV-1a over the UTF-8 bytes followed by a murmur3 finalizer
+    static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,142 @@
+package com.redesocial.contentservice.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Count-min sketch over strings: a fixed {@code depth x width} grid of counters
+ * that estimates how often a value was added, never under-counting and
+ * over-counting by at most {@code total * e / width} with high probability.
+ * Uses conservative update, which only raises the counters that hold the
+ * current minimum and keeps estimates for rare values much tighter on skewed
+ * streams such as hashtags. Not thread-safe; callers synchronize access.
+ */
+public class CountMinSketch {
+
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+
+    private final int width;
+    private final int depth;
+    private final int[] counts;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Sketch width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new int[width * depth];
+    }
+
+    public void add(String value, int count) {
+        long hash = BloomFilter.hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[cell(row, h1, h2)]);
+        }
+        int target = (int) Math.min((long) min + count, Integer.MAX_VALUE);
+        for (int row = 0; row < depth; row++) {
+            int cell = cell(row, h1, h2);
+            if (counts[cell] < target) {
+                counts[cell] = target;
+            }
+        }
+        total += count;
+    }
+
+    public long estimate(String value) {
+        long hash = BloomFilter.hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[cell(row, h1, h2)]);
+        }
+        return min;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Adds another sketch of the same shape into this one, as if every value
+     * added to {@code other} had been added here.
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge sketches of different shapes");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = (int) Math.min((long) counts[i] + other.counts[i], Integer.MAX_VALUE);
+        }
+        total += other.total;
+    }
+
+    /**
+     * Serializes the sketch. Mostly-empty sketches, the common case for a short
+     * time bucket, are written as (index, count) pairs instead of the full grid.
+     */
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (int count : counts) {
+            if (count != 0) {
+                nonZero++;
+            }
+        }
+
+        boolean sparse = nonZero * 2 < counts.length;
+        int size = 1 + 4 + 4 + 8 + (sparse ? 4 + nonZero * 8 : counts.length * 4);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(sparse ? SPARSE : DENSE).putInt(width).putInt(depth).putLong(total);
+        if (sparse) {
+            buffer.putInt(nonZero);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    buffer.putInt(i).putInt(counts[i]);
+                }
+            }
+        } else {
+            for (int count : counts) {
+                buffer.putInt(count);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static CountMinSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte format = buffer.get();
+        CountMinSketch sketch = new CountMinSketch(buffer.getInt(), buffer.getInt());
+        sketch.total = buffer.getLong();
+        if (format == SPARSE) {
+            int nonZero = buffer.getInt();
+            for (int i = 0; i < nonZero; i++) {
+                sketch.counts[buffer.getInt()] = buffer.getInt();
+            }
+        } else {
+            for (int i = 0; i < sketch.counts.length; i++) {
+                sketch.counts[i] = buffer.getInt();
+            }
+        }
+        return sketch;
+    }
+
+    private int cell(int row, int h1, int h2) {
+        int combined = h1 + (row + 1) * h2;
+        return row * width + (combined & Integer.MAX_VALUE) % width;
+    }
+}
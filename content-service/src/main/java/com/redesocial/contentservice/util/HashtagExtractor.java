@@ -1,29 +1,223 @@
 package com.redesocial.contentservice.util;
 
+import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+/**
+ * Extracts #hashtags and @mentions from post text in a single pass.
+ *
+ * A token starts with '#' or '@' (or their full-width forms) that is not glued
+ * to a preceding letter or digit, so e-mail addresses and "C#" are ignored. It
+ * continues over Unicode letters, digits, combining marks and '_', which keeps
+ * tags such as #ação intact and stops cleanly at emoji and punctuation. Tokens
+ * are lower-cased, NFC-normalized and de-duplicated in first-seen order; only
+ * one String is allocated per distinct token.
+ */
 public class HashtagExtractor {
     
-    private static final Pattern HASHTAG_PATTERN = Pattern.compile("#(\\w+)");
+    private HashtagExtractor() {
+    }
     
     public static List<String> extractHashtags(String content) {
+        return scan(content, true, false).getHashtags();
+    }
+    
+    public static List<String> extractMentions(String content) {
+        return scan(content, false, true).getMentions();
+    }
+    
+    /**
+     * Extracts hashtags and mentions together in one scan of the content.
+     */
+    public static Tokens extract(String content) {
+        return scan(content, true, true);
+    }
+    
+    /**
+     * Normalizes a single hashtag given by a client, with or without its '#',
+     * to the form stored on posts. Returns {@code null} if it is not a valid tag.
+     */
+    public static String normalizeHashtag(String tag) {
+        if (tag == null) {
+            return null;
+        }
+        String body = tag.startsWith("#") || tag.startsWith("＃") ? tag.substring(1) : tag;
+        if (body.isEmpty()) {
+            return null;
+        }
+        
+        StringBuilder token = new StringBuilder(body.length());
+        boolean hasMark = false;
+        int i = 0;
+        while (i < body.length()) {
+            int c = body.codePointAt(i);
+            if (!isTokenPart(c, token.length() > 0)) {
+                return null;
+            }
+            hasMark |= isMark(c);
+            token.appendCodePoint(Character.toLowerCase(c));
+            i += Character.charCount(c);
+        }
+        return hasMark ? Normalizer.normalize(token, Normalizer.Form.NFC) : token.toString();
+    }
+    
+    private static Tokens scan(String content, boolean wantHashtags, boolean wantMentions) {
+        TokenSet hashtags = new TokenSet();
+        TokenSet mentions = new TokenSet();
         if (content == null || content.isEmpty()) {
-            return new ArrayList<>();
+            return new Tokens(hashtags.values, mentions.values);
+        }
+        
+        StringBuilder token = new StringBuilder(32);
+        int length = content.length();
+        int previous = -1;
+        int i = 0;
+        while (i < length) {
+            int codePoint = content.codePointAt(i);
+            int next = i + Character.charCount(codePoint);
+            
+            boolean hashtag = codePoint == '#' || codePoint == '＃';
+            boolean mention = codePoint == '@' || codePoint == '＠';
+            if ((hashtag && wantHashtags || mention && wantMentions) && !isTokenStart(previous)) {
+                token.setLength(0);
+                int hash = 0;
+                boolean hasMark = false;
+                int j = next;
+                while (j < length) {
+                    int c = content.codePointAt(j);
+                    if (!isTokenPart(c, token.length() > 0)) {
+                        break;
+                    }
+                    hasMark |= isMark(c);
+                    int lower = Character.toLowerCase(c);
+                    token.appendCodePoint(lower);
+                    // Same hash as String.hashCode(), computed while appending
+                    if (Character.isBmpCodePoint(lower)) {
+                        hash = 31 * hash + lower;
+                    } else {
+                        hash = 31 * (31 * hash + Character.highSurrogate(lower)) + Character.lowSurrogate(lower);
+                    }
+                    j += Character.charCount(c);
+                }
+                
+                if (token.length() > 0) {
+                    TokenSet target = hashtag ? hashtags : mentions;
+                    if (hasMark) {
+                        // Decomposed accents ("a" + U+0301) must match their precomposed form
+                        target.add(Normalizer.normalize(token, Normalizer.Form.NFC));
+                    } else {
+                        target.add(token, hash);
+                    }
+                    previous = content.codePointBefore(j);
+                    i = j;
+                    continue;
+                }
+            }
+            
+            previous = codePoint;
+            i = next;
+        }
+        
+        return new Tokens(hashtags.values, mentions.values);
+    }
+    
+    private static boolean isTokenStart(int previous) {
+        return previous != -1 && (Character.isLetterOrDigit(previous) || previous == '_');
+    }
+    
+    private static boolean isTokenPart(int codePoint, boolean afterBase) {
+        if (Character.isLetterOrDigit(codePoint) || codePoint == '_') {
+            return true;
         }
+        // Marks only extend a token that already has a base character; variation
+        // selectors are marks too, but belong to the emoji that follows
+        return afterBase && isMark(codePoint) && !isVariationSelector(codePoint);
+    }
+    
+    private static boolean isMark(int codePoint) {
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK
+                || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK;
+    }
+    
+    private static boolean isVariationSelector(int codePoint) {
+        return (codePoint >= 0xFE00 && codePoint <= 0xFE0F) || (codePoint >= 0xE0100 && codePoint <= 0xE01EF);
+    }
+    
+    /**
+     * Hashtags and mentions found in a piece of text, in order of first appearance.
+     */
+    public static final class Tokens {
         
-        List<String> hashtags = new ArrayList<>();
-        Matcher matcher = HASHTAG_PATTERN.matcher(content);
+        private final List<String> hashtags;
+        private final List<String> mentions;
         
-        while (matcher.find()) {
-            String hashtag = matcher.group(1).toLowerCase();
-            if (!hashtags.contains(hashtag)) {
-                hashtags.add(hashtag);
+        private Tokens(List<String> hashtags, List<String> mentions) {
+            this.hashtags = hashtags;
+            this.mentions = mentions;
+        }
+        
+        public List<String> getHashtags() {
+            return hashtags;
+        }
+        
+        public List<String> getMentions() {
+            return mentions;
+        }
+    }
+    
+    /**
+     * Insertion-ordered set that can test a StringBuilder for membership without
+     * turning it into a String first, so repeated tokens allocate nothing.
+     */
+    private static final class TokenSet {
+        
+        private final List<String> values = new ArrayList<>();
+        private int[] slots = new int[16];
+        
+        void add(CharSequence token) {
+            int hash = 0;
+            for (int k = 0; k < token.length(); k++) {
+                hash = 31 * hash + token.charAt(k);
             }
+            add(token, hash);
         }
         
-        return hashtags;
+        void add(CharSequence token, int hash) {
+            int mask = slots.length - 1;
+            int slot = spread(hash) & mask;
+            while (slots[slot] != 0) {
+                if (values.get(slots[slot] - 1).contentEquals(token)) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            values.add(token.toString());
+            slots[slot] = values.size();
+            if (values.size() * 2 > slots.length) {
+                rehash();
+            }
+        }
+        
+        private void rehash() {
+            int[] old = slots;
+            slots = new int[old.length * 2];
+            int mask = slots.length - 1;
+            for (int index : old) {
+                if (index != 0) {
+                    int slot = spread(values.get(index - 1).hashCode()) & mask;
+                    while (slots[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    slots[slot] = index;
+                }
+            }
+        }
+        
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
     }
 }
@@ -0,0 +1,16 @@
+-- Failed sends are retried with a backoff, and a row that keeps failing is
+-- parked as dead-lettered so it stops holding back its post's later events
+ALTER TABLE outbox_events ADD COLUMN attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE outbox_events ADD COLUMN next_attempt_at TIMESTAMP;
+ALTER TABLE outbox_events ADD COLUMN last_error VARCHAR(500);
+ALTER TABLE outbox_events ADD COLUMN dead_lettered_at TIMESTAMP;
+
+-- The relay only scans rows that are neither published nor parked
+DROP INDEX idx_outbox_events_unpublished;
+CREATE INDEX idx_outbox_events_unpublished ON outbox_events(id)
+    WHERE published_at IS NULL AND dead_lettered_at IS NULL;
+DROP INDEX idx_outbox_events_unpublished_key;
+CREATE INDEX idx_outbox_events_unpublished_key ON outbox_events(event_key, id)
+    WHERE published_at IS NULL AND dead_lettered_at IS NULL;
+CREATE INDEX idx_outbox_events_dead_lettered_at ON outbox_events(dead_lettered_at)
+    WHERE dead_lettered_at IS NOT NULL;
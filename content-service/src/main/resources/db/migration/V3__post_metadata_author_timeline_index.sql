@@ -0,0 +1,8 @@
+-- Author timelines only read live posts, newest first, with id as the tie-breaker
+-- for keyset pagination
+CREATE INDEX idx_post_metadata_user_created_live
+    ON post_metadata(user_id, created_at DESC, id DESC)
+    WHERE is_deleted = FALSE;
+
+-- Almost every row is not deleted, so a plain boolean index is never selective
+DROP INDEX IF EXISTS idx_post_metadata_is_deleted;
@@ -0,0 +1,10 @@
+-- Content-addressed index of stored media originals: uploads whose SHA-256 is
+-- already here reuse the stored object instead of writing a new one
+CREATE TABLE media_objects (
+    digest CHAR(64) PRIMARY KEY,
+    object_key VARCHAR(512) NOT NULL,
+    content_type VARCHAR(100) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    processed_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,18 @@
+-- Durable queue of video transcodes. Workers on any replica claim rows with
+-- SKIP LOCKED and hold them under a lease, so a crashed worker's job is
+-- picked up again once its lease runs out
+CREATE TABLE transcode_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    source_key VARCHAR(512) NOT NULL UNIQUE,
+    digest CHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    lease_until TIMESTAMP,
+    renditions TEXT,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Pollers only ever scan jobs that can still run, oldest first
+CREATE INDEX idx_transcode_jobs_runnable ON transcode_jobs(id) WHERE status IN ('PENDING', 'RUNNING');
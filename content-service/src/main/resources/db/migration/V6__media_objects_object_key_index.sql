@@ -0,0 +1,2 @@
+-- Lets reapers forget an original by its S3 key once the object is deleted
+CREATE INDEX idx_media_objects_object_key ON media_objects (object_key);
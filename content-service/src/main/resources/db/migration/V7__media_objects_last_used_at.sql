@@ -0,0 +1,3 @@
+-- Set when a duplicate upload reuses an original, so the orphan sweep leaves
+-- it alone until the post that will reference it has had time to be created
+ALTER TABLE media_objects ADD COLUMN last_used_at TIMESTAMP;
@@ -0,0 +1,12 @@
+-- The purge worker hard-deletes posts once they have been soft-deleted longer
+-- than the retention window; rows deleted before this column existed start the
+-- clock at their last update
+ALTER TABLE post_metadata ADD COLUMN deleted_at TIMESTAMP;
+UPDATE post_metadata SET deleted_at = updated_at WHERE is_deleted = TRUE;
+
+CREATE INDEX idx_post_metadata_deleted_at
+    ON post_metadata(deleted_at, id)
+    WHERE is_deleted = TRUE;
+
+-- A purged post's shares are removed by either side of the link
+CREATE INDEX idx_shares_shared_post_id ON shares(shared_post_id);
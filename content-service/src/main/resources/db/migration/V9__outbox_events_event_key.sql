@@ -0,0 +1,6 @@
+-- Events are published keyed by their post, so that a post's events share a
+-- partition and keep their order
+ALTER TABLE outbox_events ADD COLUMN event_key VARCHAR(64);
+
+-- The relay looks up a key's oldest unpublished event before sending its newer ones
+CREATE INDEX idx_outbox_events_unpublished_key ON outbox_events(event_key, id) WHERE published_at IS NULL;
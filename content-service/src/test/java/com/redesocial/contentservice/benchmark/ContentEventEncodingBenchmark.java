@@ -0,0 +1,124 @@
+package com.redesocial.contentservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.redesocial.contentservice.event.CommentCreatedEvent;
+import com.redesocial.contentservice.event.LikeCreatedEvent;
+import com.redesocial.contentservice.event.PostCreatedEvent;
+import com.redesocial.contentservice.event.codec.ContentEventCodec;
+import com.redesocial.contentservice.event.codec.EventSchemaRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary content event encoding with the JSON that Spring's
+ * JsonSerializer writes today, for encoding and decoding cost. Setup prints
+ * the record size of each, counting the {@code __TypeId__} header that every
+ * JSON record carries.
+ *
+ * Not part of the test suite; run it with:
+ * <pre>
+ * mvn test-compile exec:exec -Dbenchmark=ContentEventEncodingBenchmark
+ * </pre>
+ * and pass {@code -Dbenchmark="ContentEventEncodingBenchmark -prof gc"} to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentEventEncodingBenchmark {
+
+    private static final String TYPE_ID_HEADER = "__TypeId__";
+
+    @Param({"like.created", "comment.created", "post.created"})
+    private String eventType;
+
+    private ObjectMapper objectMapper;
+    private ContentEventCodec codec;
+    private Object event;
+    private Class<?> eventClass;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        codec = new ContentEventCodec(EventSchemaRegistry.load());
+        event = sampleEvent(eventType);
+        eventClass = event.getClass();
+        json = objectMapper.writeValueAsBytes(event);
+        binary = codec.encode(event);
+
+        int typeHeader = TYPE_ID_HEADER.length() + eventClass.getName().getBytes(StandardCharsets.UTF_8).length;
+        System.out.printf("%n%s: json %d bytes + %d bytes of type header, binary %d bytes (%.0f%% smaller)%n",
+                eventType, json.length, typeHeader, binary.length,
+                100.0 * (1 - (double) binary.length / (json.length + typeHeader)));
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws Exception {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return codec.encode(event);
+    }
+
+    @Benchmark
+    public Object jsonDecode() throws Exception {
+        return objectMapper.readValue(json, eventClass);
+    }
+
+    @Benchmark
+    public Object binaryDecode() {
+        return codec.decode(binary);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{ContentEventEncodingBenchmark.class.getSimpleName()});
+    }
+
+    private static Object sampleEvent(String eventType) {
+        LocalDateTime now = LocalDateTime.of(2024, 3, 9, 14, 30, 5, 123456000);
+        String postId = UUID.randomUUID().toString();
+        String authorId = UUID.randomUUID().toString();
+        switch (eventType) {
+            case "like.created":
+                return LikeCreatedEvent.builder().postId(postId).userId(UUID.randomUUID().toString())
+                        .postAuthorId(authorId).createdAt(now).build();
+            case "comment.created":
+                return CommentCreatedEvent.builder().commentId(UUID.randomUUID().toString()).postId(postId)
+                        .userId(UUID.randomUUID().toString()).postAuthorId(authorId)
+                        .content("Que foto incrível! Quando vocês voltarem pra praia me chamem 😍🏖️")
+                        .createdAt(now).build();
+            case "post.created":
+                return PostCreatedEvent.builder().postId(postId).userId(authorId)
+                        .content("Hoje fomos à praia com a galera e o pôr do sol estava incrível. "
+                                + "Obrigado pela força, pessoal! #verão #riodejaneiro #sextou @ana @pedro.santos")
+                        .hashtags(List.of("verão", "riodejaneiro", "sextou"))
+                        .mentions(List.of("ana", "pedro.santos"))
+                        .type("TEXT").createdAt(now).build();
+            default:
+                throw new IllegalArgumentException("Unknown event type " + eventType);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.redesocial.contentservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.redesocial.contentservice.event.CommentCreatedEvent;
+import com.redesocial.contentservice.event.ContentEvent;
+import com.redesocial.contentservice.event.LikeCreatedEvent;
+import com.redesocial.contentservice.event.ShareCreatedEvent;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures producer throughput against an embedded Kafka broker for the two
+ * keying schemes of the content events topic, and prints how records spread
+ * over the partitions.
+ *
+ * The workload mimics engagement traffic: 80% likes, 15% comments and 5%
+ * shares, spread over 10,000 posts with a Zipf-like skew, so a few viral posts
+ * get most of it. Keyed by event type, every like lands on one partition; keyed
+ * by post, only the hottest post's share of the traffic is pinned to a
+ * partition. The producer settings mirror the content service's throughput
+ * profile and can be varied with the linger and compression parameters.
+ *
+ * Not part of the test suite; run it with:
+ * <pre>
+ * mvn test-compile exec:exec -Dbenchmark=ContentEventPartitioningBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ContentEventPartitioningBenchmark {
+
+    private static final String TOPIC = "content.events.benchmark";
+    private static final int PARTITIONS = 6;
+    private static final int POSTS = 10_000;
+    private static final int RECORDS_PER_INVOCATION = 1000;
+
+    @Param({"eventType", "post"})
+    private String keying;
+
+    @Param({"0", "10"})
+    private int lingerMs;
+
+    @Param({"none", "lz4", "zstd"})
+    private String compression;
+
+    private EmbeddedKafkaKraftBroker broker;
+    private KafkaProducer<String, byte[]> producer;
+    private String[] keys;
+    private byte[][] payloads;
+    private AtomicLongArray partitionCounts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, TOPIC);
+        broker.afterPropertiesSet();
+
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, 65536);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        producer = new KafkaProducer<>(config, new StringSerializer(), new ByteArraySerializer());
+
+        buildWorkload(new Random(42), 1 << 16);
+        partitionCounts = new AtomicLongArray(PARTITIONS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public void send() {
+        for (int i = 0; i < RECORDS_PER_INVOCATION; i++) {
+            producer.send(new ProducerRecord<>(TOPIC, keys[next], payloads[next]), (metadata, exception) -> {
+                if (metadata != null) {
+                    partitionCounts.incrementAndGet(metadata.partition());
+                }
+            });
+            next = (next + 1) & (keys.length - 1);
+        }
+        producer.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        producer.close();
+        broker.destroy();
+
+        long[] counts = new long[PARTITIONS];
+        long total = 0;
+        long max = 0;
+        for (int i = 0; i < PARTITIONS; i++) {
+            counts[i] = partitionCounts.get(i);
+            total += counts[i];
+            max = Math.max(max, counts[i]);
+        }
+        double mean = (double) total / PARTITIONS;
+        System.out.printf("%nkeying=%s records per partition %s, hottest partition %.2fx the mean%n",
+                keying, Arrays.toString(counts), mean == 0 ? 0 : max / mean);
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{ContentEventPartitioningBenchmark.class.getSimpleName()});
+    }
+
+    private void buildWorkload(Random random, int size) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        String[] postIds = new String[POSTS];
+        double[] cumulative = new double[POSTS];
+        double sum = 0;
+        for (int i = 0; i < POSTS; i++) {
+            postIds[i] = UUID.randomUUID().toString();
+            sum += 1.0 / Math.pow(i + 1, 1.1);
+            cumulative[i] = sum;
+        }
+
+        keys = new String[size];
+        payloads = new byte[size][];
+        for (int i = 0; i < size; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            String postId = postIds[rank < 0 ? Math.min(-rank - 1, POSTS - 1) : rank];
+            String eventType;
+            ContentEvent event;
+            int pick = random.nextInt(100);
+            if (pick < 80) {
+                eventType = "like.created";
+                event = LikeCreatedEvent.builder().postId(postId).userId(UUID.randomUUID().toString())
+                        .postAuthorId("author").createdAt(LocalDateTime.now()).build();
+            } else if (pick < 95) {
+                eventType = "comment.created";
+                event = CommentCreatedEvent.builder().commentId(UUID.randomUUID().toString()).postId(postId)
+                        .userId(UUID.randomUUID().toString()).postAuthorId("author")
+                        .content("que foto incrível, parabéns!").createdAt(LocalDateTime.now()).build();
+            } else {
+                eventType = "share.created";
+                event = ShareCreatedEvent.builder().originalPostId(postId).sharedPostId(UUID.randomUUID().toString())
+                        .userId(UUID.randomUUID().toString()).originalAuthorId("author")
+                        .createdAt(LocalDateTime.now()).build();
+            }
+            keys[i] = "post".equals(keying) ? event.partitionKey() : eventType;
+            payloads[i] = objectMapper.writeValueAsBytes(event);
+        }
+    }
+}
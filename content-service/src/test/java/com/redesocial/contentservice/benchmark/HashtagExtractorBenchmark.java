@@ -0,0 +1,132 @@
+package com.redesocial.contentservice.benchmark;
+
+import com.redesocial.contentservice.util.HashtagExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link HashtagExtractor} with the regex extractor it replaced on
+ * realistic Portuguese posts mixing accented tags, mentions and emoji.
+ *
+ * Not part of the test suite; run it with:
+ * <pre>
+ * mvn test-compile exec:exec -Dbenchmark=HashtagExtractorBenchmark
+ * </pre>
+ * and pass {@code -Dbenchmark="HashtagExtractorBenchmark -prof gc"} to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashtagExtractorBenchmark {
+
+    private static final Pattern LEGACY_HASHTAG_PATTERN = Pattern.compile("#(\\w+)");
+
+    private static final String[] WORDS = {
+            "hoje", "fomos", "à", "praia", "com", "a", "galera", "e", "o", "pôr", "do", "sol", "estava",
+            "incrível", "não", "acredito", "quanta", "gente", "apareceu", "no", "show", "de", "ontem",
+            "🔥", "😍", "🎉", "🇧🇷", "muito", "obrigado", "pela", "força", "pessoal", "até", "amanhã"
+    };
+
+    private static final String[] TAGS = {
+            "#ação", "#verão", "#SãoPaulo", "#riodejaneiro", "#férias", "#música", "#café", "#futebol",
+            "#Brasil", "#emoção", "#tbt", "#sextou"
+    };
+
+    private static final String[] MENTIONS = {
+            "@joão", "@maria_silva", "@Ana", "@pedro.santos", "@lúcia"
+    };
+
+    @Param({"280", "5000"})
+    private int length;
+
+    private String[] posts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        posts = new String[64];
+        for (int i = 0; i < posts.length; i++) {
+            posts[i] = buildPost(random, length);
+        }
+    }
+
+    @Benchmark
+    public List<String> legacyRegex() {
+        return legacyExtract(nextPost());
+    }
+
+    @Benchmark
+    public List<String> tokenizerHashtags() {
+        return HashtagExtractor.extractHashtags(nextPost());
+    }
+
+    @Benchmark
+    public HashtagExtractor.Tokens tokenizerHashtagsAndMentions() {
+        return HashtagExtractor.extract(nextPost());
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{HashtagExtractorBenchmark.class.getSimpleName()});
+    }
+
+    private String nextPost() {
+        String post = posts[next];
+        next = (next + 1) & (posts.length - 1);
+        return post;
+    }
+
+    private static String buildPost(Random random, int length) {
+        StringBuilder post = new StringBuilder(length + 32);
+        while (post.length() < length) {
+            int pick = random.nextInt(10);
+            if (pick == 0) {
+                post.append(TAGS[random.nextInt(TAGS.length)]);
+            } else if (pick == 1) {
+                post.append(MENTIONS[random.nextInt(MENTIONS.length)]);
+            } else {
+                post.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            post.append(random.nextInt(8) == 0 ? ", " : " ");
+        }
+        return post.toString();
+    }
+
+    /**
+     * The extractor as it was before the tokenizer: regex match, then a linear
+     * List.contains scan per tag.
+     */
+    private static List<String> legacyExtract(String content) {
+        List<String> hashtags = new ArrayList<>();
+        if (content == null || content.isEmpty()) {
+            return hashtags;
+        }
+        Matcher matcher = LEGACY_HASHTAG_PATTERN.matcher(content);
+        while (matcher.find()) {
+            String hashtag = matcher.group(1).toLowerCase();
+            if (!hashtags.contains(hashtag)) {
+                hashtags.add(hashtag);
+            }
+        }
+        return hashtags;
+    }
+}
@@ -3,13 +3,12 @@ package com.redesocial.contentservice.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.redesocial.contentservice.dto.CommentResponse;
 import com.redesocial.contentservice.dto.CreateCommentRequest;
+import com.redesocial.contentservice.dto.CursorPage;
 import com.redesocial.contentservice.service.CommentService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -133,33 +132,55 @@ class CommentControllerTest {
                 .updatedAt(LocalDateTime.now())
                 .build();
         
-        Page<CommentResponse> page = new PageImpl<>(Arrays.asList(comment1, comment2));
+        CursorPage<CommentResponse> page = CursorPage.<CommentResponse>builder()
+                .content(Arrays.asList(comment1, comment2))
+                .nextCursor("next-cursor")
+                .hasMore(true)
+                .build();
         
-        when(commentService.getComments(eq("post-789"), anyInt(), anyInt()))
+        when(commentService.getComments(eq("post-789"), eq("cursor-1"), anyInt()))
                 .thenReturn(page);
         
         // When/Then
         mockMvc.perform(get("/api/posts/post-789/comments")
-                .param("page", "0")
+                .param("cursor", "cursor-1")
                 .param("size", "20"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content").isArray())
                 .andExpect(jsonPath("$.content.length()").value(2))
                 .andExpect(jsonPath("$.content[0].id").value("comment-1"))
-                .andExpect(jsonPath("$.content[1].id").value("comment-2"));
+                .andExpect(jsonPath("$.content[1].id").value("comment-2"))
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"))
+                .andExpect(jsonPath("$.hasMore").value(true));
     }
     
     @Test
     void getComments_WithDefaultPagination_ReturnsComments() throws Exception {
         // Given
-        Page<CommentResponse> page = new PageImpl<>(Arrays.asList());
+        CursorPage<CommentResponse> page = CursorPage.<CommentResponse>builder()
+                .content(Arrays.asList())
+                .hasMore(false)
+                .build();
         
-        when(commentService.getComments(eq("post-789"), eq(0), eq(20)))
+        when(commentService.getComments(eq("post-789"), isNull(), eq(20)))
                 .thenReturn(page);
         
         // When/Then
         mockMvc.perform(get("/api/posts/post-789/comments"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.content").isArray());
+                .andExpect(jsonPath("$.content").isArray())
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+    
+    @Test
+    void getComments_WithMalformedCursor_ReturnsBadRequest() throws Exception {
+        // Given
+        when(commentService.getComments(eq("post-789"), eq("bad"), anyInt()))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+        
+        // When/Then
+        mockMvc.perform(get("/api/posts/post-789/comments").param("cursor", "bad"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_REQUEST"));
     }
 }
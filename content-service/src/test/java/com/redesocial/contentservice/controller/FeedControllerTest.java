@@ -0,0 +1,43 @@
+package com.redesocial.contentservice.controller;
+
+import com.redesocial.contentservice.dto.CursorPage;
+import com.redesocial.contentservice.dto.PostResponse;
+import com.redesocial.contentservice.service.FeedService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(FeedController.class)
+class FeedControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @MockBean
+    private FeedService feedService;
+    
+    @Test
+    void getFeed_ReturnsPageForUser() throws Exception {
+        when(feedService.getFeed(eq("user123"), isNull(), eq(20))).thenReturn(CursorPage.<PostResponse>builder()
+                .content(List.of(PostResponse.builder().id("post1").build()))
+                .nextCursor("next")
+                .hasMore(true)
+                .build());
+        
+        mockMvc.perform(get("/api/feed").header("X-User-Id", "user123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value("post1"))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+}
@@ -0,0 +1,110 @@
+package com.redesocial.contentservice.controller;
+
+import com.redesocial.contentservice.dto.CursorPage;
+import com.redesocial.contentservice.dto.PostResponse;
+import com.redesocial.contentservice.dto.TrendingHashtag;
+import com.redesocial.contentservice.dto.TrendingHashtagsResponse;
+import com.redesocial.contentservice.service.PostService;
+import com.redesocial.contentservice.service.TrendingHashtagService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(HashtagController.class)
+class HashtagControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @MockBean
+    private TrendingHashtagService trendingHashtagService;
+    
+    @MockBean
+    private PostService postService;
+    
+    @Test
+    void getTrending_DefaultWindow_ReturnsRanking() throws Exception {
+        when(trendingHashtagService.getTrending("1h", 20)).thenReturn(TrendingHashtagsResponse.builder()
+                .window("1h")
+                .hashtags(List.of(new TrendingHashtag("java", 12L), new TrendingHashtag("spring", 5L)))
+                .build());
+        
+        mockMvc.perform(get("/api/hashtags/trending"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.window").value("1h"))
+                .andExpect(jsonPath("$.hashtags.length()").value(2))
+                .andExpect(jsonPath("$.hashtags[0].hashtag").value("java"))
+                .andExpect(jsonPath("$.hashtags[0].count").value(12));
+    }
+    
+    @Test
+    void getTrending_WithWindowAndLimit_PassesThemThrough() throws Exception {
+        when(trendingHashtagService.getTrending("24h", 5)).thenReturn(TrendingHashtagsResponse.builder()
+                .window("24h")
+                .hashtags(List.of())
+                .build());
+        
+        mockMvc.perform(get("/api/hashtags/trending").param("window", "24h").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.window").value("24h"));
+    }
+    
+    @Test
+    void getTrending_WithUnknownWindow_ReturnsBadRequest() throws Exception {
+        when(trendingHashtagService.getTrending("2d", 20))
+                .thenThrow(new IllegalArgumentException("Unsupported trending window: 2d"));
+        
+        mockMvc.perform(get("/api/hashtags/trending").param("window", "2d"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_REQUEST"));
+    }
+    
+    @Test
+    void getHashtagPosts_DefaultPage_ReturnsPostsAndCursor() throws Exception {
+        CursorPage<PostResponse> page = CursorPage.<PostResponse>builder()
+                .content(List.of(PostResponse.builder().id("post2").hashtags(List.of("java")).build()))
+                .nextCursor("next-cursor")
+                .hasMore(true)
+                .build();
+        when(postService.getHashtagPosts(eq("java"), isNull(), eq(20))).thenReturn(page);
+        
+        mockMvc.perform(get("/api/hashtags/java/posts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value("post2"))
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+    
+    @Test
+    void getHashtagPosts_WithCursor_PassesCursorThrough() throws Exception {
+        when(postService.getHashtagPosts("java", "abc", 10)).thenReturn(CursorPage.<PostResponse>builder()
+                .content(List.of())
+                .hasMore(false)
+                .build());
+        
+        mockMvc.perform(get("/api/hashtags/java/posts").param("cursor", "abc").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+    
+    @Test
+    void getHashtagPosts_WithInvalidTag_ReturnsBadRequest() throws Exception {
+        when(postService.getHashtagPosts(eq("bad tag"), isNull(), eq(20)))
+                .thenThrow(new IllegalArgumentException("Invalid hashtag: bad tag"));
+        
+        mockMvc.perform(get("/api/hashtags/{tag}/posts", "bad tag"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_REQUEST"));
+    }
+}
@@ -0,0 +1,134 @@
+package com.redesocial.contentservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redesocial.contentservice.dto.CreateUploadRequest;
+import com.redesocial.contentservice.dto.MediaJobResponse;
+import com.redesocial.contentservice.dto.PresignedUploadResponse;
+import com.redesocial.contentservice.exception.MediaJobNotFoundException;
+import com.redesocial.contentservice.exception.MediaUploadNotFoundException;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.service.MediaJobService;
+import com.redesocial.contentservice.service.MediaUploadService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(MediaController.class)
+class MediaControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @MockBean
+    private MediaJobService mediaJobService;
+    
+    @MockBean
+    private MediaUploadService mediaUploadService;
+    
+    @Test
+    void getJob_ExistingJob_ReturnsStatus() throws Exception {
+        when(mediaJobService.getJob("job-1")).thenReturn(MediaJobResponse.builder()
+                .jobId("job-1")
+                .type("thumbnail")
+                .status(MediaJobResponse.Status.COMPLETED)
+                .progress(100)
+                .result(Map.of("thumbnailUrl", "https://bucket.s3.amazonaws.com/media/thumbnails/u/t.jpg"))
+                .build());
+        
+        mockMvc.perform(get("/api/media/jobs/{jobId}", "job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.progress").value(100))
+                .andExpect(jsonPath("$.result.thumbnailUrl").exists());
+    }
+    
+    @Test
+    void getJob_UnknownJob_ReturnsNotFound() throws Exception {
+        when(mediaJobService.getJob("missing")).thenThrow(new MediaJobNotFoundException("missing"));
+        
+        mockMvc.perform(get("/api/media/jobs/{jobId}", "missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code").value("MEDIA_JOB_NOT_FOUND"));
+    }
+    
+    @Test
+    void createUpload_ValidRequest_ReturnsSignedUrl() throws Exception {
+        CreateUploadRequest request = CreateUploadRequest.builder()
+                .userId("user1")
+                .contentType("video/mp4")
+                .sizeBytes(50L * 1024 * 1024)
+                .sha256("ab".repeat(32))
+                .build();
+        when(mediaUploadService.createUpload(any(CreateUploadRequest.class))).thenReturn(PresignedUploadResponse.builder()
+                .uploadId("upload-1")
+                .method("PUT")
+                .uploadUrl("https://bucket.s3.amazonaws.com/media/videos/user1/upload-1?X-Amz-Signature=abc")
+                .headers(Map.of("content-type", "video/mp4"))
+                .build());
+        
+        mockMvc.perform(post("/api/media/uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.uploadId").value("upload-1"))
+                .andExpect(jsonPath("$.method").value("PUT"))
+                .andExpect(jsonPath("$.headers.content-type").value("video/mp4"));
+    }
+    
+    @Test
+    void createUpload_MalformedChecksum_ReturnsBadRequest() throws Exception {
+        CreateUploadRequest request = CreateUploadRequest.builder()
+                .userId("user1")
+                .contentType("image/png")
+                .sizeBytes(1024L)
+                .sha256("not-a-digest")
+                .build();
+        
+        mockMvc.perform(post("/api/media/uploads")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("VALIDATION_ERROR"));
+        verify(mediaUploadService, never()).createUpload(any());
+    }
+    
+    @Test
+    void confirmUpload_Verified_ReturnsMedia() throws Exception {
+        when(mediaUploadService.confirmUpload("upload-1", "user1")).thenReturn(Post.MediaUrl.builder()
+                .url("https://bucket.s3.amazonaws.com/media/images/user1/upload-1")
+                .type(Post.MediaType.IMAGE)
+                .jobId("job-1")
+                .build());
+        
+        mockMvc.perform(post("/api/media/uploads/{uploadId}/confirm", "upload-1").param("userId", "user1"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.type").value("IMAGE"))
+                .andExpect(jsonPath("$.jobId").value("job-1"));
+    }
+    
+    @Test
+    void confirmUpload_Expired_ReturnsNotFound() throws Exception {
+        when(mediaUploadService.confirmUpload("gone", "user1")).thenThrow(new MediaUploadNotFoundException("gone"));
+        
+        mockMvc.perform(post("/api/media/uploads/{uploadId}/confirm", "gone").param("userId", "user1"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code").value("MEDIA_UPLOAD_NOT_FOUND"));
+    }
+}
@@ -1,6 +1,8 @@
 package com.redesocial.contentservice.controller;
 
+import com.redesocial.contentservice.dto.BatchLikeResponse;
 import com.redesocial.contentservice.dto.PostResponse;
+import com.redesocial.contentservice.exception.MediaQueueFullException;
 import com.redesocial.contentservice.exception.PostNotFoundException;
 import com.redesocial.contentservice.exception.UnauthorizedAccessException;
 import com.redesocial.contentservice.service.*;
@@ -8,18 +10,22 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -49,7 +55,7 @@ class PostControllerTest {
     private ShareService shareService;
     
     @Test
-    void uploadImage_ValidImage_ReturnsCreated() throws Exception {
+    void uploadImage_ValidImage_ReturnsAccepted() throws Exception {
         MockMultipartFile file = new MockMultipartFile(
                 "file",
                 "test.png",
@@ -60,15 +66,37 @@ class PostControllerTest {
         Map<String, String> result = new HashMap<>();
         result.put("imageUrl", "https://bucket.s3.amazonaws.com/images/user123/image.png");
         result.put("thumbnailUrl", "https://bucket.s3.amazonaws.com/thumbnails/user123/thumb.jpg");
+        result.put("jobId", "job-1");
+        result.put("status", "QUEUED");
         
         when(mediaService.uploadImageWithThumbnail(any(), eq("user123"))).thenReturn(result);
         
         mockMvc.perform(multipart("/api/posts/media/image")
                         .file(file)
                         .param("userId", "user123"))
-                .andExpect(status().isCreated())
+                .andExpect(status().isAccepted())
                 .andExpect(jsonPath("$.imageUrl").value(result.get("imageUrl")))
-                .andExpect(jsonPath("$.thumbnailUrl").value(result.get("thumbnailUrl")));
+                .andExpect(jsonPath("$.thumbnailUrl").value(result.get("thumbnailUrl")))
+                .andExpect(jsonPath("$.jobId").value("job-1"));
+    }
+    
+    @Test
+    void uploadImage_QueueFull_ReturnsServiceUnavailable() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+                "file",
+                "test.png",
+                "image/png",
+                "test image content".getBytes()
+        );
+        
+        when(mediaService.uploadImageWithThumbnail(any(), eq("user123"))).thenThrow(new MediaQueueFullException());
+        
+        mockMvc.perform(multipart("/api/posts/media/image")
+                        .file(file)
+                        .param("userId", "user123"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.code").value("MEDIA_QUEUE_FULL"));
     }
     
     @Test
@@ -259,4 +287,76 @@ class PostControllerTest {
                 .andExpect(jsonPath("$.code").value("POST_NOT_FOUND"))
                 .andExpect(jsonPath("$.message").value("Post not found: " + postId));
     }
+    
+    @Test
+    void applyLikeBatch_ValidRequest_ReturnsResults() throws Exception {
+        String userId = "user456";
+        BatchLikeResponse response = BatchLikeResponse.builder()
+                .results(List.of(BatchLikeResponse.LikeResult.builder()
+                        .postId("post1")
+                        .status(BatchLikeResponse.Status.LIKED)
+                        .build()))
+                .build();
+        
+        when(likeService.applyLikeBatch(eq(userId), anyList())).thenReturn(response);
+        
+        mockMvc.perform(post("/api/posts/likes/batch")
+                        .header("X-User-Id", userId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"actions\":[{\"postId\":\"post1\",\"action\":\"LIKE\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].postId").value("post1"))
+                .andExpect(jsonPath("$.results[0].status").value("LIKED"));
+    }
+    
+    @Test
+    void applyLikeBatch_EmptyActions_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/posts/likes/batch")
+                        .header("X-User-Id", "user456")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"actions\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("VALIDATION_ERROR"));
+    }
+    
+    @Test
+    void getLikeStatus_ReturnsStatusPerPost() throws Exception {
+        Map<String, Boolean> statuses = new HashMap<>();
+        statuses.put("post1", true);
+        statuses.put("post2", false);
+        when(likeService.getLikeStatus("user456", List.of("post1", "post2"))).thenReturn(statuses);
+        
+        mockMvc.perform(get("/api/posts/likes/status")
+                        .header("X-User-Id", "user456")
+                        .param("postIds", "post1", "post2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.post1").value(true))
+                .andExpect(jsonPath("$.post2").value(false));
+    }
+    
+    @Test
+    void getLikeStatus_TooManyPostIds_ReturnsBadRequest() throws Exception {
+        String[] postIds = new String[101];
+        for (int i = 0; i < postIds.length; i++) {
+            postIds[i] = "post" + i;
+        }
+        
+        mockMvc.perform(get("/api/posts/likes/status")
+                        .header("X-User-Id", "user456")
+                        .param("postIds", postIds))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_REQUEST"));
+    }
+    
+    @Test
+    void getPosts_ReturnsPostsInRequestedOrder() throws Exception {
+        when(postService.getPosts(List.of("post2", "post1"))).thenReturn(List.of(
+                PostResponse.builder().id("post2").userId("user123").content("Second").build(),
+                PostResponse.builder().id("post1").userId("user123").content("First").build()));
+        
+        mockMvc.perform(get("/api/posts").param("ids", "post2,post1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value("post2"))
+                .andExpect(jsonPath("$[1].id").value("post1"));
+    }
 }
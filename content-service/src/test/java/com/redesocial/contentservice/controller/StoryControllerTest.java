@@ -1,5 +1,6 @@
 package com.redesocial.contentservice.controller;
 
+import com.redesocial.contentservice.dto.StoryTrayResponse;
 import com.redesocial.contentservice.exception.StoryNotFoundException;
 import com.redesocial.contentservice.model.mongo.Post;
 import com.redesocial.contentservice.model.mongo.Story;
@@ -17,10 +18,13 @@ import org.springframework.mock.web.MockMultipartFile;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -52,25 +56,27 @@ class StoryControllerTest {
                 "test image content".getBytes()
         );
         
-        Map<String, String> uploadResult = Map.of(
-                "url", "https://s3.example.com/story.jpg",
-                "thumbnailUrl", "https://s3.example.com/story-thumb.jpg"
-        );
+        Post.MediaUrl mediaUrl = Post.MediaUrl.builder()
+                .url("https://s3.example.com/story.jpg")
+                .type(Post.MediaType.IMAGE)
+                .thumbnailUrl("https://s3.example.com/story-thumb.jpg")
+                .variants(List.of(Post.MediaVariant.builder()
+                        .url("https://s3.example.com/variants/640w.jpg")
+                        .width(640)
+                        .format("jpeg")
+                        .build()))
+                .build();
         
         Story story = Story.builder()
                 .id("story123")
                 .userId(userId)
-                .mediaUrl(Post.MediaUrl.builder()
-                        .url("https://s3.example.com/story.jpg")
-                        .type(Post.MediaType.IMAGE)
-                        .thumbnailUrl("https://s3.example.com/story-thumb.jpg")
-                        .build())
+                .mediaUrl(mediaUrl)
                 .viewsCount(0)
                 .expiresAt(LocalDateTime.now().plusHours(24))
                 .createdAt(LocalDateTime.now())
                 .build();
         
-        when(mediaService.uploadImageWithThumbnail(any(), eq(userId))).thenReturn(uploadResult);
+        when(mediaService.uploadImageMedia(any(), eq(userId))).thenReturn(mediaUrl);
         when(storyService.createStory(eq(userId), any())).thenReturn(story);
         
         // Act
@@ -78,8 +84,8 @@ class StoryControllerTest {
         
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
-        verify(mediaService, times(1)).uploadImageWithThumbnail(any(), eq(userId));
-        verify(storyService, times(1)).createStory(eq(userId), any());
+        verify(mediaService, times(1)).uploadImageMedia(any(), eq(userId));
+        verify(storyService, times(1)).createStory(userId, mediaUrl);
     }
     
     @Test
@@ -93,10 +99,10 @@ class StoryControllerTest {
                 "test video content".getBytes()
         );
         
-        Map<String, String> uploadResult = Map.of(
-                "url", "https://s3.example.com/story.mp4",
-                "thumbnailUrl", "https://s3.example.com/story-thumb.jpg"
-        );
+        Post.MediaUrl uploaded = Post.MediaUrl.builder()
+                .url("https://s3.example.com/story.mp4")
+                .type(Post.MediaType.VIDEO)
+                .build();
         
         Story story = Story.builder()
                 .id("story123")
@@ -111,7 +117,7 @@ class StoryControllerTest {
                 .createdAt(LocalDateTime.now())
                 .build();
         
-        when(mediaService.uploadVideoWithResolutions(any(), eq(userId))).thenReturn(uploadResult);
+        when(mediaService.uploadVideoMedia(any(), eq(userId))).thenReturn(uploaded);
         when(storyService.createStory(eq(userId), any())).thenReturn(story);
         
         // Act
@@ -119,8 +125,8 @@ class StoryControllerTest {
         
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
-        verify(mediaService, times(1)).uploadVideoWithResolutions(any(), eq(userId));
-        verify(storyService, times(1)).createStory(eq(userId), any());
+        verify(mediaService, times(1)).uploadVideoMedia(any(), eq(userId));
+        verify(storyService, times(1)).createStory(userId, uploaded);
     }
     
     @Test
@@ -139,8 +145,8 @@ class StoryControllerTest {
         
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
-        verify(mediaService, never()).uploadImageWithThumbnail(any(), any());
-        verify(mediaService, never()).uploadVideoWithResolutions(any(), any());
+        verify(mediaService, never()).uploadImageMedia(any(), any());
+        verify(mediaService, never()).uploadVideoMedia(any(), any());
         verify(storyService, never()).createStory(any(), any());
     }
     
@@ -175,6 +181,36 @@ class StoryControllerTest {
         verify(storyService, times(1)).getActiveStoriesByUser(userId);
     }
     
+    @Test
+    void getStoryTray_groupsStoriesByAuthor() {
+        // Arrange
+        Story first = Story.builder().id("s1").userId("alice").expiresAt(LocalDateTime.now().plusHours(2)).build();
+        Story second = Story.builder().id("s2").userId("alice").expiresAt(LocalDateTime.now().plusHours(3)).build();
+        Story third = Story.builder().id("s3").userId("bob").expiresAt(LocalDateTime.now().plusHours(1)).build();
+        Map<String, List<Story>> tray = new LinkedHashMap<>();
+        tray.put("bob", List.of(third));
+        tray.put("alice", List.of(first, second));
+        when(storyService.getStoryTray(List.of("bob", "carol", "alice"))).thenReturn(tray);
+        
+        // Act
+        ResponseEntity<List<StoryTrayResponse>> response =
+                storyController.getStoryTray(List.of("bob", "carol", "alice"));
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).extracting(StoryTrayResponse::getUserId).containsExactly("bob", "alice");
+        assertThat(response.getBody().get(1).getStories()).extracting("id").containsExactly("s1", "s2");
+    }
+    
+    @Test
+    void getStoryTray_withTooManyUsers_isRejected() {
+        List<String> userIds = Collections.nCopies(501, "user");
+        
+        assertThatThrownBy(() -> storyController.getStoryTray(userIds))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(storyService);
+    }
+    
     @Test
     void recordStoryView_withValidData_returnsSuccess() {
         // Arrange
@@ -0,0 +1,67 @@
+package com.redesocial.contentservice.controller;
+
+import com.redesocial.contentservice.dto.CursorPage;
+import com.redesocial.contentservice.dto.PostResponse;
+import com.redesocial.contentservice.service.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(UserPostController.class)
+class UserPostControllerTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @MockBean
+    private PostService postService;
+    
+    @Test
+    void getUserPosts_DefaultPage_ReturnsPostsAndCursor() throws Exception {
+        CursorPage<PostResponse> page = CursorPage.<PostResponse>builder()
+                .content(List.of(PostResponse.builder().id("post2").userId("user123").build(),
+                        PostResponse.builder().id("post1").userId("user123").build()))
+                .nextCursor("next-cursor")
+                .hasMore(true)
+                .build();
+        when(postService.getUserPosts(eq("user123"), isNull(), eq(20))).thenReturn(page);
+        
+        mockMvc.perform(get("/api/users/user123/posts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value("post2"))
+                .andExpect(jsonPath("$.nextCursor").value("next-cursor"))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+    
+    @Test
+    void getUserPosts_WithCursor_PassesCursorThrough() throws Exception {
+        when(postService.getUserPosts("user123", "abc", 10)).thenReturn(CursorPage.<PostResponse>builder()
+                .content(List.of())
+                .hasMore(false)
+                .build());
+        
+        mockMvc.perform(get("/api/users/user123/posts").param("cursor", "abc").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+    
+    @Test
+    void getUserPosts_WithMalformedCursor_ReturnsBadRequest() throws Exception {
+        when(postService.getUserPosts("user123", "bad", 20)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+        
+        mockMvc.perform(get("/api/users/user123/posts").param("cursor", "bad"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_REQUEST"));
+    }
+}
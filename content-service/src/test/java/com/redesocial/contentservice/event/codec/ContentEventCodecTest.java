@@ -0,0 +1,142 @@
+package com.redesocial.contentservice.event.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.redesocial.contentservice.event.CommentCreatedEvent;
+import com.redesocial.contentservice.event.LikeCreatedEvent;
+import com.redesocial.contentservice.event.PostCreatedEvent;
+import com.redesocial.contentservice.event.PostDeletedEvent;
+import com.redesocial.contentservice.event.ShareCreatedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for ContentEventCodec and EventSchemaRegistry
+ */
+class ContentEventCodecTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 3, 9, 14, 30, 5, 123456000);
+
+    private final ContentEventCodec codec = new ContentEventCodec(EventSchemaRegistry.load());
+
+    @Test
+    void encode_shouldRoundTripEveryContentEvent() {
+        List<Object> events = List.of(
+                PostCreatedEvent.builder().postId("p1").userId("u1").content("Dia de praia com a galera! #verão @ana")
+                        .hashtags(List.of("verão")).mentions(List.of("ana")).type("TEXT").createdAt(CREATED_AT).build(),
+                PostDeletedEvent.builder().postId("p1").userId("u1").deletedAt(CREATED_AT).build(),
+                LikeCreatedEvent.builder().postId("p1").userId("u2").postAuthorId("u1").createdAt(CREATED_AT).build(),
+                CommentCreatedEvent.builder().commentId("c1").postId("p1").userId("u2").postAuthorId("u1")
+                        .content("Que foto incrível 😍").createdAt(CREATED_AT).build(),
+                ShareCreatedEvent.builder().originalPostId("p1").sharedPostId("p2").userId("u3")
+                        .originalAuthorId("u1").createdAt(CREATED_AT).build());
+
+        for (Object event : events) {
+            assertThat(codec.decode(codec.encode(event))).isEqualTo(event);
+        }
+    }
+
+    @Test
+    void encode_shouldKeepNullsAndEmptyListsApart() {
+        PostCreatedEvent event = PostCreatedEvent.builder().postId("p1").hashtags(List.of()).build();
+
+        PostCreatedEvent decoded = (PostCreatedEvent) codec.decode(codec.encode(event));
+
+        assertThat(decoded.getHashtags()).isEmpty();
+        assertThat(decoded.getMentions()).isNull();
+        assertThat(decoded.getCreatedAt()).isNull();
+    }
+
+    @Test
+    void encode_shouldBeMuchSmallerThanJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        LikeCreatedEvent event = LikeCreatedEvent.builder()
+                .postId("8f14e45f-ceea-467f-a0e6-1b6b7f8a9d3c")
+                .userId("c9f0f895-fb98-4b91-9f3b-2f1f5f9e8f01")
+                .postAuthorId("45c48cce-2e2d-4fbd-8b1a-0d8e1a2b3c4d")
+                .createdAt(CREATED_AT)
+                .build();
+
+        int binary = codec.encode(event).length;
+        int json = objectMapper.writeValueAsBytes(event).length;
+
+        assertThat(binary).isLessThan(json * 3 / 4);
+    }
+
+    @Test
+    void decode_shouldSkipFieldsItDoesNotKnow() {
+        LikeCreatedEvent event = LikeCreatedEvent.builder().postId("p1").userId("u2").createdAt(CREATED_AT).build();
+        byte[] encoded = codec.encode(event);
+        // A newer writer added tag 9 (varint 300) and tag 10 (string "x")
+        byte[] extra = {(byte) (9 << 3), (byte) 0xAC, 0x02, (byte) (10 << 3 | 2), 1, 'x'};
+        byte[] newer = Arrays.copyOf(encoded, encoded.length + extra.length);
+        System.arraycopy(extra, 0, newer, encoded.length, extra.length);
+
+        assertThat(codec.decode(newer)).isEqualTo(event);
+    }
+
+    @Test
+    void decode_shouldRejectTruncatedOrForeignData() {
+        byte[] encoded = codec.encode(PostDeletedEvent.builder().postId("p1").userId("u1").build());
+
+        assertThatThrownBy(() -> codec.decode(Arrays.copyOf(encoded, encoded.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode("{\"postId\":\"p1\"}".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(ContentEventCodec.isEncoded("{}".getBytes(StandardCharsets.UTF_8))).isFalse();
+    }
+
+    @Test
+    void registry_shouldRejectAnEventFieldWithoutATag() {
+        String schemas = "{\"schemas\": [{\"id\": 3, \"version\": 1, "
+                + "\"class\": \"com.redesocial.contentservice.event.LikeCreatedEvent\", "
+                + "\"fields\": [{\"tag\": 1, \"name\": \"postId\", \"type\": \"string\"}]}]}";
+
+        assertThatThrownBy(() -> EventSchemaRegistry.parse(new ByteArrayInputStream(schemas.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("does not describe LikeCreatedEvent.");
+    }
+
+    @Test
+    void registry_shouldKeepTheTagOfARemovedFieldTaken() throws Exception {
+        String removed = "{\"tag\": 4, \"name\": \"reason\", \"type\": \"string\", \"removed\": true}";
+        String schemas = "{\"schemas\": [{\"id\": 2, \"version\": 2, "
+                + "\"class\": \"com.redesocial.contentservice.event.PostDeletedEvent\", \"fields\": ["
+                + "{\"tag\": 1, \"name\": \"postId\", \"type\": \"string\"}, "
+                + "{\"tag\": 2, \"name\": \"userId\", \"type\": \"string\"}, "
+                + "{\"tag\": 3, \"name\": \"deletedAt\", \"type\": \"timestamp\"}, %s]}]}";
+
+        EventSchemaRegistry registry = EventSchemaRegistry.parse(
+                new ByteArrayInputStream(String.format(schemas, removed).getBytes(StandardCharsets.UTF_8)));
+        assertThat(registry.forId(2).getFields()).extracting(EventSchemaRegistry.FieldSchema::getTag)
+                .containsExactly(1, 2, 3);
+
+        String reused = removed + ", {\"tag\": 4, \"name\": \"reasonCode\", \"type\": \"string\"}";
+        assertThatThrownBy(() -> EventSchemaRegistry.parse(
+                new ByteArrayInputStream(String.format(schemas, reused).getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("removed field");
+    }
+
+    @Test
+    void registry_shouldRejectAFieldOfTheWrongType() {
+        String schemas = "{\"schemas\": [{\"id\": 2, \"version\": 1, "
+                + "\"class\": \"com.redesocial.contentservice.event.PostDeletedEvent\", \"fields\": ["
+                + "{\"tag\": 1, \"name\": \"postId\", \"type\": \"timestamp\"}, "
+                + "{\"tag\": 2, \"name\": \"userId\", \"type\": \"string\"}, "
+                + "{\"tag\": 3, \"name\": \"deletedAt\", \"type\": \"timestamp\"}]}]}";
+
+        assertThatThrownBy(() -> EventSchemaRegistry.parse(new ByteArrayInputStream(schemas.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("postId");
+    }
+}
@@ -0,0 +1,69 @@
+package com.redesocial.contentservice.event.codec;
+
+import com.redesocial.contentservice.event.LikeCreatedEvent;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ContentEventSerializer and ContentEventDeserializer
+ */
+class ContentEventSerializerTest {
+
+    private static final String TOPIC = "content.events";
+
+    private final LikeCreatedEvent event = LikeCreatedEvent.builder()
+            .postId("p1")
+            .userId("u2")
+            .postAuthorId("u1")
+            .createdAt(LocalDateTime.of(2024, 3, 9, 14, 30, 5))
+            .build();
+
+    @Test
+    void serialize_byDefault_shouldWriteJsonWithTypeHeaders() {
+        ContentEventSerializer serializer = new ContentEventSerializer();
+        serializer.configure(Map.of(), false);
+        RecordHeaders headers = new RecordHeaders();
+
+        byte[] data = serializer.serialize(TOPIC, headers, event);
+
+        assertThat(new String(data, StandardCharsets.UTF_8)).startsWith("{").contains("\"postId\":\"p1\"");
+        assertThat(headers.lastHeader(ContentEventSerializer.CONTENT_TYPE_HEADER)).isNull();
+        assertThat(read(headers, data)).isEqualTo(event);
+    }
+
+    @Test
+    void serialize_inBinaryFormat_shouldWriteTheCompactEncoding() {
+        ContentEventSerializer serializer = new ContentEventSerializer();
+        serializer.configure(Map.of(ContentEventSerializer.FORMAT_CONFIG, "binary"), false);
+        RecordHeaders headers = new RecordHeaders();
+
+        byte[] data = serializer.serialize(TOPIC, headers, event);
+
+        assertThat(ContentEventCodec.isEncoded(data)).isTrue();
+        assertThat(new String(headers.lastHeader(ContentEventSerializer.CONTENT_TYPE_HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo(ContentEventSerializer.BINARY_CONTENT_TYPE);
+        assertThat(read(headers, data)).isEqualTo(event);
+    }
+
+    @Test
+    void serialize_inBinaryFormat_shouldFallBackToJsonForClassesWithoutASchema() {
+        ContentEventSerializer serializer = new ContentEventSerializer();
+        serializer.configure(Map.of(ContentEventSerializer.FORMAT_CONFIG, "binary"), false);
+
+        byte[] data = serializer.serialize(TOPIC, new RecordHeaders(), Map.of("postId", "p1"));
+
+        assertThat(ContentEventCodec.isEncoded(data)).isFalse();
+    }
+
+    private static Object read(RecordHeaders headers, byte[] data) {
+        ContentEventDeserializer deserializer = new ContentEventDeserializer();
+        deserializer.configure(Map.of("spring.json.trusted.packages", "com.redesocial.contentservice.event"), false);
+        return deserializer.deserialize(TOPIC, headers, data);
+    }
+}
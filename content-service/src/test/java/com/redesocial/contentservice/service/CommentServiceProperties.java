@@ -2,6 +2,7 @@ package com.redesocial.contentservice.service;
 
 import com.redesocial.contentservice.dto.CommentResponse;
 import com.redesocial.contentservice.dto.CreateCommentRequest;
+import com.redesocial.contentservice.dto.CursorPage;
 import com.redesocial.contentservice.event.CommentCreatedEvent;
 import com.redesocial.contentservice.model.jpa.PostMetadata;
 import com.redesocial.contentservice.model.mongo.Comment;
@@ -16,8 +17,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
@@ -48,12 +47,15 @@ class CommentServiceProperties {
     @Mock
     private EventPublisher eventPublisher;
     
+    @Mock
+    private EngagementCounterBuffer counterBuffer;
+    
     private CommentService commentService;
     
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        commentService = new CommentService(commentRepository, postRepository, postMetadataRepository, eventPublisher);
+        commentService = new CommentService(commentRepository, postRepository, postMetadataRepository, eventPublisher, counterBuffer);
     }
     
     /**
@@ -124,10 +126,8 @@ class CommentServiceProperties {
         assertThat(capturedComment.getContent()).isEqualTo(content);
         
         // Verify counter was incremented by exactly 1
-        ArgumentCaptor<PostMetadata> metadataCaptor = ArgumentCaptor.forClass(PostMetadata.class);
-        verify(postMetadataRepository).save(metadataCaptor.capture());
-        PostMetadata savedMetadata = metadataCaptor.getValue();
-        assertThat(savedMetadata.getCommentsCount()).isEqualTo(initialCommentsCount + 1);
+        verify(counterBuffer, times(1)).incrementComments(postId);
+        verify(postMetadataRepository, never()).save(any(PostMetadata.class));
         
         // Verify event was published
         ArgumentCaptor<CommentCreatedEvent> eventCaptor = ArgumentCaptor.forClass(CommentCreatedEvent.class);
@@ -139,7 +139,7 @@ class CommentServiceProperties {
         assertThat(event.getContent()).isEqualTo(content);
         
         // Reset mocks for next iteration
-        reset(commentRepository, postRepository, postMetadataRepository, eventPublisher);
+        reset(commentRepository, postRepository, postMetadataRepository, eventPublisher, counterBuffer);
     }
     
     /**
@@ -174,14 +174,12 @@ class CommentServiceProperties {
                     .build());
         }
         
-        Page<Comment> commentsPage = new PageImpl<>(comments);
-        
         when(postRepository.findById(postId)).thenReturn(Optional.of(post));
-        when(commentRepository.findByPostIdOrderByCreatedAtDesc(eq(postId), any(Pageable.class)))
-                .thenReturn(commentsPage);
+        when(commentRepository.findByPostIdOrderByCreatedAtDescIdDesc(eq(postId), any(Pageable.class)))
+                .thenReturn(comments);
         
         // When
-        Page<CommentResponse> response = commentService.getComments(postId, 0, 20);
+        CursorPage<CommentResponse> response = commentService.getComments(postId, null, 20);
         
         // Then - Comments are ordered by creation time (newest first)
         assertThat(response.getContent()).hasSize(commentCount);
@@ -200,14 +198,14 @@ class CommentServiceProperties {
     
     /**
      * Property: Pagination returns correct page size
-     * For any valid page size, the returned page should not exceed that size
+     * For any valid page size, the returned page should not exceed that size,
+     * and hasMore/nextCursor are set exactly when more comments remain
      */
     @Property(tries = 100)
     void paginationReturnsCorrectPageSize(
             @ForAll String postId,
             @ForAll @IntRange(min = 1, max = 100) int pageSize,
-            @ForAll @IntRange(min = 0, max = 10) int pageNumber,
-            @ForAll @IntRange(min = 0, max = 200) int totalComments) {
+            @ForAll @IntRange(min = 0, max = 200) int remainingComments) {
         
         // Given
         Post post = Post.builder()
@@ -217,37 +215,36 @@ class CommentServiceProperties {
                 .createdAt(LocalDateTime.now())
                 .build();
         
-        // Calculate how many comments should be on this page
-        int expectedCommentsOnPage = Math.min(pageSize, Math.max(0, totalComments - (pageNumber * pageSize)));
+        // The repository returns at most pageSize + 1 rows
+        int expectedCommentsOnPage = Math.min(pageSize, remainingComments);
+        int fetchedRows = Math.min(pageSize + 1, remainingComments);
         
         List<Comment> commentsOnPage = new ArrayList<>();
-        for (int i = 0; i < expectedCommentsOnPage; i++) {
+        LocalDateTime baseTime = LocalDateTime.now();
+        for (int i = 0; i < fetchedRows; i++) {
             commentsOnPage.add(Comment.builder()
                     .id("comment-" + i)
                     .postId(postId)
                     .userId("user-" + i)
                     .content("Comment " + i)
                     .likesCount(0)
-                    .createdAt(LocalDateTime.now())
-                    .updatedAt(LocalDateTime.now())
+                    .createdAt(baseTime.minusSeconds(i))
+                    .updatedAt(baseTime.minusSeconds(i))
                     .build());
         }
         
-        Page<Comment> commentsPage = new PageImpl<>(commentsOnPage, 
-                org.springframework.data.domain.PageRequest.of(pageNumber, pageSize), 
-                totalComments);
-        
         when(postRepository.findById(postId)).thenReturn(Optional.of(post));
-        when(commentRepository.findByPostIdOrderByCreatedAtDesc(eq(postId), any(Pageable.class)))
-                .thenReturn(commentsPage);
+        when(commentRepository.findByPostIdOrderByCreatedAtDescIdDesc(eq(postId), any(Pageable.class)))
+                .thenReturn(commentsOnPage);
         
         // When
-        Page<CommentResponse> response = commentService.getComments(postId, pageNumber, pageSize);
+        CursorPage<CommentResponse> response = commentService.getComments(postId, null, pageSize);
         
         // Then - Page size should not exceed requested size
         assertThat(response.getContent().size()).isLessThanOrEqualTo(pageSize);
         assertThat(response.getContent().size()).isEqualTo(expectedCommentsOnPage);
-        assertThat(response.getTotalElements()).isEqualTo(totalComments);
+        assertThat(response.isHasMore()).isEqualTo(remainingComments > pageSize);
+        assertThat(response.getNextCursor() != null).isEqualTo(remainingComments > pageSize);
         
         // Reset mocks for next iteration
         reset(commentRepository, postRepository);
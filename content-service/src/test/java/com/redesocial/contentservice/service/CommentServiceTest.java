@@ -2,6 +2,7 @@ package com.redesocial.contentservice.service;
 
 import com.redesocial.contentservice.dto.CommentResponse;
 import com.redesocial.contentservice.dto.CreateCommentRequest;
+import com.redesocial.contentservice.dto.CursorPage;
 import com.redesocial.contentservice.event.CommentCreatedEvent;
 import com.redesocial.contentservice.exception.PostNotFoundException;
 import com.redesocial.contentservice.model.jpa.PostMetadata;
@@ -10,6 +11,7 @@ import com.redesocial.contentservice.model.mongo.Post;
 import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
 import com.redesocial.contentservice.repository.mongo.CommentRepository;
 import com.redesocial.contentservice.repository.mongo.PostRepository;
+import com.redesocial.contentservice.util.PageCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,9 +19,6 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
@@ -47,6 +46,9 @@ class CommentServiceTest {
     @Mock
     private EventPublisher eventPublisher;
     
+    @Mock
+    private EngagementCounterBuffer counterBuffer;
+    
     @InjectMocks
     private CommentService commentService;
     
@@ -115,10 +117,8 @@ class CommentServiceTest {
         assertThat(savedComment.getContent()).isEqualTo("Great post!");
         
         // Verify counter was incremented
-        ArgumentCaptor<PostMetadata> metadataCaptor = ArgumentCaptor.forClass(PostMetadata.class);
-        verify(postMetadataRepository).save(metadataCaptor.capture());
-        PostMetadata savedMetadata = metadataCaptor.getValue();
-        assertThat(savedMetadata.getCommentsCount()).isEqualTo(1);
+        verify(counterBuffer).incrementComments("post-123");
+        verify(postMetadataRepository, never()).save(any(PostMetadata.class));
         
         // Verify event was published
         ArgumentCaptor<CommentCreatedEvent> eventCaptor = ArgumentCaptor.forClass(CommentCreatedEvent.class);
@@ -231,45 +231,27 @@ class CommentServiceTest {
     }
     
     @Test
-    void getComments_WithValidPostId_ReturnsPagedComments() {
+    void getComments_FirstPage_ReturnsNewestFirstWithoutCount() {
         // Given
-        Comment comment1 = Comment.builder()
-                .id("comment-1")
-                .postId("post-123")
-                .userId("user-1")
-                .content("First comment")
-                .likesCount(0)
-                .createdAt(LocalDateTime.now().minusHours(2))
-                .updatedAt(LocalDateTime.now().minusHours(2))
-                .build();
-        
-        Comment comment2 = Comment.builder()
-                .id("comment-2")
-                .postId("post-123")
-                .userId("user-2")
-                .content("Second comment")
-                .likesCount(0)
-                .createdAt(LocalDateTime.now().minusHours(1))
-                .updatedAt(LocalDateTime.now().minusHours(1))
-                .build();
-        
-        Page<Comment> commentsPage = new PageImpl<>(Arrays.asList(comment2, comment1));
+        Comment comment1 = comment("comment-1", LocalDateTime.now().minusHours(2));
+        Comment comment2 = comment("comment-2", LocalDateTime.now().minusHours(1));
         
         when(postRepository.findById("post-123")).thenReturn(Optional.of(testPost));
-        when(commentRepository.findByPostIdOrderByCreatedAtDesc(eq("post-123"), any(Pageable.class)))
-                .thenReturn(commentsPage);
+        when(commentRepository.findByPostIdOrderByCreatedAtDescIdDesc(eq("post-123"), any(Pageable.class)))
+                .thenReturn(Arrays.asList(comment2, comment1));
         
         // When
-        Page<CommentResponse> response = commentService.getComments("post-123", 0, 20);
+        CursorPage<CommentResponse> response = commentService.getComments("post-123", null, 20);
         
         // Then
         assertThat(response).isNotNull();
-        assertThat(response.getTotalElements()).isEqualTo(2);
         assertThat(response.getContent()).hasSize(2);
         assertThat(response.getContent().get(0).getId()).isEqualTo("comment-2");
         assertThat(response.getContent().get(1).getId()).isEqualTo("comment-1");
+        assertThat(response.isHasMore()).isFalse();
+        assertThat(response.getNextCursor()).isNull();
         
-        verify(commentRepository).findByPostIdOrderByCreatedAtDesc(eq("post-123"), any(Pageable.class));
+        verify(commentRepository, never()).countByPostId(any());
     }
     
     @Test
@@ -278,36 +260,79 @@ class CommentServiceTest {
         when(postRepository.findById("non-existent")).thenReturn(Optional.empty());
         
         // When/Then
-        assertThatThrownBy(() -> commentService.getComments("non-existent", 0, 20))
+        assertThatThrownBy(() -> commentService.getComments("non-existent", null, 20))
                 .isInstanceOf(PostNotFoundException.class)
                 .hasMessageContaining("Post not found");
         
-        verify(commentRepository, never()).findByPostIdOrderByCreatedAtDesc(any(), any());
+        verify(commentRepository, never()).findByPostIdOrderByCreatedAtDescIdDesc(any(), any());
     }
     
     @Test
-    void getComments_WithCustomPageSize_ReturnsCorrectPage() {
+    void getComments_WhenMoreRowsExist_ReturnsCursorOfLastComment() {
         // Given
-        Pageable pageable = PageRequest.of(1, 10);
-        Page<Comment> commentsPage = new PageImpl<>(Arrays.asList(testComment), pageable, 15);
+        LocalDateTime now = LocalDateTime.now();
+        Comment newest = comment("comment-3", now);
+        Comment middle = comment("comment-2", now.minusMinutes(1));
+        Comment extra = comment("comment-1", now.minusMinutes(2));
         
         when(postRepository.findById("post-123")).thenReturn(Optional.of(testPost));
-        when(commentRepository.findByPostIdOrderByCreatedAtDesc(eq("post-123"), any(Pageable.class)))
-                .thenReturn(commentsPage);
+        when(commentRepository.findByPostIdOrderByCreatedAtDescIdDesc(eq("post-123"), any(Pageable.class)))
+                .thenReturn(Arrays.asList(newest, middle, extra));
         
         // When
-        Page<CommentResponse> response = commentService.getComments("post-123", 1, 10);
+        CursorPage<CommentResponse> response = commentService.getComments("post-123", null, 2);
+        
+        // Then - one extra row is fetched to detect the next page
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(commentRepository).findByPostIdOrderByCreatedAtDescIdDesc(eq("post-123"), pageableCaptor.capture());
+        assertThat(pageableCaptor.getValue().getPageNumber()).isZero();
+        assertThat(pageableCaptor.getValue().getPageSize()).isEqualTo(3);
+        
+        assertThat(response.getContent()).extracting(CommentResponse::getId).containsExactly("comment-3", "comment-2");
+        assertThat(response.isHasMore()).isTrue();
+        PageCursor cursor = PageCursor.decode(response.getNextCursor());
+        assertThat(cursor.getCreatedAt()).isEqualTo(middle.getCreatedAt());
+        assertThat(cursor.getId()).isEqualTo("comment-2");
+    }
+    
+    @Test
+    void getComments_WithCursor_SeeksPastCursorPosition() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123000000);
+        String cursor = new PageCursor(createdAt, "comment-2").encode();
+        
+        when(postRepository.findById("post-123")).thenReturn(Optional.of(testPost));
+        when(commentRepository.findByPostIdAfter(eq("post-123"), eq(createdAt), eq("comment-2"), any(Pageable.class)))
+                .thenReturn(Arrays.asList(comment("comment-1", createdAt.minusMinutes(1))));
+        
+        // When
+        CursorPage<CommentResponse> response = commentService.getComments("post-123", cursor, 10);
         
         // Then
-        assertThat(response).isNotNull();
-        assertThat(response.getNumber()).isEqualTo(1);
-        assertThat(response.getSize()).isEqualTo(10);
-        assertThat(response.getTotalElements()).isEqualTo(15);
+        assertThat(response.getContent()).extracting(CommentResponse::getId).containsExactly("comment-1");
+        assertThat(response.isHasMore()).isFalse();
+        verify(commentRepository, never()).findByPostIdOrderByCreatedAtDescIdDesc(any(), any());
+    }
+    
+    @Test
+    void getComments_WithMalformedCursor_ThrowsIllegalArgumentException() {
+        // Given
+        when(postRepository.findById("post-123")).thenReturn(Optional.of(testPost));
         
-        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
-        verify(commentRepository).findByPostIdOrderByCreatedAtDesc(eq("post-123"), pageableCaptor.capture());
-        Pageable capturedPageable = pageableCaptor.getValue();
-        assertThat(capturedPageable.getPageNumber()).isEqualTo(1);
-        assertThat(capturedPageable.getPageSize()).isEqualTo(10);
+        // When/Then
+        assertThatThrownBy(() -> commentService.getComments("post-123", "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    private static Comment comment(String id, LocalDateTime createdAt) {
+        return Comment.builder()
+                .id(id)
+                .postId("post-123")
+                .userId("user-" + id)
+                .content("Comment " + id)
+                .likesCount(0)
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .build();
     }
 }
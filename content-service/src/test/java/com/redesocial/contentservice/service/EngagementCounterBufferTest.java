@@ -0,0 +1,150 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.model.jpa.PostCounterDelta;
+import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EngagementCounterBuffer
+ */
+class EngagementCounterBufferTest {
+
+    private PostMetadataRepository postMetadataRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private PostCache postCache;
+    private EngagementCounterBuffer counterBuffer;
+
+    @BeforeEach
+    void setUp() {
+        postMetadataRepository = Mockito.mock(PostMetadataRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        postCache = Mockito.mock(PostCache.class);
+        counterBuffer = new EngagementCounterBuffer(postMetadataRepository, meterRegistry, postCache);
+        counterBuffer.registerMetrics();
+    }
+
+    @Test
+    void add_shouldAccumulateDeltasPerPost() {
+        counterBuffer.incrementLikes("post1");
+        counterBuffer.incrementLikes("post1");
+        counterBuffer.incrementComments("post1");
+        counterBuffer.incrementShares("post2");
+
+        PostCounterDelta post1 = counterBuffer.pendingDelta("post1");
+        assertThat(post1.getLikes()).isEqualTo(2);
+        assertThat(post1.getComments()).isEqualTo(1);
+        assertThat(counterBuffer.pendingDelta("post2").getShares()).isEqualTo(1);
+        assertThat(counterBuffer.getPendingPosts()).isEqualTo(2);
+        assertThat(meterRegistry.get("content.counters.pending.posts").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void add_shouldPatchCachedPost() {
+        counterBuffer.incrementLikes("post1");
+        counterBuffer.incrementComments("post1");
+
+        verify(postCache).applyCounterDelta("post1", 1, 0, 0);
+        verify(postCache).applyCounterDelta("post1", 0, 1, 0);
+    }
+
+    @Test
+    void add_whenDeltasCancelOut_shouldDropPost() {
+        counterBuffer.incrementLikes("post1");
+        counterBuffer.decrementLikes("post1");
+
+        assertThat(counterBuffer.pendingDelta("post1").isZero()).isTrue();
+        assertThat(counterBuffer.getPendingPosts()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_shouldApplyOneBatchedUpdatePerPostAndClearBuffer() {
+        counterBuffer.incrementLikes("post1");
+        counterBuffer.incrementLikes("post1");
+        counterBuffer.incrementComments("post2");
+
+        counterBuffer.flush();
+
+        ArgumentCaptor<List<PostCounterDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(postMetadataRepository, times(1)).applyCounterDeltas(captor.capture());
+        assertThat(captor.getValue()).hasSize(2);
+        assertThat(captor.getValue()).extracting(PostCounterDelta::getPostId).containsExactlyInAnyOrder("post1", "post2");
+        assertThat(counterBuffer.getPendingPosts()).isZero();
+        assertThat(meterRegistry.get("content.counters.flushed.posts").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void flush_whenNothingPending_shouldNotTouchDatabase() {
+        counterBuffer.flush();
+
+        verify(postMetadataRepository, never()).applyCounterDeltas(anyList());
+    }
+
+    @Test
+    void flush_whenUpdateFails_shouldRequeueDeltas() {
+        counterBuffer.incrementLikes("post1");
+        doThrow(new RuntimeException("Database down")).when(postMetadataRepository).applyCounterDeltas(anyList());
+
+        counterBuffer.flush();
+
+        assertThat(counterBuffer.pendingDelta("post1").getLikes()).isEqualTo(1);
+        assertThat(meterRegistry.get("content.counters.flush.failures").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void drainOnShutdown_shouldFlushPendingDeltas() {
+        counterBuffer.incrementShares("post1");
+
+        counterBuffer.drainOnShutdown();
+
+        verify(postMetadataRepository).applyCounterDeltas(anyList());
+        assertThat(counterBuffer.getPendingPosts()).isZero();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void concurrentIncrements_shouldNotLoseUpdates() throws InterruptedException {
+        List<PostCounterDelta> flushed = new ArrayList<>();
+        doAnswer(invocation -> {
+            flushed.addAll((List<PostCounterDelta>) invocation.getArgument(0));
+            return null;
+        }).when(postMetadataRepository).applyCounterDeltas(anyList());
+
+        int threads = 8;
+        int likesPerThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < likesPerThread; i++) {
+                    counterBuffer.incrementLikes("viral-post");
+                    if (i % 100 == 0) {
+                        counterBuffer.flush();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        counterBuffer.flush();
+
+        int total = flushed.stream().mapToInt(PostCounterDelta::getLikes).sum();
+        assertThat(total).isEqualTo(threads * likesPerThread);
+    }
+}
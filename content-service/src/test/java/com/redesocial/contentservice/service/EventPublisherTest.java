@@ -0,0 +1,59 @@
+package com.redesocial.contentservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.redesocial.contentservice.event.LikeCreatedEvent;
+import com.redesocial.contentservice.model.jpa.OutboxEvent;
+import com.redesocial.contentservice.repository.jpa.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for EventPublisher
+ */
+class EventPublisherTest {
+    
+    private OutboxEventRepository outboxEventRepository;
+    private ObjectMapper objectMapper;
+    private EventPublisher eventPublisher;
+    
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository = Mockito.mock(OutboxEventRepository.class);
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        eventPublisher = new EventPublisher(outboxEventRepository, objectMapper);
+    }
+    
+    @Test
+    void publishEvent_shouldWriteEventToOutbox() throws Exception {
+        // Arrange
+        LikeCreatedEvent event = LikeCreatedEvent.builder()
+                .postId("post123")
+                .userId("user456")
+                .postAuthorId("author789")
+                .createdAt(LocalDateTime.now())
+                .build();
+        
+        // Act
+        eventPublisher.publishEvent("like.created", event);
+        
+        // Assert
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(captor.capture());
+        
+        OutboxEvent saved = captor.getValue();
+        assertThat(saved.getEventType()).isEqualTo("like.created");
+        assertThat(saved.getEventKey()).isEqualTo("post123");
+        assertThat(saved.getEventClass()).isEqualTo(LikeCreatedEvent.class.getName());
+        assertThat(saved.getPublishedAt()).isNull();
+        assertThat(objectMapper.readValue(saved.getPayload(), LikeCreatedEvent.class)).isEqualTo(event);
+    }
+}
@@ -0,0 +1,50 @@
+package com.redesocial.contentservice.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process Transcoder for tests: reports a fixed source size and writes a
+ * small placeholder file for each rendition, recording the sizes requested.
+ */
+class FakeTranscoder implements Transcoder {
+    
+    private final VideoInfo info;
+    private final List<Integer> transcodedSides = new CopyOnWriteArrayList<>();
+    private volatile IOException failure;
+    
+    FakeTranscoder(int width, int height, Double durationSeconds) {
+        this.info = new VideoInfo(width, height, durationSeconds);
+    }
+    
+    @Override
+    public VideoInfo probe(Path source) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (!Files.exists(source)) {
+            throw new IOException("Missing source " + source);
+        }
+        return new VideoInfo(info.getWidth(), info.getHeight(), info.getDurationSeconds());
+    }
+    
+    @Override
+    public void transcode(Path source, Path target, int shortSide) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        transcodedSides.add(shortSide);
+        Files.write(target, ("rendition " + shortSide).getBytes());
+    }
+    
+    void failWith(IOException failure) {
+        this.failure = failure;
+    }
+    
+    List<Integer> getTranscodedSides() {
+        return transcodedSides;
+    }
+}
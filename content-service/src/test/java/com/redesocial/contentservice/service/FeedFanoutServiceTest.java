@@ -0,0 +1,117 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.client.UserServiceClient;
+import com.redesocial.contentservice.dto.UserSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FeedFanoutService
+ */
+class FeedFanoutServiceTest {
+    
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 5, 1, 12, 0);
+    
+    private UserServiceClient userServiceClient;
+    private StringRedisTemplate redisTemplate;
+    private RedisOperations<String, String> pipelineOperations;
+    private ZSetOperations<String, String> zSetOperations;
+    private SimpleMeterRegistry meterRegistry;
+    private FeedFanoutService feedFanoutService;
+    private int pipelines;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        userServiceClient = Mockito.mock(UserServiceClient.class);
+        redisTemplate = Mockito.mock(StringRedisTemplate.class);
+        pipelineOperations = Mockito.mock(RedisOperations.class);
+        zSetOperations = Mockito.mock(ZSetOperations.class);
+        when(pipelineOperations.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            pipelines++;
+            ((SessionCallback<Object>) invocation.getArgument(0)).execute(pipelineOperations);
+            return List.of();
+        });
+        meterRegistry = new SimpleMeterRegistry();
+        feedFanoutService = new FeedFanoutService(userServiceClient, redisTemplate, meterRegistry);
+    }
+    
+    @Test
+    void fanOutNow_shouldPushToAuthorAndEveryFollowerInPipelinedPages() {
+        when(userServiceClient.getUser("author")).thenReturn(user("author", 3));
+        when(userServiceClient.getFollowers("author", 0, 500)).thenReturn(List.of(
+                user("f1", 0), user("f2", 0), user("f3", 0)));
+        
+        feedFanoutService.fanOutNow("post1", "author", CREATED_AT);
+        
+        double score = FeedFanoutService.score(CREATED_AT);
+        for (String userId : List.of("author", "f1", "f2", "f3")) {
+            verify(zSetOperations).add(FeedFanoutService.timelineKey(userId), "post1", score);
+            verify(zSetOperations).removeRange(FeedFanoutService.timelineKey(userId), 0, -801);
+            verify(pipelineOperations).expire(FeedFanoutService.timelineKey(userId), Duration.ofDays(7));
+        }
+        assertThat(pipelines).isEqualTo(2); // author, then one page of followers
+        assertThat(meterRegistry.get("content.feed.fanout.deliveries").counter().count()).isEqualTo(3.0);
+    }
+    
+    @Test
+    void fanOutNow_shouldPageThroughFollowers() {
+        List<UserSummary> fullPage = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            fullPage.add(user("f" + i, 0));
+        }
+        when(userServiceClient.getUser("author")).thenReturn(user("author", 501));
+        when(userServiceClient.getFollowers("author", 0, 500)).thenReturn(fullPage);
+        when(userServiceClient.getFollowers("author", 1, 500)).thenReturn(List.of(user("last", 0)));
+        
+        feedFanoutService.fanOutNow("post1", "author", CREATED_AT);
+        
+        verify(userServiceClient, times(2)).getFollowers(eq("author"), anyInt(), eq(500));
+        verify(zSetOperations).add(eq(FeedFanoutService.timelineKey("last")), eq("post1"), anyDouble());
+        assertThat(pipelines).isEqualTo(3);
+    }
+    
+    @Test
+    void fanOutNow_forAuthorAboveThreshold_shouldOnlyPushToAuthor() {
+        when(userServiceClient.getUser("celebrity")).thenReturn(user("celebrity", 50000));
+        
+        feedFanoutService.fanOutNow("post1", "celebrity", CREATED_AT);
+        
+        verify(userServiceClient, never()).getFollowers(anyString(), anyInt(), anyInt());
+        verify(zSetOperations, times(1)).add(anyString(), anyString(), anyDouble());
+        assertThat(meterRegistry.get("content.feed.fanout.skipped").counter().count()).isEqualTo(1.0);
+    }
+    
+    @Test
+    void fanOutNow_whenUserServiceFails_shouldRecordFailure() {
+        when(userServiceClient.getUser("author")).thenThrow(new RuntimeException("user-service down"));
+        
+        feedFanoutService.fanOutNow("post1", "author", CREATED_AT);
+        
+        assertThat(meterRegistry.get("content.feed.fanout.failures").counter().count()).isEqualTo(1.0);
+    }
+    
+    private static UserSummary user(String id, int followers) {
+        return UserSummary.builder().id(id).followersCount(followers).build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.client.UserServiceClient;
+import com.redesocial.contentservice.dto.CursorPage;
+import com.redesocial.contentservice.dto.PostResponse;
+import com.redesocial.contentservice.dto.UserSummary;
+import com.redesocial.contentservice.model.jpa.PostMetadata;
+import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
+import com.redesocial.contentservice.util.PageCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FeedService
+ */
+class FeedServiceTest {
+    
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+    
+    private StringRedisTemplate redisTemplate;
+    private ZSetOperations<String, String> zSetOperations;
+    private SetOperations<String, String> setOperations;
+    private UserServiceClient userServiceClient;
+    private PostMetadataRepository postMetadataRepository;
+    private PostService postService;
+    private FeedService feedService;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = Mockito.mock(StringRedisTemplate.class);
+        zSetOperations = Mockito.mock(ZSetOperations.class);
+        setOperations = Mockito.mock(SetOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        userServiceClient = Mockito.mock(UserServiceClient.class);
+        postMetadataRepository = Mockito.mock(PostMetadataRepository.class);
+        postService = Mockito.mock(PostService.class);
+        when(postService.getPosts(anyList())).thenAnswer(invocation -> ((List<String>) invocation.getArgument(0)).stream()
+                .map(id -> PostResponse.builder().id(id).build())
+                .collect(Collectors.toList()));
+        feedService = new FeedService(redisTemplate, userServiceClient, postMetadataRepository, postService);
+    }
+    
+    @Test
+    void getFeed_shouldReadOnePageFromTimelineAndReturnCursor() {
+        noCelebrities();
+        when(zSetOperations.reverseRangeByScoreWithScores(eq(FeedFanoutService.timelineKey("reader")),
+                eq(Double.NEGATIVE_INFINITY), eq(Double.POSITIVE_INFINITY), eq(0L), eq(3L)))
+                .thenReturn(tuples("post3", NOW, "post2", NOW.minusMinutes(1), "post1", NOW.minusMinutes(2)));
+        
+        CursorPage<PostResponse> page = feedService.getFeed("reader", null, 2);
+        
+        assertThat(page.getContent()).extracting(PostResponse::getId).containsExactly("post3", "post2");
+        assertThat(page.isHasMore()).isTrue();
+        PageCursor cursor = PageCursor.decode(page.getNextCursor());
+        assertThat(cursor.getCreatedAt()).isEqualTo(NOW.minusMinutes(1));
+        assertThat(cursor.getId()).isEqualTo("post2");
+    }
+    
+    @Test
+    void getFeed_withCursor_shouldSkipEntriesAtOrBeforeCursor() {
+        noCelebrities();
+        String cursor = new PageCursor(NOW, "post-b").encode();
+        double max = FeedFanoutService.score(NOW);
+        when(zSetOperations.reverseRangeByScoreWithScores(anyString(), eq(Double.NEGATIVE_INFINITY), eq(max), eq(0L), eq(3L)))
+                .thenReturn(tuples("post-c", NOW, "post-b", NOW, "post-a", NOW));
+        when(zSetOperations.reverseRangeByScoreWithScores(anyString(), eq(Double.NEGATIVE_INFINITY), eq(max), eq(3L), eq(3L)))
+                .thenReturn(tuples("post-old", NOW.minusMinutes(5)));
+        
+        CursorPage<PostResponse> page = feedService.getFeed("reader", cursor, 2);
+        
+        assertThat(page.getContent()).extracting(PostResponse::getId).containsExactly("post-a", "post-old");
+        assertThat(page.isHasMore()).isFalse();
+    }
+    
+    @Test
+    void getFeed_shouldMergePulledCelebrityPosts() {
+        when(setOperations.members(FeedService.CELEBRITIES_KEY_PREFIX + "reader")).thenReturn(new LinkedHashSet<>());
+        when(userServiceClient.getFollowing("reader", 0, 500)).thenReturn(List.of(
+                UserSummary.builder().id("friend").followersCount(10).build(),
+                UserSummary.builder().id("star").followersCount(1_000_000).build()));
+        when(zSetOperations.reverseRangeByScoreWithScores(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong()))
+                .thenReturn(tuples("friend-post", NOW.minusMinutes(2)));
+        when(postMetadataRepository.findLatestByAuthors(Set.of("star"), 21)).thenReturn(List.of(
+                metadata("star-new", NOW), metadata("star-old", NOW.minusMinutes(10))));
+        
+        CursorPage<PostResponse> page = feedService.getFeed("reader", null, 20);
+        
+        assertThat(page.getContent()).extracting(PostResponse::getId).containsExactly("star-new", "friend-post", "star-old");
+        verify(setOperations).add(FeedService.CELEBRITIES_KEY_PREFIX + "reader", "star");
+    }
+    
+    @Test
+    void getFeed_withCachedCelebrities_shouldNotCallUserService() {
+        when(setOperations.members(FeedService.CELEBRITIES_KEY_PREFIX + "reader")).thenReturn(new LinkedHashSet<>(List.of("")));
+        when(zSetOperations.reverseRangeByScoreWithScores(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong()))
+                .thenReturn(new LinkedHashSet<>());
+        
+        CursorPage<PostResponse> page = feedService.getFeed("reader", null, 20);
+        
+        assertThat(page.getContent()).isEmpty();
+        verify(userServiceClient, never()).getFollowing(anyString(), anyInt(), anyInt());
+        verify(postMetadataRepository, never()).findLatestByAuthors(any(), anyInt());
+    }
+    
+    private void noCelebrities() {
+        when(setOperations.members(anyString())).thenReturn(new LinkedHashSet<>(List.of("")));
+    }
+    
+    private static Set<ZSetOperations.TypedTuple<String>> tuples(Object... idsAndTimes) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new LinkedHashSet<>();
+        for (int i = 0; i < idsAndTimes.length; i += 2) {
+            tuples.add(new DefaultTypedTuple<>((String) idsAndTimes[i],
+                    FeedFanoutService.score((LocalDateTime) idsAndTimes[i + 1])));
+        }
+        return tuples;
+    }
+    
+    private static PostMetadata metadata(String id, LocalDateTime createdAt) {
+        return PostMetadata.builder().id(id).userId("star").isDeleted(false).createdAt(createdAt).build();
+    }
+}
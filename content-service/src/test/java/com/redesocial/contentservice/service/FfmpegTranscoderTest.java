@@ -0,0 +1,57 @@
+package com.redesocial.contentservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for FfmpegTranscoder
+ */
+class FfmpegTranscoderTest {
+    
+    private final FfmpegTranscoder transcoder = new FfmpegTranscoder();
+    
+    @Test
+    void parseProbe_shouldReadDimensionsAndDuration() throws IOException {
+        Transcoder.VideoInfo info = FfmpegTranscoder.parseProbe("width=1920\nheight=1080\nduration=12.480000\n");
+        
+        assertThat(info.getWidth()).isEqualTo(1920);
+        assertThat(info.getHeight()).isEqualTo(1080);
+        assertThat(info.getDurationSeconds()).isEqualTo(12.48);
+    }
+    
+    @Test
+    void parseProbe_rotatedPhoneVideo_shouldReportDisplayedSize() throws IOException {
+        Transcoder.VideoInfo info = FfmpegTranscoder.parseProbe(
+                "width=1920\r\nheight=1080\r\nTAG:rotate=90\r\nduration=N/A\r\n");
+        
+        assertThat(info.getWidth()).isEqualTo(1080);
+        assertThat(info.getHeight()).isEqualTo(1920);
+        assertThat(info.getDurationSeconds()).isNull();
+    }
+    
+    @Test
+    void parseProbe_withoutVideoStream_shouldFail() {
+        assertThatThrownBy(() -> FfmpegTranscoder.parseProbe("duration=3.0\n"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("No video stream");
+    }
+    
+    @Test
+    void transcodeCommand_shouldScaleShorterSideWithBoundedThreads() {
+        List<String> command = transcoder.transcodeCommand(Path.of("in"), Path.of("out.mp4"), 720);
+        
+        assertThat(command.get(0)).isEqualTo("ffmpeg");
+        assertThat(command).containsSubsequence("-i", "in")
+                .containsSubsequence("-vf", "scale='if(gt(iw,ih),-2,720)':'if(gt(iw,ih),720,-2)'")
+                .containsSubsequence("-c:v", "libx264")
+                .containsSubsequence("-threads", "2")
+                .containsSubsequence("-movflags", "+faststart");
+        assertThat(command.get(command.size() - 1)).isEqualTo("out.mp4");
+    }
+}
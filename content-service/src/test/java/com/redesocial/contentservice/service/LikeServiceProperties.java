@@ -9,6 +9,7 @@ import net.jqwik.api.*;
 import net.jqwik.api.constraints.AlphaChars;
 import net.jqwik.api.constraints.IntRange;
 import net.jqwik.api.constraints.StringLength;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
@@ -29,6 +30,8 @@ class LikeServiceProperties {
     private LikeRepository likeRepository;
     private PostMetadataRepository postMetadataRepository;
     private EventPublisher eventPublisher;
+    private EngagementCounterBuffer counterBuffer;
+    private LikeStatusCache likeStatusCache;
     private LikeService likeService;
     
     @BeforeEach
@@ -36,7 +39,10 @@ class LikeServiceProperties {
         likeRepository = Mockito.mock(LikeRepository.class);
         postMetadataRepository = Mockito.mock(PostMetadataRepository.class);
         eventPublisher = Mockito.mock(EventPublisher.class);
-        likeService = new LikeService(likeRepository, postMetadataRepository, eventPublisher);
+        counterBuffer = new EngagementCounterBuffer(postMetadataRepository, new SimpleMeterRegistry(),
+                Mockito.mock(PostCache.class));
+        likeStatusCache = Mockito.mock(LikeStatusCache.class);
+        likeService = new LikeService(likeRepository, postMetadataRepository, eventPublisher, counterBuffer, likeStatusCache);
     }
     
     /**
@@ -62,16 +68,15 @@ class LikeServiceProperties {
         when(postMetadataRepository.findById(postId)).thenReturn(Optional.of(postMetadata));
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(false);
         when(likeRepository.save(any(Like.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
         doNothing().when(eventPublisher).publishEvent(anyString(), any());
         
         // Act
         likeService.likePost(postId, userId);
         
         // Assert
-        assertThat(postMetadata.getLikesCount()).isEqualTo(initialLikesCount + 1);
+        assertThat(counterBuffer.pendingDelta(postId).getLikes()).isEqualTo(1);
         verify(likeRepository, times(1)).save(any(Like.class));
-        verify(postMetadataRepository, times(1)).save(postMetadata);
+        verify(postMetadataRepository, never()).save(any(PostMetadata.class));
     }
     
     /**
@@ -97,15 +102,14 @@ class LikeServiceProperties {
         when(postMetadataRepository.findById(postId)).thenReturn(Optional.of(postMetadata));
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(true);
         doNothing().when(likeRepository).deleteByPostIdAndUserId(postId, userId);
-        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
         
         // Act
         likeService.unlikePost(postId, userId);
         
         // Assert
-        assertThat(postMetadata.getLikesCount()).isEqualTo(initialLikesCount - 1);
+        assertThat(counterBuffer.pendingDelta(postId).getLikes()).isEqualTo(-1);
         verify(likeRepository, times(1)).deleteByPostIdAndUserId(postId, userId);
-        verify(postMetadataRepository, times(1)).save(postMetadata);
+        verify(postMetadataRepository, never()).save(any(PostMetadata.class));
     }
     
     /**
@@ -134,12 +138,11 @@ class LikeServiceProperties {
         // First like - not yet liked
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(false);
         when(likeRepository.save(any(Like.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
         doNothing().when(eventPublisher).publishEvent(anyString(), any());
         
         // Act - First like
         likeService.likePost(postId, userId);
-        int countAfterFirstLike = postMetadata.getLikesCount();
+        int countAfterFirstLike = counterBuffer.pendingDelta(postId).getLikes();
         
         // Arrange - Second like attempt (already liked)
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(true);
@@ -148,8 +151,8 @@ class LikeServiceProperties {
         likeService.likePost(postId, userId);
         
         // Assert - Counter should not change on second like
-        assertThat(postMetadata.getLikesCount()).isEqualTo(countAfterFirstLike);
-        assertThat(postMetadata.getLikesCount()).isEqualTo(initialLikesCount + 1);
+        assertThat(counterBuffer.pendingDelta(postId).getLikes()).isEqualTo(countAfterFirstLike);
+        assertThat(counterBuffer.pendingDelta(postId).getLikes()).isEqualTo(1);
         
         // Verify save was only called once (for the first like)
         verify(likeRepository, times(1)).save(any(Like.class));
@@ -179,7 +182,6 @@ class LikeServiceProperties {
         when(postMetadataRepository.findById(postId)).thenReturn(Optional.of(postMetadata));
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(false);
         when(likeRepository.save(any(Like.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
         doNothing().when(eventPublisher).publishEvent(anyString(), any());
         
         // Act
@@ -224,11 +226,10 @@ class LikeServiceProperties {
         // First unlike - like exists
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(true);
         doNothing().when(likeRepository).deleteByPostIdAndUserId(postId, userId);
-        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
         
         // Act - First unlike
         likeService.unlikePost(postId, userId);
-        int countAfterFirstUnlike = postMetadata.getLikesCount();
+        int countAfterFirstUnlike = counterBuffer.pendingDelta(postId).getLikes();
         
         // Arrange - Second unlike attempt (like no longer exists)
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(false);
@@ -237,8 +238,8 @@ class LikeServiceProperties {
         likeService.unlikePost(postId, userId);
         
         // Assert - Counter should not change on second unlike
-        assertThat(postMetadata.getLikesCount()).isEqualTo(countAfterFirstUnlike);
-        assertThat(postMetadata.getLikesCount()).isEqualTo(initialLikesCount - 1);
+        assertThat(counterBuffer.pendingDelta(postId).getLikes()).isEqualTo(countAfterFirstUnlike);
+        assertThat(counterBuffer.pendingDelta(postId).getLikes()).isEqualTo(-1);
         
         // Verify delete was only called once (for the first unlike)
         verify(likeRepository, times(1)).deleteByPostIdAndUserId(postId, userId);
@@ -246,7 +247,7 @@ class LikeServiceProperties {
     
     /**
      * Additional property: Counter never goes below zero
-     * Verifies that unliking when counter is 0 doesn't result in negative count
+     * Unliking only records a single decrement; the flush update clamps the stored count at 0
      */
     @Property(tries = 100)
     void counterNeverGoesBelowZero(
@@ -264,13 +265,13 @@ class LikeServiceProperties {
         when(postMetadataRepository.findById(postId)).thenReturn(Optional.of(postMetadata));
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(true);
         doNothing().when(likeRepository).deleteByPostIdAndUserId(postId, userId);
-        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
         
         // Act
         likeService.unlikePost(postId, userId);
         
-        // Assert - Counter should remain at 0, not go negative
+        // Assert - Exactly one decrement is buffered and the entity is never written directly
+        assertThat(counterBuffer.pendingDelta(postId).getLikes()).isEqualTo(-1);
         assertThat(postMetadata.getLikesCount()).isEqualTo(0);
-        assertThat(postMetadata.getLikesCount()).isGreaterThanOrEqualTo(0);
+        verify(postMetadataRepository, never()).save(any(PostMetadata.class));
     }
 }
@@ -1,16 +1,21 @@
 package com.redesocial.contentservice.service;
 
+import com.redesocial.contentservice.dto.BatchLikeRequest;
+import com.redesocial.contentservice.dto.BatchLikeResponse;
 import com.redesocial.contentservice.event.LikeCreatedEvent;
 import com.redesocial.contentservice.exception.PostNotFoundException;
 import com.redesocial.contentservice.model.jpa.Like;
 import com.redesocial.contentservice.model.jpa.PostMetadata;
 import com.redesocial.contentservice.repository.jpa.LikeRepository;
 import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -27,6 +32,8 @@ class LikeServiceTest {
     private LikeRepository likeRepository;
     private PostMetadataRepository postMetadataRepository;
     private EventPublisher eventPublisher;
+    private EngagementCounterBuffer counterBuffer;
+    private LikeStatusCache likeStatusCache;
     private LikeService likeService;
     
     @BeforeEach
@@ -34,7 +41,10 @@ class LikeServiceTest {
         likeRepository = Mockito.mock(LikeRepository.class);
         postMetadataRepository = Mockito.mock(PostMetadataRepository.class);
         eventPublisher = Mockito.mock(EventPublisher.class);
-        likeService = new LikeService(likeRepository, postMetadataRepository, eventPublisher);
+        counterBuffer = new EngagementCounterBuffer(postMetadataRepository, new SimpleMeterRegistry(),
+                Mockito.mock(PostCache.class));
+        likeStatusCache = Mockito.mock(LikeStatusCache.class);
+        likeService = new LikeService(likeRepository, postMetadataRepository, eventPublisher, counterBuffer, likeStatusCache);
     }
     
     @Test
@@ -64,7 +74,6 @@ class LikeServiceTest {
         when(postMetadataRepository.findById(postId)).thenReturn(Optional.of(postMetadata));
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(false);
         when(likeRepository.save(any(Like.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
         doNothing().when(eventPublisher).publishEvent(anyString(), any());
         
         // Act
@@ -72,8 +81,8 @@ class LikeServiceTest {
         
         // Assert
         verify(likeRepository).save(any(Like.class));
-        assertThat(postMetadata.getLikesCount()).isEqualTo(6);
-        verify(postMetadataRepository).save(postMetadata);
+        assertThat(counterBuffer.pendingDelta(postId).getLikes()).isEqualTo(1);
+        verify(postMetadataRepository, never()).save(any(PostMetadata.class));
         verify(eventPublisher).publishEvent(eq("like.created"), any(LikeCreatedEvent.class));
     }
     
@@ -96,8 +105,7 @@ class LikeServiceTest {
         
         // Assert
         verify(likeRepository, never()).save(any(Like.class));
-        assertThat(postMetadata.getLikesCount()).isEqualTo(5); // Counter unchanged
-        verify(postMetadataRepository, never()).save(any(PostMetadata.class));
+        assertThat(counterBuffer.pendingDelta(postId).isZero()).isTrue(); // Counter unchanged
         verify(eventPublisher, never()).publishEvent(anyString(), any());
     }
     
@@ -116,7 +124,6 @@ class LikeServiceTest {
         when(postMetadataRepository.findById(postId)).thenReturn(Optional.of(postMetadata));
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(false);
         when(likeRepository.save(any(Like.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
         doNothing().when(eventPublisher).publishEvent(anyString(), any());
         
         // Act
@@ -160,15 +167,14 @@ class LikeServiceTest {
         when(postMetadataRepository.findById(postId)).thenReturn(Optional.of(postMetadata));
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(true);
         doNothing().when(likeRepository).deleteByPostIdAndUserId(postId, userId);
-        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
         
         // Act
         likeService.unlikePost(postId, userId);
         
         // Assert
         verify(likeRepository).deleteByPostIdAndUserId(postId, userId);
-        assertThat(postMetadata.getLikesCount()).isEqualTo(4);
-        verify(postMetadataRepository).save(postMetadata);
+        assertThat(counterBuffer.pendingDelta(postId).getLikes()).isEqualTo(-1);
+        verify(postMetadataRepository, never()).save(any(PostMetadata.class));
     }
     
     @Test
@@ -190,12 +196,11 @@ class LikeServiceTest {
         
         // Assert
         verify(likeRepository, never()).deleteByPostIdAndUserId(anyString(), anyString());
-        assertThat(postMetadata.getLikesCount()).isEqualTo(5); // Counter unchanged
-        verify(postMetadataRepository, never()).save(any(PostMetadata.class));
+        assertThat(counterBuffer.pendingDelta(postId).isZero()).isTrue(); // Counter unchanged
     }
     
     @Test
-    void unlikePost_whenCounterIsZero_shouldNotGoBelowZero() {
+    void unlikePost_whenCounterIsZero_shouldLeaveClampToFlush() {
         // Arrange
         String postId = "post123";
         String userId = "user456";
@@ -208,14 +213,14 @@ class LikeServiceTest {
         when(postMetadataRepository.findById(postId)).thenReturn(Optional.of(postMetadata));
         when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(true);
         doNothing().when(likeRepository).deleteByPostIdAndUserId(postId, userId);
-        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
         
         // Act
         likeService.unlikePost(postId, userId);
         
         // Assert
-        assertThat(postMetadata.getLikesCount()).isEqualTo(0); // Should not go negative
-        verify(postMetadataRepository).save(postMetadata);
+        // The decrement is handed to the flush, whose update clamps the stored count at zero
+        assertThat(counterBuffer.pendingDelta(postId).getLikes()).isEqualTo(-1);
+        assertThat(postMetadata.getLikesCount()).isEqualTo(0);
     }
     
     @Test
@@ -231,7 +236,6 @@ class LikeServiceTest {
         when(postMetadataRepository.findById(postId)).thenReturn(Optional.of(postMetadata));
         when(likeRepository.existsByPostIdAndUserId(eq(postId), anyString())).thenReturn(false);
         when(likeRepository.save(any(Like.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
         doNothing().when(eventPublisher).publishEvent(anyString(), any());
         
         // Act
@@ -240,8 +244,123 @@ class LikeServiceTest {
         likeService.likePost(postId, "user3");
         
         // Assert
-        assertThat(postMetadata.getLikesCount()).isEqualTo(3);
+        assertThat(counterBuffer.pendingDelta(postId).getLikes()).isEqualTo(3);
         verify(likeRepository, times(3)).save(any(Like.class));
         verify(eventPublisher, times(3)).publishEvent(eq("like.created"), any(LikeCreatedEvent.class));
     }
+    
+    @Test
+    void applyLikeBatch_shouldUpsertLikesAndFoldCountersPerPost() {
+        // Arrange
+        String userId = "user456";
+        PostMetadata post1 = PostMetadata.builder().id("post1").userId("author1").build();
+        PostMetadata post2 = PostMetadata.builder().id("post2").userId("author2").build();
+        PostMetadata post3 = PostMetadata.builder().id("post3").userId("author3").build();
+        
+        when(postMetadataRepository.findAllById(any())).thenReturn(List.of(post1, post2, post3));
+        when(likeRepository.insertLikesIgnoringExisting(eq(userId), any())).thenReturn(List.of("post1"));
+        when(likeRepository.deleteLikesReturningPostIds(eq(userId), any())).thenReturn(List.of("post3"));
+        
+        List<BatchLikeRequest.LikeAction> actions = List.of(
+                action("post1", BatchLikeRequest.ActionType.LIKE),
+                action("post2", BatchLikeRequest.ActionType.LIKE),
+                action("post3", BatchLikeRequest.ActionType.LIKE),
+                action("post3", BatchLikeRequest.ActionType.UNLIKE));
+        
+        // Act
+        BatchLikeResponse response = likeService.applyLikeBatch(userId, actions);
+        
+        // Assert
+        verify(likeRepository).insertLikesIgnoringExisting(userId, List.of("post1", "post2"));
+        verify(likeRepository).deleteLikesReturningPostIds(userId, List.of("post3"));
+        verify(likeRepository, never()).save(any(Like.class));
+        
+        assertThat(counterBuffer.pendingDelta("post1").getLikes()).isEqualTo(1);
+        assertThat(counterBuffer.pendingDelta("post2").isZero()).isTrue();
+        assertThat(counterBuffer.pendingDelta("post3").getLikes()).isEqualTo(-1);
+        verify(eventPublisher, times(1)).publishEvent(eq("like.created"), any(LikeCreatedEvent.class));
+        verify(likeStatusCache).recordLike("post1", userId);
+        verify(likeStatusCache).recordUnlike("post3", userId);
+        
+        assertThat(response.getResults()).extracting(BatchLikeResponse.LikeResult::getStatus).containsExactly(
+                BatchLikeResponse.Status.LIKED,
+                BatchLikeResponse.Status.ALREADY_LIKED,
+                BatchLikeResponse.Status.UNLIKED);
+    }
+    
+    @Test
+    void applyLikeBatch_withUnknownPost_shouldReportNotFoundAndSkipIt() {
+        // Arrange
+        String userId = "user456";
+        when(postMetadataRepository.findAllById(any())).thenReturn(List.of());
+        when(likeRepository.insertLikesIgnoringExisting(eq(userId), any())).thenReturn(List.of());
+        when(likeRepository.deleteLikesReturningPostIds(eq(userId), any())).thenReturn(List.of());
+        
+        // Act
+        BatchLikeResponse response = likeService.applyLikeBatch(userId,
+                List.of(action("missing", BatchLikeRequest.ActionType.LIKE)));
+        
+        // Assert
+        verify(likeRepository).insertLikesIgnoringExisting(userId, List.of());
+        assertThat(response.getResults()).hasSize(1);
+        assertThat(response.getResults().get(0).getStatus()).isEqualTo(BatchLikeResponse.Status.POST_NOT_FOUND);
+        verify(eventPublisher, never()).publishEvent(anyString(), any());
+    }
+    
+    @Test
+    void likePost_shouldRecordLikeInStatusCache() {
+        // Arrange
+        String postId = "post123";
+        String userId = "user456";
+        PostMetadata postMetadata = PostMetadata.builder().id(postId).userId("author789").build();
+        when(postMetadataRepository.findById(postId)).thenReturn(Optional.of(postMetadata));
+        when(likeRepository.existsByPostIdAndUserId(postId, userId)).thenReturn(false);
+        
+        // Act
+        likeService.likePost(postId, userId);
+        
+        // Assert
+        verify(likeStatusCache).recordLike(postId, userId);
+    }
+    
+    @Test
+    void getLikeStatus_shouldSkipExactLookupForFilterNegatives() {
+        // Arrange
+        String userId = "user456";
+        when(likeStatusCache.mightHaveLiked("post1", userId)).thenReturn(false);
+        when(likeStatusCache.mightHaveLiked("post2", userId)).thenReturn(true);
+        when(likeStatusCache.mightHaveLiked("post3", userId)).thenReturn(null);
+        when(likeRepository.findLikedPostIds(eq(userId), any())).thenReturn(List.of("post2"));
+        
+        // Act
+        Map<String, Boolean> status = likeService.getLikeStatus(userId, List.of("post1", "post2", "post3"));
+        
+        // Assert
+        verify(likeRepository).findLikedPostIds(userId, List.of("post2", "post3"));
+        assertThat(status).containsExactly(
+                Map.entry("post1", false),
+                Map.entry("post2", true),
+                Map.entry("post3", false));
+    }
+    
+    @Test
+    void getLikeStatus_whenAllFiltersNegative_shouldNotQueryDatabase() {
+        // Arrange
+        String userId = "user456";
+        when(likeStatusCache.mightHaveLiked(anyString(), eq(userId))).thenReturn(false);
+        
+        // Act
+        Map<String, Boolean> status = likeService.getLikeStatus(userId, List.of("post1", "post2"));
+        
+        // Assert
+        verify(likeRepository, never()).findLikedPostIds(anyString(), any());
+        assertThat(status).containsOnlyKeys("post1", "post2").doesNotContainValue(true);
+    }
+    
+    private BatchLikeRequest.LikeAction action(String postId, BatchLikeRequest.ActionType type) {
+        return BatchLikeRequest.LikeAction.builder()
+                .postId(postId)
+                .action(type)
+                .build();
+    }
 }
@@ -0,0 +1,112 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.config.RedisConfig;
+import com.redesocial.contentservice.repository.jpa.LikeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LikeStatusCache
+ */
+class LikeStatusCacheTest {
+    
+    private LikeRepository likeRepository;
+    private StringRedisTemplate redisTemplate;
+    private LikeStatusCache likeStatusCache;
+    
+    @BeforeEach
+    void setUp() {
+        likeRepository = Mockito.mock(LikeRepository.class);
+        redisTemplate = Mockito.mock(StringRedisTemplate.class);
+        likeStatusCache = new LikeStatusCache(likeRepository, redisTemplate,
+                Mockito.mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry());
+    }
+    
+    @Test
+    void mightHaveLiked_onMiss_shouldReturnNullAndLoadFilter() {
+        when(likeRepository.countByPostId("post1")).thenReturn(2L);
+        when(likeRepository.findUserIdsByPostId("post1")).thenReturn(List.of("alice", "bob"));
+        
+        assertThat(likeStatusCache.mightHaveLiked("post1", "alice")).isNull();
+        awaitFilter("post1");
+        
+        assertThat(likeStatusCache.mightHaveLiked("post1", "alice")).isTrue();
+        assertThat(likeStatusCache.mightHaveLiked("post1", "carol")).isFalse();
+    }
+    
+    @Test
+    void recordLike_shouldUpdateFilterAndBroadcast() {
+        when(likeRepository.countByPostId("post1")).thenReturn(0L);
+        when(likeRepository.findUserIdsByPostId("post1")).thenReturn(List.of());
+        likeStatusCache.mightHaveLiked("post1", "alice");
+        awaitFilter("post1");
+        
+        likeStatusCache.recordLike("post1", "alice");
+        
+        assertThat(likeStatusCache.mightHaveLiked("post1", "alice")).isTrue();
+        verify(redisTemplate).convertAndSend(eq(RedisConfig.LIKES_CHANNEL), endsWith("|post1:alice"));
+    }
+    
+    @Test
+    void onRemoteLike_shouldUpdateFilterLoadedOnThisReplica() {
+        when(likeRepository.countByPostId("post1")).thenReturn(0L);
+        when(likeRepository.findUserIdsByPostId("post1")).thenReturn(List.of());
+        likeStatusCache.mightHaveLiked("post1", "alice");
+        awaitFilter("post1");
+        
+        likeStatusCache.onRemoteLike(message("other-replica|post1:alice"), null);
+        
+        assertThat(likeStatusCache.mightHaveLiked("post1", "alice")).isTrue();
+    }
+    
+    @Test
+    void onRemoteLike_shouldIgnoreThisReplicasOwnBroadcasts() {
+        when(likeRepository.countByPostId("post1")).thenReturn(0L);
+        when(likeRepository.findUserIdsByPostId("post1")).thenReturn(List.of());
+        likeStatusCache.mightHaveLiked("post1", "alice");
+        awaitFilter("post1");
+        String instanceId = (String) ReflectionTestUtils.getField(likeStatusCache, "instanceId");
+        
+        likeStatusCache.onRemoteLike(message(instanceId + "|post1:alice"), null);
+        
+        assertThat(likeStatusCache.mightHaveLiked("post1", "alice")).isFalse();
+    }
+    
+    @Test
+    void mightHaveLiked_forPostWithTooManyLikers_shouldAlwaysFallBack() {
+        when(likeRepository.countByPostId("viral")).thenReturn(10_000_000L);
+        
+        likeStatusCache.mightHaveLiked("viral", "alice");
+        verify(likeRepository, timeout(2000)).countByPostId("viral");
+        
+        assertThat(likeStatusCache.mightHaveLiked("viral", "alice")).isNull();
+        verify(likeRepository, never()).findUserIdsByPostId("viral");
+    }
+    
+    private void awaitFilter(String postId) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (likeStatusCache.mightHaveLiked(postId, "probe") == null) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+    
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(RedisConfig.LIKES_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
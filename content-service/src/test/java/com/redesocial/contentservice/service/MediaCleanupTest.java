@@ -0,0 +1,109 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.repository.jpa.MediaObjectRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MediaCleanupTest {
+
+    private static final String BUCKET = "https://bucket.s3.amazonaws.com/";
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MediaObjectRepository mediaObjectRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private MediaCleanup mediaCleanup;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        mediaCleanup = new MediaCleanup(s3Client, mongoTemplate, mediaObjectRepository, meterRegistry);
+        ReflectionTestUtils.setField(mediaCleanup, "bucketName", "bucket");
+
+        when(mongoTemplate.findDistinct(any(Query.class), anyString(), eq(Post.class), eq(String.class)))
+                .thenReturn(List.of());
+        when(mongoTemplate.findDistinct(any(Query.class), anyString(), eq(Story.class), eq(String.class)))
+                .thenReturn(List.of());
+        when(mediaObjectRepository.findByObjectKeyIn(any())).thenReturn(List.of());
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder().build());
+    }
+
+    @Test
+    void deleteMedia_keepsAThumbnailAnotherCopyOfTheBytesUses() {
+        // Arrange
+        when(mongoTemplate.findDistinct(any(Query.class), eq("mediaUrl.thumbnailUrl"), eq(Story.class), eq(String.class)))
+                .thenReturn(List.of(BUCKET + "media/thumbnails/a.jpg"));
+
+        // Act
+        int deleted = mediaCleanup.deleteMedia(List.of(Post.MediaUrl.builder()
+                .url(BUCKET + "media/images/a")
+                .thumbnailUrl(BUCKET + "media/thumbnails/a.jpg")
+                .build()), List.of("p1"), List.of(), "content.post.purge");
+
+        // Assert
+        assertThat(deleted).isEqualTo(1);
+        assertThat(deletedKeys()).containsExactly("media/images/a");
+        verify(mediaObjectRepository).deleteByObjectKeyIn(argThat(keys -> keys.contains("media/images/a")));
+    }
+
+    @Test
+    void deleteObjects_countsFailedKeysAndGoesOnWithTheNextChunk() {
+        // Arrange
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            keys.add("media/images/" + i);
+        }
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class)))
+                .thenThrow(new RuntimeException("S3 unavailable"))
+                .thenReturn(DeleteObjectsResponse.builder()
+                        .errors(S3Error.builder().key("media/images/1200").message("Access Denied").build())
+                        .build());
+
+        // Act
+        int failed = mediaCleanup.deleteObjects(keys);
+
+        // Assert
+        assertThat(failed).isEqualTo(1001);
+        verify(s3Client, times(2)).deleteObjects(any(DeleteObjectsRequest.class));
+    }
+
+    private List<String> deletedKeys() {
+        ArgumentCaptor<DeleteObjectsRequest> deletes = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, atLeastOnce()).deleteObjects(deletes.capture());
+        return deletes.getAllValues().stream()
+                .flatMap(request -> request.delete().objects().stream())
+                .map(ObjectIdentifier::key)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,186 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.dto.MediaJobResponse;
+import com.redesocial.contentservice.exception.MediaJobNotFoundException;
+import com.redesocial.contentservice.exception.MediaQueueFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for MediaJobService
+ */
+class MediaJobServiceTest {
+
+    private final Map<String, Map<Object, Object>> hashes = new ConcurrentHashMap<>();
+    private SimpleMeterRegistry meterRegistry;
+    private MediaJobService mediaJobService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        mediaJobService = new MediaJobService(redis(), meterRegistry);
+        ReflectionTestUtils.setField(mediaJobService, "workers", 1);
+        ReflectionTestUtils.setField(mediaJobService, "queueCapacity", 2);
+        mediaJobService.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        mediaJobService.shutdown();
+    }
+
+    @Test
+    void submit_shouldQueueJobAndPublishResultWhenDone() throws Exception {
+        MediaJobResponse queued = mediaJobService.submit(mediaJobService.reserve(), "thumbnail", "user1",
+                progress -> {
+                    progress.update(50);
+                    return Map.of("thumbnailUrl", "https://bucket/thumb.jpg", "width", "640");
+                });
+
+        assertThat(queued.getStatus()).isEqualTo(MediaJobResponse.Status.QUEUED);
+        assertThat(mediaJobService.awaitIdle(5000)).isTrue();
+
+        MediaJobResponse done = mediaJobService.getJob(queued.getJobId());
+        assertThat(done.getType()).isEqualTo("thumbnail");
+        assertThat(done.getStatus()).isEqualTo(MediaJobResponse.Status.COMPLETED);
+        assertThat(done.getProgress()).isEqualTo(100);
+        assertThat(done.getResult()).containsEntry("thumbnailUrl", "https://bucket/thumb.jpg")
+                .containsEntry("width", "640");
+        assertThat(done.getCreatedAt()).isNotNull();
+        assertThat(meterRegistry.get("content.media.jobs.processing").tag("outcome", "completed").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void submit_whenTaskFails_shouldMarkJobFailed() throws Exception {
+        MediaJobResponse queued = mediaJobService.submit(mediaJobService.reserve(), "thumbnail", "user1",
+                progress -> {
+                    throw new IOException("Unsupported image");
+                });
+
+        assertThat(mediaJobService.awaitIdle(5000)).isTrue();
+
+        MediaJobResponse failed = mediaJobService.getJob(queued.getJobId());
+        assertThat(failed.getStatus()).isEqualTo(MediaJobResponse.Status.FAILED);
+        assertThat(failed.getError()).isEqualTo("Unsupported image");
+        assertThat(meterRegistry.get("content.media.jobs.processing").tag("outcome", "failed").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void submit_shouldReportProgressWhileProcessing() throws Exception {
+        CountDownLatch reported = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MediaJobResponse queued = mediaJobService.submit(mediaJobService.reserve(), "thumbnail", "user1",
+                progress -> {
+                    progress.update(40);
+                    reported.countDown();
+                    release.await();
+                    return Map.of();
+                });
+
+        reported.await();
+        MediaJobResponse running = mediaJobService.getJob(queued.getJobId());
+        assertThat(running.getStatus()).isEqualTo(MediaJobResponse.Status.PROCESSING);
+        assertThat(running.getProgress()).isEqualTo(40);
+
+        release.countDown();
+        assertThat(mediaJobService.awaitIdle(5000)).isTrue();
+    }
+
+    @Test
+    void reserve_whenWorkersAndQueueAreFull_shouldReject() {
+        // One worker plus two queue slots
+        mediaJobService.reserve();
+        mediaJobService.reserve();
+        MediaJobService.Reservation last = mediaJobService.reserve();
+
+        assertThatThrownBy(() -> mediaJobService.reserve()).isInstanceOf(MediaQueueFullException.class);
+        assertThat(meterRegistry.get("content.media.jobs.rejected").counter().count()).isEqualTo(1.0);
+
+        last.release();
+        last.release();
+        mediaJobService.reserve();
+        assertThatThrownBy(() -> mediaJobService.reserve()).isInstanceOf(MediaQueueFullException.class);
+    }
+
+    @Test
+    void submit_shouldExposeQueueDepth() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            mediaJobService.submit(mediaJobService.reserve(), "thumbnail", "user1", progress -> {
+                release.await();
+                return Map.of();
+            });
+        }
+
+        assertThat(meterRegistry.get("content.media.jobs.queued").gauge().value()).isEqualTo(2.0);
+
+        release.countDown();
+        assertThat(mediaJobService.awaitIdle(5000)).isTrue();
+        assertThat(meterRegistry.get("content.media.jobs.queued").gauge().value()).isEqualTo(0.0);
+    }
+
+    @Test
+    void getJob_unknownId_shouldThrowNotFound() {
+        assertThatThrownBy(() -> mediaJobService.getJob("missing"))
+                .isInstanceOf(MediaJobNotFoundException.class)
+                .hasMessageContaining("missing");
+    }
+
+    @Test
+    void submit_whenRedisIsDown_shouldStillRunJob() throws Exception {
+        StringRedisTemplate failing = Mockito.mock(StringRedisTemplate.class);
+        when(failing.opsForHash()).thenThrow(new RuntimeException("Redis down"));
+        MediaJobService isolated = new MediaJobService(failing, meterRegistry);
+        isolated.start();
+        CountDownLatch ran = new CountDownLatch(1);
+
+        isolated.submit(isolated.reserve(), "thumbnail", "user1", progress -> {
+            ran.countDown();
+            return Map.of();
+        });
+
+        assertThat(isolated.awaitIdle(5000)).isTrue();
+        assertThat(ran.getCount()).isZero();
+        assertThat(meterRegistry.get("content.media.jobs.status.failures").counter().count()).isGreaterThan(0.0);
+        isolated.shutdown();
+    }
+
+    /**
+     * A StringRedisTemplate mock whose hash operations are backed by a map.
+     */
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate redis() {
+        StringRedisTemplate template = Mockito.mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = Mockito.mock(HashOperations.class);
+        when(template.opsForHash()).thenReturn(hashOperations);
+
+        doAnswer(invocation -> {
+            hashes.computeIfAbsent(invocation.getArgument(0), key -> new ConcurrentHashMap<>())
+                    .putAll(invocation.getArgument(1));
+            return null;
+        }).when(hashOperations).putAll(anyString(), anyMap());
+        when(hashOperations.entries(anyString())).thenAnswer(invocation ->
+                new HashMap<>(hashes.getOrDefault(invocation.<String>getArgument(0), Map.of())));
+        return template;
+    }
+}
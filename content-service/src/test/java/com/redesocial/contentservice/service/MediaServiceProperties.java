@@ -1,17 +1,27 @@
 package com.redesocial.contentservice.service;
 
+import com.redesocial.contentservice.model.jpa.TranscodeJob;
+import com.redesocial.contentservice.repository.jpa.MediaObjectRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import net.jqwik.api.*;
 import net.jqwik.api.constraints.AlphaChars;
 import net.jqwik.api.constraints.StringLength;
 import org.junit.jupiter.api.BeforeEach;
 import org.mockito.Mockito;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 
 import java.io.IOException;
 import java.util.Map;
@@ -19,6 +29,8 @@ import java.util.Map;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
@@ -28,12 +40,29 @@ import static org.mockito.Mockito.*;
 class MediaServiceProperties {
     
     private S3Client s3Client;
+    private MediaJobService mediaJobService;
     private MediaService mediaService;
     
     @BeforeEach
     void setUp() {
         s3Client = Mockito.mock(S3Client.class);
-        mediaService = new MediaService(s3Client);
+        mediaJobService = new MediaJobService(Mockito.mock(StringRedisTemplate.class, RETURNS_DEEP_STUBS),
+                new SimpleMeterRegistry());
+        mediaJobService.start();
+        MediaObjectRepository mediaObjectRepository = Mockito.mock(MediaObjectRepository.class);
+        when(mediaObjectRepository.insertIfAbsent(anyString(), anyString(), anyString(), anyLong())).thenReturn(1);
+        TranscodeService transcodeService = Mockito.mock(TranscodeService.class);
+        when(transcodeService.enqueue(anyString(), anyString())).thenAnswer(invocation -> TranscodeJob.builder()
+                .id(1L)
+                .sourceKey(invocation.getArgument(0))
+                .status(TranscodeJob.Status.PENDING)
+                .build());
+        when(transcodeService.plannedRenditionUrls(anyString())).thenAnswer(invocation -> Map.of(
+                "480p", "https://test-bucket.s3.amazonaws.com/media/renditions/" + invocation.getArgument(0) + "/480p.mp4",
+                "720p", "https://test-bucket.s3.amazonaws.com/media/renditions/" + invocation.getArgument(0) + "/720p.mp4",
+                "1080p", "https://test-bucket.s3.amazonaws.com/media/renditions/" + invocation.getArgument(0) + "/1080p.mp4"));
+        mediaService = new MediaService(s3Client, new S3MultipartUploader(s3Client, new SimpleMeterRegistry()),
+                mediaJobService, transcodeService, mediaObjectRepository, new SimpleMeterRegistry());
         
         ReflectionTestUtils.setField(mediaService, "bucketName", "test-bucket");
         ReflectionTestUtils.setField(mediaService, "maxImageSizeMb", 10);
@@ -45,6 +74,13 @@ class MediaServiceProperties {
         
         when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
                 .thenReturn(PutObjectResponse.builder().build());
+        // Files larger than one upload part are sent as multipart uploads
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompleteMultipartUploadResponse.builder().build());
     }
     
     /**
@@ -58,9 +94,10 @@ class MediaServiceProperties {
     void validImageUploadCreatesThumbnail(
             @ForAll("validImageFile") MultipartFile imageFile,
             @ForAll @AlphaChars @StringLength(min = 5, max = 36) String userId
-    ) throws IOException {
+    ) throws IOException, InterruptedException {
         // Act
         Map<String, String> result = mediaService.uploadImageWithThumbnail(imageFile, userId);
+        assertThat(mediaJobService.awaitIdle(10000)).isTrue();
         
         // Assert
         assertThat(result).isNotNull();
@@ -70,9 +107,10 @@ class MediaServiceProperties {
         assertThat(result.get("imageUrl")).contains("test-bucket");
         assertThat(result.get("thumbnailUrl")).contains("test-bucket");
         assertThat(result.get("thumbnailUrl")).contains("thumbnails");
+        assertThat(result.get("jobId")).isNotEmpty();
         
-        // Verify S3 was called twice (once for image, once for thumbnail)
-        verify(s3Client, times(2)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        // Verify S3 received two objects (the image, whole or in parts, and the thumbnail)
+        assertThat(objectsWritten()).isEqualTo(2);
         
         // Reset mock for next iteration
         Mockito.clearInvocations(s3Client);
@@ -103,8 +141,8 @@ class MediaServiceProperties {
         assertThat(result.get("originalUrl")).contains("test-bucket");
         assertThat(result.get("originalUrl")).contains("videos");
         
-        // Verify S3 was called at least once for original upload
-        verify(s3Client, atLeastOnce()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        // Verify S3 received the original upload, whole or in parts
+        assertThat(objectsWritten()).isGreaterThanOrEqualTo(1);
         
         // Reset mock for next iteration
         Mockito.clearInvocations(s3Client);
@@ -160,6 +198,16 @@ class MediaServiceProperties {
         Mockito.clearInvocations(s3Client);
     }
     
+    /**
+     * Objects written to S3 so far: single PUTs plus completed multipart uploads
+     */
+    private long objectsWritten() {
+        return Mockito.mockingDetails(s3Client).getInvocations().stream()
+                .map(invocation -> invocation.getMethod().getName())
+                .filter(name -> name.equals("putObject") || name.equals("completeMultipartUpload"))
+                .count();
+    }
+    
     // ==================== Arbitraries (Generators) ====================
     
     /**
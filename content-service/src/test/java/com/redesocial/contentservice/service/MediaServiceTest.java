@@ -1,24 +1,61 @@
 package com.redesocial.contentservice.service;
 
+import com.redesocial.contentservice.exception.MediaQueueFullException;
+import com.redesocial.contentservice.model.jpa.MediaObject;
+import com.redesocial.contentservice.model.jpa.TranscodeJob;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.repository.jpa.MediaObjectRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,11 +64,24 @@ class MediaServiceTest {
     @Mock
     private S3Client s3Client;
     
+    @Mock
+    private MediaObjectRepository mediaObjectRepository;
+    
+    @Mock
+    private TranscodeService transcodeService;
+    
+    private SimpleMeterRegistry meterRegistry;
+    private MediaJobService mediaJobService;
     private MediaService mediaService;
     
     @BeforeEach
     void setUp() {
-        mediaService = new MediaService(s3Client);
+        mediaJobService = new MediaJobService(Mockito.mock(StringRedisTemplate.class, RETURNS_DEEP_STUBS),
+                new SimpleMeterRegistry());
+        mediaJobService.start();
+        meterRegistry = new SimpleMeterRegistry();
+        mediaService = new MediaService(s3Client, new S3MultipartUploader(s3Client, meterRegistry),
+                mediaJobService, transcodeService, mediaObjectRepository, meterRegistry);
         ReflectionTestUtils.setField(mediaService, "bucketName", "test-bucket");
         ReflectionTestUtils.setField(mediaService, "maxImageSizeMb", 10);
         ReflectionTestUtils.setField(mediaService, "maxVideoSizeMb", 100);
@@ -42,10 +92,31 @@ class MediaServiceTest {
         
         when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
                 .thenReturn(PutObjectResponse.builder().build());
+        lenient().when(mediaObjectRepository.insertIfAbsent(anyString(), anyString(), anyString(), anyLong()))
+                .thenReturn(1);
+        lenient().when(transcodeService.enqueue(anyString(), anyString())).thenAnswer(invocation -> TranscodeJob.builder()
+                .id(7L)
+                .sourceKey(invocation.getArgument(0))
+                .digest(invocation.getArgument(1))
+                .status(TranscodeJob.Status.PENDING)
+                .build());
+        lenient().when(transcodeService.plannedRenditionUrls(anyString())).thenAnswer(invocation -> {
+            Map<String, String> urls = new HashMap<>();
+            for (String label : List.of("480p", "720p", "1080p")) {
+                urls.put(label, "https://test-bucket.s3.amazonaws.com/media/renditions/"
+                        + invocation.getArgument(0) + "/" + label + ".mp4");
+            }
+            return urls;
+        });
+    }
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        mediaJobService.shutdown();
     }
     
     @Test
-    void uploadImageWithThumbnail_ValidImage_Success() throws IOException {
+    void uploadImageWithThumbnail_ValidImage_Success() throws Exception {
         // Create a small test image (1x1 pixel PNG)
         byte[] imageBytes = createSmallPngImage();
         MockMultipartFile file = new MockMultipartFile(
@@ -62,8 +133,10 @@ class MediaServiceTest {
         assertTrue(result.containsKey("thumbnailUrl"));
         assertTrue(result.get("imageUrl").contains("test-bucket"));
         assertTrue(result.get("thumbnailUrl").contains("test-bucket"));
+        assertNotNull(result.get("jobId"));
         
-        // Verify S3 was called twice (once for image, once for thumbnail)
+        // The thumbnail is written by the media job once it has run
+        assertTrue(mediaJobService.awaitIdle(5000));
         verify(s3Client, times(2)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
     }
     
@@ -125,7 +198,7 @@ class MediaServiceTest {
     }
     
     @Test
-    void uploadVideoWithResolutions_ValidVideo_Success() throws IOException {
+    void uploadVideoWithResolutions_ValidVideo_Success() throws Exception {
         byte[] videoBytes = "fake video content".getBytes();
         MockMultipartFile file = new MockMultipartFile(
                 "file",
@@ -141,9 +214,13 @@ class MediaServiceTest {
         assertTrue(result.containsKey("480p"));
         assertTrue(result.containsKey("720p"));
         assertTrue(result.containsKey("1080p"));
+        assertEquals("PENDING", result.get("status"));
+        assertEquals("7", result.get("transcodeJobId"));
+        assertTrue(result.get("720p").contains("media/renditions/" + sha256Hex(videoBytes)));
         
-        // Verify S3 was called once for original upload
+        // Verify S3 was called once for original upload; renditions are transcoded later
         verify(s3Client, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(transcodeService).enqueue(matches("media/videos/[0-9a-f-]{36}"), eq(sha256Hex(videoBytes)));
     }
     
     @Test
@@ -238,6 +315,346 @@ class MediaServiceTest {
         verify(s3Client, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
     }
     
+    @Test
+    void uploadImageWithThumbnail_ReturnsBeforeThumbnailIsRendered() throws Exception {
+        ReflectionTestUtils.setField(mediaJobService, "workers", 1);
+        mediaJobService.shutdown();
+        mediaJobService.start();
+        CountDownLatch release = new CountDownLatch(1);
+        // Occupy the only worker so the thumbnail job stays queued
+        mediaJobService.submit(mediaJobService.reserve(), "test", "user123", progress -> {
+            release.await();
+            return Map.of();
+        });
+        MockMultipartFile file = new MockMultipartFile("file", "test.png", "image/png", createSmallPngImage());
+        
+        Map<String, String> result = mediaService.uploadImageWithThumbnail(file, "user123");
+        
+        assertEquals("QUEUED", result.get("status"));
+        verify(s3Client, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        
+        release.countDown();
+        assertTrue(mediaJobService.awaitIdle(5000));
+        verify(s3Client, times(2)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+    
+    @Test
+    void uploadImageWithThumbnail_QueueFull_RejectsBeforeUploading() throws InterruptedException {
+        ReflectionTestUtils.setField(mediaJobService, "workers", 1);
+        ReflectionTestUtils.setField(mediaJobService, "queueCapacity", 1);
+        mediaJobService.shutdown();
+        mediaJobService.start();
+        mediaJobService.reserve();
+        mediaJobService.reserve();
+        MockMultipartFile file = new MockMultipartFile("file", "test.png", "image/png", createSmallPngImage());
+        
+        assertThrows(MediaQueueFullException.class, () -> mediaService.uploadImageWithThumbnail(file, "user123"));
+        
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+    
+    @Test
+    void processImage_ShouldRecordDimensionsAndDeleteSpooledFile() throws IOException {
+        Path source = Files.createTempFile("media-test-", ".png");
+        Files.write(source, createSmallPngImage());
+        List<Integer> progress = new ArrayList<>();
+        
+        Map<String, String> result = mediaService.processImage(source, "media/thumbnails/t.jpg", Map.of(), progress::add);
+        
+        assertEquals("1", result.get("width"));
+        assertEquals("1", result.get("height"));
+        assertEquals("png", result.get("format"));
+        assertTrue(result.get("thumbnailUrl").endsWith("media/thumbnails/t.jpg"));
+        assertEquals(List.of(20, 30), progress);
+        assertFalse(Files.exists(source));
+    }
+    
+    @Test
+    void processImage_ShouldRenderEachVariantFromOneDecode() throws IOException {
+        Path source = Files.createTempFile("media-test-", ".png");
+        Files.write(source, createPng(2000, 1000));
+        Map<Post.MediaVariant, String> variants = new HashMap<>();
+        variants.put(Post.MediaVariant.builder().width(640).format("jpeg").build(), "media/variants/h/640w.jpg");
+        variants.put(Post.MediaVariant.builder().width(1080).format("jpeg").build(), "media/variants/h/1080w.jpg");
+        
+        Map<String, String> result = mediaService.processImage(source, "media/thumbnails/t.jpg", variants, progress -> { });
+        
+        assertEquals("640x320", result.get("variant:640w_jpeg"));
+        assertEquals("1080x540", result.get("variant:1080w_jpeg"));
+        ArgumentCaptor<PutObjectRequest> captor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3Client, times(3)).putObject(captor.capture(), any(RequestBody.class));
+        assertThat(captor.getAllValues()).extracting(PutObjectRequest::key)
+                .containsExactlyInAnyOrder("media/thumbnails/t.jpg", "media/variants/h/640w.jpg", "media/variants/h/1080w.jpg");
+        assertThat(captor.getAllValues()).allMatch(request -> request.cacheControl().contains("immutable"));
+    }
+    
+    @Test
+    void uploadImageMedia_SameImageTwice_ReusesContentAddressedKeys() throws Exception {
+        byte[] png = createPng(2000, 1000);
+        
+        Post.MediaUrl first = mediaService.uploadImageMedia(
+                new MockMultipartFile("file", "a.png", "image/png", png), "user123");
+        Post.MediaUrl second = mediaService.uploadImageMedia(
+                new MockMultipartFile("file", "b.png", "image/png", png), "user456");
+        
+        assertEquals(2000, first.getWidth());
+        assertEquals(1000, first.getHeight());
+        assertNotNull(first.getJobId());
+        assertNotEquals(first.getUrl(), second.getUrl());
+        assertEquals(first.getThumbnailUrl(), second.getThumbnailUrl());
+        assertEquals(first.getVariants(), second.getVariants());
+        assertThat(first.getVariants()).extracting(Post.MediaVariant::getWidth).contains(320, 640, 1080, 1600).isSorted();
+        assertThat(first.getVariants()).allMatch(variant -> variant.getUrl().contains("/media/variants/"));
+        
+        assertTrue(mediaJobService.awaitIdle(10000));
+        // Per upload: original, thumbnail and every planned variant
+        verify(s3Client, times(2 * (2 + first.getVariants().size())))
+                .putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+    
+    @Test
+    void planVariants_ShouldSkipStepsWiderThanTheImage() {
+        ReflectionTestUtils.setField(mediaService, "variantFormats", "jpeg");
+        
+        assertThat(mediaService.planVariants("abc", 800, 600)).extracting(Post.MediaVariant::getWidth)
+                .containsExactly(320, 640);
+        // Variants are scaled by width, so a portrait photo gets no step wider than it is
+        assertThat(mediaService.planVariants("abc", 600, 1200)).extracting(Post.MediaVariant::getWidth)
+                .containsExactly(320);
+        assertThat(mediaService.planVariants("abc", null, null)).extracting(Post.MediaVariant::getWidth)
+                .containsExactly(320, 640, 1080, 1600);
+        assertThat(mediaService.planVariants("abc", 200, 100)).isEmpty();
+    }
+    
+    @Test
+    void uploadImageMedia_NewImage_IndexesDigestAndMarksItProcessed() throws Exception {
+        byte[] png = createPng(400, 200);
+        String digest = sha256Hex(png);
+        
+        Post.MediaUrl media = mediaService.uploadImageMedia(
+                new MockMultipartFile("file", "a.png", "image/png", png), "user123");
+        
+        assertTrue(mediaJobService.awaitIdle(10000));
+        verify(mediaObjectRepository).insertIfAbsent(eq(digest), matches("media/images/[0-9a-f-]{36}"),
+                eq("image/png"), eq((long) png.length));
+        verify(mediaObjectRepository).markProcessed(eq(digest), any(LocalDateTime.class));
+        assertTrue(media.getThumbnailUrl().contains(digest));
+    }
+    
+    @Test
+    void uploadImageMedia_ProcessedDuplicate_SkipsUploadAndRendering() throws Exception {
+        byte[] png = createPng(400, 200);
+        String digest = sha256Hex(png);
+        when(mediaObjectRepository.findById(digest)).thenReturn(Optional.of(MediaObject.builder()
+                .digest(digest)
+                .objectKey("media/images/original")
+                .processedAt(LocalDateTime.now())
+                .build()));
+        
+        Map<String, String> result = mediaService.uploadImageWithThumbnail(
+                new MockMultipartFile("file", "meme.png", "image/png", png), "user123");
+        
+        assertEquals("https://test-bucket.s3.amazonaws.com/media/images/original", result.get("imageUrl"));
+        assertEquals("COMPLETED", result.get("status"));
+        assertFalse(result.containsKey("jobId"));
+        assertTrue(result.get("thumbnailUrl").contains(digest));
+        assertTrue(mediaJobService.awaitIdle(5000));
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(mediaObjectRepository, never()).insertIfAbsent(anyString(), anyString(), anyString(), anyLong());
+        verify(mediaObjectRepository).touch(eq(digest), any(LocalDateTime.class));
+        assertEquals(1.0, meterRegistry.get("content.media.dedup.hits").tag("folder", "images").counter().count());
+        assertEquals(png.length, meterRegistry.get("content.media.dedup.bytes.saved").counter().count());
+    }
+    
+    @Test
+    void uploadImageMedia_UnprocessedDuplicate_RendersWithoutReuploading() throws Exception {
+        byte[] png = createSmallPngImage();
+        String digest = sha256Hex(png);
+        when(mediaObjectRepository.findById(digest)).thenReturn(Optional.of(MediaObject.builder()
+                .digest(digest)
+                .objectKey("media/images/original")
+                .build()));
+        
+        Post.MediaUrl media = mediaService.uploadImageMedia(
+                new MockMultipartFile("file", "meme.png", "image/png", png), "user123");
+        
+        assertNotNull(media.getJobId());
+        assertTrue(mediaJobService.awaitIdle(5000));
+        // Only the thumbnail is written
+        verify(s3Client, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(mediaObjectRepository).markProcessed(eq(digest), any(LocalDateTime.class));
+    }
+    
+    @Test
+    void registerUploadedImage_ShouldPlanVariantsOnTheStoredImageSize() throws Exception {
+        ReflectionTestUtils.setField(mediaService, "variantFormats", "jpeg");
+        byte[] png = createPng(400, 200);
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenReturn(ResponseBytes.fromByteArray(GetObjectResponse.builder().build(), png));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> stored(png));
+        
+        Post.MediaUrl media = mediaService.registerUploadedImage("media/images/direct", sha256Hex(png),
+                "image/png", png.length, "user123");
+        
+        assertEquals(400, media.getWidth());
+        assertEquals(200, media.getHeight());
+        assertThat(media.getVariants()).extracting(Post.MediaVariant::getWidth).containsExactly(320);
+        ArgumentCaptor<GetObjectRequest> ranged = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3Client).getObjectAsBytes(ranged.capture());
+        assertThat(ranged.getValue().range()).startsWith("bytes=0-");
+        assertTrue(mediaJobService.awaitIdle(10000));
+        // Thumbnail and the one variant
+        verify(s3Client, times(2)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+    
+    @Test
+    void registerUploadedImage_HeaderPastTheRange_RendersFromOneDownload() throws Exception {
+        ReflectionTestUtils.setField(mediaService, "variantFormats", "jpeg");
+        byte[] png = createPng(700, 300);
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenReturn(ResponseBytes.fromByteArray(
+                GetObjectResponse.builder().build(), Arrays.copyOf(png, 12)));
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> stored(png));
+        
+        Post.MediaUrl media = mediaService.registerUploadedImage("media/images/direct", sha256Hex(png),
+                "image/png", png.length, "user123");
+        
+        assertEquals(700, media.getWidth());
+        assertThat(media.getVariants()).extracting(Post.MediaVariant::getWidth).containsExactly(320, 640);
+        assertTrue(mediaJobService.awaitIdle(10000));
+        // The worker renders from the copy fetched for the header
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class));
+        verify(s3Client, times(3)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+    
+    @Test
+    void uploadVideo_Duplicate_SkipsUpload() throws IOException {
+        byte[] video = "same video bytes".getBytes();
+        when(mediaObjectRepository.findById(sha256Hex(video))).thenReturn(Optional.of(MediaObject.builder()
+                .objectKey("media/videos/original")
+                .build()));
+        
+        String url = mediaService.uploadVideo(new MockMultipartFile("file", "v.mp4", "video/mp4", video), "user123");
+        
+        assertEquals("https://test-bucket.s3.amazonaws.com/media/videos/original", url);
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+    
+    @Test
+    void uploadVideo_DuplicateKeyedUnderAnotherUser_StoresOwnCopy() throws IOException {
+        byte[] video = "legacy video bytes".getBytes();
+        String digest = sha256Hex(video);
+        MediaObject legacy = MediaObject.builder().digest(digest).objectKey("media/videos/someone/original").build();
+        when(mediaObjectRepository.findById(digest)).thenReturn(Optional.of(legacy));
+        when(mediaObjectRepository.insertIfAbsent(eq(digest), anyString(), anyString(), anyLong())).thenReturn(0);
+        
+        String url = mediaService.uploadVideo(new MockMultipartFile("file", "v.mp4", "video/mp4", video), "user123");
+        
+        assertTrue(url.matches(".*/media/videos/[0-9a-f-]{36}"));
+        verify(s3Client, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(s3Client, never()).deleteObject(any(Consumer.class));
+    }
+    
+    @Test
+    void uploadVideo_DuplicateKeyedUnderTheSameUser_IsReused() throws IOException {
+        byte[] video = "own legacy video bytes".getBytes();
+        when(mediaObjectRepository.findById(sha256Hex(video))).thenReturn(Optional.of(MediaObject.builder()
+                .objectKey("media/videos/user123/original")
+                .build()));
+        
+        String url = mediaService.uploadVideo(new MockMultipartFile("file", "v.mp4", "video/mp4", video), "user123");
+        
+        assertEquals("https://test-bucket.s3.amazonaws.com/media/videos/user123/original", url);
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+    
+    @Test
+    void uploadVideo_ConcurrentDuplicate_KeepsTheIndexedObject() throws IOException {
+        byte[] video = "raced video bytes".getBytes();
+        String digest = sha256Hex(video);
+        when(mediaObjectRepository.insertIfAbsent(eq(digest), anyString(), anyString(), anyLong())).thenReturn(0);
+        when(mediaObjectRepository.findById(digest))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(MediaObject.builder().objectKey("media/videos/winner").build()));
+        
+        String url = mediaService.uploadVideo(new MockMultipartFile("file", "v.mp4", "video/mp4", video), "user123");
+        
+        assertEquals("https://test-bucket.s3.amazonaws.com/media/videos/winner", url);
+        verify(s3Client).deleteObject(any(Consumer.class));
+    }
+    
+    @Test
+    void uploadVideo_IndexUnavailable_StillUploads() throws IOException {
+        when(mediaObjectRepository.findById(anyString())).thenThrow(new DataAccessResourceFailureException("down"));
+        when(mediaObjectRepository.insertIfAbsent(anyString(), anyString(), anyString(), anyLong()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        
+        String url = mediaService.uploadVideo(
+                new MockMultipartFile("file", "v.mp4", "video/mp4", "video".getBytes()), "user123");
+        
+        assertTrue(url.matches(".*/media/videos/[0-9a-f-]{36}"));
+        verify(s3Client, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+    
+    @Test
+    void uploadVideoMedia_NewVideo_QueuesTranscodeWithoutRenditions() throws Exception {
+        byte[] video = "new video bytes".getBytes();
+        
+        Post.MediaUrl media = mediaService.uploadVideoMedia(
+                new MockMultipartFile("file", "v.mp4", "video/mp4", video), "user123");
+        
+        assertEquals(Post.MediaType.VIDEO, media.getType());
+        assertTrue(media.getUrl().matches(".*/media/videos/[0-9a-f-]{36}"));
+        assertThat(media.getVariants()).isEmpty();
+        verify(transcodeService).enqueue(anyString(), eq(sha256Hex(video)));
+    }
+    
+    @Test
+    void uploadVideoMedia_AlreadyTranscoded_ReturnsRenditions() throws Exception {
+        byte[] video = "popular video bytes".getBytes();
+        when(mediaObjectRepository.findById(sha256Hex(video))).thenReturn(Optional.of(MediaObject.builder()
+                .objectKey("media/videos/original")
+                .build()));
+        List<Post.MediaVariant> renditions = List.of(Post.MediaVariant.builder()
+                .url("https://test-bucket.s3.amazonaws.com/media/renditions/abc/480p.mp4")
+                .width(854)
+                .height(480)
+                .format("mp4")
+                .build());
+        when(transcodeService.renditionsOf(any())).thenReturn(renditions);
+        
+        Post.MediaUrl media = mediaService.uploadVideoMedia(
+                new MockMultipartFile("file", "v.mp4", "video/mp4", video), "user123");
+        
+        assertEquals("https://test-bucket.s3.amazonaws.com/media/videos/original", media.getUrl());
+        assertEquals(renditions, media.getVariants());
+        verify(transcodeService).enqueue("media/videos/original", sha256Hex(video));
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+    
+    private static String sha256Hex(byte[] bytes) throws NoSuchAlgorithmException {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+    
+    private static ResponseInputStream<GetObjectResponse> stored(byte[] bytes) {
+        return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                AbortableInputStream.create(new ByteArrayInputStream(bytes)));
+    }
+    
+    private static byte[] createPng(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, width / 2, height);
+        graphics.dispose();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+    
     // Helper method to create a minimal valid PNG image
     private byte[] createSmallPngImage() {
         // Minimal 1x1 PNG image
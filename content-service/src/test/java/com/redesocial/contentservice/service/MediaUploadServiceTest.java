@@ -0,0 +1,213 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.dto.CreateUploadRequest;
+import com.redesocial.contentservice.dto.PresignedUploadResponse;
+import com.redesocial.contentservice.exception.MediaUploadNotFoundException;
+import com.redesocial.contentservice.exception.UnauthorizedAccessException;
+import com.redesocial.contentservice.model.mongo.Post;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.net.URL;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for MediaUploadService
+ */
+class MediaUploadServiceTest {
+
+    private static final String DIGEST = "0f".repeat(32);
+    private static final String CHECKSUM = Base64.getEncoder().encodeToString(hexBytes(DIGEST));
+
+    private final Map<String, Map<Object, Object>> hashes = new ConcurrentHashMap<>();
+    private S3Client s3Client;
+    private S3Presigner s3Presigner;
+    private MediaService mediaService;
+    private MediaUploadService mediaUploadService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3Client = Mockito.mock(S3Client.class);
+        s3Presigner = Mockito.mock(S3Presigner.class);
+        mediaService = Mockito.mock(MediaService.class);
+        mediaUploadService = new MediaUploadService(s3Client, s3Presigner, mediaService, redis(),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(mediaUploadService, "bucketName", "bucket");
+
+        PresignedPutObjectRequest presigned = Mockito.mock(PresignedPutObjectRequest.class);
+        when(presigned.url()).thenReturn(new URL("https://bucket.s3.amazonaws.com/signed"));
+        when(presigned.expiration()).thenReturn(Instant.now().plusSeconds(900));
+        when(presigned.signedHeaders()).thenReturn(Map.of(
+                "host", List.of("bucket.s3.amazonaws.com"),
+                "content-length", List.of("2048"),
+                "x-amz-checksum-sha256", List.of(CHECKSUM)));
+        when(s3Presigner.presignPutObject(any(PutObjectPresignRequest.class))).thenReturn(presigned);
+    }
+
+    @Test
+    void createUpload_shouldSignLengthAndChecksumAndRememberTheUpload() {
+        when(mediaService.validateUpload("image/png", 2048L)).thenReturn(Post.MediaType.IMAGE);
+
+        PresignedUploadResponse response = mediaUploadService.createUpload(request("image/png", 2048L));
+
+        ArgumentCaptor<PutObjectPresignRequest> captor = ArgumentCaptor.forClass(PutObjectPresignRequest.class);
+        verify(s3Presigner).presignPutObject(captor.capture());
+        assertThat(captor.getValue().putObjectRequest().contentLength()).isEqualTo(2048L);
+        assertThat(captor.getValue().putObjectRequest().checksumSHA256()).isEqualTo(CHECKSUM);
+        assertThat(captor.getValue().putObjectRequest().key())
+                .isEqualTo("media/images/" + response.getUploadId());
+
+        assertThat(response.getMethod()).isEqualTo("PUT");
+        assertThat(response.getUploadUrl()).isEqualTo("https://bucket.s3.amazonaws.com/signed");
+        assertThat(response.getHeaders()).containsEntry("x-amz-checksum-sha256", CHECKSUM).doesNotContainKey("host");
+        assertThat(hashes.get(MediaUploadService.uploadKey(response.getUploadId())))
+                .containsEntry("userId", "user1")
+                .containsEntry("sha256", DIGEST);
+    }
+
+    @Test
+    void createUpload_whenTypeIsNotAllowed_shouldNotSign() {
+        when(mediaService.validateUpload("application/pdf", 2048L))
+                .thenThrow(new IllegalArgumentException("INVALID_FILE_FORMAT: File must be JPEG, PNG, WebP, MP4 or WebM"));
+
+        assertThatThrownBy(() -> mediaUploadService.createUpload(request("application/pdf", 2048L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(s3Presigner);
+        assertThat(hashes).isEmpty();
+    }
+
+    @Test
+    void confirmUpload_matchingObject_shouldQueueProcessingOnce() {
+        String uploadId = createVideoUpload();
+        stubHead(HeadObjectResponse.builder().contentLength(2048L).contentType("video/mp4")
+                .checksumSHA256(CHECKSUM).build());
+        Post.MediaUrl registered = Post.MediaUrl.builder().url("https://bucket/video").type(Post.MediaType.VIDEO).build();
+        when(mediaService.registerUploadedVideo("media/videos/" + uploadId, DIGEST, "video/mp4", 2048L, "user1"))
+                .thenReturn(registered);
+
+        Post.MediaUrl media = mediaUploadService.confirmUpload(uploadId, "user1");
+
+        assertThat(media).isSameAs(registered);
+        assertThatThrownBy(() -> mediaUploadService.confirmUpload(uploadId, "user1"))
+                .isInstanceOf(MediaUploadNotFoundException.class);
+    }
+
+    @Test
+    void confirmUpload_whenSizeDiffers_shouldDeleteTheObject() {
+        String uploadId = createVideoUpload();
+        stubHead(HeadObjectResponse.builder().contentLength(4096L).contentType("video/mp4")
+                .checksumSHA256(CHECKSUM).build());
+
+        assertThatThrownBy(() -> mediaUploadService.confirmUpload(uploadId, "user1"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("UPLOAD_MISMATCH");
+        verify(s3Client).deleteObject(any(Consumer.class));
+        verify(mediaService, never()).registerUploadedVideo(anyString(), anyString(), anyString(), anyLong(), anyString());
+    }
+
+    @Test
+    void confirmUpload_withoutChecksum_shouldBeRejected() {
+        String uploadId = createVideoUpload();
+        stubHead(HeadObjectResponse.builder().contentLength(2048L).contentType("video/mp4").build());
+
+        assertThatThrownBy(() -> mediaUploadService.confirmUpload(uploadId, "user1"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    @Test
+    void confirmUpload_beforeThePutFinished_shouldKeepTheUploadOpen() {
+        String uploadId = createVideoUpload();
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+
+        assertThatThrownBy(() -> mediaUploadService.confirmUpload(uploadId, "user1"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("UPLOAD_INCOMPLETE");
+        assertThat(hashes).containsKey(MediaUploadService.uploadKey(uploadId));
+        verify(s3Client, never()).deleteObject(any(Consumer.class));
+    }
+
+    @Test
+    void confirmUpload_byAnotherUser_shouldBeRefused() {
+        String uploadId = createVideoUpload();
+
+        assertThatThrownBy(() -> mediaUploadService.confirmUpload(uploadId, "intruder"))
+                .isInstanceOf(UnauthorizedAccessException.class);
+        verifyNoInteractions(s3Client);
+    }
+
+    private String createVideoUpload() {
+        when(mediaService.validateUpload("video/mp4", 2048L)).thenReturn(Post.MediaType.VIDEO);
+        return mediaUploadService.createUpload(request("video/mp4", 2048L)).getUploadId();
+    }
+
+    private void stubHead(HeadObjectResponse response) {
+        when(s3Client.headObject(any(HeadObjectRequest.class))).thenReturn(response);
+    }
+
+    private static CreateUploadRequest request(String contentType, long size) {
+        return CreateUploadRequest.builder()
+                .userId("user1")
+                .contentType(contentType)
+                .sizeBytes(size)
+                .sha256(DIGEST.toUpperCase())
+                .build();
+    }
+
+    private static byte[] hexBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    /**
+     * A StringRedisTemplate mock whose hash operations are backed by a map.
+     */
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate redis() {
+        StringRedisTemplate template = Mockito.mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = Mockito.mock(HashOperations.class);
+        when(template.opsForHash()).thenReturn(hashOperations);
+
+        doAnswer(invocation -> {
+            hashes.computeIfAbsent(invocation.getArgument(0), key -> new ConcurrentHashMap<>())
+                    .putAll(invocation.getArgument(1));
+            return null;
+        }).when(hashOperations).putAll(anyString(), anyMap());
+        when(hashOperations.entries(anyString())).thenAnswer(invocation ->
+                new HashMap<>(hashes.getOrDefault(invocation.<String>getArgument(0), Map.of())));
+        when(template.delete(anyString())).thenAnswer(invocation ->
+                hashes.remove(invocation.<String>getArgument(0)) != null);
+        return template;
+    }
+}
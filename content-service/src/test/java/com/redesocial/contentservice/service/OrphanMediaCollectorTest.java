@@ -0,0 +1,226 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.model.jpa.MediaObject;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.repository.jpa.MediaObjectRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OrphanMediaCollector
+ */
+class OrphanMediaCollectorTest {
+
+    private static final String BUCKET = "https://bucket.s3.amazonaws.com/";
+    private static final String DIGEST = "ab".repeat(32);
+    private static final Instant OLD = Instant.now().minus(Duration.ofDays(3));
+
+    private final Map<Object, Object> checkpoint = new HashMap<>();
+    private final Map<String, List<ListObjectsV2Response>> pages = new HashMap<>();
+    private final List<ListObjectsV2Request> listRequests = new ArrayList<>();
+
+    private S3Client s3Client;
+    private MongoTemplate mongoTemplate;
+    private MediaObjectRepository mediaObjectRepository;
+    private OrphanMediaCollector collector;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        s3Client = Mockito.mock(S3Client.class);
+        mongoTemplate = Mockito.mock(MongoTemplate.class);
+        mediaObjectRepository = Mockito.mock(MediaObjectRepository.class);
+        StringRedisTemplate redisTemplate = Mockito.mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = Mockito.mock(ValueOperations.class);
+        HashOperations<String, Object, Object> hashOperations = Mockito.mock(HashOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(hashOperations.entries(OrphanMediaCollector.CHECKPOINT_KEY)).thenAnswer(invocation -> new HashMap<>(checkpoint));
+        doAnswer(invocation -> {
+            checkpoint.putAll(invocation.getArgument(1));
+            return null;
+        }).when(hashOperations).putAll(eq(OrphanMediaCollector.CHECKPOINT_KEY), anyMap());
+        when(redisTemplate.delete(OrphanMediaCollector.CHECKPOINT_KEY)).thenAnswer(invocation -> {
+            checkpoint.clear();
+            return true;
+        });
+
+        when(mongoTemplate.stream(any(Query.class), eq(Post.class))).thenAnswer(invocation -> Stream.of(Post.builder()
+                .mediaUrls(List.of(Post.MediaUrl.builder()
+                        .url(BUCKET + "media/images/user1/kept")
+                        .thumbnailUrl(BUCKET + "media/thumbnails/" + "cd".repeat(32) + "_150x150.jpg")
+                        .build()))
+                .build()));
+        when(mongoTemplate.stream(any(Query.class), eq(Story.class))).thenAnswer(invocation -> Stream.of(Story.builder()
+                .mediaUrl(Post.MediaUrl.builder().url(BUCKET + "media/videos/user2/story").build())
+                .build()));
+        when(mediaObjectRepository.findByObjectKeyIn(anyCollection())).thenReturn(List.of());
+        when(mediaObjectRepository.findAllById(anyCollection())).thenReturn(List.of());
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder().build());
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class))).thenAnswer(invocation -> {
+            ListObjectsV2Request request = invocation.getArgument(0);
+            listRequests.add(request);
+            List<ListObjectsV2Response> prefixPages = pages.getOrDefault(request.prefix(), List.of());
+            if (prefixPages.isEmpty()) {
+                return ListObjectsV2Response.builder().isTruncated(false).build();
+            }
+            int page = request.continuationToken() == null ? 0 : Integer.parseInt(request.continuationToken());
+            return prefixPages.get(page);
+        });
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MediaCleanup mediaCleanup = new MediaCleanup(s3Client, mongoTemplate, mediaObjectRepository, meterRegistry);
+        ReflectionTestUtils.setField(mediaCleanup, "bucketName", "bucket");
+        collector = new OrphanMediaCollector(s3Client, mongoTemplate, mediaObjectRepository, mediaCleanup,
+                new RedisLease(redisTemplate), redisTemplate, meterRegistry);
+        collector.registerMetrics();
+        ReflectionTestUtils.setField(collector, "bucketName", "bucket");
+        ReflectionTestUtils.setField(collector, "maxDeletesPerSecond", 0);
+    }
+
+    @Test
+    void collect_shouldDeleteOnlyOldUnreferencedObjects() {
+        page("media/images/", 0, false,
+                object("media/images/user1/kept", OLD),
+                object("media/images/user1/orphan", OLD),
+                object("media/images/user1/fresh", Instant.now()));
+        page("media/videos/", 0, false, object("media/videos/user2/story", OLD));
+
+        long deleted = collector.collect();
+
+        assertThat(deleted).isEqualTo(1);
+        assertThat(deletedKeys()).containsExactly("media/images/user1/orphan");
+        assertThat(checkpoint).isEmpty();
+    }
+
+    @Test
+    void collect_shouldKeepOriginalsReusedWithinTheGracePeriod() {
+        page("media/images/", 0, false,
+                object("media/images/user1/reused", OLD),
+                object("media/images/user1/stale", OLD));
+        when(mediaObjectRepository.findByObjectKeyIn(anyCollection())).thenReturn(List.of(
+                MediaObject.builder().digest(DIGEST).objectKey("media/images/user1/reused")
+                        .lastUsedAt(LocalDateTime.now().minusHours(1)).build(),
+                MediaObject.builder().digest("ef".repeat(32)).objectKey("media/images/user1/stale")
+                        .lastUsedAt(LocalDateTime.now().minusDays(10)).build()));
+
+        collector.collect();
+
+        assertThat(deletedKeys()).containsExactly("media/images/user1/stale");
+        verify(mediaObjectRepository).deleteByObjectKeyIn(List.of("media/images/user1/stale"));
+    }
+
+    @Test
+    void collect_shouldKeepDerivativesOfIndexedDigests() {
+        String orphanDigest = "01".repeat(32);
+        page("media/thumbnails/", 0, false,
+                object("media/thumbnails/" + DIGEST + "_150x150.jpg", OLD),
+                object("media/thumbnails/" + orphanDigest + "_150x150.jpg", OLD));
+        page("media/variants/", 0, false, object("media/variants/" + DIGEST + "/640w.jpg", OLD));
+        when(mediaObjectRepository.findAllById(anyCollection()))
+                .thenReturn(List.of(MediaObject.builder().digest(DIGEST).objectKey("media/images/x/y").build()));
+
+        collector.collect();
+
+        assertThat(deletedKeys()).containsExactly("media/thumbnails/" + orphanDigest + "_150x150.jpg");
+    }
+
+    @Test
+    void collect_whenTheScanBudgetRunsOut_shouldResumeFromTheCheckpoint() {
+        ReflectionTestUtils.setField(collector, "maxObjectsPerRun", 1L);
+        page("media/images/", 0, true, object("media/images/user1/a", OLD));
+        page("media/images/", 1, false, object("media/images/user1/b", OLD));
+
+        collector.collect();
+        assertThat(checkpoint).containsEntry("prefix", "media/images/").containsEntry("startAfter", "media/images/user1/a");
+
+        listRequests.clear();
+        pages.put("media/images/", List.of(ListObjectsV2Response.builder().isTruncated(false)
+                .contents(object("media/images/user1/b", OLD)).build()));
+        collector.collect();
+
+        assertThat(listRequests.get(0).startAfter()).isEqualTo("media/images/user1/a");
+        assertThat(checkpoint).isEmpty();
+    }
+
+    @Test
+    void collect_inDryRun_shouldNotDeleteAnything() {
+        ReflectionTestUtils.setField(collector, "dryRun", true);
+        page("media/images/", 0, false, object("media/images/user1/orphan", OLD));
+        when(mediaObjectRepository.findByObjectKeyIn(anyCollection())).thenReturn(List.of(
+                MediaObject.builder().digest(DIGEST).objectKey("media/images/user1/orphan").build()));
+
+        long deleted = collector.collect();
+
+        assertThat(deleted).isEqualTo(1);
+        verify(s3Client, never()).deleteObjects(any(DeleteObjectsRequest.class));
+        verify(mediaObjectRepository, never()).deleteByObjectKeyIn(anyCollection());
+    }
+
+    @Test
+    void digestOf_shouldRecognizeDerivedKeysOnly() {
+        assertThat(OrphanMediaCollector.digestOf("media/thumbnails/" + DIGEST + "_150x150.jpg")).isEqualTo(DIGEST);
+        assertThat(OrphanMediaCollector.digestOf("media/variants/" + DIGEST + "/640w.webp")).isEqualTo(DIGEST);
+        assertThat(OrphanMediaCollector.digestOf("media/renditions/" + DIGEST + "/720p.mp4")).isEqualTo(DIGEST);
+        assertThat(OrphanMediaCollector.digestOf("media/images/user1/" + DIGEST)).isNull();
+        assertThat(OrphanMediaCollector.digestOf("media/images/user1/3f2b")).isNull();
+    }
+
+    private List<String> deletedKeys() {
+        ArgumentCaptor<DeleteObjectsRequest> requests = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, atLeast(0)).deleteObjects(requests.capture());
+        return requests.getAllValues().stream()
+                .flatMap(request -> request.delete().objects().stream())
+                .map(ObjectIdentifier::key)
+                .collect(Collectors.toList());
+    }
+
+    private void page(String prefix, int index, boolean truncated, S3Object... objects) {
+        List<ListObjectsV2Response> prefixPages = pages.computeIfAbsent(prefix, p -> new ArrayList<>());
+        prefixPages.add(index, ListObjectsV2Response.builder()
+                .contents(objects)
+                .isTruncated(truncated)
+                .nextContinuationToken(truncated ? String.valueOf(index + 1) : null)
+                .build());
+    }
+
+    private static S3Object object(String key, Instant lastModified) {
+        return S3Object.builder().key(key).lastModified(lastModified).size(1024L).build();
+    }
+}
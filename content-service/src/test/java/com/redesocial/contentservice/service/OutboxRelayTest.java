@@ -0,0 +1,239 @@
+package com.redesocial.contentservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.redesocial.contentservice.config.KafkaConfig;
+import com.redesocial.contentservice.event.LikeCreatedEvent;
+import com.redesocial.contentservice.model.jpa.OutboxEvent;
+import com.redesocial.contentservice.repository.jpa.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxRelay
+ */
+class OutboxRelayTest {
+    
+    private OutboxEventRepository outboxEventRepository;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private ObjectMapper objectMapper;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay outboxRelay;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        outboxEventRepository = Mockito.mock(OutboxEventRepository.class);
+        kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = new OutboxRelay(outboxEventRepository, kafkaTemplate, objectMapper,
+                Mockito.mock(TransactionTemplate.class), meterRegistry);
+    }
+    
+    @Test
+    void relayBatch_whenOutboxEmpty_shouldNotSendAnything() {
+        when(outboxEventRepository.lockNextUnpublished(anyInt())).thenReturn(List.of());
+        
+        int relayed = outboxRelay.relayBatch();
+        
+        assertThat(relayed).isZero();
+        verifyNoInteractions(kafkaTemplate);
+        verify(outboxEventRepository, never()).markPublished(anyCollection(), any());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayBatch_shouldSendEventsAndMarkThemPublished() throws Exception {
+        OutboxEvent first = outboxEvent(1L, "post1");
+        OutboxEvent second = outboxEvent(2L, "post2");
+        when(outboxEventRepository.lockNextUnpublished(anyInt())).thenReturn(List.of(first, second));
+        when(kafkaTemplate.send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        
+        int relayed = outboxRelay.relayBatch();
+        
+        assertThat(relayed).isEqualTo(2);
+        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object> payloadCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate, times(2)).send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), keyCaptor.capture(), payloadCaptor.capture());
+        assertThat(keyCaptor.getAllValues()).containsExactly("post1", "post2");
+        assertThat(payloadCaptor.getAllValues()).allMatch(p -> p instanceof LikeCreatedEvent);
+        
+        ArgumentCaptor<Collection<Long>> idsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxEventRepository).markPublished(idsCaptor.capture(), any(LocalDateTime.class));
+        assertThat(idsCaptor.getValue()).containsExactly(1L, 2L);
+        assertThat(meterRegistry.get("content.outbox.published").counter().count()).isEqualTo(2.0);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayBatch_whenSendFails_shouldLeaveEventInOutbox() throws Exception {
+        OutboxEvent ok = outboxEvent(1L, "post1");
+        OutboxEvent failing = outboxEvent(2L, "post2");
+        CompletableFuture<SendResult<String, Object>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("Broker unavailable"));
+        
+        when(outboxEventRepository.lockNextUnpublished(anyInt())).thenReturn(List.of(ok, failing));
+        when(kafkaTemplate.send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)))
+                .thenReturn(failed);
+        
+        outboxRelay.relayBatch();
+        
+        ArgumentCaptor<Collection<Long>> idsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxEventRepository).markPublished(idsCaptor.capture(), any(LocalDateTime.class));
+        assertThat(idsCaptor.getValue()).containsExactly(1L);
+        assertThat(meterRegistry.get("content.outbox.publish.failures").counter().count()).isEqualTo(1.0);
+        verify(outboxEventRepository).saveAll(List.of(failing));
+        assertThat(failing.getAttempts()).isEqualTo(1);
+        assertThat(failing.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(failing.getLastError()).contains("Broker unavailable");
+        assertThat(failing.getDeadLetteredAt()).isNull();
+    }
+    
+    @Test
+    void relayBatch_whenEventRunsOutOfAttempts_shouldDeadLetterIt() throws Exception {
+        OutboxEvent poison = outboxEvent(1L, "post1");
+        poison.setAttempts(9);
+        poison.setEventClass("com.redesocial.contentservice.event.RemovedEvent");
+        when(outboxEventRepository.lockNextUnpublished(anyInt())).thenReturn(List.of(poison));
+        
+        outboxRelay.relayBatch();
+        
+        verifyNoInteractions(kafkaTemplate);
+        verify(outboxEventRepository).saveAll(List.of(poison));
+        assertThat(poison.getAttempts()).isEqualTo(10);
+        assertThat(poison.getDeadLetteredAt()).isNotNull();
+        assertThat(poison.getLastError()).startsWith("ClassNotFoundException");
+        assertThat(meterRegistry.get("content.outbox.dead.lettered.events").counter().count()).isEqualTo(1.0);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayBatch_whenAPostEventFails_shouldLeaveThePostsLaterEventsUnpublished() throws Exception {
+        OutboxEvent failing = outboxEvent(1L, "post1");
+        OutboxEvent later = outboxEvent(2L, "post1");
+        OutboxEvent other = outboxEvent(3L, "post2");
+        CompletableFuture<SendResult<String, Object>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new RuntimeException("Broker unavailable"));
+        
+        when(outboxEventRepository.lockNextUnpublished(anyInt())).thenReturn(List.of(failing, later, other));
+        when(kafkaTemplate.send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), anyString(), any()))
+                .thenReturn(failed)
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        
+        outboxRelay.relayBatch();
+        
+        ArgumentCaptor<Collection<Long>> idsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxEventRepository).markPublished(idsCaptor.capture(), any(LocalDateTime.class));
+        assertThat(idsCaptor.getValue()).containsExactly(3L);
+        assertThat(meterRegistry.get("content.outbox.held.back").counter().count()).isEqualTo(1.0);
+        verify(kafkaTemplate, times(2)).send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), anyString(), any());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayBatch_shouldSendAPostsNextEventOnlyAfterThePreviousOneIsAcknowledged() throws Exception {
+        OutboxEvent first = outboxEvent(1L, "post1");
+        OutboxEvent second = outboxEvent(2L, "post1");
+        OutboxEvent other = outboxEvent(3L, "post2");
+        CompletableFuture<SendResult<String, Object>> firstAck = new CompletableFuture<>();
+        when(outboxEventRepository.lockNextUnpublished(anyInt())).thenReturn(List.of(first, second, other));
+        when(kafkaTemplate.send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), anyString(), any()))
+                .thenAnswer(invocation -> {
+                    // the broker acknowledges post1's first event a little later
+                    CompletableFuture.runAsync(() -> firstAck.complete(mock(SendResult.class)),
+                            CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+                    return firstAck;
+                })
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)))
+                .thenAnswer(invocation -> {
+                    assertThat(firstAck).isDone();
+                    return CompletableFuture.completedFuture(mock(SendResult.class));
+                });
+        
+        outboxRelay.relayBatch();
+        
+        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+        verify(kafkaTemplate, times(3)).send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), keyCaptor.capture(), any());
+        assertThat(keyCaptor.getAllValues()).containsExactly("post1", "post2", "post1");
+        ArgumentCaptor<Collection<Long>> idsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxEventRepository).markPublished(idsCaptor.capture(), any(LocalDateTime.class));
+        assertThat(idsCaptor.getValue()).containsExactly(1L, 3L, 2L);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayBatch_shouldHoldBackEventsBehindAnOlderEventLockedElsewhere() throws Exception {
+        OutboxEvent blocked = outboxEvent(5L, "post1");
+        OutboxEvent free = outboxEvent(6L, "post2");
+        when(outboxEventRepository.lockNextUnpublished(anyInt())).thenReturn(List.of(blocked, free));
+        List<Object[]> lockedElsewhere = List.<Object[]>of(new Object[]{"post1", 4L});
+        when(outboxEventRepository.findOldestUnpublishedOutside(anyCollection(), eq(6L), anyCollection()))
+                .thenReturn(lockedElsewhere);
+        when(kafkaTemplate.send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        
+        outboxRelay.relayBatch();
+        
+        verify(kafkaTemplate).send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), eq("post2"), any());
+        verify(kafkaTemplate, never()).send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), eq("post1"), any());
+        ArgumentCaptor<Collection<Long>> idsCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxEventRepository).markPublished(idsCaptor.capture(), any(LocalDateTime.class));
+        assertThat(idsCaptor.getValue()).containsExactly(6L);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayBatch_rowWithoutKey_shouldBeKeyedByThePostInItsPayload() throws Exception {
+        OutboxEvent legacy = outboxEvent(1L, "post1");
+        legacy.setEventKey(null);
+        when(outboxEventRepository.lockNextUnpublished(anyInt())).thenReturn(List.of(legacy));
+        when(kafkaTemplate.send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        
+        outboxRelay.relayBatch();
+        
+        verify(kafkaTemplate).send(eq(KafkaConfig.CONTENT_EVENTS_TOPIC), eq("post1"), any(LikeCreatedEvent.class));
+        verify(outboxEventRepository, never()).findOldestUnpublishedOutside(anyCollection(), anyLong(), anyCollection());
+    }
+    
+    private OutboxEvent outboxEvent(Long id, String postId) throws Exception {
+        LikeCreatedEvent event = LikeCreatedEvent.builder()
+                .postId(postId)
+                .userId("user456")
+                .postAuthorId("author789")
+                .createdAt(LocalDateTime.now())
+                .build();
+        return OutboxEvent.builder()
+                .id(id)
+                .eventType("like.created")
+                .eventKey(postId)
+                .eventClass(LikeCreatedEvent.class.getName())
+                .payload(objectMapper.writeValueAsString(event))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,202 @@
+package com.redesocial.contentservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redesocial.contentservice.config.RedisConfig;
+import com.redesocial.contentservice.dto.PostResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PostCache
+ */
+class PostCacheTest {
+    
+    private StringRedisTemplate redisTemplate;
+    private HashOperations<String, Object, Object> hashOperations;
+    private ObjectMapper objectMapper;
+    private SimpleMeterRegistry meterRegistry;
+    private PostCache postCache;
+    
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = Mockito.mock(StringRedisTemplate.class);
+        hashOperations = Mockito.mock(HashOperations.class);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(anyString())).thenReturn(Map.of());
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        meterRegistry = new SimpleMeterRegistry();
+        postCache = new PostCache(redisTemplate, Mockito.mock(RedisMessageListenerContainer.class),
+                objectMapper, meterRegistry);
+        postCache.init();
+    }
+    
+    @Test
+    void get_afterPut_shouldHitL1WithoutCallingRedis() {
+        postCache.put(post("post1", 3), "0");
+        
+        PostResponse cached = postCache.get("post1");
+        
+        assertThat(cached.getLikesCount()).isEqualTo(3);
+        verify(hashOperations, never()).entries(anyString());
+        assertThat(meterRegistry.get("content.post.cache.hit.ratio").tag("tier", "l1").gauge().value()).isEqualTo(1.0);
+    }
+    
+    @Test
+    void get_onL1Miss_shouldReadCountersFromRedisHash() throws Exception {
+        Map<Object, Object> fields = new HashMap<>();
+        fields.put("body", objectMapper.writeValueAsString(post("post1", 0)));
+        fields.put("likes", "12");
+        fields.put("comments", "2");
+        fields.put("shares", "1");
+        when(hashOperations.entries(PostCache.KEY_PREFIX + "post1")).thenReturn(fields);
+        
+        PostResponse cached = postCache.get("post1");
+        
+        assertThat(cached.getLikesCount()).isEqualTo(12);
+        assertThat(cached.getCommentsCount()).isEqualTo(2);
+        assertThat(cached.getSharesCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("content.post.cache.requests").tag("tier", "l2").tag("result", "hit")
+                .counter().count()).isEqualTo(1.0);
+    }
+    
+    @Test
+    void get_whenNotCachedAnywhere_shouldReturnNull() {
+        assertThat(postCache.get("missing")).isNull();
+    }
+    
+    @Test
+    void get_whenRedisFails_shouldReturnNull() {
+        when(hashOperations.entries(anyString())).thenThrow(new RuntimeException("Redis down"));
+        
+        assertThat(postCache.get("post1")).isNull();
+    }
+    
+    @Test
+    void put_shouldWriteTheHashAndItsTtlInOneScript() {
+        postCache.put(post("post1", 3), "0");
+        
+        verify(redisTemplate).execute(any(RedisScript.class), eq(keys("post1")),
+                anyString(), eq("3"), eq("0"), eq("0"), eq("300"), eq("0"));
+        verify(hashOperations, never()).putAll(anyString(), anyMap());
+        verify(redisTemplate, never()).expire(anyString(), any(Duration.class));
+    }
+    
+    @Test
+    void put_whenAPatchBumpedTheVersion_shouldNotCacheTheStaleCounts() {
+        // The store script refuses: a flush patched the post after its version was read
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(0L);
+        
+        postCache.put(post("post1", 3), "0");
+        
+        assertThat(postCache.get("post1")).isNull();
+        assertThat(meterRegistry.get("content.post.cache.fills.stale").counter().count()).isEqualTo(1.0);
+    }
+    
+    @Test
+    void put_withoutAVersion_shouldOnlyFillL1() {
+        postCache.put(post("post1", 3), null);
+        
+        assertThat(postCache.get("post1").getLikesCount()).isEqualTo(3);
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+    
+    @Test
+    void applyCounterDelta_shouldPatchL1AndRedisAndBroadcast() {
+        postCache.put(post("post1", 3), "0");
+        
+        postCache.applyCounterDelta("post1", 1, 1, 0);
+        
+        PostResponse cached = postCache.get("post1");
+        assertThat(cached.getLikesCount()).isEqualTo(4);
+        assertThat(cached.getCommentsCount()).isEqualTo(1);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(keys("post1")),
+                eq("1"), eq("1"), eq("0"), eq("300"));
+        verify(redisTemplate).convertAndSend(eq(RedisConfig.POSTS_CHANNEL), anyString());
+    }
+    
+    @Test
+    void evict_shouldRemoveBothTiers() {
+        postCache.put(post("post1", 3), "0");
+        
+        postCache.evict("post1");
+        
+        assertThat(postCache.get("post1")).isNull();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(keys("post1")), eq("300"));
+    }
+    
+    @Test
+    void onMessage_fromOtherReplica_shouldEvictL1() {
+        postCache.put(post("post1", 3), "0");
+        
+        postCache.onMessage(message("other-replica|evict|post1"), null);
+        
+        assertThat(postCache.get("post1")).isNull();
+    }
+    
+    @Test
+    void onMessage_patchFromOtherReplica_shouldUpdateL1Counters() {
+        postCache.put(post("post1", 3), "0");
+        
+        postCache.onMessage(message("other-replica|patch|post1|-1|0|2"), null);
+        
+        PostResponse cached = postCache.get("post1");
+        assertThat(cached.getLikesCount()).isEqualTo(2);
+        assertThat(cached.getSharesCount()).isEqualTo(2);
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(), any(), any(), any());
+    }
+    
+    @Test
+    void get_shouldReturnCopiesThatDoNotAffectCache() {
+        postCache.put(post("post1", 3), "0");
+        
+        postCache.get("post1").setLikesCount(100);
+        
+        assertThat(postCache.get("post1").getLikesCount()).isEqualTo(3);
+    }
+    
+    private static List<String> keys(String postId) {
+        return List.of(PostCache.KEY_PREFIX + postId, PostCache.VERSION_PREFIX + postId);
+    }
+    
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(RedisConfig.POSTS_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static PostResponse post(String postId, int likes) {
+        return PostResponse.builder()
+                .id(postId)
+                .userId("user123")
+                .content("Hello")
+                .hashtags(List.of())
+                .likesCount(likes)
+                .commentsCount(0)
+                .sharesCount(0)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+}
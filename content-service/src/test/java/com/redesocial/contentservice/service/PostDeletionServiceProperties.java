@@ -5,6 +5,7 @@ import com.redesocial.contentservice.exception.PostNotFoundException;
 import com.redesocial.contentservice.exception.UnauthorizedAccessException;
 import com.redesocial.contentservice.model.jpa.PostMetadata;
 import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
+import com.redesocial.contentservice.repository.mongo.PostRepository;
 import net.jqwik.api.*;
 import net.jqwik.api.constraints.AlphaChars;
 import net.jqwik.api.constraints.IntRange;
@@ -28,14 +29,18 @@ import static org.mockito.Mockito.*;
 class PostDeletionServiceProperties {
     
     private PostMetadataRepository postMetadataRepository;
+    private PostRepository postRepository;
     private EventPublisher eventPublisher;
+    private PostCache postCache;
     private PostDeletionService postDeletionService;
     
     @BeforeEach
     void setUp() {
         postMetadataRepository = Mockito.mock(PostMetadataRepository.class);
+        postRepository = Mockito.mock(PostRepository.class);
         eventPublisher = Mockito.mock(EventPublisher.class);
-        postDeletionService = new PostDeletionService(postMetadataRepository, eventPublisher);
+        postCache = Mockito.mock(PostCache.class);
+        postDeletionService = new PostDeletionService(postMetadataRepository, postRepository, eventPublisher, postCache);
     }
     
     /**
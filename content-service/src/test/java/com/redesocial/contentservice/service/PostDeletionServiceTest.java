@@ -5,6 +5,7 @@ import com.redesocial.contentservice.exception.PostNotFoundException;
 import com.redesocial.contentservice.exception.UnauthorizedAccessException;
 import com.redesocial.contentservice.model.jpa.PostMetadata;
 import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
+import com.redesocial.contentservice.repository.mongo.PostRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -26,9 +27,15 @@ class PostDeletionServiceTest {
     @Mock
     private PostMetadataRepository postMetadataRepository;
     
+    @Mock
+    private PostRepository postRepository;
+    
     @Mock
     private EventPublisher eventPublisher;
     
+    @Mock
+    private PostCache postCache;
+    
     @InjectMocks
     private PostDeletionService postDeletionService;
     
@@ -56,6 +63,27 @@ class PostDeletionServiceTest {
         
         PostMetadata savedPost = captor.getValue();
         assertTrue(savedPost.getIsDeleted(), "Post should be marked as deleted");
+        assertNotNull(savedPost.getDeletedAt(), "Deletion time should be recorded for the purge worker");
+    }
+    
+    @Test
+    void deletePost_ValidRequest_FlagsMongoDocument() {
+        when(postMetadataRepository.findById("post123")).thenReturn(Optional.of(testPost));
+        when(postMetadataRepository.save(any(PostMetadata.class))).thenReturn(testPost);
+        
+        postDeletionService.deletePost("post123", "user123");
+        
+        verify(postRepository).markDeleted("post123");
+    }
+    
+    @Test
+    void deletePost_ValidRequest_EvictsCachedPost() {
+        when(postMetadataRepository.findById("post123")).thenReturn(Optional.of(testPost));
+        when(postMetadataRepository.save(any(PostMetadata.class))).thenReturn(testPost);
+        
+        postDeletionService.deletePost("post123", "user123");
+        
+        verify(postCache).evict("post123");
     }
     
     @Test
@@ -95,6 +123,7 @@ class PostDeletionServiceTest {
         });
         
         verify(postMetadataRepository, never()).save(any());
+        verify(postRepository, never()).markDeleted(any());
         verify(eventPublisher, never()).publishEvent(any(), any());
     }
     
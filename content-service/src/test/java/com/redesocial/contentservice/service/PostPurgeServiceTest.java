@@ -0,0 +1,264 @@
+package com.redesocial.contentservice.service;
+
+import com.mongodb.client.result.DeleteResult;
+import com.redesocial.contentservice.model.jpa.MediaObject;
+import com.redesocial.contentservice.model.jpa.PostMetadata;
+import com.redesocial.contentservice.model.mongo.Comment;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.repository.jpa.LikeRepository;
+import com.redesocial.contentservice.repository.jpa.MediaObjectRepository;
+import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
+import com.redesocial.contentservice.repository.jpa.ShareRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PostPurgeServiceTest {
+
+    private static final String BUCKET = "https://bucket.s3.amazonaws.com/";
+
+    @Mock
+    private PostMetadataRepository postMetadataRepository;
+
+    @Mock
+    private LikeRepository likeRepository;
+
+    @Mock
+    private ShareRepository shareRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private MediaObjectRepository mediaObjectRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PostPurgeService postPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        MediaCleanup mediaCleanup = new MediaCleanup(s3Client, mongoTemplate, mediaObjectRepository, meterRegistry);
+        ReflectionTestUtils.setField(mediaCleanup, "bucketName", "bucket");
+        postPurgeService = new PostPurgeService(postMetadataRepository, likeRepository, shareRepository,
+                mongoTemplate, mediaCleanup, new RedisLease(redisTemplate), meterRegistry);
+        postPurgeService.registerMetrics();
+        ReflectionTestUtils.setField(postPurgeService, "chunkSize", 2);
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(PostPurgeService.LEASE_KEY), anyString(), any(Duration.class)))
+                .thenReturn(true);
+        when(postMetadataRepository.countPurgeable(any(LocalDateTime.class))).thenReturn(1L);
+        when(postMetadataRepository.deleteSoftDeleted(anyString())).thenReturn(1);
+        when(mongoTemplate.find(any(Query.class), eq(Comment.class))).thenReturn(List.of());
+        when(mongoTemplate.findDistinct(any(Query.class), anyString(), eq(Post.class), eq(String.class)))
+                .thenReturn(List.of());
+        when(mongoTemplate.findDistinct(any(Query.class), anyString(), eq(Story.class), eq(String.class)))
+                .thenReturn(List.of());
+        when(mongoTemplate.remove(any(Query.class), eq(Comment.class))).thenReturn(DeleteResult.acknowledged(2));
+        when(mongoTemplate.remove(any(Query.class), eq(Post.class))).thenReturn(DeleteResult.acknowledged(1));
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder().build());
+    }
+
+    @Test
+    void purgeDeletedPosts_deletesDependentsInChunksBeforeThePost() {
+        // Arrange
+        when(postMetadataRepository.findPurgeable(any(LocalDateTime.class), anyInt())).thenReturn(List.of(deleted("p1")));
+        when(mongoTemplate.find(any(Query.class), eq(Comment.class)))
+                .thenReturn(List.of(comment("c1"), comment("c2")))
+                .thenReturn(List.of());
+        when(likeRepository.deleteChunkByPostId("p1", 2)).thenReturn(2, 2, 1);
+        when(shareRepository.deleteChunkByOriginalPostId("p1", 2)).thenReturn(1);
+        when(mongoTemplate.findOne(any(Query.class), eq(Post.class))).thenReturn(post("p1", "a"));
+
+        // Act
+        int purged = postPurgeService.purgeDeletedPosts();
+
+        // Assert
+        assertThat(purged).isEqualTo(1);
+        verify(likeRepository, times(3)).deleteChunkByPostId("p1", 2);
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(Comment.class));
+        verify(shareRepository).deleteChunkBySharedPostId("p1", 2);
+        ArgumentCaptor<DeleteObjectsRequest> deletes = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client).deleteObjects(deletes.capture());
+        assertThat(deletes.getValue().delete().objects().stream().map(ObjectIdentifier::key).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder("media/a.jpg", "media/a-thumb.jpg");
+        verify(mediaObjectRepository).deleteByObjectKeyIn(argThat(keys -> keys.contains("media/a.jpg")));
+
+        InOrder order = inOrder(likeRepository, mongoTemplate, postMetadataRepository);
+        order.verify(likeRepository, atLeastOnce()).deleteChunkByPostId("p1", 2);
+        order.verify(mongoTemplate).remove(any(Query.class), eq(Post.class));
+        order.verify(postMetadataRepository).deleteSoftDeleted("p1");
+
+        assertThat(meterRegistry.get("content.post.purge.rows").tag("table", "likes").counter().count()).isEqualTo(5.0);
+        assertThat(meterRegistry.get("content.post.purge.rows").tag("table", "comments").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("content.post.purge.backlog").gauge().value()).isZero();
+    }
+
+    @Test
+    void purgeDeletedPosts_keepsMediaStillUsedByAShare() {
+        // Arrange
+        when(postMetadataRepository.findPurgeable(any(LocalDateTime.class), anyInt())).thenReturn(List.of(deleted("p1")));
+        when(mongoTemplate.findOne(any(Query.class), eq(Post.class))).thenReturn(post("p1", "a"));
+        when(mongoTemplate.findDistinct(any(Query.class), anyString(), eq(Post.class), eq(String.class)))
+                .thenReturn(List.of(BUCKET + "media/a.jpg"));
+
+        // Act
+        postPurgeService.purgeDeletedPosts();
+
+        // Assert
+        verify(s3Client, never()).deleteObjects(any(DeleteObjectsRequest.class));
+        verify(mediaObjectRepository, never()).deleteByObjectKeyIn(any());
+        verify(postMetadataRepository).deleteSoftDeleted("p1");
+    }
+
+    @Test
+    void purgeDeletedPosts_keepsMediaReusedByARecentUpload() {
+        // Arrange
+        when(postMetadataRepository.findPurgeable(any(LocalDateTime.class), anyInt())).thenReturn(List.of(deleted("p1")));
+        when(mongoTemplate.findOne(any(Query.class), eq(Post.class))).thenReturn(post("p1", "a"));
+        when(mediaObjectRepository.findByObjectKeyIn(any())).thenReturn(List.of(MediaObject.builder()
+                .objectKey("media/a.jpg")
+                .lastUsedAt(LocalDateTime.now().minusHours(1))
+                .build()));
+
+        // Act
+        postPurgeService.purgeDeletedPosts();
+
+        // Assert - Neither the original nor its thumbnail goes
+        verify(s3Client, never()).deleteObjects(any(DeleteObjectsRequest.class));
+        verify(mediaObjectRepository, never()).deleteByObjectKeyIn(any());
+        verify(postMetadataRepository).deleteSoftDeleted("p1");
+    }
+
+    @Test
+    void purgeDeletedPosts_keepsDerivativesSharedByAnotherCopyOfTheSameBytes() {
+        // Arrange
+        when(postMetadataRepository.findPurgeable(any(LocalDateTime.class), anyInt())).thenReturn(List.of(deleted("p1")));
+        when(mongoTemplate.findOne(any(Query.class), eq(Post.class))).thenReturn(post("p1", "a"));
+        when(mongoTemplate.findDistinct(any(Query.class), eq("mediaUrls.thumbnailUrl"), eq(Post.class), eq(String.class)))
+                .thenReturn(List.of(BUCKET + "media/a-thumb.jpg"));
+
+        // Act
+        postPurgeService.purgeDeletedPosts();
+
+        // Assert
+        ArgumentCaptor<DeleteObjectsRequest> deletes = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client).deleteObjects(deletes.capture());
+        assertThat(deletes.getValue().delete().objects().stream().map(ObjectIdentifier::key).collect(Collectors.toList()))
+                .containsExactly("media/a.jpg");
+    }
+
+    @Test
+    void purgeDeletedPosts_skipsAPostThatFailsAndPurgesTheRest() {
+        // Arrange
+        when(postMetadataRepository.findPurgeable(any(LocalDateTime.class), anyInt()))
+                .thenReturn(List.of(deleted("p1"), deleted("p2")));
+        when(likeRepository.deleteChunkByPostId(eq("p1"), anyInt())).thenThrow(new RuntimeException("lock timeout"));
+
+        // Act
+        int purged = postPurgeService.purgeDeletedPosts();
+
+        // Assert
+        assertThat(purged).isEqualTo(1);
+        verify(postMetadataRepository, never()).deleteSoftDeleted("p1");
+        verify(postMetadataRepository).deleteSoftDeleted("p2");
+        assertThat(meterRegistry.get("content.post.purge.failures").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void purgeDeletedPosts_pagesAfterTheLastPostUntilTheRunBudgetIsSpent() {
+        // Arrange
+        ReflectionTestUtils.setField(postPurgeService, "batchSize", 1);
+        ReflectionTestUtils.setField(postPurgeService, "maxPostsPerRun", 2);
+        PostMetadata first = deleted("p1");
+        when(postMetadataRepository.findPurgeable(any(LocalDateTime.class), eq(1))).thenReturn(List.of(first));
+        when(postMetadataRepository.findPurgeableAfter(any(LocalDateTime.class), eq(first.getDeletedAt()), eq("p1"), eq(1)))
+                .thenReturn(List.of(deleted("p2")));
+
+        // Act
+        int purged = postPurgeService.purgeDeletedPosts();
+
+        // Assert
+        assertThat(purged).isEqualTo(2);
+        verify(postMetadataRepository, times(1)).findPurgeableAfter(any(LocalDateTime.class), any(LocalDateTime.class),
+                anyString(), anyInt());
+    }
+
+    @Test
+    void purgeDeletedPosts_whenAnotherReplicaHoldsTheLease_doesNothing() {
+        // Arrange
+        when(valueOperations.setIfAbsent(eq(PostPurgeService.LEASE_KEY), anyString(), any(Duration.class)))
+                .thenReturn(false);
+
+        // Act
+        int purged = postPurgeService.purgeDeletedPosts();
+
+        // Assert
+        assertThat(purged).isZero();
+        verifyNoInteractions(postMetadataRepository, likeRepository, mongoTemplate, s3Client);
+    }
+
+    private static PostMetadata deleted(String id) {
+        return PostMetadata.builder()
+                .id(id)
+                .userId("user1")
+                .type(PostMetadata.PostType.IMAGE)
+                .isDeleted(true)
+                .deletedAt(LocalDateTime.now().minusDays(40))
+                .build();
+    }
+
+    private static Comment comment(String id) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        return comment;
+    }
+
+    private static Post post(String id, String name) {
+        return Post.builder()
+                .id(id)
+                .mediaUrls(List.of(Post.MediaUrl.builder()
+                        .url(BUCKET + "media/" + name + ".jpg")
+                        .thumbnailUrl(BUCKET + "media/" + name + "-thumb.jpg")
+                        .type(Post.MediaType.IMAGE)
+                        .build()))
+                .build();
+    }
+}
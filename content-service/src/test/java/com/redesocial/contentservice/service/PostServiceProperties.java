@@ -3,6 +3,7 @@ package com.redesocial.contentservice.service;
 import com.redesocial.contentservice.dto.CreatePostRequest;
 import com.redesocial.contentservice.dto.PostResponse;
 import com.redesocial.contentservice.event.PostCreatedEvent;
+import com.redesocial.contentservice.model.jpa.PostCounterDelta;
 import com.redesocial.contentservice.model.jpa.PostMetadata;
 import com.redesocial.contentservice.model.mongo.Post;
 import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
@@ -32,6 +33,11 @@ class PostServiceProperties {
     private PostRepository postRepository;
     private PostMetadataRepository postMetadataRepository;
     private EventPublisher eventPublisher;
+    private PostCache postCache;
+    private FeedFanoutService feedFanoutService;
+    private TrendingHashtagService trendingHashtagService;
+    private TranscodeService transcodeService;
+    private EngagementCounterBuffer counterBuffer;
     private PostService postService;
     
     @BeforeEach
@@ -39,7 +45,15 @@ class PostServiceProperties {
         postRepository = Mockito.mock(PostRepository.class);
         postMetadataRepository = Mockito.mock(PostMetadataRepository.class);
         eventPublisher = Mockito.mock(EventPublisher.class);
-        postService = new PostService(postRepository, postMetadataRepository, eventPublisher);
+        postCache = Mockito.mock(PostCache.class);
+        feedFanoutService = Mockito.mock(FeedFanoutService.class);
+        trendingHashtagService = Mockito.mock(TrendingHashtagService.class);
+        transcodeService = Mockito.mock(TranscodeService.class);
+        counterBuffer = Mockito.mock(EngagementCounterBuffer.class);
+        when(counterBuffer.pendingDelta(anyString()))
+                .thenAnswer(invocation -> new PostCounterDelta(invocation.getArgument(0), 0, 0, 0));
+        postService = new PostService(postRepository, postMetadataRepository, eventPublisher, postCache, feedFanoutService,
+                trendingHashtagService, transcodeService, counterBuffer);
     }
     
     /**
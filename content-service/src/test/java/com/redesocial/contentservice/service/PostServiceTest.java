@@ -1,20 +1,29 @@
 package com.redesocial.contentservice.service;
 
 import com.redesocial.contentservice.dto.CreatePostRequest;
+import com.redesocial.contentservice.dto.CursorPage;
 import com.redesocial.contentservice.dto.PostResponse;
+import com.redesocial.contentservice.model.jpa.PostCounterDelta;
 import com.redesocial.contentservice.model.jpa.PostMetadata;
 import com.redesocial.contentservice.model.mongo.Post;
 import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
 import com.redesocial.contentservice.repository.mongo.PostRepository;
+import com.redesocial.contentservice.util.PageCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 /**
@@ -25,6 +34,11 @@ class PostServiceTest {
     private PostRepository postRepository;
     private PostMetadataRepository postMetadataRepository;
     private EventPublisher eventPublisher;
+    private PostCache postCache;
+    private FeedFanoutService feedFanoutService;
+    private TrendingHashtagService trendingHashtagService;
+    private TranscodeService transcodeService;
+    private EngagementCounterBuffer counterBuffer;
     private PostService postService;
     
     @BeforeEach
@@ -32,7 +46,15 @@ class PostServiceTest {
         postRepository = Mockito.mock(PostRepository.class);
         postMetadataRepository = Mockito.mock(PostMetadataRepository.class);
         eventPublisher = Mockito.mock(EventPublisher.class);
-        postService = new PostService(postRepository, postMetadataRepository, eventPublisher);
+        postCache = Mockito.mock(PostCache.class);
+        feedFanoutService = Mockito.mock(FeedFanoutService.class);
+        trendingHashtagService = Mockito.mock(TrendingHashtagService.class);
+        transcodeService = Mockito.mock(TranscodeService.class);
+        counterBuffer = Mockito.mock(EngagementCounterBuffer.class);
+        when(counterBuffer.pendingDelta(anyString()))
+                .thenAnswer(invocation -> new PostCounterDelta(invocation.getArgument(0), 0, 0, 0));
+        postService = new PostService(postRepository, postMetadataRepository, eventPublisher, postCache, feedFanoutService,
+                trendingHashtagService, transcodeService, counterBuffer);
     }
     
     @Test
@@ -148,6 +170,147 @@ class PostServiceTest {
         assertThat(response.getHashtags()).hasSize(4); // No duplicates
     }
     
+    @Test
+    void createPost_shouldFanOutToFollowerTimelines() {
+        // Arrange
+        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        CreatePostRequest request = CreatePostRequest.builder()
+                .content("Hello followers")
+                .userId("user123")
+                .build();
+        
+        // Act
+        PostResponse response = postService.createPost(request);
+        
+        // Assert
+        verify(feedFanoutService).fanOut(response.getId(), "user123", response.getCreatedAt());
+    }
+    
+    @Test
+    void createPost_shouldRecordHashtagsForTrending() {
+        // Arrange
+        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        CreatePostRequest request = CreatePostRequest.builder()
+                .content("Fim de semana #praia #Verão #praia")
+                .userId("user123")
+                .build();
+        
+        // Act
+        postService.createPost(request);
+        
+        // Assert
+        verify(trendingHashtagService).record(List.of("praia", "verão"));
+    }
+    
+    @Test
+    void createPost_withVideo_shouldStoreMediaAndAttachFinishedRenditions() {
+        // Arrange
+        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        Post.MediaUrl video = Post.MediaUrl.builder()
+                .url("https://bucket.s3.amazonaws.com/media/videos/user123/clip")
+                .type(Post.MediaType.VIDEO)
+                .build();
+        Post.MediaVariant rendition = Post.MediaVariant.builder()
+                .url("https://bucket.s3.amazonaws.com/media/renditions/abc/480p.mp4")
+                .width(854)
+                .height(480)
+                .format("mp4")
+                .build();
+        when(transcodeService.attachRenditions(anyList())).thenAnswer(invocation -> {
+            List<Post.MediaUrl> media = invocation.getArgument(0);
+            media.get(0).setVariants(List.of(rendition));
+            return true;
+        });
+        CreatePostRequest request = CreatePostRequest.builder()
+                .content("Olha esse vídeo")
+                .userId("user123")
+                .mediaUrls(List.of(video))
+                .build();
+        
+        // Act
+        PostResponse response = postService.createPost(request);
+        
+        // Assert
+        assertThat(response.getMediaUrls()).hasSize(1);
+        assertThat(response.getMediaUrls().get(0).getVariants()).containsExactly(rendition);
+        // Saved once for the post itself and again with the renditions attached
+        verify(postRepository, times(2)).save(any(Post.class));
+        verify(postMetadataRepository).save(argThat(metadata -> metadata.getType() == PostMetadata.PostType.VIDEO));
+    }
+    
+    @Test
+    void createPost_withImagesAndVideos_shouldBeMixed() {
+        // Arrange
+        when(postRepository.save(any(Post.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(postMetadataRepository.save(any(PostMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        CreatePostRequest request = CreatePostRequest.builder()
+                .content("Fotos e vídeo")
+                .userId("user123")
+                .mediaUrls(List.of(
+                        Post.MediaUrl.builder().url("https://bucket/image").type(Post.MediaType.IMAGE).build(),
+                        Post.MediaUrl.builder().url("https://bucket/video").type(Post.MediaType.VIDEO).build()))
+                .build();
+        
+        // Act
+        postService.createPost(request);
+        
+        // Assert
+        verify(postRepository, times(1)).save(any(Post.class));
+        verify(postMetadataRepository).save(argThat(metadata -> metadata.getType() == PostMetadata.PostType.MIXED));
+    }
+    
+    @Test
+    void getPost_whenCached_shouldNotQueryDatabases() {
+        // Arrange
+        PostResponse cached = PostResponse.builder().id("post1").likesCount(7).build();
+        when(postCache.get("post1")).thenReturn(cached);
+        
+        // Act
+        PostResponse response = postService.getPost("post1");
+        
+        // Assert
+        assertThat(response).isSameAs(cached);
+        verify(postRepository, never()).findById(anyString());
+        verify(postMetadataRepository, never()).findByIdAndIsDeletedFalse(anyString());
+    }
+    
+    @Test
+    void getPost_onCacheMiss_shouldLoadAndCachePost() {
+        // Arrange
+        when(postRepository.findById("post1")).thenReturn(Optional.of(post("post1")));
+        when(postMetadataRepository.findByIdAndIsDeletedFalse("post1")).thenReturn(Optional.of(metadata("post1", 4)));
+        when(postCache.version("post1")).thenReturn("5");
+        
+        // Act
+        PostResponse response = postService.getPost("post1");
+        
+        // Assert - The version is read before the counters, so a flush in between is detected
+        assertThat(response.getLikesCount()).isEqualTo(4);
+        InOrder inOrder = inOrder(postCache, postMetadataRepository);
+        inOrder.verify(postCache).version("post1");
+        inOrder.verify(postMetadataRepository).findByIdAndIsDeletedFalse("post1");
+        inOrder.verify(postCache).put(response, "5");
+    }
+    
+    @Test
+    void getPost_onCacheMiss_shouldIncludeCounterDeltasNotYetFlushed() {
+        // Arrange
+        when(postRepository.findById("post1")).thenReturn(Optional.of(post("post1")));
+        when(postMetadataRepository.findByIdAndIsDeletedFalse("post1")).thenReturn(Optional.of(metadata("post1", 4)));
+        when(counterBuffer.pendingDelta("post1")).thenReturn(new PostCounterDelta("post1", 3, 1, 0));
+        
+        // Act
+        PostResponse response = postService.getPost("post1");
+        
+        // Assert
+        assertThat(response.getLikesCount()).isEqualTo(7);
+        assertThat(response.getCommentsCount()).isEqualTo(1);
+        verify(postCache).put(argThat(cached -> cached.getLikesCount() == 7), any());
+    }
+    
     @Test
     void getPost_whenPostNotFound_shouldThrowException() {
         // Arrange
@@ -178,4 +341,187 @@ class PostServiceTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Post not found or deleted");
     }
+    
+    @Test
+    void getPosts_shouldHydrateWithOneQueryPerStoreAndKeepRequestedOrder() {
+        // Arrange
+        List<String> ids = List.of("post3", "post1", "deleted", "post2", "post1");
+        when(postMetadataRepository.findByIdInAndIsDeletedFalse(anyCollection())).thenReturn(List.of(
+                metadata("post1", 1), metadata("post2", 2), metadata("post3", 3)));
+        when(postRepository.findAllById(anyCollection())).thenReturn(List.of(
+                post("post2"), post("post1"), post("post3")));
+        
+        // Act
+        List<PostResponse> responses = postService.getPosts(ids);
+        
+        // Assert
+        assertThat(responses).extracting(PostResponse::getId).containsExactly("post3", "post1", "post2");
+        assertThat(responses).extracting(PostResponse::getLikesCount).containsExactly(3, 1, 2);
+        verify(postMetadataRepository, times(1)).findByIdInAndIsDeletedFalse(anyCollection());
+        verify(postRepository, times(1)).findAllById(anyCollection());
+        verify(postRepository, never()).findById(anyString());
+    }
+    
+    @Test
+    void getPosts_whenAllPostsDeleted_shouldSkipMongo() {
+        // Arrange
+        when(postMetadataRepository.findByIdInAndIsDeletedFalse(anyCollection())).thenReturn(List.of());
+        
+        // Act
+        List<PostResponse> responses = postService.getPosts(List.of("deleted"));
+        
+        // Assert
+        assertThat(responses).isEmpty();
+        verify(postRepository, never()).findAllById(anyCollection());
+    }
+    
+    @Test
+    void getUserPosts_firstPage_shouldFetchOneExtraRowAndReturnCursor() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        PostMetadata newest = metadata("post3", 0, now);
+        PostMetadata middle = metadata("post2", 0, now.minusMinutes(1));
+        PostMetadata extra = metadata("post1", 0, now.minusMinutes(2));
+        when(postMetadataRepository.findAuthorTimeline("user123", 3)).thenReturn(List.of(newest, middle, extra));
+        when(postRepository.findAllById(anyCollection())).thenReturn(List.of(post("post2"), post("post3")));
+        
+        // Act
+        CursorPage<PostResponse> page = postService.getUserPosts("user123", null, 2);
+        
+        // Assert
+        assertThat(page.getContent()).extracting(PostResponse::getId).containsExactly("post3", "post2");
+        assertThat(page.isHasMore()).isTrue();
+        PageCursor cursor = PageCursor.decode(page.getNextCursor());
+        assertThat(cursor.getCreatedAt()).isEqualTo(middle.getCreatedAt());
+        assertThat(cursor.getId()).isEqualTo("post2");
+        verify(postRepository, times(1)).findAllById(List.of("post3", "post2"));
+    }
+    
+    @Test
+    void getUserPosts_withCursor_shouldSeekPastCursor() {
+        // Arrange
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        String cursor = new PageCursor(createdAt, "post2").encode();
+        when(postMetadataRepository.findAuthorTimelineAfter("user123", createdAt, "post2", 21))
+                .thenReturn(List.of(metadata("post1", 0, createdAt.minusMinutes(1))));
+        when(postRepository.findAllById(anyCollection())).thenReturn(List.of(post("post1")));
+        
+        // Act
+        CursorPage<PostResponse> page = postService.getUserPosts("user123", cursor, 20);
+        
+        // Assert
+        assertThat(page.getContent()).extracting(PostResponse::getId).containsExactly("post1");
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+        verify(postMetadataRepository, never()).findAuthorTimeline(anyString(), anyInt());
+    }
+    
+    @Test
+    void getUserPosts_whenAuthorHasNoPosts_shouldSkipMongo() {
+        // Arrange
+        when(postMetadataRepository.findAuthorTimeline("user123", 21)).thenReturn(List.of());
+        
+        // Act
+        CursorPage<PostResponse> page = postService.getUserPosts("user123", null, 20);
+        
+        // Assert
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.isHasMore()).isFalse();
+        verify(postRepository, never()).findAllById(anyCollection());
+    }
+    
+    @Test
+    void getHashtagPosts_firstPage_shouldQueryNormalizedTagAndReturnCursor() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        Post newest = post("post3", now);
+        Post middle = post("post2", now.minusMinutes(1));
+        Post extra = post("post1", now.minusMinutes(2));
+        when(postRepository.findLiveByHashtag("ação", PageRequest.of(0, 3))).thenReturn(List.of(newest, middle, extra));
+        when(postMetadataRepository.findByIdInAndIsDeletedFalse(anyCollection()))
+                .thenReturn(List.of(metadata("post2", 4), metadata("post3", 1)));
+        
+        // Act
+        CursorPage<PostResponse> page = postService.getHashtagPosts("#AÇÃO", null, 2);
+        
+        // Assert
+        assertThat(page.getContent()).extracting(PostResponse::getId).containsExactly("post3", "post2");
+        assertThat(page.getContent()).extracting(PostResponse::getLikesCount).containsExactly(1, 4);
+        assertThat(page.isHasMore()).isTrue();
+        PageCursor cursor = PageCursor.decode(page.getNextCursor());
+        assertThat(cursor.getCreatedAt()).isEqualTo(middle.getCreatedAt());
+        assertThat(cursor.getId()).isEqualTo("post2");
+        verify(postMetadataRepository, times(1)).findByIdInAndIsDeletedFalse(List.of("post3", "post2"));
+    }
+    
+    @Test
+    void getHashtagPosts_withCursor_shouldSeekPastCursor() {
+        // Arrange
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        String cursor = new PageCursor(createdAt, "post2").encode();
+        when(postRepository.findLiveByHashtagAfter("java", createdAt, "post2", PageRequest.of(0, 21)))
+                .thenReturn(List.of(post("post1", createdAt.minusMinutes(1))));
+        when(postMetadataRepository.findByIdInAndIsDeletedFalse(anyCollection())).thenReturn(List.of(metadata("post1", 0)));
+        
+        // Act
+        CursorPage<PostResponse> page = postService.getHashtagPosts("java", cursor, 20);
+        
+        // Assert
+        assertThat(page.getContent()).extracting(PostResponse::getId).containsExactly("post1");
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+    
+    @Test
+    void getHashtagPosts_shouldSkipPostsDeletedBeforeTheMongoFlag() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        when(postRepository.findLiveByHashtag("java", PageRequest.of(0, 21)))
+                .thenReturn(List.of(post("post2", now), post("post1", now.minusMinutes(1))));
+        when(postMetadataRepository.findByIdInAndIsDeletedFalse(anyCollection())).thenReturn(List.of(metadata("post1", 0)));
+        
+        // Act
+        CursorPage<PostResponse> page = postService.getHashtagPosts("java", null, 20);
+        
+        // Assert
+        assertThat(page.getContent()).extracting(PostResponse::getId).containsExactly("post1");
+    }
+    
+    @Test
+    void getHashtagPosts_withInvalidTag_shouldThrow() {
+        assertThatThrownBy(() -> postService.getHashtagPosts("not a tag", null, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(postRepository);
+    }
+    
+    private static PostMetadata metadata(String postId, int likes, LocalDateTime createdAt) {
+        PostMetadata metadata = metadata(postId, likes);
+        metadata.setCreatedAt(createdAt);
+        return metadata;
+    }
+    
+    private static PostMetadata metadata(String postId, int likes) {
+        return PostMetadata.builder()
+                .id(postId)
+                .userId("user123")
+                .likesCount(likes)
+                .commentsCount(0)
+                .sharesCount(0)
+                .isDeleted(false)
+                .build();
+    }
+    
+    private static Post post(String postId, LocalDateTime createdAt) {
+        Post post = post(postId);
+        post.setCreatedAt(createdAt);
+        return post;
+    }
+    
+    private static Post post(String postId) {
+        return Post.builder()
+                .id(postId)
+                .userId("user123")
+                .content("Content of " + postId)
+                .build();
+    }
 }
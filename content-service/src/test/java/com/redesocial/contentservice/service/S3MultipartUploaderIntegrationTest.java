@@ -0,0 +1,150 @@
+package com.redesocial.contentservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Streams large uploads through S3MultipartUploader into a MinIO container and
+ * checks that the heap held for part buffers stays at the pool ceiling however
+ * large or numerous the uploads are. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class S3MultipartUploaderIntegrationTest {
+
+    private static final String BUCKET = "media-it";
+    private static final long PART_SIZE = 5L * 1024 * 1024;
+
+    @Container
+    private static final GenericContainer<?> MINIO = new GenericContainer<>(
+            DockerImageName.parse("minio/minio:RELEASE.2023-12-20T01-00-02Z"))
+            .withEnv("MINIO_ROOT_USER", "minio")
+            .withEnv("MINIO_ROOT_PASSWORD", "minio-secret")
+            .withCommand("server", "/data")
+            .withExposedPorts(9000)
+            .waitingFor(Wait.forHttp("/minio/health/live").forPort(9000));
+
+    private static S3Client s3Client;
+
+    private SimpleMeterRegistry meterRegistry;
+    private S3MultipartUploader uploader;
+
+    @BeforeAll
+    static void createBucket() {
+        s3Client = S3Client.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("minio", "minio-secret")))
+                .endpointOverride(URI.create("http://" + MINIO.getHost() + ":" + MINIO.getMappedPort(9000)))
+                .forcePathStyle(true)
+                .build();
+        s3Client.createBucket(request -> request.bucket(BUCKET));
+    }
+
+    @AfterAll
+    static void closeClient() {
+        s3Client.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        uploader = new S3MultipartUploader(s3Client, meterRegistry);
+        uploader.registerMetrics();
+    }
+
+    @Test
+    void upload_largeVideo_shouldRoundTripWhileHoldingOnePartBuffer() throws Exception {
+        long size = 64L * 1024 * 1024;
+        MessageDigest uploaded = sha256();
+
+        long written;
+        try (InputStream input = new DigestInputStream(new S3MultipartUploaderTest.PatternInputStream(size), uploaded)) {
+            written = uploader.upload(BUCKET, "videos/large.mp4", "video/mp4", input);
+        }
+
+        assertThat(written).isEqualTo(size);
+        // The memory ceiling: one 5 MiB buffer for a 64 MiB upload
+        assertThat(uploader.getAllocatedBuffers()).isEqualTo(1);
+        assertThat(uploader.getAllocatedBuffers() * PART_SIZE).isLessThanOrEqualTo(PART_SIZE);
+
+        GetObjectRequest request = GetObjectRequest.builder().bucket(BUCKET).key("videos/large.mp4").build();
+        try (ResponseInputStream<GetObjectResponse> stored = s3Client.getObject(request)) {
+            assertThat(stored.response().contentLength()).isEqualTo(size);
+            assertThat(stored.response().contentType()).isEqualTo("video/mp4");
+            assertThat(digest(stored)).isEqualTo(uploaded.digest());
+        }
+        assertThat(s3Client.listMultipartUploads(ListMultipartUploadsRequest.builder().bucket(BUCKET).build())
+                .uploads()).isEmpty();
+    }
+
+    @Test
+    void upload_concurrentUploads_shouldShareTheBoundedPool() throws Exception {
+        ReflectionTestUtils.setField(uploader, "maxBuffers", 2);
+        long size = 12L * 1024 * 1024;
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<Long>> uploads = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                String key = "videos/concurrent-" + i + ".mp4";
+                uploads.add(executor.submit(() ->
+                        uploader.upload(BUCKET, key, "video/mp4", new S3MultipartUploaderTest.PatternInputStream(size))));
+            }
+            for (Future<Long> upload : uploads) {
+                assertThat(upload.get()).isEqualTo(size);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Six concurrent 12 MiB uploads never held more than two part buffers
+        assertThat(uploader.getAllocatedBuffers()).isLessThanOrEqualTo(2);
+        for (int i = 0; i < 6; i++) {
+            String key = "videos/concurrent-" + i + ".mp4";
+            assertThat(s3Client.headObject(request -> request.bucket(BUCKET).key(key)).contentLength()).isEqualTo(size);
+        }
+    }
+
+    private static MessageDigest sha256() throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256");
+    }
+
+    private static byte[] digest(InputStream input) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = sha256();
+        byte[] chunk = new byte[64 * 1024];
+        int read;
+        while ((read = input.read(chunk)) >= 0) {
+            digest.update(chunk, 0, read);
+        }
+        return digest.digest();
+    }
+}
@@ -0,0 +1,201 @@
+package com.redesocial.contentservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for S3MultipartUploader
+ */
+class S3MultipartUploaderTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private S3Client s3Client;
+    private SimpleMeterRegistry meterRegistry;
+    private S3MultipartUploader uploader;
+    private final List<Long> partLengths = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        s3Client = Mockito.mock(S3Client.class);
+        meterRegistry = new SimpleMeterRegistry();
+        uploader = new S3MultipartUploader(s3Client, meterRegistry);
+        uploader.registerMetrics();
+
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenReturn(PutObjectResponse.builder().build());
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            partLengths.add(request.contentLength());
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        });
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(CompleteMultipartUploadResponse.builder().build());
+    }
+
+    @Test
+    void upload_smallerThanOnePart_shouldUseSinglePut() throws IOException {
+        long written = uploader.upload("bucket", "key", "image/png", new ByteArrayInputStream(new byte[1024]));
+
+        assertThat(written).isEqualTo(1024);
+        verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    void upload_largerThanOnePart_shouldSendNumberedPartsAndComplete() throws IOException {
+        long size = 2L * PART_SIZE + 123;
+
+        long written = uploader.upload("bucket", "videos/key", "video/mp4", new PatternInputStream(size));
+
+        assertThat(written).isEqualTo(size);
+        assertThat(partLengths).containsExactly((long) PART_SIZE, (long) PART_SIZE, 123L);
+        ArgumentCaptor<CompleteMultipartUploadRequest> captor = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(captor.capture());
+        assertThat(captor.getValue().uploadId()).isEqualTo("upload-1");
+        assertThat(captor.getValue().multipartUpload().parts())
+                .extracting(part -> part.partNumber() + ":" + part.eTag())
+                .containsExactly("1:etag-1", "2:etag-2", "3:etag-3");
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void upload_whenPartFails_shouldAbortMultipartUpload() {
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(SdkClientException.create("Connection reset"));
+
+        assertThatThrownBy(() -> uploader.upload("bucket", "key", "video/mp4", new PatternInputStream(2L * PART_SIZE)))
+                .isInstanceOf(SdkClientException.class);
+
+        ArgumentCaptor<AbortMultipartUploadRequest> captor = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        verify(s3Client).abortMultipartUpload(captor.capture());
+        assertThat(captor.getValue().uploadId()).isEqualTo("upload-1");
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        assertThat(meterRegistry.get("content.media.upload.aborted").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void upload_sequentialUploads_shouldReuseOneBuffer() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            uploader.upload("bucket", "key" + i, "video/mp4", new PatternInputStream(PART_SIZE + 1));
+        }
+
+        assertThat(uploader.getAllocatedBuffers()).isEqualTo(1);
+        assertThat(meterRegistry.get("content.media.upload.buffers.free").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void upload_whenPoolIsExhausted_shouldTimeOutInsteadOfAllocating() throws Exception {
+        ReflectionTestUtils.setField(uploader, "maxBuffers", 1);
+        ReflectionTestUtils.setField(uploader, "bufferWaitMs", 50L);
+        BlockingInputStream blocking = new BlockingInputStream();
+        Thread holder = new Thread(() -> {
+            try {
+                uploader.upload("bucket", "held", "video/mp4", blocking);
+            } catch (IOException ignored) {
+                // released below
+            }
+        });
+        holder.start();
+        blocking.awaitFirstRead();
+
+        assertThatThrownBy(() -> uploader.upload("bucket", "key", "video/mp4", new ByteArrayInputStream(new byte[10])))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Timed out");
+        assertThat(uploader.getAllocatedBuffers()).isEqualTo(1);
+
+        blocking.release();
+        holder.join(5000);
+    }
+
+    /**
+     * Deterministic stream of {@code size} bytes that is never materialized.
+     */
+    static final class PatternInputStream extends InputStream {
+        private final long size;
+        private long position;
+
+        PatternInputStream(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            return position < size ? (int) (position++ % 251) : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= size) {
+                return -1;
+            }
+            int count = (int) Math.min(length, size - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) (position++ % 251);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Stream whose first read blocks until released, to hold a buffer.
+     */
+    private static final class BlockingInputStream extends InputStream {
+        private final CountDownLatch firstRead = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        public int read() throws IOException {
+            firstRead.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return read();
+        }
+
+        void awaitFirstRead() throws InterruptedException {
+            firstRead.await();
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
@@ -12,6 +12,7 @@ import net.jqwik.api.*;
 import net.jqwik.api.constraints.AlphaChars;
 import net.jqwik.api.constraints.IntRange;
 import net.jqwik.api.constraints.StringLength;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
@@ -35,6 +36,7 @@ class ShareServiceProperties {
     private PostMetadataRepository postMetadataRepository;
     private ShareRepository shareRepository;
     private EventPublisher eventPublisher;
+    private EngagementCounterBuffer counterBuffer;
     private ShareService shareService;
     
     @BeforeEach
@@ -43,7 +45,9 @@ class ShareServiceProperties {
         postMetadataRepository = Mockito.mock(PostMetadataRepository.class);
         shareRepository = Mockito.mock(ShareRepository.class);
         eventPublisher = Mockito.mock(EventPublisher.class);
-        shareService = new ShareService(postRepository, postMetadataRepository, shareRepository, eventPublisher);
+        counterBuffer = new EngagementCounterBuffer(postMetadataRepository, new SimpleMeterRegistry(),
+                Mockito.mock(PostCache.class));
+        shareService = new ShareService(postRepository, postMetadataRepository, shareRepository, eventPublisher, counterBuffer);
     }
     
     /**
@@ -149,8 +153,8 @@ class ShareServiceProperties {
         shareService.sharePost(originalPostId, userId);
         
         // Assert - Shares count incremented by exactly 1
-        assertThat(originalMetadata.getSharesCount()).isEqualTo(initialSharesCount + 1);
-        verify(postMetadataRepository, times(2)).save(any(PostMetadata.class)); // Original + shared post metadata
+        assertThat(counterBuffer.pendingDelta(originalPostId).getShares()).isEqualTo(1);
+        verify(postMetadataRepository, times(1)).save(any(PostMetadata.class)); // Shared post metadata only
     }
     
     /**
@@ -305,7 +309,7 @@ class ShareServiceProperties {
         }
         
         // Assert - Shares count incremented by exact number of shares
-        assertThat(originalMetadata.getSharesCount()).isEqualTo(initialSharesCount + numberOfShares);
+        assertThat(counterBuffer.pendingDelta(originalPostId).getShares()).isEqualTo(numberOfShares);
         verify(shareRepository, times(numberOfShares)).save(any(Share.class));
         verify(eventPublisher, times(numberOfShares)).publishEvent(eq("share.created"), any(ShareCreatedEvent.class));
     }
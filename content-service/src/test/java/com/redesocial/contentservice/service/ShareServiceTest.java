@@ -9,6 +9,7 @@ import com.redesocial.contentservice.model.mongo.Post;
 import com.redesocial.contentservice.repository.jpa.PostMetadataRepository;
 import com.redesocial.contentservice.repository.jpa.ShareRepository;
 import com.redesocial.contentservice.repository.mongo.PostRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -33,6 +34,7 @@ class ShareServiceTest {
     private PostMetadataRepository postMetadataRepository;
     private ShareRepository shareRepository;
     private EventPublisher eventPublisher;
+    private EngagementCounterBuffer counterBuffer;
     private ShareService shareService;
     
     @BeforeEach
@@ -41,7 +43,9 @@ class ShareServiceTest {
         postMetadataRepository = Mockito.mock(PostMetadataRepository.class);
         shareRepository = Mockito.mock(ShareRepository.class);
         eventPublisher = Mockito.mock(EventPublisher.class);
-        shareService = new ShareService(postRepository, postMetadataRepository, shareRepository, eventPublisher);
+        counterBuffer = new EngagementCounterBuffer(postMetadataRepository, new SimpleMeterRegistry(),
+                Mockito.mock(PostCache.class));
+        shareService = new ShareService(postRepository, postMetadataRepository, shareRepository, eventPublisher, counterBuffer);
     }
     
     @Test
@@ -128,7 +132,7 @@ class ShareServiceTest {
         assertThat(response.getSharesCount()).isEqualTo(0);
         
         verify(postRepository, times(2)).save(any(Post.class)); // Original post + shared post
-        verify(postMetadataRepository, times(2)).save(any(PostMetadata.class)); // Original metadata + shared metadata
+        verify(postMetadataRepository, times(1)).save(any(PostMetadata.class)); // Shared metadata only
         verify(shareRepository).save(any(Share.class));
     }
     
@@ -166,8 +170,8 @@ class ShareServiceTest {
         shareService.sharePost(originalPostId, userId);
         
         // Assert
-        assertThat(originalMetadata.getSharesCount()).isEqualTo(6);
-        verify(postMetadataRepository, times(2)).save(any(PostMetadata.class));
+        assertThat(counterBuffer.pendingDelta(originalPostId).getShares()).isEqualTo(1);
+        verify(postMetadataRepository, never()).save(originalMetadata);
     }
     
     @Test
@@ -338,7 +342,7 @@ class ShareServiceTest {
         shareService.sharePost(originalPostId, "user3");
         
         // Assert
-        assertThat(originalMetadata.getSharesCount()).isEqualTo(3);
+        assertThat(counterBuffer.pendingDelta(originalPostId).getShares()).isEqualTo(3);
         verify(shareRepository, times(3)).save(any(Share.class));
         verify(eventPublisher, times(3)).publishEvent(eq("share.created"), any(ShareCreatedEvent.class));
     }
@@ -1,47 +1,254 @@
 package com.redesocial.contentservice.service;
 
-import com.redesocial.contentservice.repository.mongo.StoryRepository;
+import com.mongodb.client.result.DeleteResult;
+import com.redesocial.contentservice.model.jpa.MediaObject;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.model.mongo.StoryView;
+import com.redesocial.contentservice.repository.jpa.MediaObjectRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class StoryCleanupServiceTest {
-    
+
+    private static final String BUCKET = "https://bucket.s3.amazonaws.com/";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private MediaObjectRepository mediaObjectRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
     @Mock
-    private StoryRepository storyRepository;
-    
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private final Map<Object, Object> checkpoint = new HashMap<>();
     private StoryCleanupService storyCleanupService;
-    
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        storyCleanupService = new StoryCleanupService(storyRepository);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        MediaCleanup mediaCleanup = new MediaCleanup(s3Client, mongoTemplate, mediaObjectRepository, meterRegistry);
+        ReflectionTestUtils.setField(mediaCleanup, "bucketName", "bucket");
+        storyCleanupService = new StoryCleanupService(mongoTemplate, mediaCleanup, new RedisLease(redisTemplate),
+                redisTemplate, meterRegistry);
+        storyCleanupService.registerMetrics();
+        ReflectionTestUtils.setField(storyCleanupService, "batchSize", 2);
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(valueOperations.setIfAbsent(eq(StoryCleanupService.LEASE_KEY), anyString(), any(Duration.class)))
+                .thenReturn(true);
+        when(hashOperations.entries(StoryCleanupService.CHECKPOINT_KEY)).thenAnswer(invocation -> new HashMap<>(checkpoint));
+        doAnswer(invocation -> {
+            checkpoint.putAll(invocation.getArgument(1));
+            return null;
+        }).when(hashOperations).putAll(eq(StoryCleanupService.CHECKPOINT_KEY), anyMap());
+        when(redisTemplate.delete(StoryCleanupService.CHECKPOINT_KEY)).thenAnswer(invocation -> {
+            checkpoint.clear();
+            return true;
+        });
+
+        when(mongoTemplate.findDistinct(any(Query.class), anyString(), eq(Post.class), eq(String.class)))
+                .thenReturn(List.of());
+        when(mongoTemplate.findDistinct(any(Query.class), anyString(), eq(Story.class), eq(String.class)))
+                .thenReturn(List.of());
+        when(mongoTemplate.remove(any(Query.class), eq(StoryView.class))).thenReturn(DeleteResult.acknowledged(3));
+        when(mongoTemplate.remove(any(Query.class), eq(Story.class))).thenReturn(DeleteResult.acknowledged(2));
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder().build());
+    }
+
+    @Test
+    void cleanupExpiredStories_deletesStoriesViewsAndMediaInBatches() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(Story.class)))
+                .thenReturn(List.of(story("s1", "a"), story("s2", "b")))
+                .thenReturn(List.of(story("s3", "c")));
+
+        // Act
+        int reaped = storyCleanupService.cleanupExpiredStories();
+
+        // Assert
+        assertThat(reaped).isEqualTo(3);
+        ArgumentCaptor<DeleteObjectsRequest> deletes = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, times(2)).deleteObjects(deletes.capture());
+        assertThat(keysOf(deletes.getAllValues().get(0))).containsExactlyInAnyOrder(
+                "media/a.jpg", "media/a-thumb.jpg", "media/variants/a-640w.jpg",
+                "media/b.jpg", "media/b-thumb.jpg", "media/variants/b-640w.jpg");
+        verify(mediaObjectRepository).deleteByObjectKeyIn(argThat(keys -> keys.containsAll(List.of("media/a.jpg", "media/b.jpg"))));
+        verify(mongoTemplate, times(2)).remove(any(Query.class), eq(StoryView.class));
+        verify(mongoTemplate, times(2)).remove(any(Query.class), eq(Story.class));
+        // The short second batch means the reaper caught up
+        assertThat(checkpoint).isEmpty();
+    }
+
+    @Test
+    void cleanupExpiredStories_keepsMediaStillUsedByAPost() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(Story.class))).thenReturn(List.of(story("s1", "a")));
+        when(mongoTemplate.findDistinct(any(Query.class), anyString(), eq(Post.class), eq(String.class)))
+                .thenReturn(List.of(BUCKET + "media/a.jpg", BUCKET + "media/unrelated.jpg"));
+
+        // Act
+        storyCleanupService.cleanupExpiredStories();
+
+        // Assert
+        verify(s3Client, never()).deleteObjects(any(DeleteObjectsRequest.class));
+        verify(mediaObjectRepository, never()).deleteByObjectKeyIn(any());
+        verify(mongoTemplate).remove(any(Query.class), eq(Story.class));
+    }
+
+    @Test
+    void cleanupExpiredStories_keepsMediaReusedByARecentUpload() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(Story.class))).thenReturn(List.of(story("s1", "a")));
+        when(mediaObjectRepository.findByObjectKeyIn(any())).thenReturn(List.of(MediaObject.builder()
+                .objectKey("media/a.jpg")
+                .lastUsedAt(LocalDateTime.now().minusMinutes(5))
+                .build()));
+
+        // Act
+        storyCleanupService.cleanupExpiredStories();
+
+        // Assert - The upload's post may not be saved yet
+        verify(s3Client, never()).deleteObjects(any(DeleteObjectsRequest.class));
+        verify(mediaObjectRepository, never()).deleteByObjectKeyIn(any());
+        verify(mongoTemplate).remove(any(Query.class), eq(Story.class));
+    }
+
+    @Test
+    void cleanupExpiredStories_stillDeletesStoriesWhenSomeMediaCannotBeDeleted() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(Story.class))).thenReturn(List.of(story("s1", "a")));
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder()
+                .errors(S3Error.builder().key("media/a.jpg").message("Access Denied").build())
+                .build());
+
+        // Act
+        int reaped = storyCleanupService.cleanupExpiredStories();
+
+        // Assert
+        assertThat(reaped).isEqualTo(1);
+        verify(mongoTemplate).remove(any(Query.class), eq(Story.class));
     }
-    
+
     @Test
-    void cleanupExpiredStories_executesSuccessfully() {
+    void cleanupExpiredStories_checkpointsAFullBatchAndStopsAtTheBatchBudget() {
         // Arrange
-        when(storyRepository.count()).thenReturn(10L);
-        
+        ReflectionTestUtils.setField(storyCleanupService, "maxBatchesPerRun", 1);
+        Story last = story("s2", "b");
+        when(mongoTemplate.find(any(Query.class), eq(Story.class))).thenReturn(List.of(story("s1", "a"), last));
+
         // Act
         storyCleanupService.cleanupExpiredStories();
-        
+
         // Assert
-        verify(storyRepository, times(1)).count();
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Story.class));
+        assertThat(checkpoint).containsEntry("storyId", "s2")
+                .containsEntry("expiresAt", last.getExpiresAt().toString());
     }
-    
+
+    @Test
+    void cleanupExpiredStories_resumesAfterTheCheckpoint() {
+        // Arrange
+        LocalDateTime position = LocalDateTime.now().minusHours(3);
+        checkpoint.put("expiresAt", position.toString());
+        checkpoint.put("storyId", "s9");
+        when(mongoTemplate.find(any(Query.class), eq(Story.class))).thenReturn(List.of());
+
+        // Act
+        storyCleanupService.cleanupExpiredStories();
+
+        // Assert
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Story.class));
+        assertThat(query.getValue().getQueryObject().toString()).contains("s9");
+    }
+
+    @Test
+    void cleanupExpiredStories_whenAnotherReplicaHoldsTheLease_doesNothing() {
+        // Arrange
+        when(valueOperations.setIfAbsent(eq(StoryCleanupService.LEASE_KEY), anyString(), any(Duration.class)))
+                .thenReturn(false);
+
+        // Act
+        int reaped = storyCleanupService.cleanupExpiredStories();
+
+        // Assert
+        assertThat(reaped).isZero();
+        verifyNoInteractions(mongoTemplate, s3Client);
+    }
+
     @Test
     void cleanupExpiredStories_handlesExceptionGracefully() {
         // Arrange
-        when(storyRepository.count()).thenThrow(new RuntimeException("Database error"));
-        
+        when(mongoTemplate.find(any(Query.class), eq(Story.class))).thenThrow(new RuntimeException("Database error"));
+
         // Act - should not throw exception
-        storyCleanupService.cleanupExpiredStories();
-        
+        int reaped = storyCleanupService.cleanupExpiredStories();
+
         // Assert
-        verify(storyRepository, times(1)).count();
+        assertThat(reaped).isZero();
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Story.class));
+    }
+
+    private static List<String> keysOf(DeleteObjectsRequest request) {
+        return request.delete().objects().stream().map(ObjectIdentifier::key).collect(Collectors.toList());
+    }
+
+    private static Story story(String id, String name) {
+        List<Post.MediaVariant> variants = new ArrayList<>();
+        variants.add(Post.MediaVariant.builder().url(BUCKET + "media/variants/" + name + "-640w.jpg").width(640).build());
+        return Story.builder()
+                .id(id)
+                .userId("user1")
+                .expiresAt(LocalDateTime.now().minusHours(1))
+                .mediaUrl(Post.MediaUrl.builder()
+                        .url(BUCKET + "media/" + name + ".jpg")
+                        .thumbnailUrl(BUCKET + "media/" + name + "-thumb.jpg")
+                        .type(Post.MediaType.IMAGE)
+                        .variants(variants)
+                        .build())
+                .build();
     }
 }
@@ -8,13 +8,15 @@ import com.redesocial.contentservice.repository.mongo.StoryViewRepository;
 import net.jqwik.api.*;
 import net.jqwik.api.constraints.AlphaChars;
 import net.jqwik.api.constraints.StringLength;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,13 +30,19 @@ class StoryServiceProperties {
     
     private StoryRepository storyRepository;
     private StoryViewRepository storyViewRepository;
+    private StoryViewBuffer storyViewBuffer;
     private StoryService storyService;
     
     @BeforeEach
     void setUp() {
         storyRepository = Mockito.mock(StoryRepository.class);
         storyViewRepository = Mockito.mock(StoryViewRepository.class);
-        storyService = new StoryService(storyRepository, storyViewRepository);
+        StoryTrayCache storyTrayCache = new StoryTrayCache(new SimpleMeterRegistry());
+        storyTrayCache.init();
+        storyViewBuffer = new StoryViewBuffer(Mockito.mock(MongoTemplate.class), Mockito.mock(StringRedisTemplate.class),
+                new SimpleMeterRegistry());
+        storyService = new StoryService(storyRepository, storyViewRepository, storyTrayCache, storyViewBuffer);
+        when(storyRepository.existsActiveStory(anyString(), any(LocalDateTime.class))).thenReturn(true);
     }
     
     /**
@@ -141,30 +149,13 @@ class StoryServiceProperties {
             @ForAll @AlphaChars @StringLength(min = 5, max = 36) String storyId,
             @ForAll @AlphaChars @StringLength(min = 5, max = 36) String viewerId
     ) {
-        // Arrange
-        Story story = Story.builder()
-                .id(storyId)
-                .userId("author")
-                .viewsCount(0)
-                .build();
-        
-        when(storyViewRepository.findByStoryIdAndViewerId(storyId, viewerId))
-                .thenReturn(Optional.empty());
-        when(storyViewRepository.save(any(StoryView.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
-        when(storyRepository.findById(storyId)).thenReturn(Optional.of(story));
-        when(storyRepository.save(any(Story.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        
         // Act
-        LocalDateTime beforeView = LocalDateTime.now();
+        int pendingBefore = storyViewBuffer.getPendingViews();
         storyService.recordStoryView(storyId, viewerId);
-        LocalDateTime afterView = LocalDateTime.now();
-        
-        // Assert - Verify view was saved
-        verify(storyViewRepository, times(1)).save(any(StoryView.class));
         
-        // Verify story views count was incremented
-        verify(storyRepository, times(1)).save(any(Story.class));
+        // Assert - The view is buffered without writing to the database
+        assertThat(storyViewBuffer.getPendingViews()).isEqualTo(pendingBefore + 1);
+        verifyNoInteractions(storyViewRepository);
     }
     
     /**
@@ -226,27 +217,12 @@ class StoryServiceProperties {
             @ForAll @AlphaChars @StringLength(min = 5, max = 36) String storyId,
             @ForAll @AlphaChars @StringLength(min = 5, max = 36) String viewerId
     ) {
-        // Arrange - First view
-        Story story = Story.builder()
-                .id(storyId)
-                .userId("author")
-                .viewsCount(0)
-                .build();
-        
-        when(storyViewRepository.findByStoryIdAndViewerId(storyId, viewerId))
-                .thenReturn(Optional.empty())
-                .thenReturn(Optional.of(StoryView.builder().build())); // Second call returns existing view
-        
-        when(storyViewRepository.save(any(StoryView.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
-        when(storyRepository.findById(storyId)).thenReturn(Optional.of(story));
-        when(storyRepository.save(any(Story.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        
         // Act - View twice
+        int pendingBefore = storyViewBuffer.getPendingViews();
         storyService.recordStoryView(storyId, viewerId);
         storyService.recordStoryView(storyId, viewerId);
         
-        // Assert - View should only be saved once
-        verify(storyViewRepository, times(1)).save(any(StoryView.class));
+        // Assert - View should only be buffered once
+        assertThat(storyViewBuffer.getPendingViews()).isEqualTo(pendingBefore + 1);
     }
 }
@@ -0,0 +1,143 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.exception.StoryNotFoundException;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.repository.mongo.StoryRepository;
+import com.redesocial.contentservice.repository.mongo.StoryViewRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StoryService
+ */
+class StoryServiceTest {
+
+    private StoryRepository storyRepository;
+    private StoryViewBuffer storyViewBuffer;
+    private StoryService storyService;
+
+    @BeforeEach
+    void setUp() {
+        storyRepository = Mockito.mock(StoryRepository.class);
+        StoryTrayCache storyTrayCache = new StoryTrayCache(new SimpleMeterRegistry());
+        storyTrayCache.init();
+        storyViewBuffer = Mockito.mock(StoryViewBuffer.class);
+        storyService = new StoryService(storyRepository, Mockito.mock(StoryViewRepository.class), storyTrayCache,
+                storyViewBuffer);
+        when(storyRepository.save(any(Story.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void getStoryTray_shouldGroupStoriesPerAuthorInRequestOrder() {
+        LocalDateTime now = LocalDateTime.now();
+        when(storyRepository.findActiveStoriesByUserIdIn(anyCollection(), any())).thenReturn(List.of(
+                story("a2", "alice", now.minusMinutes(5)),
+                story("b1", "bob", now.minusHours(1)),
+                story("a1", "alice", now.minusHours(2))));
+
+        Map<String, List<Story>> tray = storyService.getStoryTray(List.of("bob", "carol", "alice", "bob"));
+
+        assertThat(tray.keySet()).containsExactly("bob", "alice");
+        assertThat(tray.get("alice")).extracting(Story::getId).containsExactly("a1", "a2");
+        verify(storyRepository, times(1)).findActiveStoriesByUserIdIn(anyCollection(), any());
+    }
+
+    @Test
+    void getStoryTray_shouldOnlyQueryAuthorsMissingFromTheCache() {
+        LocalDateTime now = LocalDateTime.now();
+        when(storyRepository.findActiveStoriesByUserIdIn(anyCollection(), any()))
+                .thenReturn(List.of(story("b1", "bob", now)));
+        storyService.getStoryTray(List.of("bob", "carol"));
+
+        when(storyRepository.findActiveStoriesByUserIdIn(anyCollection(), any())).thenReturn(List.of());
+        Map<String, List<Story>> tray = storyService.getStoryTray(List.of("bob", "carol", "dave"));
+
+        assertThat(tray.keySet()).containsExactly("bob");
+        verify(storyRepository).findActiveStoriesByUserIdIn(argThat(ids -> containsOnly(ids, "dave")), any());
+    }
+
+    @Test
+    void getStoryTray_whenAllAuthorsAreCached_shouldNotQuery() {
+        when(storyRepository.findActiveStoriesByUserIdIn(anyCollection(), any())).thenReturn(List.of());
+        storyService.getStoryTray(List.of("carol", "dave"));
+
+        Map<String, List<Story>> tray = storyService.getStoryTray(List.of("dave", "carol"));
+
+        assertThat(tray).isEmpty();
+        verify(storyRepository, times(1)).findActiveStoriesByUserIdIn(anyCollection(), any());
+    }
+
+    @Test
+    void createStory_shouldShowUpInTheAuthorsCachedTray() {
+        when(storyRepository.findActiveStoriesByUserIdIn(anyCollection(), any())).thenReturn(List.of());
+        assertThat(storyService.getStoryTray(List.of("alice"))).isEmpty();
+
+        Story created = storyService.createStory("alice", Post.MediaUrl.builder()
+                .url("https://s3.example.com/story.jpg")
+                .type(Post.MediaType.IMAGE)
+                .build());
+        when(storyRepository.findActiveStoriesByUserIdIn(anyCollection(), any())).thenReturn(List.of(created));
+
+        assertThat(storyService.getStoryTray(List.of("alice"))).containsKey("alice");
+    }
+
+    @Test
+    void deleteStory_shouldEvictTheAuthorsCachedTray() {
+        Story story = story("a1", "alice", LocalDateTime.now());
+        when(storyRepository.findActiveStoriesByUserIdIn(anyCollection(), any())).thenReturn(List.of(story));
+        storyService.getStoryTray(List.of("alice"));
+        when(storyRepository.findById("a1")).thenReturn(Optional.of(story));
+
+        storyService.deleteStory("a1");
+        when(storyRepository.findActiveStoriesByUserIdIn(anyCollection(), any())).thenReturn(List.of());
+
+        assertThat(storyService.getStoryTray(List.of("alice"))).isEmpty();
+    }
+
+    @Test
+    void recordStoryView_shouldBufferViewsOfActiveStories() {
+        when(storyRepository.existsActiveStory(eq("a1"), any(LocalDateTime.class))).thenReturn(true);
+
+        storyService.recordStoryView("a1", "bob");
+
+        verify(storyViewBuffer).record("a1", "bob");
+    }
+
+    @Test
+    void recordStoryView_unknownOrExpiredStory_shouldThrowAndBufferNothing() {
+        when(storyRepository.existsActiveStory(eq("gone"), any(LocalDateTime.class))).thenReturn(false);
+
+        assertThatThrownBy(() -> storyService.recordStoryView("gone", "bob"))
+                .isInstanceOf(StoryNotFoundException.class);
+        verifyNoInteractions(storyViewBuffer);
+    }
+
+    private static boolean containsOnly(Collection<String> ids, String userId) {
+        return ids.size() == 1 && ids.contains(userId);
+    }
+
+    private static Story story(String id, String userId, LocalDateTime createdAt) {
+        return Story.builder()
+                .id(id)
+                .userId(userId)
+                .expiresAt(createdAt.plusHours(24))
+                .createdAt(createdAt)
+                .build();
+    }
+}
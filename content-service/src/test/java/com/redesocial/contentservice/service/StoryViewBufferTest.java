@@ -0,0 +1,249 @@
+package com.redesocial.contentservice.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.model.mongo.StoryView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.HyperLogLogOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StoryViewBuffer
+ */
+class StoryViewBufferTest {
+
+    private final List<Query> upserts = new ArrayList<>();
+    private final Map<String, Integer> increments = new HashMap<>();
+    private final Set<String> alreadyViewed = Set.of("s1:returning");
+    private final Map<String, String> hotFlags = new HashMap<>();
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations viewBulk;
+    private BulkOperations storyBulk;
+    private StringRedisTemplate redisTemplate;
+    private HyperLogLogOperations<String, String> sketchOps;
+    private StoryViewBuffer storyViewBuffer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mongoTemplate = Mockito.mock(MongoTemplate.class);
+        viewBulk = Mockito.mock(BulkOperations.class);
+        storyBulk = Mockito.mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(StoryView.class))).thenReturn(viewBulk);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Story.class))).thenReturn(storyBulk);
+
+        when(viewBulk.upsert(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            upserts.add(invocation.getArgument(0));
+            return viewBulk;
+        });
+        when(viewBulk.execute()).thenAnswer(invocation -> resultOfUpserts());
+        when(storyBulk.updateOne(any(Query.class), any(Update.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            Update update = invocation.getArgument(1);
+            Document inc = (Document) update.getUpdateObject().get("$inc");
+            increments.merge((String) query.getQueryObject().get("_id"), (Integer) inc.get("viewsCount"), Integer::sum);
+            return storyBulk;
+        });
+
+        // Every sketch update reports three new viewers
+        redisTemplate = Mockito.mock(StringRedisTemplate.class, invocation ->
+                "execute".equals(invocation.getMethod().getName()) ? 3L : RETURNS_DEFAULTS.answer(invocation));
+        ValueOperations<String, String> valueOps = Mockito.mock(ValueOperations.class);
+        sketchOps = Mockito.mock(HyperLogLogOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(redisTemplate.opsForHyperLogLog()).thenReturn(sketchOps);
+        // Stands in for the flags shared by all replicas
+        when(valueOps.multiGet(anyCollection())).thenAnswer(invocation -> {
+            List<String> values = new ArrayList<>();
+            for (Object key : invocation.<Collection<?>>getArgument(0)) {
+                values.add(hotFlags.get(key));
+            }
+            return values;
+        });
+        when(valueOps.setIfAbsent(anyString(), anyString(), anyLong(), any(TimeUnit.class))).thenAnswer(invocation ->
+                hotFlags.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        when(mongoTemplate.stream(any(Query.class), eq(StoryView.class))).thenAnswer(invocation ->
+                Stream.of(StoryView.builder().storyId("s1").viewerId("returning").build()));
+
+        storyViewBuffer = new StoryViewBuffer(mongoTemplate, redisTemplate, new SimpleMeterRegistry());
+        storyViewBuffer.registerMetrics();
+    }
+
+    @Test
+    void flush_shouldUpsertEachViewOnceAndCountOnlyInsertedViews() {
+        storyViewBuffer.record("s1", "new");
+        storyViewBuffer.record("s1", "new");
+        storyViewBuffer.record("s1", "returning");
+        storyViewBuffer.record("s2", "other");
+        assertThat(storyViewBuffer.getPendingViews()).isEqualTo(3);
+
+        storyViewBuffer.flush();
+
+        assertThat(upserts).hasSize(3);
+        verify(viewBulk, times(1)).execute();
+        assertThat(increments).containsEntry("s1", 1).containsEntry("s2", 1);
+        assertThat(storyViewBuffer.getPendingViews()).isZero();
+    }
+
+    @Test
+    void flush_whenNothingIsBuffered_shouldNotTouchMongo() {
+        storyViewBuffer.flush();
+
+        verifyNoInteractions(viewBulk, storyBulk);
+    }
+
+    @Test
+    void flush_shouldRequeueFailedViewsButNotDuplicates() {
+        BulkWriteResult partial = Mockito.mock(BulkWriteResult.class);
+        when(partial.getUpserts()).thenReturn(List.of());
+        BulkOperationException failure = Mockito.mock(BulkOperationException.class);
+        when(failure.getResult()).thenReturn(partial);
+        when(failure.getErrors()).thenReturn(List.of(
+                new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0),
+                new BulkWriteError(91, "shutting down", new BsonDocument(), 1)));
+        when(viewBulk.execute()).thenThrow(failure);
+
+        storyViewBuffer.record("s1", "a");
+        storyViewBuffer.record("s1", "b");
+        storyViewBuffer.flush();
+
+        assertThat(storyViewBuffer.getPendingViews()).isEqualTo(1);
+        verifyNoInteractions(storyBulk);
+    }
+
+    @Test
+    void flush_whenCountUpdateFails_shouldRetryItOnTheNextFlush() {
+        when(storyBulk.execute()).thenThrow(new RuntimeException("primary stepped down")).thenReturn(null);
+
+        storyViewBuffer.record("s1", "new");
+        storyViewBuffer.flush();
+        storyViewBuffer.flush();
+
+        assertThat(upserts).hasSize(1);
+        assertThat(increments).containsEntry("s1", 2);
+        verify(storyBulk, times(2)).execute();
+    }
+
+    @Test
+    void flush_hotStory_shouldCountViewersInTheSketchInsteadOfMongo() {
+        ReflectionTestUtils.setField(storyViewBuffer, "hotThreshold", 3);
+        storyViewBuffer.record("s1", "a");
+        storyViewBuffer.record("s1", "b");
+        storyViewBuffer.record("s1", "c");
+        storyViewBuffer.record("s2", "d");
+
+        storyViewBuffer.flush();
+
+        assertThat(storyViewBuffer.isHot("s1")).isTrue();
+        assertThat(storyViewBuffer.isHot("s2")).isFalse();
+        assertThat(upserts).hasSize(1);
+        assertThat(increments).containsEntry("s1", 3).containsEntry("s2", 1);
+        assertThat(hotFlags).containsKey(StoryViewBuffer.HOT_KEY_PREFIX + "s1");
+    }
+
+    @Test
+    void flush_whenStoryTurnsHot_shouldSeedTheSketchWithViewersStoredSoFar() {
+        ReflectionTestUtils.setField(storyViewBuffer, "hotThreshold", 2);
+        storyViewBuffer.record("s1", "a");
+        storyViewBuffer.record("s1", "returning");
+
+        storyViewBuffer.flush();
+
+        InOrder inOrder = inOrder(sketchOps, redisTemplate);
+        inOrder.verify(sketchOps).add(StoryViewBuffer.VIEWERS_KEY_PREFIX + "s1", "returning");
+        inOrder.verify(redisTemplate).execute(any(RedisScript.class), any(List.class), any(Object[].class));
+    }
+
+    @Test
+    void flush_storyFlaggedHotByAnotherReplica_shouldGoStraightToTheSketch() {
+        hotFlags.put(StoryViewBuffer.HOT_KEY_PREFIX + "s1", String.valueOf(System.currentTimeMillis() + 60_000));
+        storyViewBuffer.record("s1", "a");
+
+        storyViewBuffer.flush();
+
+        assertThat(storyViewBuffer.isHot("s1")).isTrue();
+        assertThat(upserts).isEmpty();
+        assertThat(increments).containsEntry("s1", 3);
+        verifyNoInteractions(sketchOps);
+    }
+
+    @Test
+    void flush_whenSketchIsUnavailable_shouldFallBackToExactWrites() {
+        ReflectionTestUtils.setField(storyViewBuffer, "hotThreshold", 2);
+        doThrow(new RuntimeException("redis down")).when(redisTemplate)
+                .execute(any(RedisScript.class), any(List.class), any(Object[].class));
+        storyViewBuffer.record("s1", "a");
+        storyViewBuffer.record("s1", "b");
+
+        storyViewBuffer.flush();
+
+        assertThat(upserts).hasSize(2);
+        assertThat(increments).containsEntry("s1", 2);
+    }
+
+    @Test
+    void flush_whenSketchFailsPartway_shouldWriteOnlyTheViewersItMissedExactly() {
+        ReflectionTestUtils.setField(storyViewBuffer, "flushBatchSize", 5000);
+        hotFlags.put(StoryViewBuffer.HOT_KEY_PREFIX + "s1", String.valueOf(System.currentTimeMillis() + 60_000));
+        doReturn(1000L).doThrow(new RuntimeException("redis down")).when(redisTemplate)
+                .execute(any(RedisScript.class), any(List.class), any(Object[].class));
+        for (int i = 0; i < 1500; i++) {
+            storyViewBuffer.record("s1", "viewer" + i);
+        }
+
+        storyViewBuffer.flush();
+
+        // The first thousand are counted by the sketch alone
+        assertThat(upserts).hasSize(500);
+        assertThat(increments).containsEntry("s1", 1500);
+    }
+
+    // Acts as the unique index: views already stored are matched, others inserted
+    private BulkWriteResult resultOfUpserts() {
+        List<BulkWriteUpsert> inserted = new ArrayList<>();
+        for (int i = 0; i < upserts.size(); i++) {
+            Document query = upserts.get(i).getQueryObject();
+            if (!alreadyViewed.contains(query.get("storyId") + ":" + query.get("viewerId"))) {
+                inserted.add(new BulkWriteUpsert(i, new BsonString("id" + i)));
+            }
+        }
+        BulkWriteResult result = Mockito.mock(BulkWriteResult.class);
+        when(result.getUpserts()).thenReturn(inserted);
+        return result;
+    }
+}
@@ -0,0 +1,325 @@
+package com.redesocial.contentservice.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redesocial.contentservice.model.jpa.TranscodeJob;
+import com.redesocial.contentservice.model.mongo.Post;
+import com.redesocial.contentservice.model.mongo.Story;
+import com.redesocial.contentservice.repository.jpa.TranscodeJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TranscodeService, run against FakeTranscoder
+ */
+class TranscodeServiceTest {
+
+    private static final String DIGEST = "ab".repeat(32);
+    private static final String SOURCE_KEY = "media/videos/user1/clip";
+    private static final String SOURCE_URL = "https://bucket.s3.amazonaws.com/" + SOURCE_KEY;
+
+    private TranscodeJobRepository transcodeJobRepository;
+    private S3Client s3Client;
+    private MongoTemplate mongoTemplate;
+    private PostCache postCache;
+    private SimpleMeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> uploadedKeys = new ArrayList<>();
+
+    private FakeTranscoder transcoder;
+    private TranscodeService transcodeService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        transcodeJobRepository = Mockito.mock(TranscodeJobRepository.class);
+        s3Client = Mockito.mock(S3Client.class);
+        mongoTemplate = Mockito.mock(MongoTemplate.class);
+        postCache = Mockito.mock(PostCache.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        when(s3Client.getObject(any(GetObjectRequest.class), any(Path.class))).thenAnswer(invocation -> {
+            Files.write(invocation.<Path>getArgument(1), "original video".getBytes());
+            return GetObjectResponse.builder().build();
+        });
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            uploadedKeys.add(invocation.<PutObjectRequest>getArgument(0).key());
+            return PutObjectResponse.builder().build();
+        });
+        when(transcodeJobRepository.finish(anyLong(), anyInt(), any(), any(), any(), any(), any())).thenReturn(1);
+        when(transcodeJobRepository.renewLease(anyLong(), anyInt(), any(), any(), any())).thenReturn(1);
+
+        useTranscoder(new FakeTranscoder(1280, 720, 12.4));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        transcodeService.shutdown();
+    }
+
+    @Test
+    void process_landscapeVideo_shouldRenderRungsUpToSourceAndCopyTheRest() throws Exception {
+        when(mongoTemplate.find(any(Query.class), eq(Post.class)))
+                .thenReturn(List.of(Post.builder().id("post1").build(), Post.builder().id("share1").build()));
+
+        transcodeService.process(job(1));
+
+        // Never upscaled: the 1080p key gets a copy of the 720p rendition
+        assertThat(transcoder.getTranscodedSides()).containsExactly(480, 720);
+        assertThat(uploadedKeys).containsExactly(
+                "media/renditions/" + DIGEST + "/480p.mp4",
+                "media/renditions/" + DIGEST + "/720p.mp4");
+        verify(s3Client).copyObject(any(Consumer.class));
+
+        List<Post.MediaVariant> variants = recordedRenditions(TranscodeJob.Status.COMPLETED);
+        assertThat(variants).extracting(Post.MediaVariant::getWidth).containsExactly(854, 1280);
+        assertThat(variants).extracting(Post.MediaVariant::getHeight).containsExactly(480, 720);
+        assertThat(variants.get(0).getUrl())
+                .isEqualTo("https://bucket.s3.amazonaws.com/media/renditions/" + DIGEST + "/480p.mp4");
+
+        verify(mongoTemplate).updateMulti(any(Query.class), any(Update.class), eq(Post.class));
+        verify(mongoTemplate).updateMulti(any(Query.class), any(Update.class), eq(Story.class));
+        verify(postCache).evict("post1");
+        verify(postCache).evict("share1");
+        assertThat(meterRegistry.get("content.media.transcode.duration").tag("outcome", "completed").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void process_portraitVideo_shouldScaleTheShorterSide() throws Exception {
+        useTranscoder(new FakeTranscoder(1080, 1920, 8.0));
+
+        transcodeService.process(job(1));
+
+        assertThat(transcoder.getTranscodedSides()).containsExactly(480, 720, 1080);
+        List<Post.MediaVariant> variants = recordedRenditions(TranscodeJob.Status.COMPLETED);
+        assertThat(variants).extracting(Post.MediaVariant::getWidth).containsExactly(480, 720, 1080);
+        assertThat(variants).extracting(Post.MediaVariant::getHeight).containsExactly(854, 1280, 1920);
+        verify(s3Client, never()).copyObject(any(Consumer.class));
+    }
+
+    @Test
+    void process_sourceBelowSmallestRung_shouldStillProduceOneRendition() throws Exception {
+        useTranscoder(new FakeTranscoder(426, 240, 3.0));
+
+        transcodeService.process(job(1));
+
+        assertThat(transcoder.getTranscodedSides()).containsExactly(240);
+        assertThat(recordedRenditions(TranscodeJob.Status.COMPLETED)).hasSize(1);
+        verify(s3Client, times(2)).copyObject(any(Consumer.class));
+    }
+
+    @Test
+    void process_whenTranscodeFails_shouldRequeueWithBackoff() {
+        transcoder.failWith(new IOException("Invalid data found when processing input"));
+
+        transcodeService.process(job(1));
+
+        verify(transcodeJobRepository).finish(eq(1L), eq(1), eq(TranscodeJob.Status.PENDING), isNull(),
+                notNull(), eq("Invalid data found when processing input"), any(LocalDateTime.class));
+        verifyNoInteractions(mongoTemplate);
+        assertThat(meterRegistry.get("content.media.transcode.retried").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void process_whenLastAttemptFails_shouldFailTheJob() {
+        transcoder.failWith(new IOException("Invalid data found when processing input"));
+
+        transcodeService.process(job(3));
+
+        verify(transcodeJobRepository).finish(eq(1L), eq(3), eq(TranscodeJob.Status.FAILED), isNull(),
+                isNull(), anyString(), any(LocalDateTime.class));
+        assertThat(meterRegistry.get("content.media.transcode.failed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void process_whenWriteBackFails_shouldKeepTheJobCompleted() throws Exception {
+        when(mongoTemplate.find(any(Query.class), eq(Post.class))).thenThrow(new RuntimeException("primary stepped down"));
+
+        transcodeService.process(job(1));
+
+        assertThat(recordedRenditions(TranscodeJob.Status.COMPLETED)).hasSize(2);
+        verify(transcodeJobRepository, times(1)).finish(anyLong(), anyInt(), any(), any(), any(), any(), any());
+        assertThat(meterRegistry.get("content.media.transcode.writeback.failed").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("content.media.transcode.duration").tag("outcome", "completed").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void process_whenReclaimedByAnotherWorker_shouldNotWriteBack() {
+        when(transcodeJobRepository.finish(anyLong(), anyInt(), any(), any(), any(), any(), any())).thenReturn(0);
+
+        transcodeService.process(job(1));
+
+        verifyNoInteractions(mongoTemplate, postCache);
+    }
+
+    @Test
+    void process_shouldRenewTheLeaseBeforeEachRung() {
+        useTranscoder(new FakeTranscoder(1080, 1920, 8.0));
+
+        transcodeService.process(job(1));
+
+        verify(transcodeJobRepository, times(3)).renewLease(eq(1L), eq(1), eq(TranscodeJob.Status.RUNNING),
+                any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void process_whenLeaseIsLostBetweenRungs_shouldStopWithoutRecordingAnOutcome() {
+        useTranscoder(new FakeTranscoder(1080, 1920, 8.0));
+        when(transcodeJobRepository.renewLease(anyLong(), anyInt(), any(), any(), any())).thenReturn(1, 0);
+
+        transcodeService.process(job(1));
+
+        assertThat(transcoder.getTranscodedSides()).containsExactly(480);
+        verify(transcodeJobRepository, never()).finish(anyLong(), anyInt(), any(), any(), any(), any(), any());
+        verifyNoInteractions(mongoTemplate, postCache);
+        assertThat(meterRegistry.get("content.media.transcode.duration").tag("outcome", "superseded").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void claim_shouldLeaseDueJobsAndFailThoseOutOfAttempts() {
+        TranscodeJob fresh = job(0);
+        fresh.setStatus(TranscodeJob.Status.PENDING);
+        TranscodeJob abandoned = job(3);
+        abandoned.setId(2L);
+        when(transcodeJobRepository.lockRunnable(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(fresh, abandoned));
+
+        List<TranscodeJob> claimed = transcodeService.claim(2);
+
+        assertThat(claimed).containsExactly(fresh);
+        assertThat(fresh.getStatus()).isEqualTo(TranscodeJob.Status.RUNNING);
+        assertThat(fresh.getAttempts()).isEqualTo(1);
+        assertThat(fresh.getLeaseUntil()).isAfter(LocalDateTime.now().plusMinutes(29));
+        assertThat(abandoned.getStatus()).isEqualTo(TranscodeJob.Status.FAILED);
+        assertThat(abandoned.getLeaseUntil()).isNull();
+    }
+
+    @Test
+    void poll_shouldClaimNoMoreJobsThanCoresAllow() throws InterruptedException {
+        // One job per core budget: 64 threads per job leaves room for a single job
+        transcodeService.shutdown();
+        transcodeService = newService();
+        ReflectionTestUtils.setField(transcodeService, "maxConcurrency", 0);
+        ReflectionTestUtils.setField(transcodeService, "threadsPerJob", 64);
+        transcodeService.start();
+
+        transcodeService.poll();
+
+        verify(transcodeJobRepository).lockRunnable(any(LocalDateTime.class), eq(1));
+    }
+
+    @Test
+    void attachRenditions_shouldFillCompletedVideosOnly() throws Exception {
+        Post.MediaVariant rendition = Post.MediaVariant.builder()
+                .url("https://bucket.s3.amazonaws.com/media/renditions/" + DIGEST + "/480p.mp4")
+                .width(854)
+                .height(480)
+                .format("mp4")
+                .build();
+        TranscodeJob completed = job(1);
+        completed.setStatus(TranscodeJob.Status.COMPLETED);
+        completed.setRenditions(objectMapper.writeValueAsString(List.of(rendition)));
+        when(transcodeJobRepository.findBySourceKeyInAndStatus(any(), eq(TranscodeJob.Status.COMPLETED)))
+                .thenReturn(List.of(completed));
+        Post.MediaUrl video = Post.MediaUrl.builder().url(SOURCE_URL).type(Post.MediaType.VIDEO).build();
+        Post.MediaUrl image = Post.MediaUrl.builder()
+                .url("https://bucket.s3.amazonaws.com/media/images/user1/photo")
+                .type(Post.MediaType.IMAGE)
+                .build();
+
+        boolean changed = transcodeService.attachRenditions(List.of(video, image));
+
+        assertThat(changed).isTrue();
+        assertThat(video.getVariants()).containsExactly(rendition);
+        assertThat(image.getVariants()).isNull();
+    }
+
+    @Test
+    void attachRenditions_withoutVideos_shouldNotQuery() {
+        boolean changed = transcodeService.attachRenditions(List.of(
+                Post.MediaUrl.builder().url("https://elsewhere.example/video.mp4").type(Post.MediaType.VIDEO).build()));
+
+        assertThat(changed).isFalse();
+        verifyNoInteractions(transcodeJobRepository);
+    }
+
+    private void useTranscoder(FakeTranscoder fake) {
+        if (transcodeService != null) {
+            try {
+                transcodeService.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        transcoder = fake;
+        transcodeService = newService();
+        ReflectionTestUtils.setField(transcodeService, "maxConcurrency", 2);
+        transcodeService.start();
+    }
+
+    private TranscodeService newService() {
+        TransactionTemplate transactionTemplate = Mockito.mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        TranscodeService service = new TranscodeService(transcodeJobRepository, transcoder, s3Client,
+                new S3MultipartUploader(s3Client, meterRegistry), mongoTemplate, postCache, objectMapper,
+                transactionTemplate, meterRegistry);
+        ReflectionTestUtils.setField(service, "bucketName", "bucket");
+        return service;
+    }
+
+    private List<Post.MediaVariant> recordedRenditions(TranscodeJob.Status status) throws IOException {
+        ArgumentCaptor<String> renditions = ArgumentCaptor.forClass(String.class);
+        verify(transcodeJobRepository).finish(eq(1L), anyInt(), eq(status), renditions.capture(), isNull(), isNull(),
+                any(LocalDateTime.class));
+        return objectMapper.readValue(renditions.getValue(), new TypeReference<List<Post.MediaVariant>>() { });
+    }
+
+    private static TranscodeJob job(int attempts) {
+        return TranscodeJob.builder()
+                .id(1L)
+                .sourceKey(SOURCE_KEY)
+                .digest(DIGEST)
+                .status(TranscodeJob.Status.RUNNING)
+                .attempts(attempts)
+                .leaseUntil(LocalDateTime.now().plusMinutes(30))
+                .build();
+    }
+}
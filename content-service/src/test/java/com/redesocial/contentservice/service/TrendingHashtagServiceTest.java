@@ -0,0 +1,227 @@
+package com.redesocial.contentservice.service;
+
+import com.redesocial.contentservice.dto.TrendingHashtag;
+import com.redesocial.contentservice.dto.TrendingHashtagsResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TrendingHashtagService
+ */
+class TrendingHashtagServiceTest {
+
+    private static final long NOW = 1_714_564_800_000L;
+
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private final Map<String, Double> instances = new HashMap<>();
+    private StringRedisTemplate redisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private TrendingHashtagService trendingHashtagService;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = sharedRedis();
+        meterRegistry = new SimpleMeterRegistry();
+        trendingHashtagService = new TrendingHashtagService(redisTemplate, meterRegistry);
+        trendingHashtagService.registerMetrics();
+    }
+
+    @Test
+    void getTrending_shouldRankHashtagsByCountInWindow() {
+        record(trendingHashtagService, NOW, "java", 5);
+        record(trendingHashtagService, NOW, "spring", 3);
+        record(trendingHashtagService, NOW, "kafka", 1);
+
+        trendingHashtagService.refresh(NOW);
+        TrendingHashtagsResponse response = trendingHashtagService.getTrending("1h", 10);
+
+        assertThat(response.getWindow()).isEqualTo("1h");
+        assertThat(response.getComputedAt()).isNotNull();
+        assertThat(response.getHashtags()).extracting(TrendingHashtag::getHashtag)
+                .containsExactly("java", "spring", "kafka");
+        assertThat(response.getHashtags()).extracting(TrendingHashtag::getCount)
+                .containsExactly(5L, 3L, 1L);
+    }
+
+    @Test
+    void getTrending_shouldOnlyCountBucketsInsideWindow() {
+        record(trendingHashtagService, NOW - TimeUnit.HOURS.toMillis(3), "carnaval", 10);
+        record(trendingHashtagService, NOW - TimeUnit.HOURS.toMillis(12), "eleicoes", 20);
+        record(trendingHashtagService, NOW, "futebol", 2);
+
+        trendingHashtagService.refresh(NOW);
+
+        assertThat(hashtags("1h")).containsExactly("futebol");
+        assertThat(hashtags("6h")).containsExactly("carnaval", "futebol");
+        assertThat(hashtags("24h")).containsExactly("eleicoes", "carnaval", "futebol");
+    }
+
+    @Test
+    void refresh_shouldDropBucketsOlderThanADay() {
+        record(trendingHashtagService, NOW - TimeUnit.HOURS.toMillis(25), "ontem", 10);
+
+        trendingHashtagService.refresh(NOW);
+
+        assertThat(hashtags("24h")).isEmpty();
+    }
+
+    @Test
+    void getTrending_shouldLimitResults() {
+        record(trendingHashtagService, NOW, "a", 3);
+        record(trendingHashtagService, NOW, "b", 2);
+        record(trendingHashtagService, NOW, "c", 1);
+        trendingHashtagService.refresh(NOW);
+
+        assertThat(trendingHashtagService.getTrending("1h", 2).getHashtags()).hasSize(2);
+        assertThat(trendingHashtagService.getTrending("1h", 0).getHashtags()).hasSize(1);
+    }
+
+    @Test
+    void getTrending_beforeFirstRefresh_shouldReturnEmptyRanking() {
+        TrendingHashtagsResponse response = trendingHashtagService.getTrending("24h", 10);
+
+        assertThat(response.getWindow()).isEqualTo("24h");
+        assertThat(response.getHashtags()).isEmpty();
+    }
+
+    @Test
+    void getTrending_withUnknownWindow_shouldThrow() {
+        assertThatThrownBy(() -> trendingHashtagService.getTrending("2d", 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("2d");
+    }
+
+    @Test
+    void getTrending_shouldKeepFrequentTagAmongManyRareOnes() {
+        for (int i = 0; i < 5000; i++) {
+            record(trendingHashtagService, NOW, "rare" + i, 1);
+        }
+        record(trendingHashtagService, NOW, "viral", 50);
+
+        trendingHashtagService.refresh(NOW);
+
+        List<TrendingHashtag> top = trendingHashtagService.getTrending("1h", 1).getHashtags();
+        assertThat(top).extracting(TrendingHashtag::getHashtag).containsExactly("viral");
+        assertThat(top.get(0).getCount()).isBetween(50L, 60L);
+    }
+
+    @Test
+    void refresh_shouldMergeSnapshotsOfOtherReplicas() {
+        TrendingHashtagService other = new TrendingHashtagService(redisTemplate, meterRegistry);
+        record(trendingHashtagService, NOW, "java", 2);
+        record(other, NOW, "java", 2);
+        record(other, NOW, "kotlin", 3);
+
+        trendingHashtagService.refresh(NOW);
+        other.refresh(NOW);
+        trendingHashtagService.refresh(NOW + 1000);
+
+        List<TrendingHashtag> merged = trendingHashtagService.getTrending("1h", 10).getHashtags();
+        assertThat(merged).extracting(TrendingHashtag::getHashtag).containsExactly("java", "kotlin");
+        assertThat(merged).extracting(TrendingHashtag::getCount).containsExactly(4L, 3L);
+    }
+
+    @Test
+    void refresh_shouldOnlyPublishChangedBuckets() {
+        record(trendingHashtagService, NOW, "java", 1);
+
+        trendingHashtagService.refresh(NOW);
+        trendingHashtagService.refresh(NOW + 1000);
+
+        verify(redisTemplate.opsForHash(), times(1)).putAll(anyString(), anyMap());
+    }
+
+    @Test
+    void refresh_whenRedisIsDown_shouldRankLocalCounts() {
+        StringRedisTemplate failing = Mockito.mock(StringRedisTemplate.class);
+        when(failing.opsForHash()).thenThrow(new RuntimeException("Redis down"));
+        when(failing.opsForZSet()).thenThrow(new RuntimeException("Redis down"));
+        TrendingHashtagService isolated = new TrendingHashtagService(failing, meterRegistry);
+        record(isolated, NOW, "java", 2);
+
+        isolated.refresh(NOW);
+
+        assertThat(isolated.getTrending("1h", 10).getHashtags()).extracting(TrendingHashtag::getHashtag)
+                .containsExactly("java");
+        assertThat(meterRegistry.get("content.hashtags.trending.snapshot.failures").counter().count()).isEqualTo(1.0);
+    }
+
+    private List<String> hashtags(String window) {
+        List<String> names = new ArrayList<>();
+        for (TrendingHashtag hashtag : trendingHashtagService.getTrending(window, 50).getHashtags()) {
+            names.add(hashtag.getHashtag());
+        }
+        return names;
+    }
+
+    private static void record(TrendingHashtagService service, long at, String hashtag, int times) {
+        for (int i = 0; i < times; i++) {
+            service.recordNow(List.of(hashtag), at);
+        }
+    }
+
+    /**
+     * A StringRedisTemplate mock whose hash and sorted-set operations are
+     * backed by maps, so several service instances can share snapshots.
+     */
+    @SuppressWarnings("unchecked")
+    private StringRedisTemplate sharedRedis() {
+        StringRedisTemplate template = Mockito.mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = Mockito.mock(HashOperations.class);
+        ZSetOperations<String, String> zSetOperations = Mockito.mock(ZSetOperations.class);
+        when(template.opsForHash()).thenReturn(hashOperations);
+        when(template.opsForZSet()).thenReturn(zSetOperations);
+
+        doAnswer(invocation -> {
+            hashes.computeIfAbsent(invocation.getArgument(0), key -> new HashMap<>())
+                    .putAll(invocation.getArgument(1));
+            return null;
+        }).when(hashOperations).putAll(anyString(), anyMap());
+        when(hashOperations.keys(anyString())).thenAnswer(invocation ->
+                new LinkedHashSet<Object>(hashes.getOrDefault(invocation.<String>getArgument(0), Map.of()).keySet()));
+        when(hashOperations.multiGet(anyString(), anyCollection())).thenAnswer(invocation -> {
+            Map<String, String> hash = hashes.getOrDefault(invocation.<String>getArgument(0), Map.of());
+            List<Object> values = new ArrayList<>();
+            for (Object field : invocation.<List<Object>>getArgument(1)) {
+                values.add(hash.get(field));
+            }
+            return values;
+        });
+        when(zSetOperations.add(anyString(), anyString(), anyDouble())).thenAnswer(invocation -> {
+            instances.put(invocation.getArgument(1), invocation.getArgument(2));
+            return true;
+        });
+        when(zSetOperations.rangeByScore(anyString(), anyDouble(), anyDouble())).thenAnswer(invocation -> {
+            double min = invocation.getArgument(1);
+            Set<String> members = new LinkedHashSet<>();
+            instances.forEach((member, score) -> {
+                if (score >= min) {
+                    members.add(member);
+                }
+            });
+            return members;
+        });
+        return template;
+    }
+}
@@ -0,0 +1,51 @@
+package com.redesocial.contentservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for BloomFilter
+ */
+class BloomFilterTest {
+    
+    @Test
+    void mightContain_shouldNeverReturnFalseForInsertedValues() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("user-" + i);
+        }
+        
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain("user-" + i)).isTrue();
+        }
+    }
+    
+    @Test
+    void mightContain_shouldKeepFalsePositiveRateNearTarget() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("user-" + i);
+        }
+        
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        
+        assertThat(falsePositives).isLessThan(300); // target is ~100 (1%)
+    }
+    
+    @Test
+    void isSaturated_shouldTurnTrueWhenCapacityIsExceeded() {
+        BloomFilter filter = new BloomFilter(2, 0.01);
+        filter.put("a");
+        filter.put("b");
+        assertThat(filter.isSaturated()).isFalse();
+        
+        filter.put("c");
+        assertThat(filter.isSaturated()).isTrue();
+    }
+}
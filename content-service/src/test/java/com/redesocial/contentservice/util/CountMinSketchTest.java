@@ -0,0 +1,93 @@
+package com.redesocial.contentservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CountMinSketch
+ */
+class CountMinSketchTest {
+    
+    @Test
+    void estimate_shouldNeverUnderCount() {
+        CountMinSketch sketch = new CountMinSketch(256, 4);
+        for (int i = 0; i < 2000; i++) {
+            sketch.add("tag" + (i % 500), 1);
+        }
+        
+        for (int i = 0; i < 500; i++) {
+            assertThat(sketch.estimate("tag" + i)).isGreaterThanOrEqualTo(4);
+        }
+        assertThat(sketch.getTotal()).isEqualTo(2000);
+    }
+    
+    @Test
+    void estimate_shouldBeExactWithoutCollisions() {
+        CountMinSketch sketch = new CountMinSketch(2048, 4);
+        sketch.add("java", 7);
+        sketch.add("spring", 2);
+        
+        assertThat(sketch.estimate("java")).isEqualTo(7);
+        assertThat(sketch.estimate("spring")).isEqualTo(2);
+        assertThat(sketch.estimate("kotlin")).isZero();
+    }
+    
+    @Test
+    void estimate_shouldStayCloseForHeavyHitterAmongNoise() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (int i = 0; i < 10000; i++) {
+            sketch.add("noise" + i, 1);
+        }
+        sketch.add("viral", 1000);
+        
+        // Error bound is e * total / width, about 29 here
+        assertThat(sketch.estimate("viral")).isBetween(1000L, 1029L);
+    }
+    
+    @Test
+    void merge_shouldAddCounts() {
+        CountMinSketch first = new CountMinSketch(512, 3);
+        CountMinSketch second = new CountMinSketch(512, 3);
+        first.add("ação", 3);
+        second.add("ação", 4);
+        second.add("verão", 1);
+        
+        first.merge(second);
+        
+        assertThat(first.estimate("ação")).isEqualTo(7);
+        assertThat(first.estimate("verão")).isEqualTo(1);
+        assertThat(first.getTotal()).isEqualTo(8);
+    }
+    
+    @Test
+    void merge_withDifferentShape_shouldThrow() {
+        CountMinSketch first = new CountMinSketch(512, 3);
+        CountMinSketch second = new CountMinSketch(256, 3);
+        
+        assertThatThrownBy(() -> first.merge(second)).isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    void toBytes_shouldRoundTripSparseAndDenseSketches() {
+        CountMinSketch sparse = new CountMinSketch(1024, 4);
+        sparse.add("java", 5);
+        CountMinSketch dense = new CountMinSketch(16, 2);
+        for (int i = 0; i < 200; i++) {
+            dense.add("tag" + i, 1);
+        }
+        
+        CountMinSketch sparseCopy = CountMinSketch.fromBytes(sparse.toBytes());
+        CountMinSketch denseCopy = CountMinSketch.fromBytes(dense.toBytes());
+        
+        assertThat(sparse.toBytes().length).isLessThan(1024 * 4);
+        assertThat(sparseCopy.estimate("java")).isEqualTo(5);
+        assertThat(sparseCopy.getTotal()).isEqualTo(5);
+        for (int i = 0; i < 200; i++) {
+            assertThat(denseCopy.estimate("tag" + i)).isEqualTo(dense.estimate("tag" + i));
+        }
+        assertThat(denseCopy.getWidth()).isEqualTo(16);
+        assertThat(denseCopy.getDepth()).isEqualTo(2);
+    }
+}
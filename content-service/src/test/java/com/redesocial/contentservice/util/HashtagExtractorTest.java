@@ -85,4 +85,91 @@ class HashtagExtractorTest {
         List<String> hashtags = HashtagExtractor.extractHashtags(content);
         assertThat(hashtags).containsExactly("spring_boot", "java_dev");
     }
+    
+    @Test
+    void extractHashtags_withAccentedPortugueseTags_shouldKeepWholeWord() {
+        String content = "Muita #ação e #emoção no #SãoJoão";
+        List<String> hashtags = HashtagExtractor.extractHashtags(content);
+        assertThat(hashtags).containsExactly("ação", "emoção", "sãojoão");
+    }
+    
+    @Test
+    void extractHashtags_withDecomposedAccents_shouldMatchPrecomposedForm() {
+        String decomposed = "#a\u00e7a\u0303o";
+        String content = "#ação " + decomposed;
+        List<String> hashtags = HashtagExtractor.extractHashtags(content);
+        assertThat(hashtags).containsExactly("ação");
+    }
+    
+    @Test
+    void extractHashtags_adjacentToEmoji_shouldStopAtEmoji() {
+        String content = "🔥#verão🔥 #praia\uFE0F #🎉 #️⃣";
+        List<String> hashtags = HashtagExtractor.extractHashtags(content);
+        assertThat(hashtags).containsExactly("verão", "praia");
+    }
+    
+    @Test
+    void extractHashtags_gluedToPrecedingWord_shouldBeIgnored() {
+        String content = "I code in C# and F#, see #dotnet";
+        List<String> hashtags = HashtagExtractor.extractHashtags(content);
+        assertThat(hashtags).containsExactly("dotnet");
+    }
+    
+    @Test
+    void extractHashtags_withFullWidthHashSign_shouldExtract() {
+        String content = "＃日本 and #Brasil";
+        List<String> hashtags = HashtagExtractor.extractHashtags(content);
+        assertThat(hashtags).containsExactly("日本", "brasil");
+    }
+    
+    @Test
+    void extractMentions_shouldIgnoreEmailAddresses() {
+        String content = "Thanks @Maria_Silva and @joão! Mail me at someone@example.com";
+        List<String> mentions = HashtagExtractor.extractMentions(content);
+        assertThat(mentions).containsExactly("maria_silva", "joão");
+    }
+    
+    @Test
+    void extract_shouldReturnHashtagsAndMentionsFromOnePass() {
+        String content = "@ana loved #java, @ANA too #Java";
+        HashtagExtractor.Tokens tokens = HashtagExtractor.extract(content);
+        assertThat(tokens.getHashtags()).containsExactly("java");
+        assertThat(tokens.getMentions()).containsExactly("ana");
+    }
+    
+    @Test
+    void extractHashtags_withManyDistinctAndRepeatedTags_shouldDeduplicateInOrder() {
+        StringBuilder content = new StringBuilder();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 500; i++) {
+                content.append("#tag").append(i).append(' ');
+            }
+        }
+        List<String> hashtags = HashtagExtractor.extractHashtags(content.toString());
+        assertThat(hashtags).hasSize(500);
+        assertThat(hashtags.get(0)).isEqualTo("tag0");
+        assertThat(hashtags.get(499)).isEqualTo("tag499");
+    }
+    
+    @Test
+    void extractHashtags_withSupplementaryCharacters_shouldDeduplicate() {
+        String content = "#𝒜lpha #𝒜LPHA #𝒜lpha";
+        List<String> hashtags = HashtagExtractor.extractHashtags(content);
+        assertThat(hashtags).hasSize(1);
+    }
+    
+    @Test
+    void normalizeHashtag_shouldMatchStoredForm() {
+        assertThat(HashtagExtractor.normalizeHashtag("#Java")).isEqualTo("java");
+        assertThat(HashtagExtractor.normalizeHashtag("AÇÃO")).isEqualTo("ação");
+        assertThat(HashtagExtractor.normalizeHashtag("a\u00e7a\u0303o")).isEqualTo("ação");
+    }
+    
+    @Test
+    void normalizeHashtag_withInvalidTag_shouldReturnNull() {
+        assertThat(HashtagExtractor.normalizeHashtag(null)).isNull();
+        assertThat(HashtagExtractor.normalizeHashtag("#")).isNull();
+        assertThat(HashtagExtractor.normalizeHashtag("two words")).isNull();
+        assertThat(HashtagExtractor.normalizeHashtag("tag🔥")).isNull();
+    }
 }
@@ -0,0 +1,39 @@
+package com.redesocial.contentservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for PageCursor
+ */
+class PageCursorTest {
+    
+    @Test
+    void decode_shouldRoundTripEncodedCursor() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123000000);
+        
+        PageCursor decoded = PageCursor.decode(new PageCursor(createdAt, "65f1c0a2e4b0a1b2c3d4e5f6").encode());
+        
+        assertThat(decoded.getCreatedAt()).isEqualTo(createdAt);
+        assertThat(decoded.getId()).isEqualTo("65f1c0a2e4b0a1b2c3d4e5f6");
+    }
+    
+    @Test
+    void encode_shouldBeUrlSafe() {
+        String cursor = new PageCursor(LocalDateTime.now(), "id/with+chars").encode();
+        
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+    
+    @Test
+    void decode_shouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> PageCursor.decode("%%%"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.decode("bm8tc2VwYXJhdG9y"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}